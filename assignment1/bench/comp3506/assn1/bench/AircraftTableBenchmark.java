@@ -0,0 +1,99 @@
+package comp3506.assn1.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.application.AirSpace;
+import comp3506.assn1.application.Aircraft;
+import comp3506.assn1.application.AircraftTable;
+import comp3506.assn1.application.ConflictDetector;
+import comp3506.assn1.application.OneSky;
+
+
+/**
+ * Compares full scans and conflict sweeps over Aircraft objects with the same operations over
+ * the columns of an AircraftTable, for a given number of aircraft spread over the OneSky 
+ * airspace. The scan counts the aircraft in a box covering about a tenth of the airspace.
+ * 
+ * Run with: mvn -Pbench verify -Djmh.args="AircraftTableBenchmark"
+ * 
+ * @author Howie L.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AircraftTableBenchmark {
+	
+	private static final long SEED = 3506;
+	private static final int MIN_X = 1000, MAX_X = 3000, MIN_Y = 0, MAX_Y = 1000;
+	private static final int MIN_ALTITUDE = 10000, MAX_ALTITUDE = 20000;
+	
+	@Param({"10000", "100000", "1000000"})
+	public int population;
+	
+	private Aircraft[] aircraft;
+	private AirSpace airSpace;
+	private AircraftTable table;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(SEED);
+		airSpace = new AirSpace(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING, 
+				new HashedCube<Aircraft>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING));
+		aircraft = new Aircraft[population];
+		for (int i = 0; i < population; i++) {
+			aircraft[i] = new Aircraft("BNE" + i, random.nextInt(OneSky.AUSTRALIA_WIDTH), 
+					random.nextInt(OneSky.AUSTRALIA_LENGTH), random.nextInt(OneSky.FLIGHT_CEILING * 1000), 
+					220 + random.nextInt(55), random.nextDouble() * 360);
+			airSpace.addAircraft(aircraft[i]);
+		}
+		table = AircraftTable.of(airSpace);
+	}
+	
+	@Benchmark
+	public int scanObjects() {
+		int count = 0;
+		for (Aircraft a : aircraft) {
+			if (a.getAirSpaceXCoord() >= MIN_X && a.getAirSpaceXCoord() <= MAX_X 
+					&& a.getAirSpaceYCoord() >= MIN_Y && a.getAirSpaceYCoord() <= MAX_Y 
+					&& a.getAltitude() >= MIN_ALTITUDE && a.getAltitude() <= MAX_ALTITUDE) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Benchmark
+	public int scanTable() {
+		return table.countWithin(MIN_X, MIN_Y, MIN_ALTITUDE, MAX_X, MAX_Y, MAX_ALTITUDE);
+	}
+	
+	@Benchmark
+	public int sweepObjects() {
+		return new ConflictDetector(airSpace).sweep().size();
+	}
+	
+	@Benchmark
+	public int sweepTable() {
+		return table.countConflicts(ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, 
+				ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+	}
+	
+}
@@ -0,0 +1,161 @@
+package comp3506.assn1.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.OctreeCube;
+import comp3506.assn1.adts.StripedCube;
+import comp3506.assn1.application.OneSky;
+
+
+/**
+ * Measures the single-cell operations of every Cube implementation, over the OneSky airspace
+ * holding a given number of aircraft. Aircraft are either spread over the whole airspace, or
+ * packed into a 32 km square so that most cells hold several aircraft. Each operation is made at
+ * the position of an aircraft in the cube, cycling through them in a random order.
+ * 
+ * Run with: mvn -Pbench verify -Djmh.args="CubeBenchmark -prof gc"
+ * 
+ * @author Howie L.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CubeBenchmark {
+	
+	private static final int DENSE_SIDE = 32;	// kilometres
+	private static final long SEED = 3506;
+	
+	@Param({"BoundedCube", "HashedCube", "OctreeCube", "StripedCube"})
+	public String implementation;
+	
+	@Param({"1000", "10000", "100000"})
+	public int population;
+	
+	@Param({"sparse", "dense"})
+	public String density;
+	
+	private Cube<Integer> cube;
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private int next = 0;
+	
+	@Setup
+	public void setUp() {
+		cube = newCube(implementation, OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING);
+		int width = density.equals("dense") ? DENSE_SIDE : OneSky.AUSTRALIA_WIDTH;
+		int length = density.equals("dense") ? DENSE_SIDE : OneSky.AUSTRALIA_LENGTH;
+		Random random = new Random(SEED);
+		xs = new int[population];
+		ys = new int[population];
+		zs = new int[population];
+		for (int i = 0; i < population; i++) {
+			xs[i] = random.nextInt(width);
+			ys[i] = random.nextInt(length);
+			zs[i] = random.nextInt(OneSky.FLIGHT_CEILING);
+			cube.add(xs[i], ys[i], zs[i], i);
+		}
+		for (int i = population - 1; i > 0; i--) {	// Visit the aircraft in a random order
+			int j = random.nextInt(i + 1);
+			swap(xs, i, j);
+			swap(ys, i, j);
+			swap(zs, i, j);
+		}
+	}
+	
+	/**
+	 * Add an aircraft and remove it again, so that the population stays the same.
+	 */
+	@Benchmark
+	public boolean addThenRemove() {
+		int i = nextAircraft();
+		Integer aircraft = -1 - i;
+		cube.add(xs[i], ys[i], zs[i], aircraft);
+		return cube.remove(xs[i], ys[i], zs[i], aircraft);
+	}
+	
+	@Benchmark
+	public Integer get() {
+		int i = nextAircraft();
+		return cube.get(xs[i], ys[i], zs[i]);
+	}
+	
+	@Benchmark
+	public IterableQueue<Integer> getAll() {
+		int i = nextAircraft();
+		return cube.getAll(xs[i], ys[i], zs[i]);
+	}
+	
+	@Benchmark
+	public boolean isMultipleElementsAt() {
+		int i = nextAircraft();
+		return cube.isMultipleElementsAt(xs[i], ys[i], zs[i]);
+	}
+	
+	/**
+	 * Remove the oldest aircraft of a cell and add it back, so that the population stays the same.
+	 */
+	@Benchmark
+	public boolean removeThenAdd() {
+		int i = nextAircraft();
+		Integer aircraft = cube.get(xs[i], ys[i], zs[i]);
+		boolean removed = cube.remove(xs[i], ys[i], zs[i], aircraft);
+		cube.add(xs[i], ys[i], zs[i], aircraft);
+		return removed;
+	}
+	
+	/**
+	 * Create an empty cube of the named implementation. BoundedCube stores its elements in a
+	 * RingBufferQueue, since a TraversableQueue is limited to 20000 elements.
+	 * 
+	 * @return A new cube.
+	 */
+	static Cube<Integer> newCube(String implementation, int length, int breadth, int height) {
+		switch (implementation) {
+		case "BoundedCube":
+			return new BoundedCube<>(length, breadth, height, 1024, 1 << 30);
+		case "HashedCube":
+			return new HashedCube<>(length, breadth, height);
+		case "OctreeCube":
+			return new OctreeCube<>(length, breadth, height);
+		case "StripedCube":
+			return new StripedCube<>(length, breadth, height);
+		default:
+			throw new IllegalArgumentException(implementation);
+		}
+	}
+	
+	private int nextAircraft() {
+		int i = next;
+		next = i + 1 == population ? 0 : i + 1;
+		return i;
+	}
+	
+	private static void swap(int[] values, int i, int j) {
+		int value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+	
+}
@@ -0,0 +1,141 @@
+package comp3506.assn1.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.OctreeCube;
+import comp3506.assn1.application.OneSky;
+
+
+/**
+ * Compares nearest neighbour and radius queries on an OctreeCube against a brute-force scan of
+ * every aircraft position, at 10k, 100k and 1M aircraft spread over the OneSky airspace. Each
+ * query is made at the position of an aircraft in the cube, cycling through them in a random
+ * order.
+ * 
+ * Run with: mvn -Pbench verify -Djmh.args="NearestNeighbourBenchmark"
+ * 
+ * @author Howie L.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestNeighbourBenchmark {
+	
+	private static final int K = 10;
+	private static final double RADIUS = 25;	// kilometres
+	private static final long SEED = 3506;
+	private static final int NUM_QUERIES = 1000;
+	
+	@Param({"10000", "100000", "1000000"})
+	public int population;
+	
+	private Cube<Integer> octree;
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private int[][] queries;
+	private int next = 0;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(SEED);
+		xs = new int[population];
+		ys = new int[population];
+		zs = new int[population];
+		octree = new OctreeCube<>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH, OneSky.FLIGHT_CEILING);
+		for (int i = 0; i < population; i++) {
+			xs[i] = random.nextInt(OneSky.AUSTRALIA_WIDTH);
+			ys[i] = random.nextInt(OneSky.AUSTRALIA_LENGTH);
+			zs[i] = random.nextInt(OneSky.FLIGHT_CEILING);
+			octree.add(xs[i], ys[i], zs[i], i);
+		}
+		queries = new int[NUM_QUERIES][];
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			int aircraft = random.nextInt(population);
+			queries[i] = new int[] {xs[aircraft], ys[aircraft], zs[aircraft]};
+		}
+	}
+	
+	@Benchmark
+	public IterableQueue<Integer> octreeNearest() {
+		int[] q = nextQuery();
+		return octree.getNearest(q[0], q[1], q[2], K);
+	}
+	
+	/**
+	 * @return Squared distance of the k-th nearest aircraft, found by scanning every aircraft.
+	 */
+	@Benchmark
+	public long bruteForceNearest() {
+		int[] q = nextQuery();
+		long[] best = new long[K];	// Sorted ascending
+		Arrays.fill(best, Long.MAX_VALUE);
+		for (int i = 0; i < xs.length; i++) {
+			long dx = xs[i] - q[0];
+			long dy = ys[i] - q[1];
+			long dz = zs[i] - q[2];
+			long distance = dx * dx + dy * dy + dz * dz;
+			if (distance < best[K - 1]) {
+				int j = K - 1;
+				while (j > 0 && best[j - 1] > distance) {
+					best[j] = best[j - 1];
+					j--;
+				}
+				best[j] = distance;
+			}
+		}
+		return best[K - 1];
+	}
+	
+	@Benchmark
+	public IterableQueue<Integer> octreeRadius() {
+		int[] q = nextQuery();
+		return octree.getWithinRadius(q[0], q[1], q[2], RADIUS);
+	}
+	
+	/**
+	 * @return Number of aircraft within the radius, found by scanning every aircraft.
+	 */
+	@Benchmark
+	public int bruteForceRadius() {
+		int[] q = nextQuery();
+		long limit = (long) Math.floor(RADIUS * RADIUS);
+		int count = 0;
+		for (int i = 0; i < xs.length; i++) {
+			long dx = xs[i] - q[0];
+			long dy = ys[i] - q[1];
+			long dz = zs[i] - q[2];
+			if (dx * dx + dy * dy + dz * dz <= limit) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private int[] nextQuery() {
+		int[] q = queries[next];
+		next = next + 1 == NUM_QUERIES ? 0 : next + 1;
+		return q;
+	}
+	
+}
@@ -0,0 +1,107 @@
+package comp3506.assn1.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.LockFreeQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+import comp3506.assn1.adts.TraversableQueue;
+
+
+/**
+ * Measures the throughput of every IterableQueue implementation, filling a queue with a given
+ * number of elements and draining it, or iterating over a full queue. Scores are per element,
+ * and the GC profiler's gc.alloc.rate.norm shows the bytes allocated per element.
+ * 
+ * Run with: mvn -Pbench verify -Djmh.args="QueueBenchmark -prof gc"
+ * 
+ * @author Howie L.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+	
+	private static final int SIZE = 20000;	// Largest number of elements a TraversableQueue holds
+	
+	@Param({"TraversableQueue", "RingBufferQueue", "LockFreeQueue"})
+	public String implementation;
+	
+	private Integer[] elements = new Integer[SIZE];
+	private IterableQueue<Integer> queue;
+	private IterableQueue<Integer> full;
+	
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < SIZE; i++) {
+			elements[i] = i;
+		}
+		queue = newQueue(implementation);
+		full = newQueue(implementation);
+		for (Integer element : elements) {
+			full.enqueue(element);
+		}
+	}
+	
+	/**
+	 * Fill the queue and drain it again, which leaves it empty for the next invocation.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public long enqueueThenDequeue() {
+		for (Integer element : elements) {
+			queue.enqueue(element);
+		}
+		long sum = 0;
+		for (int i = 0; i < SIZE; i++) {
+			sum += queue.dequeue();
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public long iterate() {
+		long sum = 0;
+		for (Integer element : full) {
+			sum += element;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Create an empty queue of the named implementation.
+	 * 
+	 * @return A new queue.
+	 */
+	private static IterableQueue<Integer> newQueue(String implementation) {
+		switch (implementation) {
+		case "TraversableQueue":
+			return new TraversableQueue<>();
+		case "RingBufferQueue":
+			return new RingBufferQueue<>();
+		case "LockFreeQueue":
+			return new LockFreeQueue<>();
+		default:
+			throw new IllegalArgumentException(implementation);
+		}
+	}
+	
+}
@@ -0,0 +1,152 @@
+package comp3506.assn1.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.VersionedCube;
+import comp3506.assn1.application.Aircraft;
+import comp3506.assn1.application.OneSky;
+
+
+/**
+ * Measures the write throughput of an airspace model of a steady population while reader
+ * threads continuously take and read whole-sky views. Each write places an aircraft and removes
+ * the one placed population writes earlier. Readers of a VersionedCube iterate over a snapshot
+ * without locking; readers of a HashedCube copy every aircraft while holding the lock the
+ * writer also takes, which is what a consistent view costs without versions. The writeAlone
+ * group is the baseline without readers.
+ * 
+ * Run with: mvn -Pbench verify -Djmh.args="SnapshotBenchmark"
+ * The number of readers can be changed with -tg, e.g. -Djmh.args="SnapshotBenchmark -tg 1,7".
+ * 
+ * @author Howie L.
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+	
+	private static final long SEED = 3506;
+	
+	@Param({"VersionedCube", "HashedCube"})
+	public String cube;
+	
+	@Param({"10000", "100000"})
+	public int population;
+	
+	private Cube<Aircraft> airSpaceMap;
+	private VersionedCube<Aircraft> versioned;		// airSpaceMap if it is a VersionedCube, else null
+	private Aircraft[] aircraft;		// Placed in turn, twice the population so each is removed before reuse
+	private int[] xCoords;
+	private int[] yCoords;
+	private int[] zCoords;
+	private int next = 0;				// Written by the writer thread only
+	
+	@Setup
+	public void setUp() {
+		if (cube.equals("VersionedCube")) {
+			versioned = new VersionedCube<Aircraft>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH,
+					OneSky.FLIGHT_CEILING);
+			airSpaceMap = versioned;
+		} else {
+			airSpaceMap = new HashedCube<Aircraft>(OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH,
+					OneSky.FLIGHT_CEILING);
+		}
+		Random random = new Random(SEED);
+		int n = population * 2;
+		aircraft = new Aircraft[n];
+		xCoords = new int[n];
+		yCoords = new int[n];
+		zCoords = new int[n];
+		for (int i = 0; i < n; i++) {
+			xCoords[i] = random.nextInt(OneSky.AUSTRALIA_WIDTH);
+			yCoords[i] = random.nextInt(OneSky.AUSTRALIA_LENGTH);
+			zCoords[i] = random.nextInt(OneSky.FLIGHT_CEILING);
+			aircraft[i] = new Aircraft("BNE" + i, xCoords[i], yCoords[i], zCoords[i] * 1000, 250, 90);
+		}
+		for (int i = 0; i < population; i++) {
+			place();
+		}
+	}
+	
+	@Benchmark
+	@Group("writeAlone")
+	@GroupThreads(1)
+	public boolean writeWithoutReaders() {
+		return place();
+	}
+	
+	@Benchmark
+	@Group("writeWhileReading")
+	@GroupThreads(1)
+	public boolean write() {
+		return place();
+	}
+	
+	@Benchmark
+	@Group("writeWhileReading")
+	@GroupThreads(3)
+	public int read() {
+		int count = 0;
+		if (versioned != null) {
+			for (Aircraft a : versioned.snapshot()) {
+				count += a.getAltitude();
+			}
+		} else {
+			IterableQueue<Aircraft> copy;
+			synchronized (airSpaceMap) {
+				copy = airSpaceMap.getWithin(0, 0, 0, OneSky.AUSTRALIA_WIDTH, OneSky.AUSTRALIA_LENGTH,
+						OneSky.FLIGHT_CEILING);
+			}
+			for (Aircraft a : copy) {
+				count += a.getAltitude();
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Place the next aircraft and remove the one placed population places earlier. Only the
+	 * HashedCube needs the lock, to keep its readers' copies consistent.
+	 * 
+	 * @return true if the aircraft removed was found.
+	 */
+	private boolean place() {
+		int n = aircraft.length;
+		int old = (next + population) % n;		// Placed population places ago
+		if (versioned != null) {
+			return placeAndRemove(next, old);
+		}
+		synchronized (airSpaceMap) {
+			return placeAndRemove(next, old);
+		}
+	}
+	
+	private boolean placeAndRemove(int i, int old) {
+		airSpaceMap.add(xCoords[i], yCoords[i], zCoords[i], aircraft[i]);
+		next = (i + 1) % aircraft.length;
+		return airSpaceMap.remove(xCoords[old], yCoords[old], zCoords[old], aircraft[old]);
+	}
+
+}
@@ -6,18 +6,27 @@ package comp3506.assn1.adts;
  * A bounded cube has a specified maximum size in each dimension.
  * The root of each dimension is indexed from zero.
  * 
- * Space complexity: O(n), since the private helper class accounts for 4*n, methods returning or
- * removing all elements account for 2*n, and the rest are constant.
+ * Space complexity: O(n), since the private helper class accounts for 6*n, the reverse index and
+ * removed tuples awaiting compaction account for 2*n, methods returning all elements account for n,
+ * and the rest are constant.
  * 
  * @author Howie L. 
  *
  * @param <T> The type of element held in the data structure.
  */
 public class BoundedCube<T> implements Cube<T> {
+	private static final int INITIAL_INDEX_CAPACITY = 16;		// Must be a power of two
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final int MIN_COMPACTION = 64;	// Fewest removed tuples worth copying the storage for
 	private IterableQueue<QuadTuple<T>> planesNCoords;
+	private QuadTuple<T>[] index;	// Reverse index from an element to the tuples holding it
+	private int liveCount = 0;		// Tuples held that have not been removed
+	private int removedCount = 0;	// Removed tuples still held by planesNCoords
 	private int max_X;
 	private int max_Y;
 	private int max_Z;
+	private int initialCapacity;	// Zero if airplanes are stored in a TraversableQueue
+	private int maxCapacity;
 	
 	/**
 	 * Default constructor of the BoundedCube CDT.
@@ -37,14 +46,42 @@ public class BoundedCube<T> implements Cube<T> {
 		this.max_X = length;
 		this.max_Y = breadth;
 		this.max_Z = height;
-		this.planesNCoords = new TraversableQueue<QuadTuple<T>>();
+		this.planesNCoords = newStorage();
+		this.index = newIndex(INITIAL_INDEX_CAPACITY);
+	}
+	
+	/**
+	 * Constructor of a BoundedCube CDT which stores its elements in a RingBufferQueue, so that
+	 * storing an element does not allocate a queue node and the number of elements is not limited
+	 * to 20000.
+	 * 
+	 * Time complexity: O(c), where c is the initial capacity.
+	 * 
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param initialCapacity Number of elements the cube can hold before its storage has to grow.
+	 * @param maxCapacity Maximum number of elements the cube can hold.
+	 * @throws IllegalArgumentException If provided dimension sizes or capacities are not positive, or
+	 *                                  the initial capacity exceeds the maximum.
+	 */
+	public BoundedCube(int length, int breadth, int height, int initialCapacity, int maxCapacity)
+			throws IllegalArgumentException {
+		this(length, breadth, height);
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.initialCapacity = initialCapacity;
+		this.maxCapacity = maxCapacity;
+		this.planesNCoords = newStorage();
 	}
 	
 	/**
 	 * A private helper data structure which stores an object and its three-dimensional 
 	 * coordinates in a tuple-like form. Note that the class does not provide x, y and
 	 * z value retrieval (get) functions because they are not necessary for implementing 
-	 * the parent class.
+	 * the parent class. A tuple is also a node of the reverse index chains, and is marked
+	 * as removed rather than taken out of the queue when its element is removed.
 	 * 
 	 * Space complexity: O(1)
 	 * 
@@ -57,6 +94,9 @@ public class BoundedCube<T> implements Cube<T> {
 		private int y_coord;
 		private int z_coord;
 		private T element;
+		private int hash;				// Spread hash code of the element
+		private boolean removed = false;
+		private QuadTuple<T> nextInIndex;	// Next tuple in the same reverse index chain
 		
 		/**
 		 * Default constructor of the helper CDT.
@@ -73,6 +113,7 @@ public class BoundedCube<T> implements Cube<T> {
 			setY(y);
 			setZ(z);
 			setT(t);
+			this.hash = hashOf(t);
 		}
 		
 		/**
@@ -130,6 +171,25 @@ public class BoundedCube<T> implements Cube<T> {
 			return this.element;
 		}
 		
+		/**
+		 * Time complexity: O(1)
+		 * 
+		 * @return true if the element of this tuple has been removed from the cube.
+		 */
+		public boolean isRemoved() {
+			return this.removed;
+		}
+		
+		/**
+		 * Mark the element of this tuple as removed, releasing it for garbage collection.
+		 * 
+		 * Time complexity: O(1)
+		 */
+		public void markRemoved() {
+			this.removed = true;
+			this.element = null;
+		}
+		
 		/**
 		 * Check if a set of coordinates match this tuple (1st-3rd entries).
 		 * 
@@ -147,13 +207,48 @@ public class BoundedCube<T> implements Cube<T> {
 			return false;
 		}
 		
+		/**
+		 * Time complexity: O(1)
+		 * 
+		 * @param x X coordinate
+		 * @param y Y coordinate
+		 * @param z Z coordinate
+		 * @return The squared straight-line distance between this tuple (1st-3rd entries) and (x, y, z).
+		 */
+		public long distanceSquared(int x, int y, int z) {
+			long dx = this.x_coord - x;
+			long dy = this.y_coord - y;
+			long dz = this.z_coord - z;
+			return dx * dx + dy * dy + dz * dz;
+		}
+		
+		/**
+		 * Check if this tuple (1st-3rd entries) lies inside a box, including its faces.
+		 * 
+		 * Time complexity: O(1)
+		 * 
+		 * @param x1 X coordinate of the lower corner
+		 * @param y1 Y coordinate of the lower corner
+		 * @param z1 Z coordinate of the lower corner
+		 * @param x2 X coordinate of the upper corner
+		 * @param y2 Y coordinate of the upper corner
+		 * @param z2 Z coordinate of the upper corner
+		 * @return true if inside
+		 */
+		public boolean coordsWithin(int x1, int y1, int z1, int x2, int y2, int z2) {
+			return x1 <= this.x_coord && this.x_coord <= x2
+					&& y1 <= this.y_coord && this.y_coord <= y2
+					&& z1 <= this.z_coord && this.z_coord <= z2;
+		}
+		
 	}
 	
 	/**
 	 * Add an element at a fixed position.
 	 * 
-	 * Time complexity: O(1), because validating coordinates, creating a tuple and
-	 * enqueuing all take constant time.
+	 * Time complexity: O(1) amortised, because validating coordinates, creating a tuple,
+	 * enqueuing and indexing it all take constant time, apart from occasionally growing the
+	 * reverse index or compacting the storage.
 	 * 
 	 * @param element The element to be added at the indicated position.
 	 * @param x X Coordinate of the position of the element.
@@ -165,7 +260,22 @@ public class BoundedCube<T> implements Cube<T> {
 	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
 		validCoords(x, y, z);
 		QuadTuple<T> tp = new QuadTuple<>(x, y, z, element);
-		planesNCoords.enqueue(tp);
+		try {
+			planesNCoords.enqueue(tp);
+		} catch (IllegalStateException e) {
+			if (removedCount == 0) {
+				throw e;
+			}
+			compact();	// The storage is only full of removed tuples
+			planesNCoords.enqueue(tp);
+		}
+		liveCount++;
+		if (liveCount > index.length * MAX_LOAD_FACTOR) {
+			resizeIndex(index.length * 2);
+		}
+		int i = indexFor(tp.hash, index.length);
+		tp.nextInIndex = index[i];
+		index[i] = tp;
 	}
 	
 	/**
@@ -184,7 +294,7 @@ public class BoundedCube<T> implements Cube<T> {
 	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
 		validCoords(x, y, z);
 		for (QuadTuple<T> tuple:planesNCoords) {
-			if (tuple.coordsMatch(x, y, z)) {
+			if (!tuple.isRemoved() && tuple.coordsMatch(x, y, z)) {
 				return tuple.getT();	// Return immediately once the oldest is found
 			}
 		}
@@ -206,9 +316,115 @@ public class BoundedCube<T> implements Cube<T> {
 	@Override
 	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
 		validCoords(x, y, z);
-		IterableQueue<T> planeQueue = new TraversableQueue<T>();
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		for (QuadTuple<T> tuple:planesNCoords) {
+			if (!tuple.isRemoved() && tuple.coordsMatch(x, y, z)) {
+				planeQueue.enqueue(tuple.getT());
+			}
+		}
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces.
+	 * 
+	 * Time complexity: O(n), because it needs to iterate through all airplanes to check whether
+	 * each of them is inside the box.
+	 * 
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validBox(x1, y1, z1, x2, y2, z2);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		for (QuadTuple<T> tuple:planesNCoords) {
+			if (!tuple.isRemoved() && tuple.coordsWithin(x1, y1, z1, x2, y2, z2)) {
+				planeQueue.enqueue(tuple.getT());
+			}
+		}
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 * 
+	 * Time complexity: O(n*log(k)), because it needs to iterate through all airplanes and keep the k
+	 * closest of them in a heap.
+	 * 
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		for (QuadTuple<T> tuple:planesNCoords) {
+			if (tuple.isRemoved()) {
+				continue;
+			}
+			long distance = tuple.distanceSquared(x, y, z);
+			if (distance < heap.worstDistance()) {
+				heap.offer(distance, tuple.getT());
+			}
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 * 
+	 * Time complexity: O(n), because it needs to iterate through all airplanes to check whether each of
+	 * them is within the radius.
+	 * 
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		long limit = (long) Math.floor(radius * radius);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
 		for (QuadTuple<T> tuple:planesNCoords) {
-			if (tuple.coordsMatch(x, y, z)) {
+			if (!tuple.isRemoved() && tuple.distanceSquared(x, y, z) <= limit) {
 				planeQueue.enqueue(tuple.getT());
 			}
 		}
@@ -235,7 +451,7 @@ public class BoundedCube<T> implements Cube<T> {
 		validCoords(x, y, z);
 		int count = 0;
 		for (QuadTuple<T> tuple:planesNCoords) {
-			if (tuple.coordsMatch(x, y, z)) {
+			if (!tuple.isRemoved() && tuple.coordsMatch(x, y, z)) {
 				count++;
 				if (count > 1) {
 					return true;
@@ -246,10 +462,12 @@ public class BoundedCube<T> implements Cube<T> {
 	}
 
 	/**
-	 * Removes the specified element at the indicated position.
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
 	 * 
-	 * Time complexity: O(n), because in the worst case it needs to iterate through all airplanes
-	 * to find the specified airplane.
+	 * Time complexity: O(m) amortised, where m is the number of elements sharing a reverse index
+	 * chain with the specified element, because only that chain is searched and the tuples found
+	 * are marked as removed rather than copied out of the queue.
 	 * 
 	 * @param element The element to be removed from the indicated position.
 	 * @param x X Coordinate of the position.
@@ -261,26 +479,30 @@ public class BoundedCube<T> implements Cube<T> {
 	@Override
 	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
 		validCoords(x, y, z);
-		IterableQueue<QuadTuple<T>> temp = new TraversableQueue<QuadTuple<T>>();
-		boolean skipped = false;
-		for (QuadTuple<T> tuple:planesNCoords) {
-			T plane = tuple.getT();
-			if (tuple.coordsMatch(x, y, z)
-					&& plane.equals(element)) {
-				skipped = true;
-				continue;
-			}
-			temp.enqueue(tuple);	// Copy the remaining ones
-		}
-		this.planesNCoords = temp;
-		return skipped;
+		return removeIndexed(element, true, x, y, z);
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 * 
+	 * Time complexity: O(m) amortised, where m is the number of elements sharing a reverse index
+	 * chain with the specified element.
+	 * 
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		return removeIndexed(element, false, 0, 0, 0);
 	}
 
 	/**
 	 * Removes all elements at the indicated position.
 	 * 
 	 * Time complexity: O(n), because in the worst case it needs to iterate through all airplanes
-	 * to remove the airplanes at the specified coordinates.
+	 * to find the airplanes at the specified coordinates. They are marked as removed in place, so
+	 * no queue is copied.
 	 * 
 	 * @param x X Coordinate of the position.
 	 * @param y Y Coordinate of the position.
@@ -290,24 +512,181 @@ public class BoundedCube<T> implements Cube<T> {
 	@Override
 	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
 		validCoords(x, y, z);
-		IterableQueue<QuadTuple<T>> temp = new TraversableQueue<QuadTuple<T>>();
 		for (QuadTuple<T> tuple:planesNCoords) {
-			if (tuple.coordsMatch(x, y, z)) {
-				continue;
+			if (!tuple.isRemoved() && tuple.coordsMatch(x, y, z)) {
+				unlinkFromIndex(tuple);
+				markRemoved(tuple);
 			}
-			temp.enqueue(tuple);	// Copy the remaining ones
 		}
-		this.planesNCoords = temp;
+		compactIfSparse();
 	}
 
 	/**
 	 * Removes all elements stored in the cube.
 	 * 
-	 * Time complexity: O(1)
+	 * Time complexity: O(1), or O(c) for RingBufferQueue storage with initial capacity c.
 	 */
 	@Override
 	public void clear() {
-		this.planesNCoords = new TraversableQueue<QuadTuple<T>>();
+		this.planesNCoords = newStorage();
+		this.index = newIndex(INITIAL_INDEX_CAPACITY);
+		this.liveCount = 0;
+		this.removedCount = 0;
+	}
+	
+	/**
+	 * Remove the tuples of an element found through the reverse index, optionally only those at
+	 * the given coordinates.
+	 * 
+	 * @param element   The element to be removed.
+	 * @param atCoords  true to only remove the element at (x, y, z).
+	 * @return true if anything was removed.
+	 */
+	private boolean removeIndexed(T element, boolean atCoords, int x, int y, int z) {
+		int hash = hashOf(element);
+		int i = indexFor(hash, index.length);
+		QuadTuple<T> previous = null;
+		boolean removed = false;
+		QuadTuple<T> next;
+		for (QuadTuple<T> tuple = index[i]; tuple != null; tuple = next) {
+			next = tuple.nextInIndex;	// Read before markRemoved clears it
+			if (tuple.hash == hash && (!atCoords || tuple.coordsMatch(x, y, z))
+					&& tuple.getT().equals(element)) {
+				if (previous == null) {
+					index[i] = next;
+				} else {
+					previous.nextInIndex = next;
+				}
+				markRemoved(tuple);
+				removed = true;
+			} else {
+				previous = tuple;
+			}
+		}
+		compactIfSparse();
+		return removed;
+	}
+	
+	/**
+	 * Take a tuple out of its reverse index chain.
+	 * 
+	 * Time complexity: O(m), where m is the length of the chain.
+	 * 
+	 * @param tuple A tuple that is held in the reverse index.
+	 */
+	private void unlinkFromIndex(QuadTuple<T> tuple) {
+		int i = indexFor(tuple.hash, index.length);
+		if (index[i] == tuple) {
+			index[i] = tuple.nextInIndex;
+			return;
+		}
+		QuadTuple<T> previous = index[i];
+		while (previous.nextInIndex != tuple) {
+			previous = previous.nextInIndex;
+		}
+		previous.nextInIndex = tuple.nextInIndex;
+	}
+	
+	/**
+	 * Mark a tuple that has been taken out of the reverse index as removed.
+	 * 
+	 * @param tuple The tuple to be removed.
+	 */
+	private void markRemoved(QuadTuple<T> tuple) {
+		tuple.markRemoved();
+		tuple.nextInIndex = null;
+		liveCount--;
+		removedCount++;
+	}
+	
+	/**
+	 * Compact the storage once it holds more removed tuples than live ones. Since at least as
+	 * many removals happened since the last compaction as there are tuples to copy, the copying
+	 * costs O(1) amortised per removal.
+	 */
+	private void compactIfSparse() {
+		if (removedCount >= MIN_COMPACTION && removedCount > liveCount) {
+			compact();
+		}
+	}
+	
+	/**
+	 * Copy the live tuples, in order, into new storage, dropping the removed ones.
+	 * 
+	 * Time complexity: O(n + r), where r is the number of removed tuples.
+	 */
+	private void compact() {
+		IterableQueue<QuadTuple<T>> temp = newStorage();
+		for (QuadTuple<T> tuple:planesNCoords) {
+			if (!tuple.isRemoved()) {
+				temp.enqueue(tuple);	// Copy the remaining ones
+			}
+		}
+		this.planesNCoords = temp;
+		this.removedCount = 0;
+	}
+	
+	/**
+	 * Move every tuple of the reverse index into a table of the given capacity.
+	 * 
+	 * Time complexity: O(n)
+	 * 
+	 * @param capacity The new number of chains, a power of two.
+	 */
+	private void resizeIndex(int capacity) {
+		QuadTuple<T>[] larger = newIndex(capacity);
+		for (QuadTuple<T> head : index) {
+			QuadTuple<T> tuple = head;
+			while (tuple != null) {
+				QuadTuple<T> next = tuple.nextInIndex;
+				int i = indexFor(tuple.hash, capacity);
+				tuple.nextInIndex = larger[i];
+				larger[i] = tuple;
+				tuple = next;
+			}
+		}
+		this.index = larger;
+	}
+	
+	/**
+	 * @param element An element, which may be null.
+	 * @return The hash code of the element, with its high bits spread into the low ones.
+	 */
+	private static int hashOf(Object element) {
+		int h = element == null ? 0 : element.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * @param hash A spread hash code.
+	 * @param capacity The number of chains, a power of two.
+	 * @return The chain a hash code belongs to.
+	 */
+	private static int indexFor(int hash, int capacity) {
+		return hash & (capacity - 1);
+	}
+	
+	/**
+	 * @param capacity The number of chains.
+	 * @return An empty reverse index.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> QuadTuple<T>[] newIndex(int capacity) {
+		return (QuadTuple<T>[]) new QuadTuple[capacity];
+	}
+	
+	/**
+	 * Create an empty queue for storing the elements, as chosen by the constructor.
+	 * 
+	 * Time complexity: O(1), or O(c) for a RingBufferQueue with initial capacity c.
+	 * 
+	 * @return An empty queue.
+	 */
+	private IterableQueue<QuadTuple<T>> newStorage() {
+		if (initialCapacity == 0) {
+			return new TraversableQueue<QuadTuple<T>>();
+		}
+		return new RingBufferQueue<QuadTuple<T>>(initialCapacity, maxCapacity);
 	}
 	
 	/**
@@ -324,6 +703,25 @@ public class BoundedCube<T> implements Cube<T> {
 		}
 	}
 	
+	/**
+	 * Check whether the given box is invalid and will raise exceptions.
+	 * 
+	 * @param x1 X Coordinate of the lower corner.
+	 * @param y1 Y Coordinate of the lower corner.
+	 * @param z1 Z Coordinate of the lower corner.
+	 * @param x2 X Coordinate of the upper corner.
+	 * @param y2 Y Coordinate of the upper corner.
+	 * @param z2 Z Coordinate of the upper corner.
+	 */
+	private void validBox(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+	}
+	
 }
 
 /**
@@ -343,4 +741,15 @@ public class BoundedCube<T> implements Cube<T> {
  * may not be as fast as the memory-intense 3D spatial cube, for example if implemented in arrays it can index directly via 
  * the coordinates. Therefore, this implementation can be improved by sorting the elements by coordinates (but still using
  * a queue, maybe tree-based) and time complexity can become O(log(n)).
+ * 
+ * The queue member can also be a RingBufferQueue, chosen through the constructor. It stores the tuples in one
+ * growable array rather than one node each, and lifts the 20000 airplane limit of TraversableQueue.
+ * 
+ * Removing an airplane used to copy every other tuple into a new queue, allocating n nodes per removal. Instead, each
+ * tuple is also a node of a reverse index, a chained hash table keyed by the element's equals and hashCode, so removing
+ * an airplane only visits the tuples sharing its chain. A queue cannot take an element out of its middle, so removed
+ * tuples are marked and skipped by every query, and the queue is only copied once removed tuples outnumber live ones.
+ * That copy is paid for by the removals before it, keeping removal O(1) amortised, and the airplanes themselves are
+ * released as soon as they are removed. The index is keyed by equality rather than identity because remove has always
+ * matched airplanes with equals.
  */
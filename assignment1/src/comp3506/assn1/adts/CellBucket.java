@@ -0,0 +1,196 @@
+package comp3506.assn1.adts;
+
+/**
+ * A helper data structure holding all the elements that share one cell of a cube, together with
+ * the coordinates of that cell. Elements are kept in insertion order in a growable array, so the
+ * 'oldest' element is always at the front.
+ *
+ * Space complexity: O(m), where m is the number of elements held in the cell.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+class CellBucket<T> {
+	private static final int INITIAL_CAPACITY = 2;	// Most cells hold one or two airplanes
+	private final int x_coord;
+	private final int y_coord;
+	private final int z_coord;
+	private Object[] elements;
+	private int sz = 0;
+
+	/**
+	 * Default constructor of the bucket, which represents an empty cell at (x, y, z).
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X coordinate of the cell.
+	 * @param y Y coordinate of the cell.
+	 * @param z Z coordinate of the cell.
+	 */
+	CellBucket(int x, int y, int z) {
+		this.x_coord = x;
+		this.y_coord = y;
+		this.z_coord = z;
+		this.elements = new Object[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return X coordinate of the cell.
+	 */
+	int getX() {
+		return x_coord;
+	}
+
+	/**
+	 * @return Y coordinate of the cell.
+	 */
+	int getY() {
+		return y_coord;
+	}
+
+	/**
+	 * @return Z coordinate of the cell.
+	 */
+	int getZ() {
+		return z_coord;
+	}
+
+	/**
+	 * Check if a set of coordinates match this cell.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @param z Z coordinate
+	 * @return true if match
+	 */
+	boolean coordsMatch(int x, int y, int z) {
+		return this.x_coord == x && this.y_coord == y && this.z_coord == z;
+	}
+
+	/**
+	 * Check if this cell lies inside a box, including its faces.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x1 X coordinate of the lower corner
+	 * @param y1 Y coordinate of the lower corner
+	 * @param z1 Z coordinate of the lower corner
+	 * @param x2 X coordinate of the upper corner
+	 * @param y2 Y coordinate of the upper corner
+	 * @param z2 Z coordinate of the upper corner
+	 * @return true if inside
+	 */
+	boolean coordsWithin(int x1, int y1, int z1, int x2, int y2, int z2) {
+		return x1 <= this.x_coord && this.x_coord <= x2
+				&& y1 <= this.y_coord && this.y_coord <= y2
+				&& z1 <= this.z_coord && this.z_coord <= z2;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @param z Z coordinate
+	 * @return The squared straight-line distance between this cell and (x, y, z).
+	 */
+	long distanceSquared(int x, int y, int z) {
+		long dx = this.x_coord - x;
+		long dy = this.y_coord - y;
+		long dz = this.z_coord - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Append an element to the end of this cell.
+	 *
+	 * Time complexity: O(1) amortised, since the array doubles when it is full.
+	 *
+	 * @param element The element to be added.
+	 */
+	void add(T element) {
+		if (sz == elements.length) {
+			Object[] larger = new Object[sz * 2];
+			System.arraycopy(elements, 0, larger, 0, sz);
+			elements = larger;
+		}
+		elements[sz++] = element;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @param i Position of the element in insertion order.
+	 * @return The i-th oldest element of this cell.
+	 */
+	@SuppressWarnings("unchecked")
+	T get(int i) {
+		return (T) elements[i];
+	}
+
+	/**
+	 * Remove every element equal to the given one, keeping the order of the rest.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in this cell.
+	 *
+	 * @param element The element to be removed.
+	 * @return The number of elements removed.
+	 */
+	int removeEvery(T element) {
+		int kept = 0;
+		for (int i = 0; i < sz; i++) {
+			if (!elements[i].equals(element)) {
+				elements[kept++] = elements[i];
+			}
+		}
+		int removed = sz - kept;
+		for (int i = kept; i < sz; i++) {
+			elements[i] = null;		// Let the removed elements be garbage collected
+		}
+		sz = kept;
+		return removed;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of elements in this cell.
+	 */
+	int size() {
+		return sz;
+	}
+
+	/**
+	 * Offer all elements of this cell to a nearest neighbour heap.
+	 *
+	 * Time complexity: O(m*log(k)), where m is the number of elements in this cell and k is the
+	 * capacity of the heap.
+	 *
+	 * @param heap     The heap to be offered to.
+	 * @param distance The squared distance of this cell from the query position.
+	 */
+	@SuppressWarnings("unchecked")
+	void offerTo(NearestHeap<T> heap, long distance) {
+		for (int i = 0; i < sz && distance < heap.worstDistance(); i++) {
+			heap.offer(distance, (T) elements[i]);
+		}
+	}
+
+	/**
+	 * Copy all elements of this cell, oldest first, to the end of the given queue.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in this cell.
+	 *
+	 * @param queue The queue to be appended to.
+	 */
+	@SuppressWarnings("unchecked")
+	void copyTo(IterableQueue<T> queue) {
+		for (int i = 0; i < sz; i++) {
+			queue.enqueue((T) elements[i]);
+		}
+	}
+
+}
@@ -44,6 +44,50 @@ public interface Cube<T> {
 	 */
 	IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces.
+	 * 
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 * 
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	IterableQueue<T> getNearest(int x, int y, int z, int k) throws IndexOutOfBoundsException, IllegalArgumentException;
+	
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 * 
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException;
+	
 	/**
 	 * Indicates whether there are more than one elements at the indicated position.
 	 * 
@@ -56,7 +100,8 @@ public interface Cube<T> {
 	boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException;
 	
 	/**
-	 * Removes the specified element at the indicated position.
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed, so that an element added more than once is not left behind.
 	 * 
 	 * @param element The element to be removed from the indicated position.
 	 * @param x X Coordinate of the position.
@@ -67,6 +112,15 @@ public interface Cube<T> {
 	 */
 	boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 * 
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	boolean remove(T element);
+	
 	/**
 	 * Removes all elements at the indicated position.
 	 * 
@@ -0,0 +1,210 @@
+package comp3506.assn1.adts;
+
+/**
+ * A helper data structure recording where the elements of a cube are held, so that an element
+ * can be removed without searching every cell. It is a chained hash table of (element, location)
+ * pairs, keyed by the element's equals and hashCode, and holds each pair at most once however
+ * many equal elements share the location. Locations are compared with equals.
+ *
+ * Space complexity: O(p), where p is the number of distinct (element, location) pairs.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ * @param <L> The type of location an element is held at.
+ */
+class ElementIndex<T, L> {
+	private static final int INITIAL_CAPACITY = 16;		// Must be a power of two
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private Entry<T, L>[] table;
+	private int entryCount = 0;
+
+	/**
+	 * Default constructor of the index, which represents an empty index.
+	 *
+	 * Time complexity: O(1)
+	 */
+	ElementIndex() {
+		this.table = newTable(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * A private helper node of the index's chains, holding one (element, location) pair.
+	 *
+	 * Space complexity: O(1)
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 * @param <L> The type of location an element is held at.
+	 */
+	private static class Entry<T, L> {
+		private final int hash;
+		private final T element;
+		private final L location;
+		private Entry<T, L> next;
+
+		/**
+		 * Default constructor of the node.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param hash     The spread hash code of the element.
+		 * @param element  The element.
+		 * @param location The location the element is held at.
+		 * @param next     The next node in the same chain.
+		 */
+		public Entry(int hash, T element, L location, Entry<T, L> next) {
+			this.hash = hash;
+			this.element = element;
+			this.location = location;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Record that an element is held at a location, unless an equal element already is.
+	 *
+	 * Time complexity: O(1) expected, and amortised over the occasional resize.
+	 *
+	 * @param element  The element.
+	 * @param location The location it is held at.
+	 */
+	void add(T element, L location) {
+		int hash = hashOf(element);
+		for (Entry<T, L> entry = table[indexFor(hash, table.length)]; entry != null; entry = entry.next) {
+			if (entry.location.equals(location) && entry.hash == hash && entry.element.equals(element)) {
+				return;
+			}
+		}
+		if (entryCount + 1 > table.length * MAX_LOAD_FACTOR) {
+			resize(table.length * 2);
+		}
+		int i = indexFor(hash, table.length);
+		table[i] = new Entry<>(hash, element, location, table[i]);
+		entryCount++;
+	}
+
+	/**
+	 * Record that no element equal to the given one is held at a location any more.
+	 *
+	 * Time complexity: O(1) expected
+	 *
+	 * @param element  The element.
+	 * @param location The location it is no longer held at.
+	 */
+	void remove(T element, L location) {
+		int hash = hashOf(element);
+		int i = indexFor(hash, table.length);
+		Entry<T, L> previous = null;
+		for (Entry<T, L> entry = table[i]; entry != null; previous = entry, entry = entry.next) {
+			if (entry.location.equals(location) && entry.hash == hash && entry.element.equals(element)) {
+				if (previous == null) {
+					table[i] = entry.next;
+				} else {
+					previous.next = entry.next;
+				}
+				entryCount--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Return every location an element equal to the given one is held at.
+	 *
+	 * Time complexity: O(1 + l) expected, where l is the number of locations returned.
+	 *
+	 * @param element The element.
+	 * @return An IterableQueue of the locations, or null if the element is not held anywhere.
+	 */
+	IterableQueue<L> locationsOf(T element) {
+		int hash = hashOf(element);
+		IterableQueue<L> locations = null;
+		for (Entry<T, L> entry = table[indexFor(hash, table.length)]; entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.element.equals(element)) {
+				if (locations == null) {
+					locations = new RingBufferQueue<L>();
+				}
+				locations.enqueue(entry.location);
+			}
+		}
+		return locations;
+	}
+
+	/**
+	 * Time complexity: O(1) expected
+	 *
+	 * @param element The element.
+	 * @return true if an element equal to the given one is held anywhere.
+	 */
+	boolean contains(T element) {
+		int hash = hashOf(element);
+		for (Entry<T, L> entry = table[indexFor(hash, table.length)]; entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.element.equals(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Forget every element.
+	 *
+	 * Time complexity: O(1)
+	 */
+	void clear() {
+		this.table = newTable(INITIAL_CAPACITY);
+		this.entryCount = 0;
+	}
+
+	/**
+	 * Move every entry into a table of the given capacity.
+	 *
+	 * Time complexity: O(p), where p is the number of entries.
+	 *
+	 * @param capacity The new number of chains, a power of two.
+	 */
+	private void resize(int capacity) {
+		Entry<T, L>[] larger = newTable(capacity);
+		for (Entry<T, L> chain : table) {
+			Entry<T, L> entry = chain;
+			while (entry != null) {
+				Entry<T, L> next = entry.next;
+				int i = indexFor(entry.hash, capacity);
+				entry.next = larger[i];
+				larger[i] = entry;
+				entry = next;
+			}
+		}
+		this.table = larger;
+	}
+
+	/**
+	 * @param element An element.
+	 * @return The hash code of the element, with its high bits spread into the low ones.
+	 */
+	private static int hashOf(Object element) {
+		int h = element.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @param hash     A spread hash code.
+	 * @param capacity The number of chains, a power of two.
+	 * @return The chain a hash code belongs to.
+	 */
+	private static int indexFor(int hash, int capacity) {
+		return hash & (capacity - 1);
+	}
+
+	/**
+	 * @param capacity The number of chains.
+	 * @return An empty table of chains.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T, L> Entry<T, L>[] newTable(int capacity) {
+		return (Entry<T, L>[]) new Entry[capacity];
+	}
+
+}
@@ -0,0 +1,588 @@
+package comp3506.assn1.adts;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * A hashed cube has a specified maximum size in each dimension, and only the occupied cells are
+ * stored, in a hash table keyed by the (x, y, z) coordinates packed into a single long.
+ * The root of each dimension is indexed from zero.
+ *
+ * Space complexity: O(n), since each element is stored once in its cell bucket, the table
+ * holds at most one entry per occupied cell and the element index at most one entry per element.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class HashedCube<T> implements Cube<T> {
+	private static final int INITIAL_CAPACITY = 16;		// Must be a power of two
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;	// Fibonacci hashing
+	private int max_X;
+	private int max_Y;
+	private int max_Z;
+	private int y_shift;	// Bit offset of the y coordinate in a packed key
+	private int x_shift;	// Bit offset of the x coordinate in a packed key
+	private Cell<T>[] table;
+	private int cellCount = 0;
+	private final ElementIndex<T, CellBucket<T>> elementIndex = new ElementIndex<>();	// Cells holding each element
+
+	/**
+	 * Default constructor of the HashedCube CDT.
+	 *
+	 * Time complexity: O(1), because it only checks and sets x, y and z limits of an empty table.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive, or are too
+	 *                                  large to be packed into a single long key.
+	 */
+	public HashedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int x_bits = bitsFor(length);
+		int y_bits = bitsFor(breadth);
+		int z_bits = bitsFor(height);
+		if (x_bits + y_bits + z_bits > Long.SIZE - 1) {
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		this.y_shift = z_bits;
+		this.x_shift = y_bits + z_bits;
+		this.table = newTable(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * A private helper node of the hash table's chains, linking a packed key to its cell bucket.
+	 *
+	 * Space complexity: O(1)
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	private static class Cell<T> {
+		private final long key;
+		private final CellBucket<T> bucket;
+		private Cell<T> next;
+
+		/**
+		 * Default constructor of the node.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param key    The packed coordinates of the cell.
+		 * @param bucket The elements held in the cell.
+		 * @param next   The next node in the same chain.
+		 */
+		public Cell(long key, CellBucket<T> bucket, Cell<T> next) {
+			this.key = key;
+			this.bucket = bucket;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(1) amortised, because the cell is found by hashing and the table is
+	 * only rebuilt when the load factor is exceeded.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		CellBucket<T> bucket = find(key);
+		if (bucket == null) {
+			if (cellCount + 1 > table.length * MAX_LOAD_FACTOR) {
+				resize(table.length * 2);
+			}
+			bucket = new CellBucket<>(x, y, z);
+			int i = indexFor(key, table.length);
+			table[i] = new Cell<>(key, bucket, table[i]);
+			cellCount++;
+		}
+		bucket.add(element);
+		elementIndex.add(element, bucket);
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(pack(x, y, z));
+		if (bucket == null) {
+			return null;
+		}
+		return bucket.get(0);
+	}
+
+	/**
+	 * Return all the elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(pack(x, y, z));
+		if (bucket == null) {
+			return null;
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		bucket.copyTo(planeQueue);
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces.
+	 *
+	 * Time complexity: O(min(v, c) + k), where v is the number of cells in the box, c is the number
+	 * of occupied cells and k is the number of elements returned, because it either looks up every
+	 * cell of the box or checks every occupied cell, whichever is fewer.
+	 *
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validBox(x1, y1, z1, x2, y2, z2);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(x1, y1, z1, x2, y2, z2, 0, 0, 0, Long.MAX_VALUE, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 *
+	 * Time complexity: O(c*log(k)), where c is the number of occupied cells, because it needs to check
+	 * every occupied cell and keep the k closest elements in a heap.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		offerNearest(x, y, z, heap);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 *
+	 * Time complexity: O(min(v, c) + k), where v is the number of cells in the box bounding the sphere,
+	 * c is the number of occupied cells and k is the number of elements returned.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		RadiusBox box = new RadiusBox(x, y, z, radius, max_X, max_Y, max_Z);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(box.x1, box.y1, box.z1, box.x2, box.y2, box.z2, x, y, z, box.limit, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(pack(x, y, z));
+		return bucket != null && bucket.size() > 1;
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(pack(x, y, z));
+		return bucket != null && removeFrom(bucket, element);
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in the cells holding the element,
+	 * because the element index leads straight to those cells.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		IterableQueue<CellBucket<T>> buckets = elementIndex.locationsOf(element);
+		if (buckets == null) {
+			return false;
+		}
+		for (CellBucket<T> bucket : buckets) {
+			removeFrom(bucket, element);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position, which are taken
+	 * out of the element index.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		CellBucket<T> bucket = find(key);
+		if (bucket == null) {
+			return;
+		}
+		for (int i = 0; i < bucket.size(); i++) {
+			elementIndex.remove(bucket.get(i), bucket);
+		}
+		unlink(key);
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		this.table = newTable(INITIAL_CAPACITY);
+		this.cellCount = 0;
+		this.elementIndex.clear();
+	}
+
+	/**
+	 * Indicates whether an element equal to the given one is held at any position.
+	 *
+	 * Time complexity: O(1) expected
+	 *
+	 * @param element The element to be looked for.
+	 * @return true if the element is held in the cube, false otherwise.
+	 */
+	boolean contains(T element) {
+		return elementIndex.contains(element);
+	}
+
+	/**
+	 * Offer every element to a nearest neighbour heap, so that cubes made up of several hashed
+	 * cubes can search them all with one heap.
+	 *
+	 * Time complexity: O(c*log(k)), where c is the number of occupied cells and k is the capacity
+	 * of the heap.
+	 *
+	 * @param heap The heap to be offered to.
+	 */
+	void offerNearest(int x, int y, int z, NearestHeap<T> heap) {
+		for (Cell<T> chain : table) {
+			for (Cell<T> cell = chain; cell != null; cell = cell.next) {
+				cell.bucket.offerTo(heap, cell.bucket.distanceSquared(x, y, z));
+			}
+		}
+	}
+
+	/**
+	 * Copy every element inside a box, and within a squared distance of (x, y, z), to the given
+	 * queue, by either looking up every cell of the box or checking every occupied cell, whichever
+	 * is fewer. The box must lie inside the cube.
+	 *
+	 * Time complexity: O(min(v, c) + k), where v is the number of cells in the box, c is the number
+	 * of occupied cells and k is the number of elements copied.
+	 *
+	 * @param limit The largest squared distance from (x, y, z) to be copied.
+	 * @param queue The queue to be appended to.
+	 */
+	void collectWithin(int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z, long limit,
+			IterableQueue<T> queue) {
+		long volume = (long) (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+		if (volume <= cellCount) {
+			for (int i = x1; i <= x2; i++) {
+				for (int j = y1; j <= y2; j++) {
+					for (int l = z1; l <= z2; l++) {
+						CellBucket<T> bucket = find(pack(i, j, l));
+						if (bucket != null && bucket.distanceSquared(x, y, z) <= limit) {
+							bucket.copyTo(queue);
+						}
+					}
+				}
+			}
+		} else {
+			for (Cell<T> chain : table) {
+				for (Cell<T> cell = chain; cell != null; cell = cell.next) {
+					if (cell.bucket.coordsWithin(x1, y1, z1, x2, y2, z2)
+							&& cell.bucket.distanceSquared(x, y, z) <= limit) {
+						cell.bucket.copyTo(queue);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove every element equal to the given one from a cell, and the cell itself once it is empty.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in the cell.
+	 *
+	 * @param bucket  The bucket of an occupied cell.
+	 * @param element The element to be removed.
+	 * @return true if anything was removed.
+	 */
+	private boolean removeFrom(CellBucket<T> bucket, T element) {
+		if (bucket.removeEvery(element) == 0) {
+			return false;
+		}
+		elementIndex.remove(element, bucket);
+		if (bucket.size() == 0) {
+			unlink(pack(bucket.getX(), bucket.getY(), bucket.getZ()));	// Do not keep empty cells around
+		}
+		return true;
+	}
+
+	/**
+	 * Find the bucket of the cell with the given key.
+	 *
+	 * Time complexity: O(1) expected, because chains are kept short by the load factor.
+	 *
+	 * @param key The packed coordinates of the cell.
+	 * @return The bucket of the cell, or null if the cell is empty.
+	 */
+	private CellBucket<T> find(long key) {
+		for (Cell<T> cell = table[indexFor(key, table.length)]; cell != null; cell = cell.next) {
+			if (cell.key == key) {
+				return cell.bucket;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the cell with the given key and all its elements from the table.
+	 *
+	 * Time complexity: O(1) expected
+	 *
+	 * @param key The packed coordinates of the cell.
+	 */
+	private void unlink(long key) {
+		int i = indexFor(key, table.length);
+		Cell<T> previous = null;
+		for (Cell<T> cell = table[i]; cell != null; previous = cell, cell = cell.next) {
+			if (cell.key == key) {
+				if (previous == null) {
+					table[i] = cell.next;
+				} else {
+					previous.next = cell.next;
+				}
+				cellCount--;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Rehash every cell into a table of the given capacity.
+	 *
+	 * Time complexity: O(c), where c is the number of occupied cells.
+	 *
+	 * @param capacity The new number of chains, a power of two.
+	 */
+	private void resize(int capacity) {
+		Cell<T>[] larger = newTable(capacity);
+		for (Cell<T> chain : table) {
+			Cell<T> cell = chain;
+			while (cell != null) {
+				Cell<T> next = cell.next;
+				int i = indexFor(cell.key, capacity);
+				cell.next = larger[i];
+				larger[i] = cell;
+				cell = next;
+			}
+		}
+		this.table = larger;
+	}
+
+	/**
+	 * Pack a set of coordinates into a single key. Coordinates are validated beforehand, so
+	 * every component fits into its own bit field.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return The packed key.
+	 */
+	private long pack(int x, int y, int z) {
+		return ((long) x << x_shift) | ((long) y << y_shift) | z;
+	}
+
+	/**
+	 * @param key      The packed coordinates of a cell.
+	 * @param capacity The number of chains, a power of two.
+	 * @return The chain the key belongs to.
+	 */
+	private static int indexFor(long key, int capacity) {
+		return (int) ((key * HASH_MULTIPLIER) >>> (Long.SIZE - Integer.numberOfTrailingZeros(capacity)));
+	}
+
+	/**
+	 * @param max The largest coordinate value (inclusive) of a dimension.
+	 * @return The number of bits needed to store the coordinate.
+	 */
+	private static int bitsFor(int max) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(max);
+	}
+
+	/**
+	 * @param capacity The number of chains.
+	 * @return An empty table of chains.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> Cell<T>[] newTable(int capacity) {
+		return (Cell<T>[]) new Cell[capacity];
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Check whether the given box is invalid and will raise exceptions.
+	 *
+	 * @param x1 X Coordinate of the lower corner.
+	 * @param y1 Y Coordinate of the lower corner.
+	 * @param z1 Z Coordinate of the lower corner.
+	 * @param x2 X Coordinate of the upper corner.
+	 * @param y2 Y Coordinate of the upper corner.
+	 * @param z2 Z Coordinate of the upper corner.
+	 */
+	private void validBox(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * BoundedCube trades time for memory by keeping every element in a single queue, so each lookup has to scan all
+ * airplanes. This CDT keeps the memory bound of only storing occupied cells, but finds a cell directly: the three
+ * coordinates are packed into one long (13 + 12 + 6 bits for OneSky) and used as the key of a chained hash table.
+ * Fibonacci hashing spreads neighbouring cells over the table, and the table doubles once it is three-quarters
+ * full, so chains stay short and get, isMultipleElementsAt and removeAll run in constant expected time.
+ *
+ * Each occupied cell owns a bucket that keeps its elements in insertion order, which preserves the 'oldest element'
+ * semantics of get without any extra bookkeeping. A bucket is unlinked as soon as its last element is removed, so
+ * the table never accumulates empty cells.
+ *
+ * An airplane leaving the airspace is removed without its coordinates, so an element index records which buckets
+ * hold each element, keyed by equals like BoundedCube's reverse index. Removing an element then only touches its own
+ * cells. As in BoundedCube, removing an element removes every element equal to it, at one position or at all of them.
+ */
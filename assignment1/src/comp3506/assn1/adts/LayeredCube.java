@@ -0,0 +1,800 @@
+package comp3506.assn1.adts;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * A layered cube keeps each horizontal layer (one z coordinate) apart, and divides each layer into
+ * square tiles that hold the occupied cells within them. Queries over a band of layers only visit
+ * the layers and tiles the band covers, and the number of elements in each layer is kept up to date
+ * so that it can be read in constant time.
+ * The root of each dimension is indexed from zero.
+ *
+ * Space complexity: O(n + l*t), where l is the number of occupied layers and t is the number of
+ * tiles in a layer, since the element index holds at most one entry per element.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class LayeredCube<T> implements Cube<T> {
+	private static final int DEFAULT_TILE_SIZE = 32;	// Tile width in cells, along x and y
+	private int max_X;
+	private int max_Y;
+	private int max_Z;
+	private int tileSize;
+	private int tilesAlongX;
+	private int tilesAlongY;
+	private Layer<T>[] layers;		// Created when first written to
+	private int[] layerSizes;		// Number of elements in each layer
+	private int size = 0;
+	private final ElementIndex<T, CellBucket<T>> elementIndex = new ElementIndex<>();	// Cells holding each element
+
+	/**
+	 * Default constructor of the LayeredCube CDT, with tiles of 32 by 32 cells.
+	 *
+	 * Time complexity: O(h), where h is the number of layers.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive.
+	 */
+	public LayeredCube(int length, int breadth, int height) throws IllegalArgumentException {
+		this(length, breadth, height, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Constructor of a LayeredCube CDT with tiles of the given size.
+	 *
+	 * Time complexity: O(h), where h is the number of layers.
+	 *
+	 * @param length   Maximum size in the 'x' dimension.
+	 * @param breadth  Maximum size in the 'y' dimension.
+	 * @param height   Maximum size in the 'z' dimension.
+	 * @param tileSize Width of a tile in cells, along both the 'x' and 'y' dimensions.
+	 * @throws IllegalArgumentException If provided dimension or tile sizes are not positive.
+	 */
+	public LayeredCube(int length, int breadth, int height, int tileSize) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0 || tileSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		this.tileSize = tileSize;
+		this.tilesAlongX = length / tileSize + 1;
+		this.tilesAlongY = breadth / tileSize + 1;
+		if ((long) tilesAlongX * tilesAlongY > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException();
+		}
+		clear();
+	}
+
+	/**
+	 * A private helper holding the occupied tiles of one layer, both in a grid indexed by tile
+	 * position and in a dense list, so that a layer can be searched either by position or by
+	 * visiting only its occupied tiles.
+	 *
+	 * Space complexity: O(t), where t is the number of tiles in a layer.
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	private static class Layer<T> {
+		private static final int INITIAL_CAPACITY = 4;
+		private final Tile<T>[] grid;
+		private Tile<T>[] occupied;
+		private int numOccupied = 0;
+
+		/**
+		 * Default constructor of the layer, which represents an empty layer.
+		 *
+		 * Time complexity: O(t), where t is the number of tiles.
+		 *
+		 * @param numTiles The number of tiles in the layer.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Layer(int numTiles) {
+			this.grid = (Tile<T>[]) new Tile[numTiles];
+			this.occupied = (Tile<T>[]) new Tile[INITIAL_CAPACITY];
+		}
+
+		/**
+		 * Add an empty tile at a position of the grid.
+		 *
+		 * Time complexity: O(1) amortised
+		 *
+		 * @param index The position of the tile in the grid.
+		 * @return The new tile.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private Tile<T> addTile(int index) {
+			if (numOccupied == occupied.length) {
+				Tile<T>[] larger = (Tile<T>[]) new Tile[numOccupied * 2];
+				System.arraycopy(occupied, 0, larger, 0, numOccupied);
+				occupied = larger;
+			}
+			Tile<T> tile = new Tile<>(index, numOccupied);
+			grid[index] = tile;
+			occupied[numOccupied++] = tile;
+			return tile;
+		}
+
+		/**
+		 * Remove a tile from the grid, by moving the last occupied tile into its place in the list.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param tile The tile to be removed.
+		 */
+		private void removeTile(Tile<T> tile) {
+			Tile<T> last = occupied[--numOccupied];
+			occupied[tile.slot] = last;
+			last.slot = tile.slot;
+			occupied[numOccupied] = null;
+			grid[tile.index] = null;
+		}
+	}
+
+	/**
+	 * A private helper holding the occupied cells of one tile of a layer.
+	 *
+	 * Space complexity: O(c), where c is the number of occupied cells in the tile.
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	private static class Tile<T> {
+		private static final int INITIAL_CAPACITY = 2;	// Most tiles hold one or two occupied cells
+		private final int index;	// Position in the layer's grid
+		private int slot;			// Position in the layer's list of occupied tiles
+		private CellBucket<T>[] cells;
+		private int numCells = 0;
+
+		/**
+		 * Default constructor of the tile, which represents an empty tile.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param index The position of the tile in the layer's grid.
+		 * @param slot  The position of the tile in the layer's list of occupied tiles.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Tile(int index, int slot) {
+			this.index = index;
+			this.slot = slot;
+			this.cells = (CellBucket<T>[]) new CellBucket[INITIAL_CAPACITY];
+		}
+
+		/**
+		 * Time complexity: O(c), where c is the number of occupied cells in the tile.
+		 *
+		 * @return The position of the cell at (x, y) in this tile, or -1 if it is empty.
+		 */
+		private int indexOf(int x, int y) {
+			for (int i = 0; i < numCells; i++) {
+				if (cells[i].getX() == x && cells[i].getY() == y) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Append an empty cell to this tile.
+		 *
+		 * Time complexity: O(1) amortised
+		 *
+		 * @return The new cell.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private CellBucket<T> addCell(int x, int y, int z) {
+			if (numCells == cells.length) {
+				CellBucket<T>[] larger = (CellBucket<T>[]) new CellBucket[numCells * 2];
+				System.arraycopy(cells, 0, larger, 0, numCells);
+				cells = larger;
+			}
+			CellBucket<T> bucket = new CellBucket<>(x, y, z);
+			cells[numCells++] = bucket;
+			return bucket;
+		}
+
+		/**
+		 * Remove a cell from this tile, by moving the last cell into its place.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param i The position of the cell in this tile.
+		 */
+		private void removeCell(int i) {
+			cells[i] = cells[--numCells];
+			cells[numCells] = null;
+		}
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(c) amortised, where c is the number of occupied cells in the tile of the
+	 * position.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		Layer<T> layer = layers[z];
+		if (layer == null) {
+			layer = new Layer<>(tilesAlongX * tilesAlongY);
+			layers[z] = layer;
+		}
+		int index = tileOf(x, y);
+		Tile<T> tile = layer.grid[index];
+		if (tile == null) {
+			tile = layer.addTile(index);
+		}
+		int i = tile.indexOf(x, y);
+		CellBucket<T> bucket = i < 0 ? tile.addCell(x, y, z) : tile.cells[i];
+		bucket.add(element);
+		elementIndex.add(element, bucket);
+		layerSizes[z]++;
+		size++;
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time complexity: O(c), where c is the number of occupied cells in the tile of the position.
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		if (bucket == null) {
+			return null;
+		}
+		return bucket.get(0);
+	}
+
+	/**
+	 * Return all the elements at the indicated position.
+	 *
+	 * Time complexity: O(c + m), where c is the number of occupied cells in the tile of the position
+	 * and m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		if (bucket == null) {
+			return null;
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		bucket.copyTo(planeQueue);
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces. Only the layers of
+	 * the box that hold elements are searched, and within each only the tiles overlapping the box.
+	 *
+	 * Time complexity: O(h*min(t, u) + c + k), where h is the number of layers in the box, t is the
+	 * number of tiles the box overlaps in a layer, u is the number of occupied tiles in a layer, c is
+	 * the number of occupied cells in those tiles and k is the number of elements returned.
+	 *
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validBox(x1, y1, z1, x2, y2, z2);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(x1, y1, z1, x2, y2, z2, 0, 0, 0, Long.MAX_VALUE, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 * Layers are searched outwards from the position, and a layer or tile is skipped once it is
+	 * further away than the k-th closest element found.
+	 *
+	 * Time complexity: O(u*h + c*log(k)) in the worst case, where u is the number of occupied tiles
+	 * in a layer, h is the number of layers and c is the number of occupied cells.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		for (int d = 0; z - d >= 0 || z + d <= max_Z; d++) {
+			long layerDistance = (long) d * d;
+			if (layerDistance >= heap.worstDistance()) {
+				break;		// Every remaining layer is further away than the k-th closest element
+			}
+			if (z - d >= 0) {
+				offerNearest(layers[z - d], x, y, z, layerDistance, heap);
+			}
+			if (d > 0 && z + d <= max_Z) {
+				offerNearest(layers[z + d], x, y, z, layerDistance, heap);
+			}
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 *
+	 * Time complexity: O(h*min(t, u) + c + k), where h is the number of layers in the box bounding
+	 * the sphere, t is the number of tiles the box overlaps in a layer, u is the number of occupied
+	 * tiles in a layer, c is the number of occupied cells in those tiles and k is the number of
+	 * elements returned.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		RadiusBox box = new RadiusBox(x, y, z, radius, max_X, max_Y, max_Z);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(box.x1, box.y1, box.z1, box.x2, box.y2, box.z2, x, y, z, box.limit, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time complexity: O(c), where c is the number of occupied cells in the tile of the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		return bucket != null && bucket.size() > 1;
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
+	 *
+	 * Time complexity: O(c + m), where c is the number of occupied cells in the tile of the position
+	 * and m is the number of elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		Layer<T> layer = layers[z];
+		if (layer == null) {
+			return false;
+		}
+		Tile<T> tile = layer.grid[tileOf(x, y)];
+		if (tile == null) {
+			return false;
+		}
+		int i = tile.indexOf(x, y);
+		return i >= 0 && removeFrom(layer, tile, i, element);
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 *
+	 * Time complexity: O(r*c + m), where r is the number of cells holding the element, c is the
+	 * number of occupied cells in each of their tiles and m is the number of elements in those cells,
+	 * because the element index leads straight to those cells.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		IterableQueue<CellBucket<T>> buckets = elementIndex.locationsOf(element);
+		if (buckets == null) {
+			return false;
+		}
+		for (CellBucket<T> bucket : buckets) {
+			Layer<T> layer = layers[bucket.getZ()];
+			Tile<T> tile = layer.grid[tileOf(bucket.getX(), bucket.getY())];
+			removeFrom(layer, tile, tile.indexOf(bucket.getX(), bucket.getY()), element);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time complexity: O(c + m), where c is the number of occupied cells in the tile of the position
+	 * and m is the number of elements at the position, which are taken out of the element index.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		Layer<T> layer = layers[z];
+		if (layer == null) {
+			return;
+		}
+		Tile<T> tile = layer.grid[tileOf(x, y)];
+		if (tile == null) {
+			return;
+		}
+		int i = tile.indexOf(x, y);
+		if (i >= 0) {
+			CellBucket<T> bucket = tile.cells[i];
+			for (int j = 0; j < bucket.size(); j++) {
+				elementIndex.remove(bucket.get(j), bucket);
+			}
+			layerSizes[z] -= bucket.size();
+			size -= bucket.size();
+			removeCell(layer, tile, i);
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time complexity: O(h), where h is the number of layers.
+	 */
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public void clear() {
+		this.layers = (Layer<T>[]) new Layer[max_Z + 1];
+		this.layerSizes = new int[max_Z + 1];
+		this.size = 0;
+		this.elementIndex.clear();
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return The number of elements held in the cube.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the number of elements held in one layer.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param z Z Coordinate of the layer.
+	 * @return The number of elements whose z coordinate is z.
+	 * @throws IndexOutOfBoundsException If the z coordinate is out of bounds.
+	 */
+	public int layerSize(int z) throws IndexOutOfBoundsException {
+		if (z < 0 || z > max_Z) {
+			throw new IndexOutOfBoundsException();
+		}
+		return layerSizes[z];
+	}
+
+	/**
+	 * Return the number of elements held in a band of layers, including both bounding layers.
+	 *
+	 * Time complexity: O(h), where h is the number of layers in the band.
+	 *
+	 * @param z1 Z Coordinate of the lowest layer of the band.
+	 * @param z2 Z Coordinate of the highest layer of the band.
+	 * @return The number of elements whose z coordinate is between z1 and z2.
+	 * @throws IndexOutOfBoundsException If z1 or z2 is out of bounds.
+	 * @throws IllegalArgumentException If z1 is greater than z2.
+	 */
+	public int bandSize(int z1, int z2) throws IndexOutOfBoundsException, IllegalArgumentException {
+		if (z1 < 0 || z2 > max_Z) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+		int count = 0;
+		for (int z = z1; z <= z2; z++) {
+			count += layerSizes[z];
+		}
+		return count;
+	}
+
+	/**
+	 * Find the bucket of the cell at a position.
+	 *
+	 * Time complexity: O(c), where c is the number of occupied cells in the tile of the position.
+	 *
+	 * @return The bucket of the cell, or null if the cell is empty.
+	 */
+	private CellBucket<T> find(int x, int y, int z) {
+		Layer<T> layer = layers[z];
+		if (layer == null) {
+			return null;
+		}
+		Tile<T> tile = layer.grid[tileOf(x, y)];
+		if (tile == null) {
+			return null;
+		}
+		int i = tile.indexOf(x, y);
+		return i < 0 ? null : tile.cells[i];
+	}
+
+	/**
+	 * Remove every element equal to the given one from a cell, and the cell itself once it is empty.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in the cell.
+	 *
+	 * @param i       The position of an occupied cell in the tile.
+	 * @param element The element to be removed.
+	 * @return true if anything was removed.
+	 */
+	private boolean removeFrom(Layer<T> layer, Tile<T> tile, int i, T element) {
+		CellBucket<T> bucket = tile.cells[i];
+		int removed = bucket.removeEvery(element);
+		if (removed == 0) {
+			return false;
+		}
+		elementIndex.remove(element, bucket);
+		layerSizes[bucket.getZ()] -= removed;
+		size -= removed;
+		if (bucket.size() == 0) {
+			removeCell(layer, tile, i);		// Do not keep empty cells around
+		}
+		return true;
+	}
+
+	/**
+	 * Remove an empty cell from its tile, and the tile from its layer once it holds no cells.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param i The position of the cell in the tile.
+	 */
+	private static <T> void removeCell(Layer<T> layer, Tile<T> tile, int i) {
+		tile.removeCell(i);
+		if (tile.numCells == 0) {
+			layer.removeTile(tile);
+		}
+	}
+
+	/**
+	 * Copy every element inside a box, and within a squared distance of (x, y, z), to the given
+	 * queue. Each layer of the box is searched by either looking up every tile the box overlaps or
+	 * checking every occupied tile, whichever is fewer. The box must lie inside the cube.
+	 *
+	 * Time complexity: O(h*min(t, u) + c + k), where h is the number of layers in the box, t is the
+	 * number of tiles the box overlaps in a layer, u is the number of occupied tiles in a layer, c is
+	 * the number of occupied cells in those tiles and k is the number of elements copied.
+	 *
+	 * @param limit The largest squared distance from (x, y, z) to be copied.
+	 * @param queue The queue to be appended to.
+	 */
+	private void collectWithin(int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z, long limit,
+			IterableQueue<T> queue) {
+		int tx1 = x1 / tileSize;
+		int ty1 = y1 / tileSize;
+		int tx2 = x2 / tileSize;
+		int ty2 = y2 / tileSize;
+		long overlapped = (long) (tx2 - tx1 + 1) * (ty2 - ty1 + 1);
+		for (int l = z1; l <= z2; l++) {
+			Layer<T> layer = layers[l];
+			if (layer == null || layerSizes[l] == 0) {
+				continue;	// Skip layers without elements
+			}
+			if (overlapped <= layer.numOccupied) {
+				for (int i = tx1; i <= tx2; i++) {
+					for (int j = ty1; j <= ty2; j++) {
+						Tile<T> tile = layer.grid[i * tilesAlongY + j];
+						if (tile != null) {
+							collectTile(tile, x1, y1, l, x2, y2, l, x, y, z, limit, queue);
+						}
+					}
+				}
+			} else {
+				for (int t = 0; t < layer.numOccupied; t++) {
+					Tile<T> tile = layer.occupied[t];
+					int i = tile.index / tilesAlongY;
+					int j = tile.index % tilesAlongY;
+					if (tx1 <= i && i <= tx2 && ty1 <= j && j <= ty2) {
+						collectTile(tile, x1, y1, l, x2, y2, l, x, y, z, limit, queue);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy every element of a tile inside a box, and within a squared distance of (x, y, z), to the
+	 * given queue.
+	 *
+	 * Time complexity: O(c + k), where c is the number of occupied cells in the tile and k is the
+	 * number of elements copied.
+	 */
+	private static <T> void collectTile(Tile<T> tile, int x1, int y1, int z1, int x2, int y2, int z2,
+			int x, int y, int z, long limit, IterableQueue<T> queue) {
+		for (int i = 0; i < tile.numCells; i++) {
+			CellBucket<T> bucket = tile.cells[i];
+			if (bucket.coordsWithin(x1, y1, z1, x2, y2, z2) && bucket.distanceSquared(x, y, z) <= limit) {
+				bucket.copyTo(queue);
+			}
+		}
+	}
+
+	/**
+	 * Offer the elements of a layer to a nearest neighbour heap, skipping the tiles that are
+	 * further away from (x, y, z) than the furthest element kept.
+	 *
+	 * Time complexity: O(u + c*log(k)), where u is the number of occupied tiles in the layer, c is
+	 * the number of occupied cells in the layer and k is the capacity of the heap.
+	 *
+	 * @param layer         The layer to be searched, may be null.
+	 * @param layerDistance The squared distance between the layer and z.
+	 * @param heap          The heap to be offered to.
+	 */
+	private void offerNearest(Layer<T> layer, int x, int y, int z, long layerDistance, NearestHeap<T> heap) {
+		if (layer == null) {
+			return;
+		}
+		for (int t = 0; t < layer.numOccupied; t++) {
+			Tile<T> tile = layer.occupied[t];
+			long dx = axisDistance(x, tile.index / tilesAlongY);
+			long dy = axisDistance(y, tile.index % tilesAlongY);
+			if (layerDistance + dx * dx + dy * dy >= heap.worstDistance()) {
+				continue;
+			}
+			for (int i = 0; i < tile.numCells; i++) {
+				CellBucket<T> bucket = tile.cells[i];
+				bucket.offerTo(heap, bucket.distanceSquared(x, y, z));
+			}
+		}
+	}
+
+	/**
+	 * @param coordinate A coordinate along x or y.
+	 * @param tile       The position of a tile along the same dimension.
+	 * @return The distance in cells between the coordinate and the closest cell of the tile.
+	 */
+	private long axisDistance(int coordinate, int tile) {
+		int lower = tile * tileSize;
+		int upper = lower + tileSize - 1;
+		if (coordinate < lower) {
+			return lower - coordinate;
+		}
+		return coordinate > upper ? coordinate - upper : 0;
+	}
+
+	/**
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @return The position in a layer's grid of the tile containing (x, y).
+	 */
+	private int tileOf(int x, int y) {
+		return (x / tileSize) * tilesAlongY + y / tileSize;
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Check whether the given box is invalid and will raise exceptions.
+	 *
+	 * @param x1 X Coordinate of the lower corner.
+	 * @param y1 Y Coordinate of the lower corner.
+	 * @param z1 Z Coordinate of the lower corner.
+	 * @param x2 X Coordinate of the upper corner.
+	 * @param y2 Y Coordinate of the upper corner.
+	 * @param z2 Z Coordinate of the upper corner.
+	 */
+	private void validBox(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * Controllers work in flight levels, and the most common question is which airplanes are between two altitudes over
+ * a region. The other cubes answer it either by looking up every cell of the box or by checking every occupied cell,
+ * and neither knows how many airplanes a layer holds without collecting them. This CDT keeps each 1 km layer apart,
+ * so a band query never looks at layers outside the band, and skips the layers it covers that are empty. The number
+ * of elements in each layer is updated on every insertion and removal, so occupancy counts by flight level cost one
+ * array read.
+ *
+ * Each layer is divided into square tiles (32 km by 32 km by default, 18036 tiles per layer for OneSky), and a tile
+ * holds its occupied cells in a small array. A layer keeps its tiles both in a grid, so that a query over a small
+ * region goes straight to the tiles it overlaps, and in a dense list of occupied tiles, so that a query over a large
+ * region only visits tiles that hold airplanes; each query takes whichever is fewer. Empty cells and tiles are
+ * removed straight away, and a layer's grid is only created on its first insertion, so an empty layer costs nothing
+ * and an occupied one costs a reference per tile. A nearest neighbour query visits layers outwards from the position
+ * and stops once the next layer is further away than the k-th closest airplane found, and within a layer skips the
+ * tiles that are too far away.
+ *
+ * An airplane leaving the airspace is removed without its coordinates, so an element index records which cells hold
+ * each element, as in HashedCube, and removing it only visits those cells rather than every layer.
+ */
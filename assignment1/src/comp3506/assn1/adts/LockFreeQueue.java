@@ -0,0 +1,210 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A FIFO collection CDT with iteration functionalities that many threads can enqueue to at once
+ * without locking, while a single thread dequeues. It is a linked list based on Vyukov's
+ * multi-producer single-consumer queue [1]: producers append by atomically swapping the tail,
+ * and the consumer follows the next pointers from a sentinel head node.
+ *
+ * Only one thread may call dequeue at a time. enqueue, size and iterator may be called from
+ * any thread.
+ *
+ * Space complexity: O(n)
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class LockFreeQueue<T> implements IterableQueue<T> {
+	private final int maxCapacity;
+	private final AtomicInteger sz = new AtomicInteger();
+	private final AtomicReference<QueueNode<T>> tail;
+	private volatile QueueNode<T> head;		// Sentinel whose next node holds the head element
+
+	/**
+	 * A helper node class for defining a singly linked list whose links are published safely
+	 * between threads.
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	private static class QueueNode<T> {
+		private final T element;
+		private volatile QueueNode<T> next;
+
+		/**
+		 * Default constructor of the node.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param t The type of element held in the data structure.
+		 */
+		public QueueNode(T t) {
+			this.element = t;
+		}
+	}
+
+	/**
+	 * Default constructor of the class, which represents an initial empty queue without a
+	 * capacity limit.
+	 *
+	 * Time complexity: O(1)
+	 */
+	public LockFreeQueue() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor of an initial empty queue holding at most the given number of elements.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param maxCapacity Maximum number of elements the queue can hold.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public LockFreeQueue(int maxCapacity) throws IllegalArgumentException {
+		if (maxCapacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxCapacity = maxCapacity;
+		QueueNode<T> sentinel = new QueueNode<>(null);
+		this.head = sentinel;
+		this.tail = new AtomicReference<>(sentinel);
+	}
+
+	/**
+	 * Default constructor of the class's iterator which is abstract.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new QueueIterator();
+	}
+
+	/**
+	 * The CDT of the queue's iterator. Like that of TraversableQueue, it starts at the head when
+	 * created, sees elements enqueued afterwards and reports no next element once the queue has
+	 * been emptied. It never blocks producers or the consumer.
+	 *
+	 * @author Howie L.
+	 *
+	 */
+	private class QueueIterator implements Iterator<T> {
+		private QueueNode<T> iteratorNode;	// Node before the next element
+
+		/**
+		 * Default constructor. Set the pointer at the sentinel before the first element.
+		 *
+		 * Time complexity: O(1)
+		 */
+		public QueueIterator() {
+			iteratorNode = head;
+		}
+
+		/**
+		 * Check whether the next node is valid.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @return true if a next node exists
+		 */
+		@Override
+		public boolean hasNext() {
+			return sz.get() != 0 && iteratorNode.next != null;
+		}
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @return the next element type stored
+		 */
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			iteratorNode = iteratorNode.next;
+			return iteratorNode.element;
+		}
+	}
+
+	/**
+	 * Add a new element to the end of the queue. Safe to call from many threads at once.
+	 *
+	 * Time complexity: O(1), since it swaps the tail with a single atomic operation rather than
+	 * retrying in a loop.
+	 *
+	 * @param element The element to be added to the queue.
+	 * @throws IllegalStateException Queue cannot accept a new element (e.g. queue space is full).
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		if (sz.getAndIncrement() >= maxCapacity) {
+			sz.decrementAndGet();
+			throw new IllegalStateException();
+		}
+		QueueNode<T> qn = new QueueNode<>(element);
+		QueueNode<T> previous = tail.getAndSet(qn);
+		previous.next = qn;		// Until this link is written, the consumer waits in dequeue
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue. Must only be called by one thread
+	 * at a time.
+	 *
+	 * Time complexity: O(1), apart from briefly waiting for a producer that has claimed the tail
+	 * but not yet linked its node.
+	 *
+	 * @return Element at that was at the head of the queue.
+	 * @throws IndexOutOfBoundsException Queue is empty and nothing can be dequeued.
+	 */
+	@Override
+	public T dequeue() throws IndexOutOfBoundsException {
+		if (sz.get() == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		QueueNode<T> first = head.next;
+		while (first == null) {		// A producer is between swapping the tail and linking
+			Thread.yield();
+			first = head.next;
+		}
+		head = first;		// The dequeued node becomes the new sentinel
+		sz.decrementAndGet();
+		return first.element;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of elements in the queue, including those whose producers are still linking them.
+	 */
+	@Override
+	public int size() {
+		return sz.get();
+	}
+
+}
+
+/**
+ * Design justifications:
+ * Radar sites identify aircraft independently, so the tracker's queue has to accept elements from many threads. A
+ * lock would make every radar thread wait for the others, so this CDT follows Vyukov's multi-producer single-consumer
+ * queue instead. A producer claims its place with one atomic swap of the tail and then links the previous tail to its
+ * node, so producers never retry or wait for each other and the enqueue cost does not grow with the number of radar
+ * sites. The single consumer owns the head and needs no atomic operations apart from the shared size counter.
+ *
+ * The size counter is incremented before a node is linked, which lets the capacity limit be checked without a lock.
+ * It also means the consumer can see a non-empty queue whose head is not linked yet, in which case it yields until
+ * the producer finishes its two-step append. The dequeued node is kept as the new sentinel rather than cleared, which
+ * holds on to one element at most and lets an iterator keep following next pointers from any node it has reached.
+ *
+ * References:
+ * [1]	D. Vyukov, "Non-intrusive MPSC node-based queue," 1024cores.net.
+ */
@@ -0,0 +1,134 @@
+package comp3506.assn1.adts;
+
+/**
+ * A helper data structure that keeps the k elements with the smallest distances offered to it, as a
+ * binary max-heap on distance so that the furthest of the kept elements can be replaced cheaply.
+ * Used by the cubes to answer nearest neighbour queries.
+ *
+ * Space complexity: O(min(k, n)), where n is the number of elements offered, as the arrays grow
+ * with the elements kept rather than being sized for k up front.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+class NearestHeap<T> {
+	private static final int INITIAL_CAPACITY = 16;
+	private final int k;
+	private long[] distances;
+	private Object[] elements;
+	private int sz = 0;
+
+	/**
+	 * Default constructor of the heap, which represents an empty heap.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param k Maximum number of elements kept, which may be as large as Integer.MAX_VALUE.
+	 */
+	NearestHeap(int k) {
+		this.k = k;
+		this.distances = new long[Math.min(k, INITIAL_CAPACITY)];
+		this.elements = new Object[distances.length];
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return true if k elements are kept, so that only closer elements can still be added.
+	 */
+	boolean isFull() {
+		return sz == k;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return The largest distance kept, or Long.MAX_VALUE while the heap is not full.
+	 */
+	long worstDistance() {
+		return isFull() ? distances[0] : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Offer an element, which is kept if fewer than k elements are kept or if it is closer than
+	 * the furthest one kept.
+	 *
+	 * Time complexity: O(log(k)) amortised, since the arrays double when they are full.
+	 *
+	 * @param distance The (squared) distance of the element.
+	 * @param element  The element offered.
+	 */
+	void offer(long distance, T element) {
+		if (!isFull()) {
+			if (sz == distances.length) {
+				int capacity = (int) Math.min(k, 2L * sz);
+				long[] largerDistances = new long[capacity];
+				Object[] largerElements = new Object[capacity];
+				System.arraycopy(distances, 0, largerDistances, 0, sz);
+				System.arraycopy(elements, 0, largerElements, 0, sz);
+				distances = largerDistances;
+				elements = largerElements;
+			}
+			int i = sz++;
+			while (i > 0 && distances[(i - 1) / 2] < distance) {	// Sift up
+				distances[i] = distances[(i - 1) / 2];
+				elements[i] = elements[(i - 1) / 2];
+				i = (i - 1) / 2;
+			}
+			distances[i] = distance;
+			elements[i] = element;
+		} else if (distance < distances[0]) {
+			siftDown(0, distance, element);
+		}
+	}
+
+	/**
+	 * Move all kept elements, nearest first, to the end of the given queue, leaving the heap empty.
+	 *
+	 * Time complexity: O(k*log(k))
+	 *
+	 * @param queue The queue to be appended to.
+	 */
+	@SuppressWarnings("unchecked")
+	void drainTo(IterableQueue<T> queue) {
+		int count = sz;
+		while (sz > 0) {	// Heap sort, placing the furthest remaining element at the end
+			long distance = distances[0];
+			Object element = elements[0];
+			sz--;
+			siftDown(0, distances[sz], elements[sz]);
+			distances[sz] = distance;
+			elements[sz] = element;
+		}
+		for (int i = 0; i < count; i++) {
+			queue.enqueue((T) elements[i]);
+			elements[i] = null;
+		}
+	}
+
+	/**
+	 * Place an element at position i and restore the heap order below it.
+	 *
+	 * @param i        The position to start from.
+	 * @param distance The (squared) distance of the element.
+	 * @param element  The element to be placed.
+	 */
+	private void siftDown(int i, long distance, Object element) {
+		while (2 * i + 1 < sz) {
+			int child = 2 * i + 1;
+			if (child + 1 < sz && distances[child + 1] > distances[child]) {
+				child++;
+			}
+			if (distances[child] <= distance) {
+				break;
+			}
+			distances[i] = distances[child];
+			elements[i] = elements[child];
+			i = child;
+		}
+		distances[i] = distance;
+		elements[i] = element;
+	}
+
+}
@@ -0,0 +1,747 @@
+package comp3506.assn1.adts;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * An octree cube has a specified maximum size in each dimension, and recursively splits its space
+ * into eight octants wherever more than a few cells are occupied, so that queries over a region
+ * only visit the octants overlapping that region.
+ * The root of each dimension is indexed from zero.
+ *
+ * Space complexity: O(n), since each element is stored once in its cell bucket and at most once in
+ * the element index, each leaf holds at least one occupied cell and each internal node has at least
+ * one non-empty child.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class OctreeCube<T> implements Cube<T> {
+	private static final int LEAF_CAPACITY = 8;		// Maximum number of occupied cells in a leaf
+	private int max_X;
+	private int max_Y;
+	private int max_Z;
+	private Node<T> root;
+	private final ElementIndex<T, CellBucket<T>> elementIndex = new ElementIndex<>();	// Cells holding each element
+
+	/**
+	 * Default constructor of the OctreeCube CDT.
+	 *
+	 * Time complexity: O(1), because it only checks and sets x, y and z limits of an empty tree.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive.
+	 */
+	public OctreeCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		clear();
+	}
+
+	/**
+	 * A private helper node of the octree, covering the box from (x0, y0, z0) to (x1, y1, z1)
+	 * inclusive. A leaf holds up to LEAF_CAPACITY occupied cells, whereas an internal node holds
+	 * up to eight children, one for each octant, which are null while the octant is empty.
+	 *
+	 * Space complexity: O(1), excluding the elements held in its cells.
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	private static class Node<T> {
+		private final int x0, y0, z0;
+		private final int x1, y1, z1;
+		private CellBucket<T>[] cells;	// null if this is an internal node
+		private int cellCount = 0;
+		private Node<T>[] children;		// null if this is a leaf
+
+		/**
+		 * Default constructor of the node, which represents an empty leaf.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param x0 X coordinate of the lower corner.
+		 * @param y0 Y coordinate of the lower corner.
+		 * @param z0 Z coordinate of the lower corner.
+		 * @param x1 X coordinate of the upper corner.
+		 * @param y1 Y coordinate of the upper corner.
+		 * @param z1 Z coordinate of the upper corner.
+		 */
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Node(int x0, int y0, int z0, int x1, int y1, int z1) {
+			this.x0 = x0;
+			this.y0 = y0;
+			this.z0 = z0;
+			this.x1 = x1;
+			this.y1 = y1;
+			this.z1 = z1;
+			this.cells = (CellBucket<T>[]) new CellBucket[LEAF_CAPACITY];
+		}
+
+		/**
+		 * @return true if this node has no children.
+		 */
+		public boolean isLeaf() {
+			return children == null;
+		}
+
+		/**
+		 * Find the octant a cell of this node belongs to. Dimensions that are only one cell wide
+		 * are not split, so all their cells fall into the lower half.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param x X coordinate of the cell.
+		 * @param y Y coordinate of the cell.
+		 * @param z Z coordinate of the cell.
+		 * @return The index of the child covering the cell.
+		 */
+		public int octantOf(int x, int y, int z) {
+			int octant = 0;
+			if (x > (x0 + x1) >>> 1) {
+				octant |= 4;
+			}
+			if (y > (y0 + y1) >>> 1) {
+				octant |= 2;
+			}
+			if (z > (z0 + z1) >>> 1) {
+				octant |= 1;
+			}
+			return octant;
+		}
+
+		/**
+		 * Create the (empty) child covering the given octant.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @param octant The index of the child.
+		 * @return The new child node.
+		 */
+		public Node<T> newChild(int octant) {
+			int midX = (x0 + x1) >>> 1;
+			int midY = (y0 + y1) >>> 1;
+			int midZ = (z0 + z1) >>> 1;
+			return new Node<T>((octant & 4) == 0 ? x0 : midX + 1, (octant & 2) == 0 ? y0 : midY + 1,
+					(octant & 1) == 0 ? z0 : midZ + 1, (octant & 4) == 0 ? midX : x1,
+					(octant & 2) == 0 ? midY : y1, (octant & 1) == 0 ? midZ : z1);
+		}
+
+		/**
+		 * Check if this node overlaps a box.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @return true if at least one cell of this node lies inside the box
+		 */
+		public boolean overlaps(int bx0, int by0, int bz0, int bx1, int by1, int bz1) {
+			return x0 <= bx1 && bx0 <= x1 && y0 <= by1 && by0 <= y1 && z0 <= bz1 && bz0 <= z1;
+		}
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @return The smallest squared distance between (x, y, z) and any cell of this node.
+		 */
+		public long minDistanceSquared(int x, int y, int z) {
+			long dx = x < x0 ? x0 - x : (x > x1 ? x - x1 : 0);
+			long dy = y < y0 ? y0 - y : (y > y1 ? y - y1 : 0);
+			long dz = z < z0 ? z0 - z : (z > z1 ? z - z1 : 0);
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		/**
+		 * Check if this node lies entirely inside a box.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @return true if every cell of this node lies inside the box
+		 */
+		public boolean isInside(int bx0, int by0, int bz0, int bx1, int by1, int bz1) {
+			return bx0 <= x0 && x1 <= bx1 && by0 <= y0 && y1 <= by1 && bz0 <= z0 && z1 <= bz1;
+		}
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(log(n)) for evenly spread elements, because it descends one level of
+	 * the tree per halving of the space, and splitting a full leaf only moves LEAF_CAPACITY cells.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		Node<T> node = root;
+		while (true) {
+			if (node.isLeaf()) {
+				CellBucket<T> bucket = findCell(node, x, y, z);
+				if (bucket != null) {
+					bucket.add(element);
+					elementIndex.add(element, bucket);
+					return;
+				}
+				if (node.cellCount < LEAF_CAPACITY) {
+					bucket = new CellBucket<>(x, y, z);
+					bucket.add(element);
+					node.cells[node.cellCount++] = bucket;
+					elementIndex.add(element, bucket);
+					return;
+				}
+				split(node);	// Full leaf: push its cells down and descend
+			}
+			int octant = node.octantOf(x, y, z);
+			if (node.children[octant] == null) {
+				node.children[octant] = node.newChild(octant);
+			}
+			node = node.children[octant];
+		}
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time complexity: O(log(n)) for evenly spread elements.
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		if (bucket == null) {
+			return null;
+		}
+		return bucket.get(0);
+	}
+
+	/**
+	 * Return all the elements at the indicated position.
+	 *
+	 * Time complexity: O(log(n) + m) for evenly spread elements, where m is the number of
+	 * elements at the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		if (bucket == null) {
+			return null;
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		bucket.copyTo(planeQueue);
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces. Elements are
+	 * grouped by cell, and the elements of each cell are returned oldest first.
+	 *
+	 * Time complexity: O(log(n) + k) for evenly spread elements, where k is the number of elements
+	 * returned, because octants outside the box are skipped and octants entirely inside the box
+	 * are copied without checking their cells.
+	 *
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validBox(x1, y1, z1, x2, y2, z2);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(root, x1, y1, z1, x2, y2, z2, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 *
+	 * Time complexity: O(log(n) + k*log(k)) for evenly spread elements, because octants are
+	 * visited nearest first and skipped once they are further away than the k-th closest
+	 * element found so far.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		collectNearest(root, x, y, z, heap);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 *
+	 * Time complexity: O(log(n) + k) for evenly spread elements, where k is the number of elements
+	 * returned, because octants further away than the radius are skipped.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithinRadius(root, x, y, z, (long) Math.floor(radius * radius), planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time complexity: O(log(n)) for evenly spread elements.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		return bucket != null && bucket.size() > 1;
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed. Octants left empty are pruned from the tree.
+	 *
+	 * Time complexity: O(log(n) + m) for evenly spread elements, where m is the number of
+	 * elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		return bucket != null && removeFrom(bucket, element);
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed. Octants left empty are pruned from the tree.
+	 *
+	 * Time complexity: O(log(n) + m) per cell holding the element, for evenly spread elements,
+	 * where m is the number of elements in the cell, because the element index leads straight to
+	 * those cells.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		IterableQueue<CellBucket<T>> buckets = elementIndex.locationsOf(element);
+		if (buckets == null) {
+			return false;
+		}
+		for (CellBucket<T> bucket : buckets) {
+			removeFrom(bucket, element);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position. Octants left empty are pruned from the tree.
+	 *
+	 * Time complexity: O(log(n) + m) for evenly spread elements, where m is the number of elements
+	 * at the position.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		CellBucket<T> bucket = find(x, y, z);
+		if (bucket == null) {
+			return;
+		}
+		for (int i = 0; i < bucket.size(); i++) {
+			elementIndex.remove(bucket.get(i), bucket);
+		}
+		removeCell(root, x, y, z);
+	}
+
+	/**
+	 * Removes all elements stored in the cube.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		this.root = new Node<T>(0, 0, 0, max_X, max_Y, max_Z);
+		this.elementIndex.clear();
+	}
+
+	/**
+	 * Find the bucket of the cell at the given position.
+	 *
+	 * Time complexity: O(log(n)) for evenly spread elements.
+	 *
+	 * @return The bucket of the cell, or null if the cell is empty.
+	 */
+	private CellBucket<T> find(int x, int y, int z) {
+		Node<T> node = root;
+		while (node != null && !node.isLeaf()) {
+			node = node.children[node.octantOf(x, y, z)];
+		}
+		if (node == null) {
+			return null;
+		}
+		return findCell(node, x, y, z);
+	}
+
+	/**
+	 * Find the bucket of a cell in a leaf.
+	 *
+	 * Time complexity: O(1), since a leaf holds at most LEAF_CAPACITY cells.
+	 *
+	 * @return The bucket of the cell, or null if the leaf does not hold the cell.
+	 */
+	private static <T> CellBucket<T> findCell(Node<T> leaf, int x, int y, int z) {
+		for (int i = 0; i < leaf.cellCount; i++) {
+			if (leaf.cells[i].coordsMatch(x, y, z)) {
+				return leaf.cells[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Turn a full leaf into an internal node, moving each of its cells into the child covering it.
+	 *
+	 * Time complexity: O(1) for evenly spread cells, since a leaf holds at most LEAF_CAPACITY cells.
+	 *
+	 * @param leaf The leaf to be split.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> void split(Node<T> leaf) {
+		CellBucket<T>[] cells = leaf.cells;
+		int cellCount = leaf.cellCount;
+		leaf.children = (Node<T>[]) new Node[8];
+		leaf.cells = null;
+		leaf.cellCount = 0;
+		for (int i = 0; i < cellCount; i++) {
+			insertCell(leaf, cells[i]);	// Splits again if all cells fall into one octant
+		}
+	}
+
+	/**
+	 * Insert an existing cell bucket below a node, creating and splitting nodes as needed.
+	 *
+	 * @param node   The node to insert below.
+	 * @param bucket The cell to be inserted, which must not already be held in the tree.
+	 */
+	private static <T> void insertCell(Node<T> node, CellBucket<T> bucket) {
+		while (true) {
+			if (node.isLeaf()) {
+				if (node.cellCount < LEAF_CAPACITY) {
+					node.cells[node.cellCount++] = bucket;
+					return;
+				}
+				split(node);
+			}
+			int octant = node.octantOf(bucket.getX(), bucket.getY(), bucket.getZ());
+			if (node.children[octant] == null) {
+				node.children[octant] = node.newChild(octant);
+			}
+			node = node.children[octant];
+		}
+	}
+
+	/**
+	 * Recursively copy every element inside a box below a node to the given queue.
+	 *
+	 * @param node  The node to search below.
+	 * @param queue The queue to be appended to.
+	 */
+	private static <T> void collectWithin(Node<T> node, int x1, int y1, int z1, int x2, int y2, int z2,
+			IterableQueue<T> queue) {
+		if (!node.overlaps(x1, y1, z1, x2, y2, z2)) {
+			return;
+		}
+		if (node.isLeaf()) {
+			boolean inside = node.isInside(x1, y1, z1, x2, y2, z2);
+			for (int i = 0; i < node.cellCount; i++) {
+				if (inside || node.cells[i].coordsWithin(x1, y1, z1, x2, y2, z2)) {
+					node.cells[i].copyTo(queue);
+				}
+			}
+			return;
+		}
+		for (Node<T> child : node.children) {
+			if (child != null) {
+				collectWithin(child, x1, y1, z1, x2, y2, z2, queue);
+			}
+		}
+	}
+
+	/**
+	 * Recursively offer the elements below a node to a nearest neighbour heap, visiting the
+	 * children nearest first and skipping those that cannot hold anything closer than the
+	 * furthest element kept.
+	 *
+	 * @param node The node to search below.
+	 * @param heap The heap to be offered to.
+	 */
+	private static <T> void collectNearest(Node<T> node, int x, int y, int z, NearestHeap<T> heap) {
+		if (node.isLeaf()) {
+			for (int i = 0; i < node.cellCount; i++) {
+				CellBucket<T> bucket = node.cells[i];
+				bucket.offerTo(heap, bucket.distanceSquared(x, y, z));
+			}
+			return;
+		}
+		long[] distances = new long[8];
+		int[] order = new int[8];
+		int count = 0;
+		for (int octant = 0; octant < 8; octant++) {
+			if (node.children[octant] == null) {
+				continue;
+			}
+			long distance = node.children[octant].minDistanceSquared(x, y, z);
+			int i = count++;
+			while (i > 0 && distances[i - 1] > distance) {	// Insertion sort by distance
+				distances[i] = distances[i - 1];
+				order[i] = order[i - 1];
+				i--;
+			}
+			distances[i] = distance;
+			order[i] = octant;
+		}
+		for (int i = 0; i < count && distances[i] < heap.worstDistance(); i++) {
+			collectNearest(node.children[order[i]], x, y, z, heap);
+		}
+	}
+
+	/**
+	 * Recursively copy every element below a node within a squared distance of (x, y, z) to the
+	 * given queue.
+	 *
+	 * @param node  The node to search below.
+	 * @param limit The largest squared distance to be copied.
+	 * @param queue The queue to be appended to.
+	 */
+	private static <T> void collectWithinRadius(Node<T> node, int x, int y, int z, long limit, IterableQueue<T> queue) {
+		if (node.minDistanceSquared(x, y, z) > limit) {
+			return;
+		}
+		if (node.isLeaf()) {
+			for (int i = 0; i < node.cellCount; i++) {
+				if (node.cells[i].distanceSquared(x, y, z) <= limit) {
+					node.cells[i].copyTo(queue);
+				}
+			}
+			return;
+		}
+		for (Node<T> child : node.children) {
+			if (child != null) {
+				collectWithinRadius(child, x, y, z, limit, queue);
+			}
+		}
+	}
+
+	/**
+	 * Recursively remove a cell below a node, pruning children that become empty.
+	 *
+	 * @param node The node to search below.
+	 * @return true if the cell was found and removed.
+	 */
+	private static <T> boolean removeCell(Node<T> node, int x, int y, int z) {
+		if (node.isLeaf()) {
+			for (int i = 0; i < node.cellCount; i++) {
+				if (node.cells[i].coordsMatch(x, y, z)) {
+					node.cells[i] = node.cells[--node.cellCount];	// Order of cells is irrelevant
+					node.cells[node.cellCount] = null;
+					return true;
+				}
+			}
+			return false;
+		}
+		int octant = node.octantOf(x, y, z);
+		Node<T> child = node.children[octant];
+		if (child == null || !removeCell(child, x, y, z)) {
+			return false;
+		}
+		if (child.isLeaf() && child.cellCount == 0) {
+			node.children[octant] = null;
+		}
+		if (isEmptyInternal(node)) {
+			collapse(node);	// Last octant is gone, so turn back into an empty leaf
+		}
+		return true;
+	}
+
+	/**
+	 * Remove every element equal to the given one from a cell, and the cell itself once it is empty.
+	 *
+	 * Time complexity: O(log(n) + m) for evenly spread elements, where m is the number of elements
+	 * in the cell.
+	 *
+	 * @param bucket  The bucket of an occupied cell.
+	 * @param element The element to be removed.
+	 * @return true if anything was removed.
+	 */
+	private boolean removeFrom(CellBucket<T> bucket, T element) {
+		if (bucket.removeEvery(element) == 0) {
+			return false;
+		}
+		elementIndex.remove(element, bucket);
+		if (bucket.size() == 0) {
+			removeCell(root, bucket.getX(), bucket.getY(), bucket.getZ());
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if an internal node has no children left.
+	 */
+	private static <T> boolean isEmptyInternal(Node<T> node) {
+		for (Node<T> child : node.children) {
+			if (child != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Turn an internal node without children back into an empty leaf.
+	 *
+	 * @param node The node to be collapsed.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <T> void collapse(Node<T> node) {
+		node.children = null;
+		node.cells = (CellBucket<T>[]) new CellBucket[LEAF_CAPACITY];
+		node.cellCount = 0;
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Check whether the given box is invalid and will raise exceptions.
+	 *
+	 * @param x1 X Coordinate of the lower corner.
+	 * @param y1 Y Coordinate of the lower corner.
+	 * @param z1 Z Coordinate of the lower corner.
+	 * @param x2 X Coordinate of the upper corner.
+	 * @param y2 Y Coordinate of the upper corner.
+	 * @param z2 Z Coordinate of the upper corner.
+	 */
+	private void validBox(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * A range query over HashedCube has to either look up every cell of the box or check every occupied cell, so a
+ * query over a sector of the 5321*3428*35 OneSky airspace costs millions of steps no matter how few airplanes it
+ * finds. This CDT is a point-region octree: each node covers a box of the airspace and is split into eight octants
+ * once more than LEAF_CAPACITY cells inside it are occupied. A range query only descends into octants that overlap
+ * the box, and copies octants lying entirely inside the box without checking their cells, so its cost follows the
+ * number of airplanes found rather than the volume of the box.
+ *
+ * The same pruning answers separation queries. A radius query skips every octant whose closest cell is further away
+ * than the radius. A nearest neighbour query visits the octants nearest first, keeping the k closest airplanes found
+ * so far in a bounded max-heap, and skips an octant as soon as its closest cell is further away than the furthest
+ * airplane kept, so only the octants around the query position are searched.
+ *
+ * Nodes are only created for occupied octants, so like the other cubes only the occupied cells take memory. Each
+ * dimension is halved independently and a dimension that is one cell wide is no longer split, which keeps the tree
+ * shallow for the flat OneSky airspace (35 km high but thousands of kilometres wide). Octants left empty by a
+ * removal are pruned, so the tree shrinks back as airplanes leave.
+ *
+ * An element index records which cells hold each element, as in HashedCube, so removing an airplane without its
+ * coordinates goes straight to its cells instead of walking the whole tree.
+ */
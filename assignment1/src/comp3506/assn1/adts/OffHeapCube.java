@@ -0,0 +1,913 @@
+package comp3506.assn1.adts;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * An off-heap cube keeps its cells and the links between their elements outside the Java heap,
+ * in direct byte buffers, so the garbage collector does not have to trace one or more objects per
+ * element. Each element is referred to by an int handle; the only per-element state on the heap
+ * is the reference from the handle to the element itself.
+ * The root of each dimension is indexed from zero.
+ *
+ * Occupied cells are kept in an open addressing hash table keyed by the (x, y, z) coordinates
+ * packed into a single long, as in HashedCube. Each cell holds the handles of its oldest and
+ * newest elements, and the elements of a cell are doubly linked in insertion order. The entries
+ * are also doubly linked into chains by the hash code of their element, whose heads are kept in
+ * a table of their own, so that an element can be found without its coordinates.
+ *
+ * Memory per element, when each element is in its own cell: 32 bytes for its entry, 16 bytes for
+ * its cell's slot in a table kept between 37.5% and 75% full and 4 bytes for its chain's head in
+ * another such table, off the heap, and 4 bytes on the heap for its handle's reference (with
+ * compressed references), so 63 to 90 bytes in all and about 71 in practice, none of it in
+ * objects of its own. HashedCube uses about 95 bytes of heap
+ * over four objects per element in the same case, and BoundedCube about 45 bytes over three
+ * objects. Off-heap memory counts against -XX:MaxDirectMemorySize.
+ *
+ * Space complexity: O(n + c), where c is the number of occupied cells.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class OffHeapCube<T> implements Cube<T> {
+	private static final int INITIAL_CAPACITY = 16;		// Must be a power of two
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;	// Fibonacci hashing
+	private static final int NIL = -1;		// Handle of no element
+	// Layout of a 16 byte cell slot. A key of 0 marks an empty slot, so keys are stored plus one.
+	private static final int SLOT_BYTES = 16;
+	private static final int SLOT_KEY = 0;
+	private static final int SLOT_HEAD = 8;		// Handle of the oldest element
+	private static final int SLOT_TAIL = 12;	// Handle of the newest element
+	// Layout of a 32 byte element entry, addressed by the element's handle. The last 4 bytes are unused.
+	private static final int ENTRY_BYTES = 32;
+	private static final int ENTRY_KEY = 0;		// Key of the element's cell
+	private static final int ENTRY_NEXT = 8;	// Next newer element of the cell, or next free handle
+	private static final int ENTRY_PREV = 12;	// Next older element of the cell
+	private static final int ENTRY_HASH = 16;	// Hash code of the element
+	private static final int ENTRY_CHAIN_NEXT = 20;		// Next element of the same hash chain
+	private static final int ENTRY_CHAIN_PREV = 24;		// Previous element of the same hash chain
+	// A 4 byte chain head holds the handle of the chain's first element plus one, so 0 marks an empty chain.
+	private static final int HEAD_BYTES = 4;
+	private static final int CHUNK_BITS = 16;	// Elements per chunk of the handle table, as a power of two
+	private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+	private int max_X;
+	private int max_Y;
+	private int max_Z;
+	private int y_shift;	// Bit offset of the y coordinate in a packed key
+	private int x_shift;	// Bit offset of the x coordinate in a packed key
+	private int y_mask;
+	private int z_mask;
+	private OffHeapArray table;
+	private long tableCapacity;		// Number of slots, a power of two
+	private long cellCount = 0;
+	private OffHeapArray entries;
+	private Object[][] elements;	// Element of each handle, in chunks so the table never has to be copied
+	private int handleCount = 0;	// Handles ever given out, used or free
+	private int freeHandle = NIL;	// Head of the list of free handles
+	private OffHeapArray chains;	// Heads of the chains of entries with the same element hash
+	private int chainCapacity;		// Number of chains, a power of two
+	private int sz = 0;
+
+	/**
+	 * A growable array of bytes made up of direct buffers of SEGMENT_BYTES each, so that it can
+	 * exceed the 2 GB limit of a single buffer. Until it needs a whole segment, the array is a
+	 * single smaller buffer that is copied as it doubles. Records are no longer than a segment
+	 * and are aligned to their own size, so a record never spans two buffers.
+	 *
+	 * @author Howie L.
+	 */
+	private static class OffHeapArray {
+		private static final int MIN_BYTES = 4096;
+		private static final int SEGMENT_BITS = 24;
+		private static final int SEGMENT_BYTES = 1 << SEGMENT_BITS;		// 16 MB
+		private static final int SEGMENT_MASK = SEGMENT_BYTES - 1;
+		private ByteBuffer[] segments = new ByteBuffer[1];
+		private int numSegments = 0;
+		private long capacity = 0;
+
+		/**
+		 * Allocate memory until the array holds at least the given number of bytes. New memory
+		 * is filled with zeros.
+		 *
+		 * Time complexity: O(b) amortised, where b is the number of bytes added.
+		 *
+		 * @param bytes Size the array needs to reach.
+		 */
+		void ensureCapacity(long bytes) {
+			if (bytes <= capacity) {
+				return;
+			}
+			if (capacity < SEGMENT_BYTES) {
+				long size = Math.min(SEGMENT_BYTES, Math.max(MIN_BYTES, Long.highestOneBit(bytes - 1) << 1));
+				ByteBuffer grown = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+				if (numSegments != 0) {
+					ByteBuffer old = segments[0].duplicate();
+					old.clear();		// Buffer.clear() does not return a ByteBuffer before Java 9
+					grown.put(old);
+				}
+				segments[0] = grown;
+				numSegments = 1;
+				capacity = size;
+			}
+			while (capacity < bytes) {
+				if (numSegments == segments.length) {
+					ByteBuffer[] larger = new ByteBuffer[segments.length * 2];
+					System.arraycopy(segments, 0, larger, 0, numSegments);
+					segments = larger;
+				}
+				segments[numSegments++] = ByteBuffer.allocateDirect(SEGMENT_BYTES).order(ByteOrder.nativeOrder());
+				capacity += SEGMENT_BYTES;
+			}
+		}
+
+		/**
+		 * @return Number of bytes allocated.
+		 */
+		long capacity() {
+			return capacity;
+		}
+
+		long getLong(long address) {
+			return segments[(int) (address >>> SEGMENT_BITS)].getLong((int) address & SEGMENT_MASK);
+		}
+
+		void putLong(long address, long value) {
+			segments[(int) (address >>> SEGMENT_BITS)].putLong((int) address & SEGMENT_MASK, value);
+		}
+
+		int getInt(long address) {
+			return segments[(int) (address >>> SEGMENT_BITS)].getInt((int) address & SEGMENT_MASK);
+		}
+
+		void putInt(long address, int value) {
+			segments[(int) (address >>> SEGMENT_BITS)].putInt((int) address & SEGMENT_MASK, value);
+		}
+	}
+
+	/**
+	 * Default constructor of the OffHeapCube CDT.
+	 *
+	 * Time complexity: O(1), because it only checks and sets x, y and z limits of an empty table.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive, or are too
+	 *                                  large to be packed into a single long key.
+	 */
+	public OffHeapCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int x_bits = bitsFor(length);
+		int y_bits = bitsFor(breadth);
+		int z_bits = bitsFor(height);
+		if (x_bits + y_bits + z_bits > Long.SIZE - 2) {		// Keys are stored plus one
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		this.y_shift = z_bits;
+		this.x_shift = y_bits + z_bits;
+		this.y_mask = (1 << y_bits) - 1;
+		this.z_mask = (1 << z_bits) - 1;
+		clear();
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(1) amortised, because the cell is found by hashing and the table is
+	 * only rebuilt when the load factor is exceeded.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalStateException If the cube already holds Integer.MAX_VALUE elements.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException, IllegalStateException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		int handle = newHandle(element, key);
+		long slot = find(key);
+		if (slot == NIL) {
+			if (cellCount + 1 > tableCapacity * MAX_LOAD_FACTOR) {
+				resize(tableCapacity * 2);
+			}
+			slot = emptySlotFor(key);
+			table.putLong(slot * SLOT_BYTES + SLOT_KEY, key + 1);
+			table.putInt(slot * SLOT_BYTES + SLOT_HEAD, handle);
+			table.putInt(slot * SLOT_BYTES + SLOT_TAIL, handle);
+			cellCount++;
+		} else {
+			int tail = table.getInt(slot * SLOT_BYTES + SLOT_TAIL);
+			entries.putInt((long) tail * ENTRY_BYTES + ENTRY_NEXT, handle);
+			entries.putInt((long) handle * ENTRY_BYTES + ENTRY_PREV, tail);
+			table.putInt(slot * SLOT_BYTES + SLOT_TAIL, handle);
+		}
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long slot = find(pack(x, y, z));
+		if (slot == NIL) {
+			return null;
+		}
+		return element(table.getInt(slot * SLOT_BYTES + SLOT_HEAD));
+	}
+
+	/**
+	 * Return all the elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long slot = find(pack(x, y, z));
+		if (slot == NIL) {
+			return null;
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		copyTo(slot, planeQueue);
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces.
+	 *
+	 * Time complexity: O(min(v, s) + k), where v is the number of cells in the box, s is the number
+	 * of slots in the table and k is the number of elements returned, because it either looks up
+	 * every cell of the box or checks every slot, whichever is fewer.
+	 *
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(x1, y1, z1, x2, y2, z2, 0, 0, 0, Long.MAX_VALUE, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 *
+	 * Time complexity: O(s + n*log(k)), where s is the number of slots in the table, because it
+	 * needs to check every occupied cell and keep the k closest elements in a heap.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		for (long slot = 0; slot < tableCapacity; slot++) {
+			long storedKey = table.getLong(slot * SLOT_BYTES + SLOT_KEY);
+			if (storedKey != 0) {
+				long distance = distanceSquared(storedKey - 1, x, y, z);
+				for (int h = table.getInt(slot * SLOT_BYTES + SLOT_HEAD); h != NIL; h = next(h)) {
+					heap.offer(distance, element(h));
+				}
+			}
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 *
+	 * Time complexity: O(min(v, s) + k), where v is the number of cells in the box bounding the sphere,
+	 * s is the number of slots in the table and k is the number of elements returned.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		RadiusBox box = new RadiusBox(x, y, z, radius, max_X, max_Y, max_Z);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(box.x1, box.y1, box.z1, box.x2, box.y2, box.z2, x, y, z, box.limit, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long slot = find(pack(x, y, z));
+		return slot != NIL && table.getInt(slot * SLOT_BYTES + SLOT_HEAD) != table.getInt(slot * SLOT_BYTES + SLOT_TAIL);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long slot = find(pack(x, y, z));
+		if (slot == NIL) {
+			return false;
+		}
+		boolean removed = false;
+		int h = table.getInt(slot * SLOT_BYTES + SLOT_HEAD);
+		while (h != NIL) {
+			int next = next(h);		// Read before unlink frees the handle
+			if (element(h).equals(element)) {
+				unlink(slot, h);
+				removed = true;
+			}
+			h = next;
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 *
+	 * Time complexity: O(r) expected, where r is the number of elements equal to it, because only
+	 * the chain of its hash code is searched, and each entry records its own cell.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		int hash = element.hashCode();
+		boolean removed = false;
+		int h = chains.getInt((long) chainFor(hash, chainCapacity) * HEAD_BYTES) - 1;
+		while (h != NIL) {
+			int next = entries.getInt((long) h * ENTRY_BYTES + ENTRY_CHAIN_NEXT);	// Read before unlink frees the handle
+			if (entries.getInt((long) h * ENTRY_BYTES + ENTRY_HASH) == hash && element(h).equals(element)) {
+				unlink(find(entries.getLong((long) h * ENTRY_BYTES + ENTRY_KEY)), h);
+				removed = true;
+			}
+			h = next;
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long slot = find(pack(x, y, z));
+		if (slot == NIL) {
+			return;
+		}
+		int h = table.getInt(slot * SLOT_BYTES + SLOT_HEAD);
+		while (h != NIL) {
+			int next = next(h);
+			freeHandle(h);
+			h = next;
+		}
+		deleteSlot(slot);
+	}
+
+	/**
+	 * Removes all elements stored in the cube. The off-heap memory is released once the garbage
+	 * collector reclaims the old buffers.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		this.tableCapacity = INITIAL_CAPACITY;
+		this.table = new OffHeapArray();
+		this.table.ensureCapacity(tableCapacity * SLOT_BYTES);
+		this.cellCount = 0;
+		this.entries = new OffHeapArray();
+		this.elements = new Object[1][];
+		this.handleCount = 0;
+		this.freeHandle = NIL;
+		this.chainCapacity = INITIAL_CAPACITY;
+		this.chains = new OffHeapArray();
+		this.chains.ensureCapacity((long) chainCapacity * HEAD_BYTES);
+		this.sz = 0;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of elements in the cube.
+	 */
+	public int size() {
+		return sz;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of bytes allocated outside the heap for the cells, element entries and hash chains.
+	 */
+	public long offHeapBytes() {
+		return table.capacity() + entries.capacity() + chains.capacity();
+	}
+
+	/**
+	 * Copy every element inside a box, and within a squared distance of (x, y, z), to the given
+	 * queue, by either looking up every cell of the box or checking every slot, whichever is
+	 * fewer. The box must lie inside the cube.
+	 *
+	 * Time complexity: O(min(v, s) + k), where v is the number of cells in the box, s is the number
+	 * of slots and k is the number of elements copied.
+	 *
+	 * @param limit The largest squared distance from (x, y, z) to be copied.
+	 * @param queue The queue to be appended to.
+	 */
+	private void collectWithin(int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z, long limit,
+			IterableQueue<T> queue) {
+		long volume = (long) (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+		if (volume <= tableCapacity) {
+			for (int i = x1; i <= x2; i++) {
+				for (int j = y1; j <= y2; j++) {
+					for (int l = z1; l <= z2; l++) {
+						long key = pack(i, j, l);
+						if (distanceSquared(key, x, y, z) <= limit) {
+							long slot = find(key);
+							if (slot != NIL) {
+								copyTo(slot, queue);
+							}
+						}
+					}
+				}
+			}
+		} else {
+			for (long slot = 0; slot < tableCapacity; slot++) {
+				long storedKey = table.getLong(slot * SLOT_BYTES + SLOT_KEY);
+				if (storedKey == 0) {
+					continue;
+				}
+				long key = storedKey - 1;
+				int i = (int) (key >>> x_shift);
+				int j = (int) (key >>> y_shift) & y_mask;
+				int l = (int) key & z_mask;
+				if (x1 <= i && i <= x2 && y1 <= j && j <= y2 && z1 <= l && l <= z2
+						&& distanceSquared(key, x, y, z) <= limit) {
+					copyTo(slot, queue);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Append the elements of a cell to a queue, oldest first.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in the cell.
+	 *
+	 * @param slot  Slot of the cell.
+	 * @param queue The queue to be appended to.
+	 */
+	private void copyTo(long slot, IterableQueue<T> queue) {
+		for (int h = table.getInt(slot * SLOT_BYTES + SLOT_HEAD); h != NIL; h = next(h)) {
+			queue.enqueue(element(h));
+		}
+	}
+
+	/**
+	 * Find the slot of the cell with the given key.
+	 *
+	 * Time complexity: O(1) expected, because probe sequences are kept short by the load factor.
+	 *
+	 * @param key The packed coordinates of the cell.
+	 * @return The slot of the cell, or NIL if the cell is empty.
+	 */
+	private long find(long key) {
+		long mask = tableCapacity - 1;
+		for (long slot = indexFor(key, tableCapacity); ; slot = (slot + 1) & mask) {
+			long storedKey = table.getLong(slot * SLOT_BYTES + SLOT_KEY);
+			if (storedKey == key + 1) {
+				return slot;
+			}
+			if (storedKey == 0) {
+				return NIL;
+			}
+		}
+	}
+
+	/**
+	 * @param key The packed coordinates of a cell that is not in the table.
+	 * @return The first empty slot of the key's probe sequence.
+	 */
+	private long emptySlotFor(long key) {
+		long mask = tableCapacity - 1;
+		long slot = indexFor(key, tableCapacity);
+		while (table.getLong(slot * SLOT_BYTES + SLOT_KEY) != 0) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Take an element out of its cell and free its handle, deleting the cell if it is left empty.
+	 *
+	 * Time complexity: O(1) expected
+	 *
+	 * @param slot   Slot of the element's cell.
+	 * @param handle Handle of the element.
+	 */
+	private void unlink(long slot, int handle) {
+		int next = next(handle);
+		int prev = entries.getInt((long) handle * ENTRY_BYTES + ENTRY_PREV);
+		if (prev == NIL) {
+			table.putInt(slot * SLOT_BYTES + SLOT_HEAD, next);
+		} else {
+			entries.putInt((long) prev * ENTRY_BYTES + ENTRY_NEXT, next);
+		}
+		if (next == NIL) {
+			table.putInt(slot * SLOT_BYTES + SLOT_TAIL, prev);
+		} else {
+			entries.putInt((long) next * ENTRY_BYTES + ENTRY_PREV, prev);
+		}
+		freeHandle(handle);
+		if (prev == NIL && next == NIL) {
+			deleteSlot(slot);	// Do not keep empty cells around
+		}
+	}
+
+	/**
+	 * Empty a slot, shifting later slots of the same probe sequences back so that no lookup
+	 * stops early at the gap.
+	 *
+	 * Time complexity: O(1) expected
+	 *
+	 * @param slot The slot to be emptied.
+	 */
+	private void deleteSlot(long slot) {
+		long mask = tableCapacity - 1;
+		long gap = slot;
+		for (long next = (gap + 1) & mask; ; next = (next + 1) & mask) {
+			long storedKey = table.getLong(next * SLOT_BYTES + SLOT_KEY);
+			if (storedKey == 0) {
+				break;
+			}
+			long home = indexFor(storedKey - 1, tableCapacity);
+			// Move the cell into the gap unless its home lies cyclically after the gap.
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				table.putLong(gap * SLOT_BYTES + SLOT_KEY, storedKey);
+				table.putInt(gap * SLOT_BYTES + SLOT_HEAD, table.getInt(next * SLOT_BYTES + SLOT_HEAD));
+				table.putInt(gap * SLOT_BYTES + SLOT_TAIL, table.getInt(next * SLOT_BYTES + SLOT_TAIL));
+				gap = next;
+			}
+		}
+		table.putLong(gap * SLOT_BYTES + SLOT_KEY, 0);
+		cellCount--;
+	}
+
+	/**
+	 * Rehash every cell into a table of the given capacity. The entries do not move.
+	 *
+	 * Time complexity: O(s), where s is the number of slots.
+	 *
+	 * @param capacity The new number of slots, a power of two.
+	 */
+	private void resize(long capacity) {
+		OffHeapArray old = table;
+		long oldCapacity = tableCapacity;
+		table = new OffHeapArray();
+		table.ensureCapacity(capacity * SLOT_BYTES);
+		tableCapacity = capacity;
+		for (long slot = 0; slot < oldCapacity; slot++) {
+			long storedKey = old.getLong(slot * SLOT_BYTES + SLOT_KEY);
+			if (storedKey != 0) {
+				long target = emptySlotFor(storedKey - 1);
+				table.putLong(target * SLOT_BYTES + SLOT_KEY, storedKey);
+				table.putInt(target * SLOT_BYTES + SLOT_HEAD, old.getInt(slot * SLOT_BYTES + SLOT_HEAD));
+				table.putInt(target * SLOT_BYTES + SLOT_TAIL, old.getInt(slot * SLOT_BYTES + SLOT_TAIL));
+			}
+		}
+	}
+
+	/**
+	 * Relink every entry into a table of chains of the given capacity. The entries do not move.
+	 *
+	 * Time complexity: O(s + n), where s is the number of chains.
+	 *
+	 * @param capacity The new number of chains, a power of two.
+	 */
+	private void resizeChains(int capacity) {
+		OffHeapArray old = chains;
+		int oldCapacity = chainCapacity;
+		chains = new OffHeapArray();
+		chains.ensureCapacity((long) capacity * HEAD_BYTES);
+		chainCapacity = capacity;
+		for (int chain = 0; chain < oldCapacity; chain++) {
+			int h = old.getInt((long) chain * HEAD_BYTES) - 1;
+			while (h != NIL) {
+				int next = entries.getInt((long) h * ENTRY_BYTES + ENTRY_CHAIN_NEXT);
+				linkChain(h);
+				h = next;
+			}
+		}
+	}
+
+	/**
+	 * Put an entry at the head of the chain of its element's hash code.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param handle A handle whose entry records its element's hash code.
+	 */
+	private void linkChain(int handle) {
+		long entry = (long) handle * ENTRY_BYTES;
+		long head = (long) chainFor(entries.getInt(entry + ENTRY_HASH), chainCapacity) * HEAD_BYTES;
+		int first = chains.getInt(head) - 1;
+		entries.putInt(entry + ENTRY_CHAIN_NEXT, first);
+		entries.putInt(entry + ENTRY_CHAIN_PREV, NIL);
+		if (first != NIL) {
+			entries.putInt((long) first * ENTRY_BYTES + ENTRY_CHAIN_PREV, handle);
+		}
+		chains.putInt(head, handle + 1);
+	}
+
+	/**
+	 * Take an entry out of the chain of its element's hash code.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param handle A handle in use.
+	 */
+	private void unlinkChain(int handle) {
+		long entry = (long) handle * ENTRY_BYTES;
+		int next = entries.getInt(entry + ENTRY_CHAIN_NEXT);
+		int prev = entries.getInt(entry + ENTRY_CHAIN_PREV);
+		if (prev == NIL) {
+			chains.putInt((long) chainFor(entries.getInt(entry + ENTRY_HASH), chainCapacity) * HEAD_BYTES, next + 1);
+		} else {
+			entries.putInt((long) prev * ENTRY_BYTES + ENTRY_CHAIN_NEXT, next);
+		}
+		if (next != NIL) {
+			entries.putInt((long) next * ENTRY_BYTES + ENTRY_CHAIN_PREV, prev);
+		}
+	}
+
+	/**
+	 * Give an element a handle whose entry is in the given cell, as the newest element of no list,
+	 * and put the entry into the chain of the element's hash code.
+	 *
+	 * Time complexity: O(1) amortised
+	 *
+	 * @param element The element.
+	 * @param key The packed coordinates of the element's cell.
+	 * @return The handle.
+	 * @throws IllegalStateException If every handle is in use.
+	 */
+	private int newHandle(T element, long key) throws IllegalStateException {
+		if (sz + 1 > chainCapacity * MAX_LOAD_FACTOR && chainCapacity <= Integer.MAX_VALUE / 2) {
+			resizeChains(chainCapacity * 2);
+		}
+		int handle;
+		if (freeHandle != NIL) {
+			handle = freeHandle;
+			freeHandle = next(handle);
+		} else {
+			if (handleCount == Integer.MAX_VALUE) {
+				throw new IllegalStateException();
+			}
+			handle = handleCount++;
+			entries.ensureCapacity((long) handleCount * ENTRY_BYTES);
+			int chunk = handle >>> CHUNK_BITS;
+			if (chunk == elements.length) {
+				Object[][] larger = new Object[elements.length * 2][];
+				System.arraycopy(elements, 0, larger, 0, elements.length);
+				elements = larger;
+			}
+			if (elements[chunk] == null) {
+				elements[chunk] = new Object[1 << CHUNK_BITS];
+			}
+		}
+		elements[handle >>> CHUNK_BITS][handle & CHUNK_MASK] = element;
+		long entry = (long) handle * ENTRY_BYTES;
+		entries.putLong(entry + ENTRY_KEY, key);
+		entries.putInt(entry + ENTRY_NEXT, NIL);
+		entries.putInt(entry + ENTRY_PREV, NIL);
+		entries.putInt(entry + ENTRY_HASH, element.hashCode());
+		linkChain(handle);
+		sz++;
+		return handle;
+	}
+
+	/**
+	 * Take a handle out of its hash chain and put it on the free list.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param handle A handle in use.
+	 */
+	private void freeHandle(int handle) {
+		unlinkChain(handle);
+		elements[handle >>> CHUNK_BITS][handle & CHUNK_MASK] = null;	// Let the element be garbage collected
+		entries.putInt((long) handle * ENTRY_BYTES + ENTRY_NEXT, freeHandle);
+		freeHandle = handle;
+		sz--;
+	}
+
+	/**
+	 * @param handle A handle in use.
+	 * @return The handle of the next newer element of the same cell, or NIL.
+	 */
+	private int next(int handle) {
+		return entries.getInt((long) handle * ENTRY_BYTES + ENTRY_NEXT);
+	}
+
+	/**
+	 * @param handle Any handle given out.
+	 * @return The element of the handle, or null if the handle is free.
+	 */
+	@SuppressWarnings("unchecked")
+	private T element(int handle) {
+		return (T) elements[handle >>> CHUNK_BITS][handle & CHUNK_MASK];
+	}
+
+	/**
+	 * @return The squared straight-line distance between the cell with the given key and (x, y, z).
+	 */
+	private long distanceSquared(long key, int x, int y, int z) {
+		long dx = (key >>> x_shift) - x;
+		long dy = ((key >>> y_shift) & y_mask) - y;
+		long dz = (key & z_mask) - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Pack a set of coordinates into a single key. Coordinates are validated beforehand, so
+	 * every component fits into its own bit field.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return The packed key.
+	 */
+	private long pack(int x, int y, int z) {
+		return ((long) x << x_shift) | ((long) y << y_shift) | z;
+	}
+
+	/**
+	 * @param key      The packed coordinates of a cell.
+	 * @param capacity The number of slots, a power of two.
+	 * @return The home slot of the key.
+	 */
+	private static long indexFor(long key, long capacity) {
+		return (key * HASH_MULTIPLIER) >>> (Long.SIZE - Long.numberOfTrailingZeros(capacity));
+	}
+
+	/**
+	 * @param hash     The hash code of an element.
+	 * @param capacity The number of chains, a power of two.
+	 * @return The chain of the hash code.
+	 */
+	private static int chainFor(int hash, int capacity) {
+		return (int) ((hash * HASH_MULTIPLIER) >>> (Long.SIZE - Integer.numberOfTrailingZeros(capacity)));
+	}
+
+	/**
+	 * @param max The largest coordinate value (inclusive) of a dimension.
+	 * @return The number of bits needed to store the coordinate.
+	 */
+	private static int bitsFor(int max) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(max);
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * With tens of millions of aircraft, the cost of BoundedCube and HashedCube is less their lookups than their objects:
+ * every element brings a node, a cell and a bucket array with it, and each collection has to trace them all. This CDT
+ * keeps HashedCube's packed keys and Fibonacci hashing but stores the cells and the links between elements as fixed
+ * size records in direct buffers, which the collector never looks into. An element is named by an int handle, which
+ * indexes both its 16 byte entry and a chunk of the handle table on the heap; the chunks are a few large arrays, so
+ * the heap holds a handful of objects however many elements there are, and a full collection does not slow down as
+ * the cube grows.
+ *
+ * The cell table uses open addressing with linear probing rather than chains, so a cell is a slot rather than a node,
+ * and deletion shifts later cells back instead of leaving tombstones, so the table never fills up with dead slots. A
+ * cell records its oldest and newest handles and the entries are doubly linked, which keeps 'oldest element' order,
+ * appends in O(1) and unlinks a known entry in O(1). Freed handles are reused through a list threaded through the
+ * entries, so the entry array does not grow while the population is stable.
+ *
+ * An airplane leaving the airspace is removed without its coordinates. HashedCube finds its cells through an element
+ * index of heap nodes, which would put an object per element back; instead each entry records its element's hash
+ * code and the key of its cell, and is doubly linked into a chain of entries with the same hash code, whose heads are
+ * ints in another direct buffer. Removing an element then walks one short chain rather than every handle, at the cost
+ * of doubling the entry to 32 bytes and 4 to 11 bytes of chain heads.
+ *
+ * The buffers are split into 16 MB segments because a single buffer is limited to 2 GB, and 50 million entries
+ * take 1.6 GB on their own. Records are powers of two in size, so none spans two segments and an address is split
+ * into a segment and an offset with a shift and a mask.
+ */
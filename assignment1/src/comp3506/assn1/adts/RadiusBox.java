@@ -0,0 +1,48 @@
+package comp3506.assn1.adts;
+
+/**
+ * A helper data structure holding the box of cells that bounds a sphere, clipped to the bounds
+ * of a cube, together with the squared radius of the sphere. Used by the cubes that answer radius
+ * queries by searching the box of the sphere.
+ *
+ * Space complexity: O(1)
+ *
+ * @author Howie L.
+ *
+ */
+final class RadiusBox {
+	final int x1;
+	final int y1;
+	final int z1;
+	final int x2;
+	final int y2;
+	final int z2;
+	final long limit;	// The largest squared distance from the centre inside the sphere
+
+	/**
+	 * Default constructor of the box around a sphere centred in a cell of a cube. A radius larger
+	 * than the cube, even an infinite one, reaches no further than the cube's largest dimension,
+	 * so the box covers the whole cube rather than wrapping around.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x      X Coordinate of the centre, within the cube.
+	 * @param y      Y Coordinate of the centre, within the cube.
+	 * @param z      Z Coordinate of the centre, within the cube.
+	 * @param radius Distance, in cells, from the centre, which is not negative.
+	 * @param max_X  The largest 'x' coordinate of the cube.
+	 * @param max_Y  The largest 'y' coordinate of the cube.
+	 * @param max_Z  The largest 'z' coordinate of the cube.
+	 */
+	RadiusBox(int x, int y, int z, double radius, int max_X, int max_Y, int max_Z) {
+		long extent = (long) Math.min(Math.floor(radius), Math.max(max_X, Math.max(max_Y, max_Z)));
+		this.x1 = (int) Math.max(0, x - extent);
+		this.y1 = (int) Math.max(0, y - extent);
+		this.z1 = (int) Math.max(0, z - extent);
+		this.x2 = (int) Math.min(max_X, x + extent);
+		this.y2 = (int) Math.min(max_Y, y + extent);
+		this.z2 = (int) Math.min(max_Z, z + extent);
+		this.limit = (long) Math.floor(radius * radius);
+	}
+
+}
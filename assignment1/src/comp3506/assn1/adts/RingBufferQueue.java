@@ -0,0 +1,209 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO collection CDT with iteration functionalities, backed by a circular array that doubles
+ * in size when it is full. Unlike TraversableQueue, no node is allocated per element, and the
+ * capacity limit is chosen when the queue is created rather than fixed at 20000.
+ *
+ * Space complexity: O(n), since the backing array is at most twice as large as the largest
+ * number of elements held at once.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class RingBufferQueue<T> implements IterableQueue<T> {
+	private static final int DEFAULT_INITIAL_CAPACITY = 16;
+	private static final int MAX_ARRAY_CAPACITY = 1 << 30;	// Largest power of two an array can hold
+	private final int maxCapacity;
+	private Object[] buffer;
+	private int mask;			// buffer.length - 1, the length being a power of two
+	private long headSeq = 0;	// Number of elements ever dequeued, i.e. sequence number of the head
+	private long tailSeq = 0;	// Number of elements ever enqueued, i.e. sequence number of the next element
+
+	/**
+	 * Default constructor of the class, which represents an initial empty queue without a
+	 * capacity limit other than that of an array.
+	 *
+	 * Time complexity: O(1)
+	 */
+	public RingBufferQueue() {
+		this(DEFAULT_INITIAL_CAPACITY, MAX_ARRAY_CAPACITY);
+	}
+
+	/**
+	 * Constructor of an initial empty queue with the given capacities.
+	 *
+	 * Time complexity: O(c), where c is the initial capacity.
+	 *
+	 * @param initialCapacity Number of elements the queue can hold before it has to grow.
+	 * @param maxCapacity Maximum number of elements the queue can hold.
+	 * @throws IllegalArgumentException If the capacities are not positive, the initial capacity
+	 *                                  exceeds the maximum, or the maximum exceeds 2^30.
+	 */
+	public RingBufferQueue(int initialCapacity, int maxCapacity) throws IllegalArgumentException {
+		if (initialCapacity <= 0 || initialCapacity > maxCapacity || maxCapacity > MAX_ARRAY_CAPACITY) {
+			throw new IllegalArgumentException();
+		}
+		this.maxCapacity = maxCapacity;
+		int length = Integer.highestOneBit(initialCapacity);
+		if (length < initialCapacity) {
+			length <<= 1;	// Round up to a power of two
+		}
+		this.buffer = new Object[length];
+		this.mask = length - 1;
+	}
+
+	/**
+	 * Default constructor of the class's iterator which is abstract.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new QueueIterator();
+	}
+
+	/**
+	 * The CDT of the queue's iterator. It remembers the sequence number of the next element to be
+	 * returned, so it keeps working while the queue grows. Elements enqueued after the iterator is
+	 * created are returned too, whereas elements dequeued before the iterator reaches them are
+	 * skipped.
+	 *
+	 * @author Howie L.
+	 *
+	 */
+	private class QueueIterator implements Iterator<T> {
+		private long position;
+
+		/**
+		 * Default constructor. Set the position at the head of the queue.
+		 *
+		 * Time complexity: O(1)
+		 */
+		public QueueIterator() {
+			position = headSeq;
+		}
+
+		/**
+		 * Check whether the next element is valid.
+		 *
+		 * Time complexity: O(1)
+		 *
+		 * @return true if a next element exists
+		 */
+		@Override
+		public boolean hasNext() {
+			if (position < headSeq) {
+				position = headSeq;		// Skip the elements dequeued since the last call
+			}
+			return position < tailSeq;
+		}
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @return the next element type stored
+		 */
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return (T) buffer[(int) (position++ & mask)];
+		}
+	}
+
+	/**
+	 * Add a new element to the end of the queue.
+	 *
+	 * Time complexity: O(1) amortised, since the backing array only doubles when it is full.
+	 *
+	 * @param element The element to be added to the queue.
+	 * @throws IllegalStateException Queue cannot accept a new element (e.g. queue space is full).
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		if (size() == maxCapacity) {
+			throw new IllegalStateException();
+		}
+		if (size() == buffer.length) {
+			grow();
+		}
+		buffer[(int) (tailSeq & mask)] = element;
+		tailSeq++;
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @return Element at that was at the head of the queue.
+	 * @throws IndexOutOfBoundsException Queue is empty and nothing can be dequeued.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T dequeue() throws IndexOutOfBoundsException {
+		if (isEmpty()) {
+			throw new IndexOutOfBoundsException();
+		}
+		int i = (int) (headSeq & mask);
+		T element = (T) buffer[i];
+		buffer[i] = null;	// Let the dequeued element be garbage collected
+		headSeq++;
+		return element;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of elements in the queue.
+	 */
+	@Override
+	public int size() {
+		return (int) (tailSeq - headSeq);
+	}
+
+	/**
+	 * Double the backing array, keeping every element at the slot its sequence number maps to.
+	 *
+	 * Time complexity: O(n)
+	 */
+	private void grow() {
+		Object[] larger = new Object[buffer.length * 2];
+		int largerMask = larger.length - 1;
+		for (long seq = headSeq; seq < tailSeq; seq++) {
+			larger[(int) (seq & largerMask)] = buffer[(int) (seq & mask)];
+		}
+		this.buffer = larger;
+		this.mask = largerMask;
+	}
+
+	/**
+	 * @return true if queue is empty
+	 */
+	private boolean isEmpty() {
+		return headSeq == tailSeq;
+	}
+
+}
+
+/**
+ * Design justifications:
+ * TraversableQueue allocates a node for every element and is capped at 20000 elements. This CDT keeps the elements
+ * in a circular array instead, so enqueuing and dequeuing only move two counters and the garbage collector sees one
+ * array rather than one node per airplane. The array doubles when it is full, which makes enqueue O(1) amortised,
+ * and the maximum capacity is a constructor parameter, so an application decides its own limit.
+ *
+ * The head and tail are kept as 64-bit sequence numbers rather than array indices. Masking a sequence number with
+ * the (power of two) array length gives its slot, and because growing the array copies every element to the slot
+ * its sequence number maps to in the larger array, an iterator only needs to remember one sequence number to stay
+ * valid across growth. The iterator keeps the live behaviour of TraversableQueue: it sees elements enqueued after
+ * it was created, and reports no next element once the queue has been emptied. Since dequeued slots are cleared
+ * so that airplanes can be garbage collected, an iterator that falls behind the head skips to the head.
+ */
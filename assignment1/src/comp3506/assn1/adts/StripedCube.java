@@ -0,0 +1,592 @@
+package comp3506.assn1.adts;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * A striped cube can be used by many threads at once. Its space is divided into square regions
+ * spanning the full height, each with its own HashedCube and its own read-write lock, so that
+ * operations on different regions never wait for each other, and readers of a region only wait
+ * for writers of the same region.
+ * The root of each dimension is indexed from zero.
+ *
+ * Every operation on a single cell is atomic. Queries spanning several regions lock one region
+ * at a time, so they see each region at a consistent point but not all regions at the same point.
+ * clear locks every region and is atomic.
+ *
+ * Space complexity: O(n + r), where r is the number of regions.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class StripedCube<T> implements Cube<T> {
+	private static final int DEFAULT_REGION_SIZE = 64;	// Region width in cells, along x and y
+	private static final int INDEX_STRIPES = 64;		// Must be a power of two
+	private int max_X;
+	private int max_Y;
+	private int max_Z;
+	private int regionSize;
+	private int regionsAlongX;
+	private int regionsAlongY;
+	private HashedCube<T>[] regions;		// Created when first written to, guarded by the region's lock
+	private ReentrantReadWriteLock[] locks;
+	private ElementIndex<T, Integer>[] elementIndex;	// Regions holding each element, striped by hash and guarded by the stripe
+
+	/**
+	 * Default constructor of the StripedCube CDT, with regions of 64 by 64 cells.
+	 *
+	 * Time complexity: O(r), where r is the number of regions, because a lock is created for each.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive.
+	 */
+	public StripedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		this(length, breadth, height, DEFAULT_REGION_SIZE);
+	}
+
+	/**
+	 * Constructor of a StripedCube CDT with regions of the given size.
+	 *
+	 * Time complexity: O(r), where r is the number of regions, because a lock is created for each.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @param regionSize Width of a region in cells, along both the 'x' and 'y' dimensions.
+	 * @throws IllegalArgumentException If provided dimension or region sizes are not positive.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public StripedCube(int length, int breadth, int height, int regionSize) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0 || regionSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		this.regionSize = regionSize;
+		this.regionsAlongX = length / regionSize + 1;
+		this.regionsAlongY = breadth / regionSize + 1;
+		this.regions = (HashedCube<T>[]) new HashedCube[regionsAlongX * regionsAlongY];
+		this.locks = new ReentrantReadWriteLock[regions.length];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantReadWriteLock();
+		}
+		this.elementIndex = (ElementIndex<T, Integer>[]) new ElementIndex[INDEX_STRIPES];
+		for (int i = 0; i < elementIndex.length; i++) {
+			elementIndex[i] = new ElementIndex<>();
+		}
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(1) amortised, as for HashedCube, plus waiting for other threads using
+	 * the same region.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].writeLock();
+		lock.lock();
+		try {
+			if (regions[r] == null) {
+				regions[r] = new HashedCube<>(max_X, max_Y, max_Z);
+			}
+			regions[r].add(x, y, z, element);
+			ElementIndex<T, Integer> stripe = stripeOf(element);
+			synchronized (stripe) {
+				stripe.add(element, r);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return the 'oldest' element at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].readLock();
+		lock.lock();
+		try {
+			return regions[r] == null ? null : regions[r].get(x, y, z);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return all the elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].readLock();
+		lock.lock();
+		try {
+			return regions[r] == null ? null : regions[r].getAll(x, y, z);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Return all the elements inside an axis-aligned box, including its faces.
+	 *
+	 * Time complexity: O(g + min(v, c) + k), where g is the number of regions overlapping the box,
+	 * and v, c and k are, summed over those regions, the number of cells of the box, the number of
+	 * occupied cells and the number of elements returned.
+	 *
+	 * @param x1 X Coordinate of the lower corner of the box.
+	 * @param y1 Y Coordinate of the lower corner of the box.
+	 * @param z1 Z Coordinate of the lower corner of the box.
+	 * @param x2 X Coordinate of the upper corner of the box.
+	 * @param y2 Y Coordinate of the upper corner of the box.
+	 * @param z2 Z Coordinate of the upper corner of the box.
+	 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+	 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+	 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validBox(x1, y1, z1, x2, y2, z2);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(x1, y1, z1, x2, y2, z2, 0, 0, 0, Long.MAX_VALUE, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return the k elements closest to the indicated position, measured by the straight-line
+	 * distance between cells. Elements at the same distance are returned in no particular order.
+	 *
+	 * Time complexity: O(r*log(r) + c*log(k)), where r is the number of regions and c is the number
+	 * of occupied cells in the regions searched, because regions are searched nearest first and
+	 * skipped once they are further away than the k-th closest element found so far.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param k Maximum number of elements to be returned.
+	 * @return An IterableQueue of at most k elements, nearest first, or null if the cube holds no elements.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If k is not positive.
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (k <= 0) {
+			throw new IllegalArgumentException();
+		}
+		long[] distances = new long[regions.length];
+		int[] order = new int[regions.length];
+		for (int r = 0; r < regions.length; r++) {
+			distances[r] = regionDistanceSquared(r, x, y);
+			order[r] = r;
+		}
+		sortByDistance(order, distances, 0, order.length - 1);
+		NearestHeap<T> heap = new NearestHeap<>(k);
+		for (int i = 0; i < order.length && distances[order[i]] < heap.worstDistance(); i++) {
+			int r = order[i];
+			Lock lock = locks[r].readLock();
+			lock.lock();
+			try {
+				if (regions[r] != null) {
+					regions[r].offerNearest(x, y, z, heap);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		heap.drainTo(planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Return all the elements within a straight-line distance of the indicated position.
+	 *
+	 * Time complexity: O(g + min(v, c) + k), where g is the number of regions overlapping the box
+	 * bounding the sphere, and v, c and k are, summed over those regions, the number of cells of
+	 * the box, the number of occupied cells and the number of elements returned.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @param radius Maximum distance, in cells, of the elements to be returned.
+	 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 * @throws IllegalArgumentException If radius is negative.
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x, y, z);
+		if (radius < 0) {
+			throw new IllegalArgumentException();
+		}
+		RadiusBox box = new RadiusBox(x, y, z, radius, max_X, max_Y, max_Z);
+		IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+		collectWithin(box.x1, box.y1, box.z1, box.x2, box.y2, box.z2, x, y, z, box.limit, planeQueue);
+		if (planeQueue.size() == 0) {
+			return null;	// Return null if empty
+		}
+		return planeQueue;
+	}
+
+	/**
+	 * Indicates whether there are more than one elements at the indicated position.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param x X Coordinate of the position of the element(s).
+	 * @param y Y Coordinate of the position of the element(s).
+	 * @param z Z Coordinate of the position of the element(s).
+	 * @return true if there are more than one elements at the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].readLock();
+		lock.lock();
+		try {
+			return regions[r] != null && regions[r].isMultipleElementsAt(x, y, z);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].writeLock();
+		lock.lock();
+		try {
+			if (regions[r] == null || !regions[r].remove(x, y, z, element)) {
+				return false;
+			}
+			unindexIfGone(element, r);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed. Only the regions holding the element are locked, one at a time.
+	 *
+	 * Time complexity: O(m), where m is the number of elements in the cells holding the element.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		ElementIndex<T, Integer> stripe = stripeOf(element);
+		IterableQueue<Integer> held;
+		synchronized (stripe) {
+			held = stripe.locationsOf(element);
+		}
+		if (held == null) {
+			return false;
+		}
+		boolean removed = false;
+		for (int r : held) {
+			Lock lock = locks[r].writeLock();
+			lock.lock();
+			try {
+				if (regions[r] != null && regions[r].remove(element)) {
+					removed = true;
+				}
+				synchronized (stripe) {
+					stripe.remove(element, r);
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time complexity: O(m), where m is the number of elements at the position.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		int r = regionOf(x, y);
+		Lock lock = locks[r].writeLock();
+		lock.lock();
+		try {
+			if (regions[r] == null) {
+				return;
+			}
+			IterableQueue<T> removed = regions[r].getAll(x, y, z);
+			regions[r].removeAll(x, y, z);
+			if (removed != null) {
+				for (T element : removed) {
+					unindexIfGone(element, r);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube. Every region is locked, in a fixed order, before
+	 * any of them is cleared.
+	 *
+	 * Time complexity: O(r), where r is the number of regions.
+	 */
+	@Override
+	public void clear() {
+		for (ReentrantReadWriteLock lock : locks) {
+			lock.writeLock().lock();
+		}
+		try {
+			for (int r = 0; r < regions.length; r++) {
+				regions[r] = null;
+			}
+			for (ElementIndex<T, Integer> stripe : elementIndex) {
+				synchronized (stripe) {
+					stripe.clear();
+				}
+			}
+		} finally {
+			for (ReentrantReadWriteLock lock : locks) {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Take a region out of the element index once it holds no element equal to the given one.
+	 * The caller must hold the region's write lock.
+	 *
+	 * @param element An element removed from the region.
+	 * @param r       The region.
+	 */
+	private void unindexIfGone(T element, int r) {
+		if (!regions[r].contains(element)) {
+			ElementIndex<T, Integer> stripe = stripeOf(element);
+			synchronized (stripe) {
+				stripe.remove(element, r);
+			}
+		}
+	}
+
+	/**
+	 * @param element An element.
+	 * @return The stripe of the element index that the element belongs to.
+	 */
+	private ElementIndex<T, Integer> stripeOf(T element) {
+		int h = element.hashCode();
+		return elementIndex[(h ^ (h >>> 16)) & (INDEX_STRIPES - 1)];
+	}
+
+	/**
+	 * Copy every element inside a box, and within a squared distance of (x, y, z), to the given
+	 * queue, one overlapping region at a time. The box must lie inside the cube.
+	 *
+	 * @param limit The largest squared distance from (x, y, z) to be copied.
+	 * @param queue The queue to be appended to.
+	 */
+	private void collectWithin(int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z, long limit,
+			IterableQueue<T> queue) {
+		for (int rx = x1 / regionSize; rx <= x2 / regionSize; rx++) {
+			for (int ry = y1 / regionSize; ry <= y2 / regionSize; ry++) {
+				int r = rx * regionsAlongY + ry;
+				Lock lock = locks[r].readLock();
+				lock.lock();
+				try {
+					if (regions[r] != null) {
+						regions[r].collectWithin(Math.max(x1, rx * regionSize), Math.max(y1, ry * regionSize), z1,
+								Math.min(x2, rx * regionSize + regionSize - 1),
+								Math.min(y2, ry * regionSize + regionSize - 1), z2, x, y, z, limit, queue);
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param x X Coordinate of a position.
+	 * @param y Y Coordinate of a position.
+	 * @return The index of the region holding the position.
+	 */
+	private int regionOf(int x, int y) {
+		return (x / regionSize) * regionsAlongY + y / regionSize;
+	}
+
+	/**
+	 * @param r The index of a region.
+	 * @return The smallest squared horizontal distance between (x, y) and any cell of the region.
+	 */
+	private long regionDistanceSquared(int r, int x, int y) {
+		long x0 = (long) (r / regionsAlongY) * regionSize;
+		long y0 = (long) (r % regionsAlongY) * regionSize;
+		long dx = x < x0 ? x0 - x : Math.max(0, x - (x0 + regionSize - 1));
+		long dy = y < y0 ? y0 - y : Math.max(0, y - (y0 + regionSize - 1));
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Sort region indices by their distances, using quick sort.
+	 *
+	 * Time complexity: O(r*log(r)) expected, where r is the number of regions.
+	 *
+	 * @param order     The region indices to be sorted, between positions lo and hi inclusive.
+	 * @param distances The distance of each region, indexed by region.
+	 */
+	private static void sortByDistance(int[] order, long[] distances, int lo, int hi) {
+		while (lo < hi) {
+			long pivot = distances[order[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (distances[order[i]] < pivot) {
+					i++;
+				}
+				while (distances[order[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int swap = order[i];
+					order[i++] = order[j];
+					order[j--] = swap;
+				}
+			}
+			if (j - lo < hi - i) {	// Recurse into the smaller part to bound the stack depth
+				sortByDistance(order, distances, lo, j);
+				lo = i;
+			} else {
+				sortByDistance(order, distances, i, hi);
+				hi = j;
+			}
+		}
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Check whether the given box is invalid and will raise exceptions.
+	 *
+	 * @param x1 X Coordinate of the lower corner.
+	 * @param y1 Y Coordinate of the lower corner.
+	 * @param z1 Z Coordinate of the lower corner.
+	 * @param x2 X Coordinate of the upper corner.
+	 * @param y2 Y Coordinate of the upper corner.
+	 * @param z2 Z Coordinate of the upper corner.
+	 */
+	private void validBox(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		validCoords(x1, y1, z1);
+		validCoords(x2, y2, z2);
+		if (x1 > x2 || y1 > y2 || z1 > z2) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * Several tracker threads insert airplanes while display clients read them, so the cube has to be thread-safe. A
+ * single lock around a HashedCube would make every thread wait for every other one, even though airplanes far apart
+ * have nothing to do with each other. This CDT splits the airspace into square regions spanning the whole height
+ * (64 km by 64 km by default, 4536 regions for OneSky) and gives each region its own HashedCube and lock. A cell
+ * always belongs to exactly one region, so every single-cell operation takes exactly one lock, and operations on
+ * different regions never contend. The locks are read-write locks, since lookups by display clients far outnumber
+ * insertions and can share a region.
+ *
+ * Regions are whole columns of the airspace because aircraft mostly move horizontally, and a column keeps a
+ * separation query around an aircraft within a few regions. A region's HashedCube is created on its first insertion,
+ * so the empty ocean regions only cost a lock each. Queries spanning several regions lock them one at a time rather
+ * than all at once, which avoids lock ordering problems and keeps writers waiting for at most one region, at the cost
+ * of not being a single atomic snapshot across regions. A nearest neighbour query visits regions in order of their
+ * distance and stops once the next region is further away than the k-th closest airplane found.
+ *
+ * Removing an airplane without its coordinates should not lock every region, so an element index records which
+ * regions hold each element. The index is split into stripes by hash code, each guarded by its own monitor, so that
+ * writers to different regions rarely meet on it, and a stripe is only ever locked while holding at most one region
+ * lock, which keeps a single lock order. remove then locks only the regions holding the element, whose own element
+ * indexes lead straight to its cells.
+ */
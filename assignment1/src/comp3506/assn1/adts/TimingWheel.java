@@ -0,0 +1,294 @@
+package comp3506.assn1.adts;
+
+/**
+ * A hierarchical timing wheel [1], which holds elements until their deadlines pass. Time is
+ * measured in whole ticks, of whatever length the caller chooses. The wheel has LEVELS levels of
+ * SLOTS slots each: a slot of level 0 holds the elements due in one tick, and a slot of each
+ * higher level holds those due in a span SLOTS times as long as a slot of the level below. As
+ * time advances past the start of a higher level slot, its elements are cascaded down to the
+ * levels below, until they reach level 0 and expire.
+ *
+ * Each slot is a circular doubly linked list of timers, so an element is scheduled, rescheduled
+ * or cancelled through its timer without searching. Elements due further ahead than the wheel
+ * spans wait in the slot furthest ahead and are cascaded again until they are in range.
+ *
+ * Space complexity: O(n + LEVELS * SLOTS)
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class TimingWheel<T> {
+	public static final int LEVELS = 4;
+	private static final int SLOT_BITS = 6;
+	public static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final long SPAN = 1L << (SLOT_BITS * LEVELS);	// Ticks covered by the whole wheel
+	private final Timer<T>[] slots;		// Sentinels of the slot lists, level by level
+	private final int[] levelSizes = new int[LEVELS];
+	private long currentTick;		// Every deadline up to this tick has expired
+	private int sz = 0;
+
+	/**
+	 * The place of an element in the wheel, which is kept by the caller to reschedule or cancel it.
+	 *
+	 * @author Howie L.
+	 *
+	 * @param <T> The type of element held in the data structure.
+	 */
+	public static class Timer<T> {
+		private final T element;
+		private long deadline;
+		private int slot = -1;		// Index of the slot list holding the timer, or -1 if not scheduled
+		private Timer<T> prev;
+		private Timer<T> next;
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @param element The element the timer holds, or null for a sentinel.
+		 */
+		private Timer(T element) {
+			this.element = element;
+		}
+
+		/**
+		 * @return The element the timer holds.
+		 */
+		public T getElement() {
+			return element;
+		}
+
+		/**
+		 * @return The tick the timer expires at.
+		 */
+		public long getDeadline() {
+			return deadline;
+		}
+
+		/**
+		 * @return true if the timer is waiting in a wheel, false if it has expired or been cancelled.
+		 */
+		public boolean isScheduled() {
+			return slot >= 0;
+		}
+	}
+
+	/**
+	 * Default constructor of the class, which represents an initial empty wheel.
+	 *
+	 * Time complexity: O(LEVELS * SLOTS)
+	 *
+	 * @param currentTick The tick the wheel starts at.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public TimingWheel(long currentTick) {
+		this.currentTick = currentTick;
+		this.slots = (Timer<T>[]) new Timer[LEVELS * SLOTS];
+		for (int i = 0; i < slots.length; i++) {
+			Timer<T> sentinel = new Timer<>(null);
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			slots[i] = sentinel;
+		}
+	}
+
+	/**
+	 * Add an element to the wheel.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param element The element to be added to the wheel.
+	 * @param deadline The tick the element expires at. A deadline that has already passed expires
+	 *                 at the next tick.
+	 * @return The timer of the element.
+	 */
+	public Timer<T> schedule(T element, long deadline) {
+		Timer<T> timer = new Timer<>(element);
+		reschedule(timer, deadline);
+		return timer;
+	}
+
+	/**
+	 * Move the deadline of an element in the wheel, or add it again if it has expired or been
+	 * cancelled.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param timer The timer of the element, which must have been created by this wheel.
+	 * @param deadline The tick the element now expires at. A deadline that has already passed
+	 *                 expires at the next tick.
+	 */
+	public void reschedule(Timer<T> timer, long deadline) {
+		if (timer.isScheduled()) {
+			unlink(timer);
+		} else {
+			sz++;
+		}
+		timer.deadline = deadline;
+		insert(timer, currentTick + 1);
+	}
+
+	/**
+	 * Remove an element from the wheel before it expires.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param timer The timer of the element, which must have been created by this wheel.
+	 * @return true if the element was removed, false if it had already expired or been cancelled.
+	 */
+	public boolean cancel(Timer<T> timer) {
+		if (!timer.isScheduled()) {
+			return false;
+		}
+		unlink(timer);
+		sz--;
+		return true;
+	}
+
+	/**
+	 * Move time forward, removing every element whose deadline has been reached.
+	 *
+	 * Time complexity: O(k + t / SLOTS) amortised, where k is the number of elements expired and
+	 * t is the number of ticks advanced; each element is cascaded at most LEVELS - 1 times on its
+	 * way to level 0 unless it is due further ahead than the wheel spans.
+	 *
+	 * @param now The tick time moves to. Nothing happens if it has already been reached.
+	 * @return Queue of the expired elements, or null if there are none.
+	 */
+	public IterableQueue<T> advance(long now) {
+		IterableQueue<T> expired = null;
+		while (currentTick < now) {
+			if (sz == 0) {
+				currentTick = now;
+				break;
+			}
+			if (levelSizes[0] == 0 && (currentTick & SLOT_MASK) != SLOT_MASK) {
+				// No element expires before the next level 0 rotation, so skip to its last tick.
+				currentTick = Math.min(now, currentTick | SLOT_MASK);
+				continue;
+			}
+			currentTick++;
+			if ((currentTick & SLOT_MASK) == 0) {
+				for (int level = 1; level < LEVELS; level++) {
+					int index = (int) (currentTick >> (SLOT_BITS * level)) & SLOT_MASK;
+					cascade(level * SLOTS + index);
+					if (index != 0) {
+						break;
+					}
+				}
+			}
+			Timer<T> sentinel = slots[(int) currentTick & SLOT_MASK];
+			while (sentinel.next != sentinel) {
+				Timer<T> timer = sentinel.next;
+				unlink(timer);
+				sz--;
+				if (expired == null) {
+					expired = new RingBufferQueue<T>();
+				}
+				expired.enqueue(timer.element);
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return The tick up to which every deadline has expired.
+	 */
+	public long getCurrentTick() {
+		return currentTick;
+	}
+
+	/**
+	 * Time complexity: O(1)
+	 *
+	 * @return Number of elements waiting in the wheel.
+	 */
+	public int size() {
+		return sz;
+	}
+
+	/**
+	 * Put a timer in the slot covering its deadline, at the lowest level whose span reaches it.
+	 *
+	 * Time complexity: O(LEVELS)
+	 *
+	 * @param timer A timer that is not in any slot.
+	 * @param earliest The earliest tick the timer may be placed at.
+	 */
+	private void insert(Timer<T> timer, long earliest) {
+		long deadline = Math.max(timer.deadline, earliest);
+		long delta = deadline - currentTick;
+		if (delta >= SPAN) {
+			deadline = currentTick + SPAN - 1;	// Cascaded again when its slot comes around
+			delta = SPAN - 1;
+		}
+		int level = 0;
+		while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		int slot = level * SLOTS + ((int) (deadline >> (SLOT_BITS * level)) & SLOT_MASK);
+		Timer<T> sentinel = slots[slot];
+		timer.prev = sentinel.prev;
+		timer.next = sentinel;
+		sentinel.prev.next = timer;
+		sentinel.prev = timer;
+		timer.slot = slot;
+		levelSizes[level]++;
+	}
+
+	/**
+	 * Move every timer of a slot down to the slots covering its deadline.
+	 *
+	 * Time complexity: O(m), where m is the number of timers in the slot.
+	 *
+	 * @param slot Index of the slot, whose span starts at the current tick.
+	 */
+	private void cascade(int slot) {
+		Timer<T> sentinel = slots[slot];
+		while (sentinel.next != sentinel) {
+			Timer<T> timer = sentinel.next;
+			unlink(timer);
+			insert(timer, currentTick);		// Due now if its deadline is the current tick
+		}
+	}
+
+	/**
+	 * Take a timer out of its slot.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @param timer A timer in a slot.
+	 */
+	private void unlink(Timer<T> timer) {
+		timer.prev.next = timer.next;
+		timer.next.prev = timer.prev;
+		timer.prev = null;
+		timer.next = null;
+		levelSizes[timer.slot / SLOTS]--;
+		timer.slot = -1;
+	}
+
+}
+
+/**
+ * Design justifications:
+ * Expiring elements by deadline with a priority queue costs O(log n) for every schedule and every refresh, and an
+ * element whose deadline moves has to be found in the heap first. Aircraft refresh their deadlines on every placement,
+ * far more often than they expire, so the wheel makes scheduling, rescheduling and cancelling O(1): the slot of a
+ * deadline is found from its bits, and the caller keeps the timer, so nothing is searched for. Only the elements whose
+ * deadlines are reached are touched when time advances, apart from cascading, which moves an element at most
+ * LEVELS - 1 times before it expires.
+ *
+ * A single wheel fine enough for short deadlines would need a slot per tick of the longest deadline. Four levels of 64
+ * slots instead span 2^24 ticks, over four hours of millisecond ticks, with 256 slots. Deadlines beyond the span park
+ * in the slot furthest ahead, which costs one extra cascade per rotation of the top level rather than a limit on the
+ * deadline. Advancing skips straight to the end of a level 0 rotation when level 0 is empty, so a long idle period
+ * costs O(t / SLOTS) rather than a step per tick.
+ *
+ * References:
+ * [1]	G. Varghese and A. Lauck, "Hashed and hierarchical timing wheels: efficient data structures for implementing a
+ *		timer facility," IEEE/ACM Transactions on Networking, vol. 5, no. 6, pp. 824-834, 1997.
+ */
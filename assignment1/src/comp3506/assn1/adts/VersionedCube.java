@@ -0,0 +1,856 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A three-dimensional data structure that holds items in a positional relationship to each other.
+ * Each cell in the data structure can hold multiple items.
+ * A versioned cube never changes a version once it is published: its cells are kept in a
+ * persistent hash array mapped trie [1] keyed by the packed (x, y, z) coordinates, and every
+ * change copies the path from the root to the changed cell and publishes the new root. A snapshot
+ * is the root at one point in time, so taking one costs O(1), and it can be read from any thread
+ * without locks while the cube keeps changing.
+ * The root of each dimension is indexed from zero.
+ *
+ * The methods that change the cube must be called by one thread at a time: each reads the current
+ * version and publishes the next with a plain write, not a compare-and-set, so a change made by a
+ * second writer at the same time would be lost. The methods that only read the cube, and those of
+ * its snapshots, may be called from any thread at any time.
+ *
+ * Space complexity: O(n) for the current version and its element index; versions share every
+ * node they have in common.
+ *
+ * @author Howie L.
+ *
+ * @param <T> The type of element held in the data structure.
+ */
+public class VersionedCube<T> implements Cube<T> {
+	private static final int BITS = 5;		// Hash bits used at each level of the trie
+	private static final int MASK = (1 << BITS) - 1;
+	private static final int MAX_DEPTH = (Long.SIZE + BITS - 1) / BITS;
+	private final int max_X;
+	private final int max_Y;
+	private final int max_Z;
+	private final int y_shift;	// Bit offset of the y coordinate in a packed key
+	private final int x_shift;	// Bit offset of the x coordinate in a packed key
+	private final long y_mask;
+	private final long z_mask;
+	private final Node emptyRoot = new Node(0, new Object[0]);
+	private volatile Snapshot current;	// Written only by the single writer thread
+	private final ElementIndex<T, Long> elementIndex = new ElementIndex<>();	// Cells holding each element, for the writer
+
+	/**
+	 * A branch of the trie, holding a child for each bit set in its bitmap, in bit order. A child is
+	 * either a Node or a Leaf. Never changed once built.
+	 *
+	 * @author Howie L.
+	 */
+	private static final class Node {
+		private final int bitmap;
+		private final Object[] children;
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @param bitmap   The hash indices of the children.
+		 * @param children The children, in index order.
+		 */
+		Node(int bitmap, Object[] children) {
+			this.bitmap = bitmap;
+			this.children = children;
+		}
+	}
+
+	/**
+	 * An occupied cell, holding its elements in insertion order. Never changed once built.
+	 *
+	 * @author Howie L.
+	 */
+	private static final class Leaf {
+		private final long key;
+		private final Object[] elements;
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @param key      The packed coordinates of the cell.
+		 * @param elements The elements of the cell, oldest first, of which there is at least one.
+		 */
+		Leaf(long key, Object[] elements) {
+			this.key = key;
+			this.elements = elements;
+		}
+	}
+
+	/**
+	 * An immutable view of the cube as it was when the snapshot was taken. Later changes to the
+	 * cube are not seen, although the elements themselves are shared with it.
+	 *
+	 * @author Howie L.
+	 */
+	public final class Snapshot implements Iterable<T> {
+		private final Node root;
+		private final int sz;
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @param root The root of the trie.
+		 * @param sz   The number of elements in the trie.
+		 */
+		private Snapshot(Node root, int sz) {
+			this.root = root;
+			this.sz = sz;
+		}
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @return Number of elements held in the snapshot.
+		 */
+		public int size() {
+			return sz;
+		}
+
+		/**
+		 * Time complexity: O(log(c)), where c is the number of occupied cells.
+		 *
+		 * @return 'Oldest' element at this position or null if no elements at the indicated position.
+		 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+		 */
+		public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+			validCoords(x, y, z);
+			Leaf leaf = find(root, pack(x, y, z));
+			return leaf == null ? null : element(leaf, 0);
+		}
+
+		/**
+		 * Time complexity: O(log(c) + m), where c is the number of occupied cells and m is the number
+		 * of elements at the position.
+		 *
+		 * @return An IterableQueue of all elements at this position or null if no elements at the indicated position.
+		 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+		 */
+		public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+			validCoords(x, y, z);
+			Leaf leaf = find(root, pack(x, y, z));
+			if (leaf == null) {
+				return null;
+			}
+			IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+			copyTo(leaf, planeQueue);
+			return planeQueue;
+		}
+
+		/**
+		 * Time complexity: O(log(c))
+		 *
+		 * @return true if there are more than one elements at the indicated position, false otherwise.
+		 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+		 */
+		public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+			validCoords(x, y, z);
+			Leaf leaf = find(root, pack(x, y, z));
+			return leaf != null && leaf.elements.length > 1;
+		}
+
+		/**
+		 * Time complexity: O(min(v*log(c), n) + k), where v is the number of cells in the box and k
+		 * is the number of elements returned, because it either looks up every cell of the box or
+		 * checks every occupied cell, whichever is fewer.
+		 *
+		 * @return An IterableQueue of all elements inside the box or null if there are no elements inside the box.
+		 * @throws IndexOutOfBoundsException If any coordinates of the corners are out of bounds.
+		 * @throws IllegalArgumentException If a coordinate of the lower corner is greater than that of the upper corner.
+		 */
+		public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+				throws IndexOutOfBoundsException, IllegalArgumentException {
+			validCoords(x1, y1, z1);
+			validCoords(x2, y2, z2);
+			if (x1 > x2 || y1 > y2 || z1 > z2) {
+				throw new IllegalArgumentException();
+			}
+			return collectWithin(x1, y1, z1, x2, y2, z2, 0, 0, 0, Long.MAX_VALUE);
+		}
+
+		/**
+		 * Time complexity: O(c + n*log(k)), because it needs to check every occupied cell and keep the
+		 * k closest elements in a heap.
+		 *
+		 * @return An IterableQueue of at most k elements, nearest first, or null if the snapshot holds no elements.
+		 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+		 * @throws IllegalArgumentException If k is not positive.
+		 */
+		public IterableQueue<T> getNearest(int x, int y, int z, int k)
+				throws IndexOutOfBoundsException, IllegalArgumentException {
+			validCoords(x, y, z);
+			if (k <= 0) {
+				throw new IllegalArgumentException();
+			}
+			NearestHeap<T> heap = new NearestHeap<>(k);
+			offerNearest(root, x, y, z, heap);
+			IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+			heap.drainTo(planeQueue);
+			if (planeQueue.size() == 0) {
+				return null;	// Return null if empty
+			}
+			return planeQueue;
+		}
+
+		/**
+		 * Time complexity: O(min(v*log(c), n) + k), where v is the number of cells in the box
+		 * bounding the sphere and k is the number of elements returned.
+		 *
+		 * @return An IterableQueue of all elements within the radius or null if there are no elements within the radius.
+		 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+		 * @throws IllegalArgumentException If radius is negative.
+		 */
+		public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+				throws IndexOutOfBoundsException, IllegalArgumentException {
+			validCoords(x, y, z);
+			if (radius < 0) {
+				throw new IllegalArgumentException();
+			}
+			RadiusBox box = new RadiusBox(x, y, z, radius, max_X, max_Y, max_Z);
+			return collectWithin(box.x1, box.y1, box.z1, box.x2, box.y2, box.z2, x, y, z, box.limit);
+		}
+
+		/**
+		 * Iterate over every element of the snapshot, cell by cell in no particular order, and in
+		 * insertion order within a cell.
+		 *
+		 * Time complexity: O(1) to create, O(n) to iterate over.
+		 */
+		@Override
+		public Iterator<T> iterator() {
+			return new SnapshotIterator(root);
+		}
+
+		/**
+		 * Copy every element inside a box, and within a squared distance of (x, y, z), by either
+		 * looking up every cell of the box or checking every occupied cell, whichever is fewer.
+		 *
+		 * @param limit The largest squared distance from (x, y, z) to be copied.
+		 * @return The elements copied, or null if there are none.
+		 */
+		private IterableQueue<T> collectWithin(int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z,
+				long limit) {
+			IterableQueue<T> planeQueue = new RingBufferQueue<T>();
+			long volume = (long) (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+			if (volume <= sz) {
+				for (int i = x1; i <= x2; i++) {
+					for (int j = y1; j <= y2; j++) {
+						for (int l = z1; l <= z2; l++) {
+							long key = pack(i, j, l);
+							Leaf leaf = distanceSquared(key, x, y, z) <= limit ? find(root, key) : null;
+							if (leaf != null) {
+								copyTo(leaf, planeQueue);
+							}
+						}
+					}
+				}
+			} else {
+				collectSubtrie(root, x1, y1, z1, x2, y2, z2, x, y, z, limit, planeQueue);
+			}
+			if (planeQueue.size() == 0) {
+				return null;	// Return null if empty
+			}
+			return planeQueue;
+		}
+	}
+
+	/**
+	 * The CDT of a snapshot's iterator, which walks the trie depth first with an explicit stack.
+	 *
+	 * @author Howie L.
+	 */
+	private class SnapshotIterator implements Iterator<T> {
+		private final Node[] nodes = new Node[MAX_DEPTH + 1];
+		private final int[] positions = new int[MAX_DEPTH + 1];	// Next child of each node on the stack
+		private int depth = 0;
+		private Leaf leaf;		// Leaf of the next element, or null if there is none
+		private int index;		// Position of the next element in its leaf
+
+		/**
+		 * Time complexity: O(log(c))
+		 *
+		 * @param root The root of the trie.
+		 */
+		SnapshotIterator(Node root) {
+			nodes[0] = root;
+			advanceLeaf();
+		}
+
+		/**
+		 * Time complexity: O(1)
+		 *
+		 * @return true if a next element exists
+		 */
+		@Override
+		public boolean hasNext() {
+			return leaf != null;
+		}
+
+		/**
+		 * Time complexity: O(1) amortised
+		 *
+		 * @return the next element stored
+		 */
+		@Override
+		public T next() {
+			if (leaf == null) {
+				throw new NoSuchElementException();
+			}
+			T element = element(leaf, index++);
+			if (index == leaf.elements.length) {
+				advanceLeaf();
+			}
+			return element;
+		}
+
+		/**
+		 * Move to the first element of the next leaf, or set leaf to null if there is none.
+		 */
+		private void advanceLeaf() {
+			while (depth >= 0) {
+				Node node = nodes[depth];
+				if (positions[depth] == node.children.length) {
+					depth--;
+					continue;
+				}
+				Object child = node.children[positions[depth]++];
+				if (child instanceof Leaf) {
+					leaf = (Leaf) child;
+					index = 0;
+					return;
+				}
+				depth++;
+				nodes[depth] = (Node) child;
+				positions[depth] = 0;
+			}
+			leaf = null;
+		}
+	}
+
+	/**
+	 * Default constructor of the VersionedCube CDT.
+	 *
+	 * Time complexity: O(1), because it only checks and sets x, y and z limits of an empty trie.
+	 *
+	 * @param length  Maximum size in the 'x' dimension.
+	 * @param breadth Maximum size in the 'y' dimension.
+	 * @param height  Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException If provided dimension sizes are not positive, or are too
+	 *                                  large to be packed into a single long key.
+	 */
+	public VersionedCube(int length, int breadth, int height) throws IllegalArgumentException {
+		if (length <= 0 || breadth <= 0 || height <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int x_bits = bitsFor(length);
+		int y_bits = bitsFor(breadth);
+		int z_bits = bitsFor(height);
+		if (x_bits + y_bits + z_bits > Long.SIZE - 1) {
+			throw new IllegalArgumentException();
+		}
+		this.max_X = length;
+		this.max_Y = breadth;
+		this.max_Z = height;
+		this.y_shift = z_bits;
+		this.x_shift = y_bits + z_bits;
+		this.y_mask = (1L << y_bits) - 1;
+		this.z_mask = (1L << z_bits) - 1;
+		this.current = new Snapshot(emptyRoot, 0);
+	}
+
+	/**
+	 * Take a snapshot of the cube. May be called from any thread, even while the cube changes.
+	 *
+	 * Time complexity: O(1)
+	 *
+	 * @return The current version of the cube, which never changes.
+	 */
+	public Snapshot snapshot() {
+		return current;
+	}
+
+	/**
+	 * Add an element at a fixed position.
+	 *
+	 * Time complexity: O(log(c) + m), where c is the number of occupied cells and m is the number
+	 * of elements at the position, because the path to the cell and the cell are copied.
+	 *
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void add(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		Snapshot version = current;
+		current = new Snapshot(insert(version.root, hash(key), key, element, 0), version.sz + 1);
+		elementIndex.add(element, key);
+	}
+
+	/**
+	 * Time complexity: O(log(c))
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		return current.get(x, y, z);
+	}
+
+	/**
+	 * Time complexity: O(log(c) + m)
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		return current.getAll(x, y, z);
+	}
+
+	/**
+	 * Time complexity: O(min(v*log(c), n) + k)
+	 */
+	@Override
+	public IterableQueue<T> getWithin(int x1, int y1, int z1, int x2, int y2, int z2)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return current.getWithin(x1, y1, z1, x2, y2, z2);
+	}
+
+	/**
+	 * Time complexity: O(c + n*log(k))
+	 */
+	@Override
+	public IterableQueue<T> getNearest(int x, int y, int z, int k)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return current.getNearest(x, y, z, k);
+	}
+
+	/**
+	 * Time complexity: O(min(v*log(c), n) + k)
+	 */
+	@Override
+	public IterableQueue<T> getWithinRadius(int x, int y, int z, double radius)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return current.getWithinRadius(x, y, z, radius);
+	}
+
+	/**
+	 * Time complexity: O(log(c))
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z) throws IndexOutOfBoundsException {
+		return current.isMultipleElementsAt(x, y, z);
+	}
+
+	/**
+	 * Removes the specified element at the indicated position. Every element equal to it at the
+	 * position is removed.
+	 *
+	 * Time complexity: O(log(c) + m), where m is the number of elements at the position.
+	 *
+	 * @param element The element to be removed from the indicated position.
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return true if the element was removed from the indicated position, false otherwise.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		Snapshot version = current;
+		Leaf leaf = find(version.root, key);
+		if (leaf == null || indexOf(leaf, element) < 0) {
+			return false;
+		}
+		Leaf remaining = without(leaf, element);
+		current = new Snapshot(replace(version.root, hash(key), key, remaining, 0), version.sz - removedFrom(leaf, remaining));
+		elementIndex.remove(element, key);
+		return true;
+	}
+
+	/**
+	 * Removes the specified element from every position it is held at. Every element equal to it
+	 * is removed.
+	 *
+	 * Time complexity: O(r*log(c) + m), where r is the number of cells holding the element and m is
+	 * the number of elements in those cells, because the element index leads straight to those cells.
+	 *
+	 * @param element The element to be removed.
+	 * @return true if the element was removed from at least one position, false otherwise.
+	 */
+	@Override
+	public boolean remove(T element) {
+		IterableQueue<Long> keys = elementIndex.locationsOf(element);
+		if (keys == null) {
+			return false;
+		}
+		Snapshot version = current;
+		Node root = version.root;
+		int sz = version.sz;
+		for (long key : keys) {
+			Leaf leaf = find(root, key);
+			Leaf remaining = without(leaf, element);
+			sz -= removedFrom(leaf, remaining);
+			root = replace(root, hash(key), key, remaining, 0);
+			elementIndex.remove(element, key);
+		}
+		current = new Snapshot(root, sz);
+		return true;
+	}
+
+	/**
+	 * Removes all elements at the indicated position.
+	 *
+	 * Time complexity: O(log(c) + m), where m is the number of elements at the position, which are
+	 * taken out of the element index.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	@Override
+	public void removeAll(int x, int y, int z) throws IndexOutOfBoundsException {
+		validCoords(x, y, z);
+		long key = pack(x, y, z);
+		Snapshot version = current;
+		Leaf leaf = find(version.root, key);
+		if (leaf != null) {
+			current = new Snapshot(replace(version.root, hash(key), key, null, 0), version.sz - leaf.elements.length);
+			for (int i = 0; i < leaf.elements.length; i++) {
+				elementIndex.remove(element(leaf, i), key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all elements stored in the cube. Snapshots already taken keep their elements.
+	 *
+	 * Time complexity: O(1)
+	 */
+	@Override
+	public void clear() {
+		current = new Snapshot(emptyRoot, 0);
+		elementIndex.clear();
+	}
+
+	/**
+	 * Copy the path to a cell, with the element appended to the cell.
+	 *
+	 * Time complexity: O(log(c) + m)
+	 *
+	 * @param node  The node at the given depth of the path.
+	 * @param hash  The hash of the cell's key.
+	 * @param key   The packed coordinates of the cell.
+	 * @param shift The offset of the hash bits used at this depth.
+	 * @return The copy of the node.
+	 */
+	private Node insert(Node node, long hash, long key, T element, int shift) {
+		int bit = 1 << ((int) (hash >>> shift) & MASK);
+		int pos = Integer.bitCount(node.bitmap & (bit - 1));
+		if ((node.bitmap & bit) == 0) {
+			Object[] children = new Object[node.children.length + 1];
+			System.arraycopy(node.children, 0, children, 0, pos);
+			children[pos] = new Leaf(key, new Object[] {element});
+			System.arraycopy(node.children, pos, children, pos + 1, node.children.length - pos);
+			return new Node(node.bitmap | bit, children);
+		}
+		Object child = node.children[pos];
+		Object replacement;
+		if (child instanceof Node) {
+			replacement = insert((Node) child, hash, key, element, shift + BITS);
+		} else {
+			Leaf leaf = (Leaf) child;
+			if (leaf.key == key) {
+				Object[] elements = new Object[leaf.elements.length + 1];
+				System.arraycopy(leaf.elements, 0, elements, 0, leaf.elements.length);
+				elements[leaf.elements.length] = element;
+				replacement = new Leaf(key, elements);
+			} else {
+				replacement = split(leaf, hash(leaf.key), new Leaf(key, new Object[] {element}), hash, shift + BITS);
+			}
+		}
+		Object[] children = node.children.clone();
+		children[pos] = replacement;
+		return new Node(node.bitmap, children);
+	}
+
+	/**
+	 * Build the nodes that tell two leaves apart, from the given depth down to the first depth at
+	 * which their hashes differ. Packed keys are never longer than a hash and distinct keys have
+	 * distinct hashes, so they always differ by the last depth.
+	 *
+	 * @return The node holding both leaves.
+	 */
+	private static Node split(Leaf a, long hashA, Leaf b, long hashB, int shift) {
+		int indexA = (int) (hashA >>> shift) & MASK;
+		int indexB = (int) (hashB >>> shift) & MASK;
+		if (indexA == indexB) {
+			return new Node(1 << indexA, new Object[] {split(a, hashA, b, hashB, shift + BITS)});
+		}
+		Object[] children = indexA < indexB ? new Object[] {a, b} : new Object[] {b, a};
+		return new Node((1 << indexA) | (1 << indexB), children);
+	}
+
+	/**
+	 * Copy the path to an occupied cell, with the cell replaced. Nodes left with no children are
+	 * dropped, and nodes left with a single leaf are replaced by the leaf.
+	 *
+	 * Time complexity: O(log(c))
+	 *
+	 * @param node        The node at the given depth of the path.
+	 * @param hash        The hash of the cell's key.
+	 * @param key         The packed coordinates of the cell.
+	 * @param replacement The new cell, or null to remove the cell.
+	 * @param shift       The offset of the hash bits used at this depth.
+	 * @return The copy of the node, or null if it is left empty.
+	 */
+	private Node replace(Node node, long hash, long key, Leaf replacement, int shift) {
+		int bit = 1 << ((int) (hash >>> shift) & MASK);
+		int pos = Integer.bitCount(node.bitmap & (bit - 1));
+		Object child = node.children[pos];
+		Object newChild = replacement;
+		if (child instanceof Node) {
+			Node branch = replace((Node) child, hash, key, replacement, shift + BITS);
+			newChild = branch;
+			if (branch != null && branch.children.length == 1 && branch.children[0] instanceof Leaf) {
+				newChild = branch.children[0];	// A branch is only needed to tell leaves apart
+			}
+		}
+		if (newChild == null) {
+			if (node.children.length == 1) {
+				return shift == 0 ? emptyRoot : null;
+			}
+			Object[] children = new Object[node.children.length - 1];
+			System.arraycopy(node.children, 0, children, 0, pos);
+			System.arraycopy(node.children, pos + 1, children, pos, node.children.length - pos - 1);
+			return new Node(node.bitmap & ~bit, children);
+		}
+		Object[] children = node.children.clone();
+		children[pos] = newChild;
+		return new Node(node.bitmap, children);
+	}
+
+	/**
+	 * Find the cell with the given key.
+	 *
+	 * Time complexity: O(log(c)), as the trie is 32-way and balanced by hashing.
+	 *
+	 * @param root The root of the trie to search.
+	 * @param key  The packed coordinates of the cell.
+	 * @return The cell, or null if it is empty.
+	 */
+	private Leaf find(Node root, long key) {
+		long hash = hash(key);
+		Node node = root;
+		for (int shift = 0; ; shift += BITS) {
+			int bit = 1 << ((int) (hash >>> shift) & MASK);
+			if ((node.bitmap & bit) == 0) {
+				return null;
+			}
+			Object child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+			if (child instanceof Leaf) {
+				Leaf leaf = (Leaf) child;
+				return leaf.key == key ? leaf : null;
+			}
+			node = (Node) child;
+		}
+	}
+
+	/**
+	 * Copy every element of a subtrie inside a box, and within a squared distance of (x, y, z),
+	 * to the given queue.
+	 *
+	 * Time complexity: O(n)
+	 */
+	private void collectSubtrie(Node node, int x1, int y1, int z1, int x2, int y2, int z2, int x, int y, int z,
+			long limit, IterableQueue<T> queue) {
+		for (Object child : node.children) {
+			if (child instanceof Node) {
+				collectSubtrie((Node) child, x1, y1, z1, x2, y2, z2, x, y, z, limit, queue);
+				continue;
+			}
+			Leaf leaf = (Leaf) child;
+			long i = leaf.key >>> x_shift;
+			long j = (leaf.key >>> y_shift) & y_mask;
+			long l = leaf.key & z_mask;
+			if (x1 <= i && i <= x2 && y1 <= j && j <= y2 && z1 <= l && l <= z2
+					&& distanceSquared(leaf.key, x, y, z) <= limit) {
+				copyTo(leaf, queue);
+			}
+		}
+	}
+
+	/**
+	 * Offer every element of a subtrie to a nearest neighbour heap.
+	 *
+	 * Time complexity: O(n*log(k)), where k is the capacity of the heap.
+	 */
+	private void offerNearest(Node node, int x, int y, int z, NearestHeap<T> heap) {
+		for (Object child : node.children) {
+			if (child instanceof Node) {
+				offerNearest((Node) child, x, y, z, heap);
+				continue;
+			}
+			Leaf leaf = (Leaf) child;
+			long distance = distanceSquared(leaf.key, x, y, z);
+			for (int i = 0; i < leaf.elements.length; i++) {
+				heap.offer(distance, element(leaf, i));
+			}
+		}
+	}
+
+	/**
+	 * Append the elements of a cell to a queue, oldest first.
+	 */
+	private void copyTo(Leaf leaf, IterableQueue<T> queue) {
+		for (int i = 0; i < leaf.elements.length; i++) {
+			queue.enqueue(element(leaf, i));
+		}
+	}
+
+	/**
+	 * @return Position of the oldest element of the cell equal to the given one, or -1 if there is none.
+	 */
+	private static int indexOf(Leaf leaf, Object element) {
+		for (int i = 0; i < leaf.elements.length; i++) {
+			if (leaf.elements[i].equals(element)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A copy of the cell without any element equal to the given one, in the same order, or
+	 *         null if it would be empty.
+	 */
+	private static Leaf without(Leaf leaf, Object element) {
+		Object[] kept = new Object[leaf.elements.length];
+		int count = 0;
+		for (Object held : leaf.elements) {
+			if (!held.equals(element)) {
+				kept[count++] = held;
+			}
+		}
+		if (count == 0) {
+			return null;
+		}
+		Object[] elements = new Object[count];
+		System.arraycopy(kept, 0, elements, 0, count);
+		return new Leaf(leaf.key, elements);
+	}
+
+	/**
+	 * @return Number of elements a cell lost to become the remaining cell, which may be null.
+	 */
+	private static int removedFrom(Leaf leaf, Leaf remaining) {
+		return leaf.elements.length - (remaining == null ? 0 : remaining.elements.length);
+	}
+
+	/**
+	 * @return The element at the given position of a cell.
+	 */
+	@SuppressWarnings("unchecked")
+	private T element(Leaf leaf, int index) {
+		return (T) leaf.elements[index];
+	}
+
+	/**
+	 * @return The squared straight-line distance between the cell with the given key and (x, y, z).
+	 */
+	private long distanceSquared(long key, int x, int y, int z) {
+		long dx = (key >>> x_shift) - x;
+		long dy = ((key >>> y_shift) & y_mask) - y;
+		long dz = (key & z_mask) - z;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Scramble a packed key so the trie stays balanced however the occupied cells are clustered.
+	 * The steps of the mix are invertible, so distinct keys have distinct hashes.
+	 *
+	 * @param key The packed coordinates of a cell.
+	 * @return The hash of the key.
+	 */
+	private static long hash(long key) {
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Pack a set of coordinates into a single key. Coordinates are validated beforehand, so
+	 * every component fits into its own bit field.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 * @return The packed key.
+	 */
+	private long pack(int x, int y, int z) {
+		return ((long) x << x_shift) | ((long) y << y_shift) | z;
+	}
+
+	/**
+	 * @param max The largest coordinate value (inclusive) of a dimension.
+	 * @return The number of bits needed to store the coordinate.
+	 */
+	private static int bitsFor(int max) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(max);
+	}
+
+	/**
+	 * Check whether the given coordinates are invalid and will raise exceptions.
+	 *
+	 * @param x X Coordinate of the position.
+	 * @param y Y Coordinate of the position.
+	 * @param z Z Coordinate of the position.
+	 */
+	private void validCoords(int x, int y, int z) throws IndexOutOfBoundsException {
+		if (x > max_X || y > max_Y || z > max_Z
+				|| x < 0 || y < 0 || z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+}
+
+/**
+ * Design justifications:
+ * Readers that want the whole sky at one point in time would otherwise have to lock out the writer while they copy
+ * every cell, or read cells while they change and see aircraft twice or not at all. This CDT makes every version
+ * immutable instead: a change builds new nodes for the path to the changed cell, shares the rest with the previous
+ * version, and publishes the new root through a volatile field. Taking a snapshot is a single volatile read, readers
+ * never wait or retry, and the writer never waits for readers; a version lives as long as some reader holds it.
+ *
+ * The cells are kept in a 32-way hash array mapped trie rather than a copy-on-write hash table, so a change copies
+ * O(log32 c) small nodes, about four for a million cells, rather than the whole table. The bitmap of each node lets it
+ * store only the children that exist. The packed key is mixed by an invertible function before its bits select the
+ * path, so clustered airspace cells still spread evenly and two cells never share a full hash, so there are no
+ * collision lists. A branch left holding a single leaf is replaced by the leaf, so removals keep the trie as shallow
+ * as the cells require.
+ *
+ * The price is allocation on every change, which the writer pays instead of blocking: a few hundred bytes of nodes,
+ * which die young unless a snapshot holds on to them. The root is published with a plain volatile write rather than
+ * a compare-and-set loop, since the tracker has a single writer; concurrent writers would need that loop, and would
+ * then redo their path copies whenever they lost a race.
+ *
+ * An airplane leaving the airspace is removed without its coordinates, so the writer keeps an element index from each
+ * element to the keys of its cells, as HashedCube does with its buckets, and removing it only copies those paths.
+ * Snapshots never read the index, so it needs no synchronisation of its own.
+ *
+ * References:
+ * [1]	P. Bagwell, "Ideal hash trees," EPFL Technical Report, 2001.
+ */
@@ -1,18 +1,44 @@
 package comp3506.assn1.application;
 
+import java.util.concurrent.TimeUnit;
+
 import comp3506.assn1.adts.Cube;
 import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.LayeredCube;
+import comp3506.assn1.adts.RingBufferQueue;
+import comp3506.assn1.adts.TimingWheel;
+import comp3506.assn1.adts.VersionedCube;
 
 
 /**
  * Very simple manager for the data structure holding the airspace model.
  * 
+ * Once a time to live is set, aircraft that are not placed again within it are expired from 
+ * the model by expireAircraft, as if they had stopped reporting.
+ * 
+ * A VersionedCube model is read by snapshots on other threads while aircraft move, so it holds 
+ * frozen copies of the aircraft rather than the aircraft themselves, and an aircraft's copy is 
+ * replaced whenever it moves. Queries on the air space still return the aircraft themselves.
+ * 
  * @author Richard T.
  *
  */
 public class AirSpace {
 	
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private static final int INITIAL_TRACKED_CAPACITY = 1024;
+	
 	private Cube<Aircraft> airSpaceMap;
+	private final boolean placesCopies;		// Whether the model holds frozen copies of the aircraft
+	private Aircraft[] tracked = new Aircraft[INITIAL_TRACKED_CAPACITY];	// Aircraft placed in the model
+	private TimingWheel.Timer<Aircraft>[] deadlines = newDeadlines(INITIAL_TRACKED_CAPACITY);	// Indexed like tracked
+	private int numTracked = 0;
+	private final AircraftIndex placedIds = new AircraftIndex();	// Tracked aircraft by id
+	private TimingWheel<Aircraft> expiryWheel;		// Deadlines of tracked aircraft in milliseconds, null if they never expire
+	private long timeToLive;						// In milliseconds.
+	private long numExpired = 0;
 	
 	// Dimensions of the air space in kilometres.
 	private int length;
@@ -20,10 +46,21 @@ public class AirSpace {
 	private int height;
 	
 	public AirSpace(int length, int breadth, int height) {
+		this(length, breadth, height, new BoundedCube<Aircraft>(length, breadth, height));
+	}
+	
+	/**
+	 * @param length Length of the air space in kilometres.
+	 * @param breadth Breadth of the air space in kilometres.
+	 * @param height Height of the air space in kilometres.
+	 * @param airSpaceMap Data structure holding the airspace model, which must be empty and at least as large as the air space.
+	 */
+	public AirSpace(int length, int breadth, int height, Cube<Aircraft> airSpaceMap) {
 		this.length = length;
 		this.breadth = breadth;
 		this.height = height;
-		airSpaceMap = new BoundedCube<>(length, breadth, height);
+		this.airSpaceMap = airSpaceMap;
+		this.placesCopies = airSpaceMap instanceof VersionedCube;
 	}
 	
 	/**
@@ -52,14 +89,587 @@ public class AirSpace {
 	 * 
 	 * @param aircraft to be added to the model.
 	 * @return true if there are multiple aircraft in a single airspace cell, false otherwise.
+	 * @throws IllegalStateException If the aircraft is placed in another airspace model.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
 	 */
-	public boolean addAircraft(Aircraft aircraft) {
-		final int METRES_PER_KILOMETRE = 1000;
-		
+	public boolean addAircraft(Aircraft aircraft) throws IllegalStateException, IndexOutOfBoundsException {
+		checkPlaceable(aircraft);
 		airSpaceMap.add(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
-				        aircraft.getAltitude()/METRES_PER_KILOMETRE, aircraft);
+				        aircraft.getAltitude()/METRES_PER_KILOMETRE, placementOf(aircraft));
+		track(aircraft);
 		return airSpaceMap.isMultipleElementsAt(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
 				                                aircraft.getAltitude()/METRES_PER_KILOMETRE);
 	}
 	
+	/**
+	 * Add a batch of new aircraft to the airspace model in one go. All aircraft are placed first, 
+	 * and afterwards each one is checked against the aircraft placed before it, so the result is 
+	 * the same as adding them one at a time in queue order.
+	 * 
+	 * The cube has no bulk add: it only learns an element's position from the coordinates passed 
+	 * along with it, so one would take the batch's coordinates in arrays filled by an extra pass, 
+	 * and the aircraft of a batch land in unrelated cells, so every add still does its own lookup.
+	 * What a batch saves is the per-aircraft work around the cube: one lock, one expiry and one 
+	 * clock read per batch in the tracker, and one fork/join pass over the tiles of a ShardedAirSpace.
+	 * 
+	 * @param batch Aircraft to be added to the model, in the order they were identified.
+	 * @return Queue of the aircraft that entered a cell already occupied by an earlier aircraft, 
+	 *         in batch order, which is empty if there were no such aircraft.
+	 * @throws IllegalStateException If an aircraft is placed in another airspace model; the 
+	 *         aircraft before it have been added.
+	 * @throws IndexOutOfBoundsException If an aircraft is outside the airspace; the aircraft 
+	 *         before it have been added.
+	 */
+	public IterableQueue<Aircraft> addAircraft(IterableQueue<Aircraft> batch) 
+			throws IllegalStateException, IndexOutOfBoundsException {
+		for (Aircraft aircraft : batch) {
+			checkPlaceable(aircraft);
+			airSpaceMap.add(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
+					aircraft.getAltitude()/METRES_PER_KILOMETRE, placementOf(aircraft));
+			track(aircraft);
+		}
+		IterableQueue<Aircraft> conflicts = new RingBufferQueue<Aircraft>();
+		for (Aircraft aircraft : batch) {
+			// An aircraft is in conflict unless it is the oldest one in its cell.
+			if (liveOf(airSpaceMap.get(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
+					aircraft.getAltitude()/METRES_PER_KILOMETRE)) != aircraft) {
+				conflicts.enqueue(aircraft);
+			}
+		}
+		return conflicts;
+	}
+	
+	/**
+	 * Remove an aircraft that has left the airspace from the model, wherever it is. The cube 
+	 * matches aircraft by id, so every placement of its id is removed, including other updates of
+	 * the aircraft, and each of them stops being tracked.
+	 * 
+	 * @param aircraft Aircraft to be removed, matched by its id.
+	 * @return true if the aircraft was in the model, false otherwise.
+	 */
+	public boolean removeAircraft(Aircraft aircraft) {
+		boolean removed = airSpaceMap.remove(aircraft);
+		Aircraft placed;
+		while ((placed = placedIds.get(aircraft.getId())) != null) {
+			untrack(placed);
+		}
+		return removed;
+	}
+	
+	/**
+	 * Find a placed aircraft by its id, ignoring case.
+	 * 
+	 * Time complexity: O(log n) expected.
+	 * 
+	 * @param id Id of the aircraft.
+	 * @return The aircraft most recently placed with the id, or null if there is none.
+	 */
+	public Aircraft findAircraft(String id) {
+		return placedIds.get(id);
+	}
+	
+	/**
+	 * Find the placed aircraft whose ids start with a prefix, ignoring case, e.g. "BNE".
+	 * 
+	 * Time complexity: O(log n + k) expected, where k is the number of aircraft found.
+	 * 
+	 * @param prefix Start of the ids.
+	 * @return Queue of the aircraft found, the latest of each id, in order of id, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> findAircraftWithPrefix(String prefix) {
+		return placedIds.withPrefix(prefix);
+	}
+	
+	/**
+	 * Take a point-in-time view of the aircraft placed in the model, which does not change as 
+	 * aircraft are placed, moved or removed afterwards, down to the aircraft's own fields. May be 
+	 * called from any thread, without waiting for or holding up the thread placing aircraft.
+	 * 
+	 * Time complexity: O(1)
+	 * 
+	 * @return The snapshot.
+	 * @throws IllegalStateException If the model is not held in a VersionedCube.
+	 */
+	public AirSpaceSnapshot snapshot() throws IllegalStateException {
+		if (!(airSpaceMap instanceof VersionedCube)) {
+			throw new IllegalStateException();
+		}
+		return new AirSpaceSnapshot(((VersionedCube<Aircraft>) airSpaceMap).snapshot());
+	}
+	
+	/**
+	 * Expire aircraft that have not been placed for a period of time. Placing an aircraft again 
+	 * moves its deadline. Aircraft already placed get the full period from now.
+	 * 
+	 * Time complexity: O(n) the first time, where n is the number of aircraft placed; O(1) after.
+	 * 
+	 * @param timeToLive Time an aircraft stays in the model after it was last placed.
+	 * @param unit Unit of timeToLive.
+	 * @throws IllegalArgumentException If the time to live is shorter than a millisecond.
+	 */
+	public void setTimeToLive(long timeToLive, TimeUnit unit) throws IllegalArgumentException {
+		long millis = unit.toMillis(timeToLive);
+		if (millis <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.timeToLive = millis;
+		if (expiryWheel == null) {
+			expiryWheel = new TimingWheel<Aircraft>(currentMillis());
+		}
+		for (int i = 0; i < numTracked; i++) {
+			refreshDeadline(i);
+		}
+	}
+	
+	/**
+	 * Remove the aircraft whose time to live has run out since they were last placed. Does nothing
+	 * if no time to live has been set.
+	 * 
+	 * Time complexity: O(k) amortised, where k is the number of aircraft expired; the aircraft 
+	 * that have not expired are not visited.
+	 * 
+	 * @return The number of aircraft removed.
+	 */
+	public int expireAircraft() {
+		if (expiryWheel == null) {
+			return 0;
+		}
+		IterableQueue<Aircraft> expired = expiryWheel.advance(currentMillis());
+		if (expired == null) {
+			return 0;
+		}
+		for (Aircraft aircraft : expired) {
+			deadlines[aircraft.trackingSlot] = null;	// Its timer has fired
+			untrack(aircraft);
+			int x = aircraft.getAirSpaceXCoord();
+			int y = aircraft.getAirSpaceYCoord();
+			int z = aircraft.getAltitude()/METRES_PER_KILOMETRE;
+			removePlacements(x, y, z, aircraft);	// Which all share its cell
+		}
+		numExpired += expired.size();
+		return expired.size();
+	}
+	
+	/**
+	 * @return The number of aircraft removed by expireAircraft.
+	 */
+	public long getNumExpired() {
+		return numExpired;
+	}
+	
+	/**
+	 * @return The number of aircraft placed in the airspace model.
+	 */
+	public int getNumAircraft() {
+		return numTracked;
+	}
+	
+	/**
+	 * @param i Index of a placed aircraft, from 0 to getNumAircraft() - 1.
+	 * @return The aircraft placed in the model at that index; indices change as aircraft are removed.
+	 */
+	Aircraft getTrackedAircraft(int i) {
+		return tracked[i];
+	}
+	
+	/**
+	 * @return A copy of the list of aircraft placed in the model, in tracking order.
+	 */
+	Aircraft[] copyTrackedAircraft() {
+		Aircraft[] copy = new Aircraft[numTracked];
+		System.arraycopy(tracked, 0, copy, 0, numTracked);
+		return copy;
+	}
+	
+	/**
+	 * @return true if the model holds frozen copies of the aircraft, which have to be replaced 
+	 *         whenever an aircraft moves, even within its cell.
+	 */
+	boolean placesCopies() {
+		return placesCopies;
+	}
+	
+	/**
+	 * Move an aircraft whose cell has changed to its new cell in the model, or remove it from the 
+	 * model if it has flown out of the airspace. If the model holds copies, an aircraft that has 
+	 * moved within its cell has its copies replaced, keeping their place in the cell.
+	 * 
+	 * @param aircraft Aircraft that has moved.
+	 * @param oldXCoord X coordinate of the cell the aircraft was placed in.
+	 * @param oldYCoord Y coordinate of the cell the aircraft was placed in.
+	 * @return true if the aircraft is still inside the airspace, false if it has left or was no
+	 *         longer in the model.
+	 */
+	boolean moveAircraft(Aircraft aircraft, int oldXCoord, int oldYCoord) {
+		int z = aircraft.getAltitude()/METRES_PER_KILOMETRE;
+		int x = aircraft.getAirSpaceXCoord();
+		int y = aircraft.getAirSpaceYCoord();
+		if (x == oldXCoord && y == oldYCoord) {
+			return !placesCopies || replacePlacements(x, y, z, aircraft);
+		}
+		boolean placed = removePlacements(oldXCoord, oldYCoord, z, aircraft);
+		if (!placed || x < 0 || x > length || y < 0 || y > breadth) {	// Removed meanwhile, or left
+			untrack(aircraft);
+			return false;
+		}
+		airSpaceMap.add(x, y, z, placementOf(aircraft));
+		return true;
+	}
+	
+	/**
+	 * Replace every copy of an aircraft in a cell of the model with a copy of its current state. 
+	 * The cell is emptied and refilled in its original order, as the cube cannot replace an element.
+	 * 
+	 * Time complexity: O(m) more than the cube's removeAll, where m is the number of aircraft in the cell.
+	 * 
+	 * @param x X coordinate of the cell.
+	 * @param y Y coordinate of the cell.
+	 * @param z Z coordinate of the cell.
+	 * @param aircraft Aircraft that has moved within the cell.
+	 * @return true if the aircraft was placed in the cell, false otherwise.
+	 */
+	private boolean replacePlacements(int x, int y, int z, Aircraft aircraft) {
+		IterableQueue<Aircraft> held = airSpaceMap.getAll(x, y, z);
+		boolean placed = false;
+		if (held != null) {
+			for (Aircraft other : held) {
+				placed |= liveOf(other) == aircraft;
+			}
+		}
+		if (!placed) {
+			untrack(aircraft);		// Removed meanwhile
+			return false;
+		}
+		airSpaceMap.removeAll(x, y, z);
+		for (Aircraft other : held) {
+			airSpaceMap.add(x, y, z, liveOf(other) == aircraft ? aircraft.freeze() : other);
+		}
+		return true;
+	}
+	
+	/**
+	 * Remove every placement of an aircraft from a cell of the model. The cube removes every 
+	 * aircraft equal to the given one, i.e. with the same id, so if another aircraft with its id 
+	 * is in the cell, such as a newer update, the cell is emptied and refilled with the others in
+	 * their original order, keeping the oldest aircraft first.
+	 * 
+	 * Time complexity: O(m) more than the cube's remove, where m is the number of aircraft in the cell.
+	 * 
+	 * @param x X coordinate of the cell.
+	 * @param y Y coordinate of the cell.
+	 * @param z Z coordinate of the cell.
+	 * @param aircraft Aircraft to remove.
+	 * @return true if the aircraft itself was placed in the cell, false otherwise.
+	 */
+	private boolean removePlacements(int x, int y, int z, Aircraft aircraft) {
+		IterableQueue<Aircraft> held = airSpaceMap.getAll(x, y, z);
+		if (held == null) {
+			return false;
+		}
+		boolean placed = false;
+		boolean sharesId = false;
+		for (Aircraft other : held) {
+			if (liveOf(other) == aircraft) {
+				placed = true;
+			} else if (other.equals(aircraft)) {
+				sharesId = true;
+			}
+		}
+		if (!placed) {
+			return false;
+		}
+		if (!sharesId) {
+			airSpaceMap.remove(x, y, z, aircraft);
+			return true;
+		}
+		airSpaceMap.removeAll(x, y, z);
+		for (Aircraft other : held) {
+			if (liveOf(other) != aircraft) {
+				airSpaceMap.add(x, y, z, other);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * @param aircraft Aircraft about to be placed.
+	 * @return The element to place in the model for the aircraft: a frozen copy if the model holds 
+	 *         copies, otherwise the aircraft itself.
+	 */
+	private Aircraft placementOf(Aircraft aircraft) {
+		return placesCopies ? aircraft.freeze() : aircraft;
+	}
+	
+	/**
+	 * @param placed Aircraft held in a model or a snapshot of one, may be null.
+	 * @return The live aircraft it stands for, which is itself unless it is a frozen copy.
+	 */
+	static Aircraft liveOf(Aircraft placed) {
+		return placed == null || placed.frozenFrom == null ? placed : placed.frozenFrom;
+	}
+	
+	/**
+	 * Replace the frozen copies in a query result of the model with the aircraft they stand for.
+	 * 
+	 * @param found Result of the query, may be null.
+	 * @return The result with only live aircraft in it.
+	 */
+	private IterableQueue<Aircraft> liveOf(IterableQueue<Aircraft> found) {
+		if (!placesCopies || found == null) {
+			return found;
+		}
+		IterableQueue<Aircraft> live = new RingBufferQueue<Aircraft>();
+		for (Aircraft placed : found) {
+			live.enqueue(liveOf(placed));
+		}
+		return live;
+	}
+	
+	/**
+	 * Check that an aircraft can be placed in the model, before anything is changed, so that an 
+	 * aircraft is never left placed but untracked or tracked but unplaced.
+	 * 
+	 * @param aircraft Aircraft about to be placed.
+	 * @throws IllegalStateException If the aircraft is placed in another air space model.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
+	 */
+	void checkPlaceable(Aircraft aircraft) throws IllegalStateException, IndexOutOfBoundsException {
+		if (aircraft.trackingSlot >= 0 && slotOf(aircraft) < 0) {
+			throw new IllegalStateException();	// Tracked by another air space
+		}
+		int x = aircraft.getAirSpaceXCoord();
+		int y = aircraft.getAirSpaceYCoord();
+		int z = aircraft.getAltitude()/METRES_PER_KILOMETRE;
+		if (x < 0 || x > length || y < 0 || y > breadth || z < 0 || z > height) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+	
+	/**
+	 * Add an aircraft to the list of aircraft placed in the model, or give it the full time to live
+	 * again if it is already on the list.
+	 * 
+	 * @param aircraft Aircraft that has been placed.
+	 * @throws IllegalStateException If the aircraft is placed in another air space model.
+	 */
+	void track(Aircraft aircraft) throws IllegalStateException {
+		int slot = aircraft.trackingSlot;
+		if (slot >= 0) {
+			if (slot >= numTracked || tracked[slot] != aircraft) {
+				throw new IllegalStateException();	// Tracked by another air space
+			}
+		} else {
+			if (numTracked == tracked.length) {
+				Aircraft[] larger = new Aircraft[tracked.length * 2];
+				System.arraycopy(tracked, 0, larger, 0, numTracked);
+				tracked = larger;
+				TimingWheel.Timer<Aircraft>[] largerDeadlines = newDeadlines(larger.length);
+				System.arraycopy(deadlines, 0, largerDeadlines, 0, numTracked);
+				deadlines = largerDeadlines;
+			}
+			slot = numTracked++;
+			aircraft.trackingSlot = slot;
+			tracked[slot] = aircraft;
+			placedIds.put(aircraft);
+		}
+		if (expiryWheel != null) {
+			refreshDeadline(slot);		// Placed again, perhaps more than once, but moved as one aircraft
+		}
+	}
+	
+	/**
+	 * @param aircraft An aircraft, which need not be in the model.
+	 * @return The index of the aircraft in the list of aircraft placed in the model, as used by
+	 *         getTrackedAircraft, or -1 if it is not placed in this model.
+	 */
+	int slotOf(Aircraft aircraft) {
+		int slot = aircraft.trackingSlot;
+		return slot >= 0 && slot < numTracked && tracked[slot] == aircraft ? slot : -1;
+	}
+	
+	/**
+	 * Remove an aircraft from the list of aircraft placed in the model, by moving the last
+	 * aircraft of the list into its slot.
+	 * 
+	 * @param aircraft Aircraft that is no longer placed.
+	 */
+	private void untrack(Aircraft aircraft) {
+		int slot = slotOf(aircraft);
+		if (slot < 0) {
+			return;
+		}
+		if (deadlines[slot] != null) {
+			expiryWheel.cancel(deadlines[slot]);
+		}
+		Aircraft last = tracked[--numTracked];
+		tracked[slot] = last;
+		deadlines[slot] = deadlines[numTracked];
+		last.trackingSlot = slot;
+		tracked[numTracked] = null;
+		deadlines[numTracked] = null;
+		aircraft.trackingSlot = -1;
+		placedIds.remove(aircraft);
+	}
+	
+	/**
+	 * Give a tracked aircraft the full time to live from now.
+	 * 
+	 * @param slot Index of the aircraft in the list of aircraft placed in the model.
+	 */
+	private void refreshDeadline(int slot) {
+		long deadline = currentMillis() + timeToLive;
+		if (deadlines[slot] == null) {
+			deadlines[slot] = expiryWheel.schedule(tracked[slot], deadline);
+		} else {
+			expiryWheel.reschedule(deadlines[slot], deadline);
+		}
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static TimingWheel.Timer<Aircraft>[] newDeadlines(int capacity) {
+		return new TimingWheel.Timer[capacity];
+	}
+	
+	/**
+	 * @return The time in milliseconds, on the clock the deadlines are measured on.
+	 */
+	private static long currentMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+	
+	/**
+	 * Find the aircraft closest to an aircraft in the airspace model.
+	 * Distances are measured between the 1 km cells the aircraft occupy.
+	 * 
+	 * @param aircraft Aircraft to search around, which need not be in the model.
+	 * @param k Maximum number of aircraft to return.
+	 * @return Queue of at most k other aircraft, nearest first, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> getNearestAircraft(Aircraft aircraft, int k) {
+		IterableQueue<Aircraft> nearest = airSpaceMap.getNearest(aircraft.getAirSpaceXCoord(), 
+				aircraft.getAirSpaceYCoord(), aircraft.getAltitude()/METRES_PER_KILOMETRE, 
+				k == Integer.MAX_VALUE ? k : k + 1);		// One more, as the aircraft itself may be found
+		return liveOf(withoutAircraft(nearest, aircraft, k));
+	}
+	
+	/**
+	 * Find every aircraft within a distance of an aircraft in the airspace model.
+	 * Distances are measured between the 1 km cells the aircraft occupy.
+	 * 
+	 * @param aircraft Aircraft to search around, which need not be in the model.
+	 * @param radius Maximum distance in kilometres.
+	 * @return Queue of the other aircraft within the radius, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> getAircraftWithin(Aircraft aircraft, double radius) {
+		IterableQueue<Aircraft> within = airSpaceMap.getWithinRadius(aircraft.getAirSpaceXCoord(), 
+				aircraft.getAirSpaceYCoord(), aircraft.getAltitude()/METRES_PER_KILOMETRE, radius);
+		return liveOf(withoutAircraft(within, aircraft, Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Find every aircraft flying between two altitudes anywhere in the airspace. The band is made
+	 * of whole 1 km flight levels, from the level containing the lower altitude to the level
+	 * containing the upper altitude.
+	 * 
+	 * @param lowerAltitude Lowest altitude of the band in metres.
+	 * @param upperAltitude Highest altitude of the band in metres.
+	 * @return Queue of the aircraft in the band, or null if there are none.
+	 * @throws IndexOutOfBoundsException If either altitude is outside the airspace.
+	 * @throws IllegalArgumentException If the lower altitude is above the upper altitude.
+	 */
+	public IterableQueue<Aircraft> getAircraftInBand(int lowerAltitude, int upperAltitude)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		return getAircraftInBand(0, 0, length, breadth, lowerAltitude, upperAltitude);
+	}
+	
+	/**
+	 * Find every aircraft flying between two altitudes over a rectangular region of the airspace.
+	 * With a LayeredCube model only the flight levels and tiles of the band are searched.
+	 * 
+	 * @param x1 Lowest X coordinate of the region in kilometres.
+	 * @param y1 Lowest Y coordinate of the region in kilometres.
+	 * @param x2 Highest X coordinate of the region in kilometres.
+	 * @param y2 Highest Y coordinate of the region in kilometres.
+	 * @param lowerAltitude Lowest altitude of the band in metres.
+	 * @param upperAltitude Highest altitude of the band in metres.
+	 * @return Queue of the aircraft in the band over the region, or null if there are none.
+	 * @throws IndexOutOfBoundsException If a corner of the region or either altitude is outside the airspace.
+	 * @throws IllegalArgumentException If a lower bound is above its upper bound.
+	 */
+	public IterableQueue<Aircraft> getAircraftInBand(int x1, int y1, int x2, int y2, int lowerAltitude,
+			int upperAltitude) throws IndexOutOfBoundsException, IllegalArgumentException {
+		return liveOf(airSpaceMap.getWithin(x1, y1, flightLevelOf(lowerAltitude), x2, y2, flightLevelOf(upperAltitude)));
+	}
+	
+	/**
+	 * Count the aircraft flying at the 1 km flight level containing an altitude.
+	 * 
+	 * Time complexity: O(1) with a LayeredCube model, otherwise that of a search of the level.
+	 * 
+	 * @param altitude Altitude in metres within the flight level.
+	 * @return The number of aircraft placed in the flight level.
+	 * @throws IndexOutOfBoundsException If the altitude is outside the airspace.
+	 */
+	public int getNumAircraftAtFlightLevel(int altitude) throws IndexOutOfBoundsException {
+		return getNumAircraftInBand(altitude, altitude);
+	}
+	
+	/**
+	 * Count the aircraft flying between two altitudes anywhere in the airspace. The band is made
+	 * of whole 1 km flight levels, as in getAircraftInBand.
+	 * 
+	 * Time complexity: O(l) with a LayeredCube model, where l is the number of flight levels in
+	 * the band, otherwise that of a search of the band.
+	 * 
+	 * @param lowerAltitude Lowest altitude of the band in metres.
+	 * @param upperAltitude Highest altitude of the band in metres.
+	 * @return The number of aircraft placed in the band.
+	 * @throws IndexOutOfBoundsException If either altitude is outside the airspace.
+	 * @throws IllegalArgumentException If the lower altitude is above the upper altitude.
+	 */
+	public int getNumAircraftInBand(int lowerAltitude, int upperAltitude)
+			throws IndexOutOfBoundsException, IllegalArgumentException {
+		if (airSpaceMap instanceof LayeredCube) {
+			return ((LayeredCube<Aircraft>) airSpaceMap).bandSize(flightLevelOf(lowerAltitude),
+					flightLevelOf(upperAltitude));
+		}
+		IterableQueue<Aircraft> band = getAircraftInBand(lowerAltitude, upperAltitude);
+		return band == null ? 0 : band.size();
+	}
+	
+	/**
+	 * @param altitude Altitude in metres.
+	 * @return The 1 km flight level containing the altitude, which is its z coordinate in the model.
+	 * @throws IndexOutOfBoundsException If the altitude is outside the airspace.
+	 */
+	private int flightLevelOf(int altitude) throws IndexOutOfBoundsException {
+		int level = altitude/METRES_PER_KILOMETRE;
+		if (altitude < 0 || level > height) {
+			throw new IndexOutOfBoundsException();
+		}
+		return level;
+	}
+	
+	/**
+	 * Copy a query result without the aircraft the query was made around, or any copy of it.
+	 * 
+	 * @param found Result of the query, may be null.
+	 * @param aircraft Aircraft to leave out, live or a copy.
+	 * @param limit Maximum number of aircraft to copy.
+	 * @return Queue of the remaining aircraft, or null if there are none.
+	 */
+	static IterableQueue<Aircraft> withoutAircraft(IterableQueue<Aircraft> found, Aircraft aircraft, int limit) {
+		if (found == null) {
+			return null;
+		}
+		IterableQueue<Aircraft> others = new RingBufferQueue<Aircraft>();
+		Aircraft live = liveOf(aircraft);
+		for (Aircraft other : found) {
+			if (liveOf(other) != live && others.size() < limit) {
+				others.enqueue(other);
+			}
+		}
+		return others.size() == 0 ? null : others;
+	}
+	
 }
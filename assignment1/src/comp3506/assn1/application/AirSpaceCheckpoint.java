@@ -0,0 +1,192 @@
+package comp3506.assn1.application;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Binary checkpoint of the aircraft placed in an airspace, so that a restarted tracker can 
+ * rebuild the sky without waiting for radar traffic. A checkpoint is a header holding the
+ * dimensions of the airspace and the number of aircraft, followed by one record per aircraft:
+ * its cell, altitude, speed, course and precise position as fixed-width binary fields, then its
+ * id as a length-prefixed UTF-8 string.
+ * 
+ * Checkpoints are written to a temporary file which is then renamed over the target, so a crash
+ * while writing never leaves a partial checkpoint behind. They are loaded by memory-mapping the
+ * file and decoding the records straight from the mapping.
+ * 
+ * @author Howie L.
+ *
+ */
+public class AirSpaceCheckpoint {
+	
+	private static final int MAGIC = 0x4F534B59;		// "OSKY"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+	private static final int MIN_RECORD_SIZE = 4 * Integer.BYTES + 3 * Double.BYTES + Short.BYTES;	// Empty id
+	private static final int MAX_RECORD_SIZE = MIN_RECORD_SIZE + Short.MAX_VALUE;
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+	
+	private AirSpaceCheckpoint() {
+	}
+	
+	/**
+	 * Write a checkpoint of every aircraft placed in an airspace. The airspace must not be
+	 * changed while this runs; AirTrafficTracker.checkpoint writes one in the background instead.
+	 * 
+	 * Time complexity: O(n), where n is the number of aircraft in the airspace.
+	 * 
+	 * @param airSpace Airspace to checkpoint.
+	 * @param file File to write, which is replaced if it exists.
+	 * @throws IOException If the checkpoint cannot be written.
+	 */
+	public static void write(AirSpace airSpace, Path file) throws IOException {
+		write(airSpace.getLength(), airSpace.getBreadth(), airSpace.getHeight(), 
+				airSpace.copyTrackedAircraft(), file);
+	}
+	
+	/**
+	 * Write a checkpoint of aircraft copied out of an airspace.
+	 * 
+	 * Time complexity: O(n), where n is the number of aircraft.
+	 * 
+	 * @param length Length of the airspace in kilometres.
+	 * @param breadth Breadth of the airspace in kilometres.
+	 * @param height Height of the airspace in kilometres.
+	 * @param aircraft Aircraft placed in the airspace.
+	 * @param file File to write, which is replaced if it exists.
+	 * @throws IOException If the checkpoint cannot be written.
+	 */
+	static void write(int length, int breadth, int height, Aircraft[] aircraft, Path file) throws IOException {
+		Path absolute = file.toAbsolutePath();
+		Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+				buffer.putInt(MAGIC).putInt(VERSION).putInt(length).putInt(breadth).putInt(height)
+					  .putInt(aircraft.length);
+				for (Aircraft a : aircraft) {
+					if (buffer.remaining() < MAX_RECORD_SIZE) {
+						drain(buffer, channel);
+					}
+					putRecord(buffer, a);
+				}
+				drain(buffer, channel);
+				channel.force(false);
+			}
+			try {
+				Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	/**
+	 * Load a checkpoint into a new airspace modelled by a HashedCube. The aircraft are placed as
+	 * one batch, in the order they were tracked in when the checkpoint was written.
+	 * 
+	 * Time complexity: O(n), where n is the number of aircraft in the checkpoint.
+	 * 
+	 * @param file Checkpoint to load.
+	 * @return Airspace holding the aircraft in the checkpoint.
+	 * @throws IOException If the file cannot be read or is not a valid checkpoint.
+	 */
+	public static AirSpace load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Not an airspace checkpoint: " + file);
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+				throw new IOException("Not an airspace checkpoint: " + file);
+			}
+			int length = mapped.getInt();
+			int breadth = mapped.getInt();
+			int height = mapped.getInt();
+			int numAircraft = mapped.getInt();
+			if (numAircraft < 0 || numAircraft > (channel.size() - HEADER_SIZE) / MIN_RECORD_SIZE) {
+				// Checked before the batch is sized by it.
+				throw new IOException("Truncated or corrupt airspace checkpoint: " + file);
+			}
+			AirSpace airSpace = new AirSpace(length, breadth, height, 
+					new HashedCube<Aircraft>(length, breadth, height));
+			if (numAircraft == 0) {
+				return airSpace;
+			}
+			IterableQueue<Aircraft> batch = new RingBufferQueue<Aircraft>(numAircraft, numAircraft);
+			byte[] idBytes = new byte[Short.MAX_VALUE];
+			for (int i = 0; i < numAircraft; i++) {
+				batch.enqueue(getRecord(mapped, idBytes));
+			}
+			airSpace.addAircraft(batch);
+			return airSpace;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IOException("Truncated or corrupt airspace checkpoint: " + file, e);
+		}
+	}
+	
+	/**
+	 * @param buffer Buffer with room for a record of at most MAX_RECORD_SIZE bytes.
+	 * @param aircraft Aircraft to encode.
+	 * @throws IOException If the aircraft's id is too long to record.
+	 */
+	private static void putRecord(ByteBuffer buffer, Aircraft aircraft) throws IOException {
+		byte[] id = aircraft.getId().getBytes(StandardCharsets.UTF_8);
+		if (id.length > Short.MAX_VALUE) {
+			throw new IOException("Aircraft id too long to checkpoint: " + aircraft.getId());
+		}
+		buffer.putInt(aircraft.getAirSpaceXCoord()).putInt(aircraft.getAirSpaceYCoord())
+			  .putInt(aircraft.getAltitude()).putInt(aircraft.getSpeed())
+			  .putDouble(aircraft.getCourse()).putDouble(aircraft.getXPosition()).putDouble(aircraft.getYPosition())
+			  .putShort((short) id.length).put(id);
+	}
+	
+	/**
+	 * @param mapped Mapping positioned at the start of a record, which is left at the next record.
+	 * @param idBytes Scratch array large enough for any id.
+	 * @return The aircraft decoded from the record.
+	 */
+	private static Aircraft getRecord(ByteBuffer mapped, byte[] idBytes) {
+		int xCoord = mapped.getInt();
+		int yCoord = mapped.getInt();
+		int altitude = mapped.getInt();
+		int speed = mapped.getInt();
+		double course = mapped.getDouble();
+		double xPosition = mapped.getDouble();
+		double yPosition = mapped.getDouble();
+		int idLength = mapped.getShort();
+		mapped.get(idBytes, 0, idLength);
+		Aircraft aircraft = new Aircraft(new String(idBytes, 0, idLength, StandardCharsets.UTF_8), 
+				xCoord, yCoord, altitude, speed, course);
+		aircraft.restorePosition(xPosition, yPosition);
+		return aircraft;
+	}
+	
+	/**
+	 * Write out everything in a buffer and clear it.
+	 */
+	private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+}
@@ -0,0 +1,93 @@
+package comp3506.assn1.application;
+
+import java.util.Iterator;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.VersionedCube;
+
+
+/**
+ * Immutable view of the aircraft placed in an AirSpace at one point in time, for display and
+ * analytics clients. Taking and reading a snapshot never locks, so readers see a consistent sky
+ * while radar feeds keep being processed.
+ * 
+ * A snapshot freezes which aircraft are placed in which cells and where they are. It holds the 
+ * frozen copies the airspace places in its model, which are replaced rather than changed as the 
+ * aircraft move, so their fields keep the values they had when the snapshot was taken. A copy is 
+ * equal to the aircraft it was made from, as they share an id.
+ * 
+ * @author Howie L.
+ *
+ */
+public class AirSpaceSnapshot implements Iterable<Aircraft> {
+	
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private final VersionedCube<Aircraft>.Snapshot cells;
+	
+	/**
+	 * @param cells Version of the airspace model to view.
+	 */
+	AirSpaceSnapshot(VersionedCube<Aircraft>.Snapshot cells) {
+		this.cells = cells;
+	}
+	
+	/**
+	 * @return The number of aircraft placed when the snapshot was taken.
+	 */
+	public int getNumAircraft() {
+		return cells.size();
+	}
+	
+	/**
+	 * Iterate over the aircraft placed when the snapshot was taken, in no particular order.
+	 */
+	@Override
+	public Iterator<Aircraft> iterator() {
+		return cells.iterator();
+	}
+	
+	/**
+	 * Find the aircraft in a cell when the snapshot was taken.
+	 * 
+	 * @param xCoord X coordinate of the cell.
+	 * @param yCoord Y coordinate of the cell.
+	 * @param altitude Altitude in metres within the cell.
+	 * @return Queue of the aircraft in the cell, oldest placement first, or null if there are none.
+	 * @throws IndexOutOfBoundsException If the cell is outside the airspace.
+	 */
+	public IterableQueue<Aircraft> getAircraftAt(int xCoord, int yCoord, int altitude)
+			throws IndexOutOfBoundsException {
+		return cells.getAll(xCoord, yCoord, altitude/METRES_PER_KILOMETRE);
+	}
+	
+	/**
+	 * Find the aircraft closest to an aircraft when the snapshot was taken.
+	 * Distances are measured between the 1 km cells the aircraft occupy.
+	 * 
+	 * @param aircraft Aircraft to search around, which need not be in the snapshot.
+	 * @param k Maximum number of aircraft to return.
+	 * @return Queue of at most k other aircraft, nearest first, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> getNearestAircraft(Aircraft aircraft, int k) {
+		IterableQueue<Aircraft> nearest = cells.getNearest(aircraft.getAirSpaceXCoord(),
+				aircraft.getAirSpaceYCoord(), aircraft.getAltitude()/METRES_PER_KILOMETRE, 
+				k == Integer.MAX_VALUE ? k : k + 1);		// One more, as the aircraft itself may be found
+		return AirSpace.withoutAircraft(nearest, aircraft, k);
+	}
+	
+	/**
+	 * Find every aircraft within a distance of an aircraft when the snapshot was taken.
+	 * Distances are measured between the 1 km cells the aircraft occupy.
+	 * 
+	 * @param aircraft Aircraft to search around, which need not be in the snapshot.
+	 * @param radius Maximum distance in kilometres.
+	 * @return Queue of the other aircraft within the radius, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> getAircraftWithin(Aircraft aircraft, double radius) {
+		IterableQueue<Aircraft> within = cells.getWithinRadius(aircraft.getAirSpaceXCoord(),
+				aircraft.getAirSpaceYCoord(), aircraft.getAltitude()/METRES_PER_KILOMETRE, radius);
+		return AirSpace.withoutAircraft(within, aircraft, Integer.MAX_VALUE);
+	}
+
+}
@@ -1,14 +1,32 @@
 package comp3506.assn1.application;
 
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import comp3506.assn1.adts.IterableQueue;
-import comp3506.assn1.adts.TraversableQueue;
+import comp3506.assn1.adts.LockFreeQueue;
+import comp3506.assn1.adts.RingBufferQueue;
 
 
 /**
  * Very simple manager that coordinates multiple radar sites feeding data to the airspace.
  * Aircraft are queued as they are identified by a radar site, to be processed by the airspace.
+ * By default the queue is a LockFreeQueue, so radar sites running on their own threads can all
+ * call newAircraft at once. The airspace is not thread-safe, so aircraft are dequeued, expired 
+ * and placed under one lock: several consumer threads may process the queue, but they take turns
+ * and place no more aircraft per second than one. Dequeuing also takes a second lock, only for 
+ * as long as it lasts, which is all a radar site dropping the oldest aircraft waits for. Batches placed into a ShardedAirSpace are 
+ * spread over its tiles, which is where placement runs in parallel.
+ * A bounded tracker admits at most a fixed number of queued aircraft, and deals with aircraft
+ * identified while the queue is full according to its OverflowPolicy, rather than letting the
+ * queue throw at the radar site.
+ * The tracker's instrumentation (latencies, queue depth, conflicts and ingest rates) is read 
+ * through getMetrics.
  * 
  * @author Richard T.
  *
@@ -17,32 +35,389 @@ public class AirTrafficTracker {
 	
 	private IterableQueue<Aircraft> radarQueue;
 	private AirSpace airSpace;
+	private final Object consumerLock = new Object();	// Serialises placing aircraft, as the airspace is not thread-safe
+	private final Object queueLock = new Object();		// Serialises dequeuing; taken inside consumerLock, or alone to drop the oldest
+	private static final int BATCH_INITIAL_CAPACITY = 1024;
+	private static final long DROP_OLDEST_WAIT = TimeUnit.MICROSECONDS.toNanos(100);
+	private final TrackerMetrics metrics = new TrackerMetrics(this);
+	private final AircraftIndex queuedIds = new AircraftIndex();	// Queued aircraft by id
+	private volatile ConflictAlertPublisher alerts;		// Null to output warnings inline
+	
+	// Bounded mode only: one permit per free place in the queue, and what to do when there is none.
+	private final Semaphore freePlaces;
+	private final OverflowPolicy policy;
+	private final long blockTimeout;	// In nanoseconds.
+	private final ConcurrentHashMap<Aircraft, Aircraft> latestUpdates;	// COALESCE only: queued aircraft to its latest update
 	
 	public AirTrafficTracker(AirSpace airSpace) {
+		this(airSpace, new LockFreeQueue<Aircraft>());
+	}
+	
+	/**
+	 * @param airSpace Air space the identified aircraft are added to.
+	 * @param radarQueue Empty queue holding the aircraft identified but not yet processed, e.g. a 
+	 *                   RingBufferQueue to avoid allocating a node per aircraft when all radar 
+	 *                   sites run on one thread.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, IterableQueue<Aircraft> radarQueue) {
+		this.airSpace = airSpace;
+		this.radarQueue = radarQueue;
+		this.freePlaces = null;
+		this.policy = null;
+		this.blockTimeout = 0;
+		this.latestUpdates = null;
+	}
+	
+	/**
+	 * Create a bounded tracker, whose queue is a LockFreeQueue.
+	 * @param airSpace Air space the identified aircraft are added to.
+	 * @param capacity Maximum number of aircraft queued at once.
+	 * @param policy What to do with an aircraft identified while the queue is full.
+	 * @param blockTimeout How long a radar site waits for room under the BLOCK policy.
+	 * @param unit Unit of blockTimeout.
+	 * @throws IllegalArgumentException If capacity is not positive or blockTimeout is negative.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, int capacity, OverflowPolicy policy, long blockTimeout, 
+			TimeUnit unit) throws IllegalArgumentException {
+		this(airSpace, new LockFreeQueue<Aircraft>(), capacity, policy, blockTimeout, unit);
+	}
+	
+	/**
+	 * Create a bounded tracker.
+	 * @param airSpace Air space the identified aircraft are added to.
+	 * @param radarQueue Empty queue holding the aircraft identified but not yet processed, which 
+	 *                   must be able to hold capacity aircraft.
+	 * @param capacity Maximum number of aircraft queued at once.
+	 * @param policy What to do with an aircraft identified while the queue is full.
+	 * @param blockTimeout How long a radar site waits for room under the BLOCK policy.
+	 * @param unit Unit of blockTimeout.
+	 * @throws IllegalArgumentException If capacity is not positive or blockTimeout is negative.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, IterableQueue<Aircraft> radarQueue, int capacity, 
+			OverflowPolicy policy, long blockTimeout, TimeUnit unit) throws IllegalArgumentException {
+		if (capacity <= 0 || blockTimeout < 0) {
+			throw new IllegalArgumentException();
+		}
 		this.airSpace = airSpace;
-		radarQueue = new TraversableQueue<Aircraft>();
+		this.radarQueue = radarQueue;
+		this.freePlaces = new Semaphore(capacity);
+		this.policy = policy;
+		this.blockTimeout = unit.toNanos(blockTimeout);
+		this.latestUpdates = policy == OverflowPolicy.COALESCE ? new ConcurrentHashMap<Aircraft, Aircraft>() : null;
 	}
 	
 	/**
 	 * Add a new aircraft to the queue of aircraft identified by a radar site.
+	 * Safe to call from many radar threads at once if the queue is a LockFreeQueue.
+	 * @param aircraft to add to the queue
+	 * @return true if the aircraft was queued, or coalesced with a queued update; false if a 
+	 *         bounded tracker dropped it because the queue was full.
+	 */
+	public boolean newAircraft(Aircraft aircraft) {
+		return newAircraft(aircraft, -1);
+	}
+	
+	/**
+	 * Add a new aircraft to the queue, counting it towards the ingest rate of a radar site.
 	 * @param aircraft to add to the queue
+	 * @param radarSite Number given to the radar site by registerRadarSite, or -1 if unknown.
+	 * @return true if the aircraft was queued, or coalesced with a queued update; false if a 
+	 *         bounded tracker dropped it because the queue was full.
+	 */
+	public boolean newAircraft(Aircraft aircraft, int radarSite) {
+		aircraft.enqueueTime = System.nanoTime();	// Published to the consumer by the enqueue
+		queuedIds.put(aircraft);	// Before a consumer can dequeue it and stop indexing it
+		boolean queued = freePlaces == null || admit(aircraft);
+		if (!queued) {
+			queuedIds.remove(aircraft);
+		} else if (latestUpdates == null) {
+			radarQueue.enqueue(aircraft);
+		}
+		metrics.aircraftIdentified(radarSite, radarQueue.size());
+		return queued;
+	}
+	
+	/**
+	 * Take a free place in the queue of a bounded tracker, applying its overflow policy if there 
+	 * is none. Under the COALESCE policy, the aircraft is also queued or coalesced here.
+	 * @param aircraft Newly identified aircraft.
+	 * @return true if the aircraft is to be queued or was coalesced, false if it was dropped.
+	 */
+	private boolean admit(Aircraft aircraft) {
+		switch (policy) {
+		case BLOCK:
+			if (freePlaces.tryAcquire()) {
+				return true;
+			}
+			try {
+				if (freePlaces.tryAcquire(blockTimeout, TimeUnit.NANOSECONDS)) {
+					metrics.aircraftBlocked();
+					return true;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();		// Left for the radar site to notice
+			}
+			metrics.aircraftTimedOut();
+			return false;
+		case DROP_OLDEST:
+			while (!freePlaces.tryAcquire()) {
+				synchronized (queueLock) {		// Not consumerLock, which is held while a batch is placed
+					if (radarQueue.size() != 0) {
+						queuedIds.remove(radarQueue.dequeue());	// Its place passes to the new aircraft
+						metrics.aircraftDroppedOldest();
+						return true;
+					}
+				}
+				try {	// Every place is held by a radar site yet to enqueue, so wait for one to be freed
+					if (freePlaces.tryAcquire(DROP_OLDEST_WAIT, TimeUnit.NANOSECONDS)) {
+						return true;
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();		// Left for the radar site to notice
+					metrics.aircraftDroppedNewest();
+					return false;
+				}
+			}
+			return true;
+		case COALESCE:
+			Aircraft superseded = latestUpdates.replace(aircraft, aircraft);
+			if (superseded != null) {
+				queuedIds.remove(superseded);	// Never dequeued itself, so only the latest update stays indexed
+				metrics.aircraftCoalesced();
+				return true;
+			}
+			if (!freePlaces.tryAcquire()) {
+				metrics.aircraftDroppedNewest();
+				return false;
+			}
+			while (latestUpdates.putIfAbsent(aircraft, aircraft) != null) {	// Queued by another radar site meanwhile
+				superseded = latestUpdates.replace(aircraft, aircraft);
+				if (superseded != null) {
+					queuedIds.remove(superseded);
+					freePlaces.release();
+					metrics.aircraftCoalesced();
+					return true;
+				}
+			}
+			radarQueue.enqueue(aircraft);
+			return true;
+		default:	// DROP_NEWEST
+			if (freePlaces.tryAcquire()) {
+				return true;
+			}
+			metrics.aircraftDroppedNewest();
+			return false;
+		}
+	}
+	
+	/**
+	 * Dequeue the next aircraft, giving its place in a bounded queue back. Must be called while
+	 * holding queueLock.
+	 * @return The aircraft, or its latest update if it was coalesced.
+	 */
+	private Aircraft takeNextAircraft() {
+		Aircraft aircraft = radarQueue.dequeue();
+		if (freePlaces != null) {
+			Aircraft latest = latestUpdates == null ? null : latestUpdates.remove(aircraft);
+			freePlaces.release();
+			if (latest != null) {
+				aircraft = latest;
+			}
+		}
+		queuedIds.remove(aircraft);
+		return aircraft;
+	}
+	
+	/**
+	 * Publish alerts for the aircraft that enter occupied cells, rather than outputting warnings 
+	 * on the thread placing them.
+	 * @param publisher Publisher to hand alerts to, or null to output warnings again.
+	 */
+	public void setAlertPublisher(ConflictAlertPublisher publisher) {
+		this.alerts = publisher;
+	}
+	
+	/**
+	 * @return The publisher alerts are handed to, or null if warnings are output instead.
 	 */
-	public void newAircraft(Aircraft aircraft) {
-		radarQueue.enqueue(aircraft);
+	public ConflictAlertPublisher getAlertPublisher() {
+		return alerts;
 	}
 	
 	/**
-	 * Take the next aircraft in the queue and add it to the airspace.
-	 * Outputs a warning message if the aircraft encroaches on the space of another aircraft.
-	 * Should really return an error value to be dealt with at the UI layer.
+	 * Give a radar site feeding this tracker a number, under which its ingest rate is reported.
+	 * @param tag Id tag of the radar site.
+	 * @return Number to pass to newAircraft along with the aircraft the site identifies.
+	 * @throws IllegalStateException If too many radar sites have been registered.
 	 */
-	public void processRadarQueue() {
-		if (radarQueue.size() != 0) {
-			Aircraft aircraft = radarQueue.dequeue();
-			if (airSpace.addAircraft(aircraft)) {
+	public int registerRadarSite(String tag) throws IllegalStateException {
+		return metrics.registerRadarSite(tag);
+	}
+	
+	/**
+	 * Take the next aircraft in the queue and add it to the airspace, after expiring the aircraft 
+	 * whose time to live in the airspace has run out.
+	 * If the aircraft encroaches on the space of another aircraft, an alert is published if an 
+	 * alert publisher is set, or else a warning message is output.
+	 * Safe to call from several consumer threads at once, but they take turns for the whole call,
+	 * so extra consumer threads do not place aircraft any faster.
+	 * @return true if an aircraft was added to the airspace, false if the queue was empty.
+	 */
+	public boolean processRadarQueue() {
+		Aircraft aircraft;
+		int expired;
+		boolean occupied;
+		synchronized (consumerLock) {
+			synchronized (queueLock) {
+				if (radarQueue.size() == 0) {
+					return false;
+				}
+				aircraft = takeNextAircraft();
+			}
+			expired = airSpace.expireAircraft();
+			occupied = airSpace.addAircraft(aircraft);
+		}
+		if (expired != 0) {
+			metrics.aircraftExpired(expired);
+		}
+		metrics.aircraftPlaced(System.nanoTime() - aircraft.enqueueTime);
+		if (occupied) {
+			metrics.conflictsFound(1);
+			ConflictAlertPublisher publisher = alerts;
+			if (publisher != null) {
+				publisher.publish(new ConflictAlert(aircraft));
+			} else {
 				System.out.println(aircraft + " has entered an occupied cell in the air space!");
 			}
 		}
+		return true;
+	}
+	
+	/**
+	 * Take up to maxAircraft aircraft from the queue and add them to the airspace as one batch, 
+	 * after expiring the aircraft whose time to live in the airspace has run out.
+	 * Unlike processRadarQueue, no message is output; the aircraft that encroach on the space of
+	 * another aircraft are returned together for the caller to deal with, and an alert is 
+	 * published for each of them if an alert publisher is set.
+	 * Safe to call from several consumer threads at once, but they take turns for the whole call;
+	 * a ShardedAirSpace places each batch in parallel over its tiles instead.
+	 * @param maxAircraft Maximum number of aircraft to process.
+	 * @return The number of aircraft added and those of them that entered an occupied cell.
+	 * @throws IllegalArgumentException If maxAircraft is not positive.
+	 */
+	public RadarBatch processRadarQueue(int maxAircraft) throws IllegalArgumentException {
+		if (maxAircraft <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int initialCapacity = Math.min(maxAircraft, BATCH_INITIAL_CAPACITY);
+		IterableQueue<Aircraft> batch = new RingBufferQueue<Aircraft>(initialCapacity, maxAircraft);
+		synchronized (consumerLock) {
+			synchronized (queueLock) {		// Released before placing, so DROP_OLDEST is not held up
+				while (batch.size() < maxAircraft && radarQueue.size() != 0) {
+					batch.enqueue(takeNextAircraft());
+				}
+			}
+			if (batch.size() == 0) {
+				return new RadarBatch(0, batch);
+			}
+			int expired = airSpace.expireAircraft();
+			if (expired != 0) {
+				metrics.aircraftExpired(expired);
+			}
+			IterableQueue<Aircraft> conflicts = airSpace.addAircraft(batch);
+			long placed = System.nanoTime();	// One clock read serves the whole batch
+			for (Aircraft aircraft : batch) {
+				metrics.aircraftPlaced(placed - aircraft.enqueueTime);
+			}
+			metrics.conflictsFound(conflicts.size());
+			ConflictAlertPublisher publisher = alerts;
+			if (publisher != null) {
+				publisher.publish(conflicts);
+			}
+			return new RadarBatch(batch.size(), conflicts);
+		}
+	}
+	
+	/**
+	 * Write a checkpoint of the airspace on another thread. Placing aircraft only waits while the
+	 * state of the placed aircraft is copied, not while the checkpoint is encoded and written, so
+	 * the checkpoint is not affected by aircraft that move or are placed afterwards. A 
+	 * MovementEngine must not move the airspace's aircraft while the copy is taken, as it does not
+	 * take turns with the tracker's consumers.
+	 * Aircraft identified but still in the queue are not part of the checkpoint.
+	 * @param file File to write the checkpoint to, which is replaced if it exists.
+	 * @param executor Executor to write the checkpoint on.
+	 * @return Future completing with the file once the checkpoint has been written, or with the 
+	 *         IOException that stopped it.
+	 */
+	public Future<Path> checkpoint(Path file, ExecutorService executor) {
+		final Aircraft[] placed;
+		synchronized (consumerLock) {
+			placed = airSpace.copyTrackedAircraft();
+			for (int i = 0; i < placed.length; i++) {
+				placed[i] = placed[i].copy();	// The encoder must not see later moves half done
+			}
+		}
+		return executor.submit(() -> {
+			AirSpaceCheckpoint.write(getLength(), getBreadth(), getHeight(), placed, file);
+			return file;
+		});
+	}
+	
+	/**
+	 * Find an aircraft identified but not yet added to the airspace by its id, ignoring case.
+	 * An aircraft may briefly be found while a bounded tracker decides to drop it.
+	 * Time complexity: O(log n) expected.
+	 * @param id Id of the aircraft.
+	 * @return The aircraft's latest queued update, or null if it is not queued.
+	 */
+	public Aircraft findQueuedAircraft(String id) {
+		return queuedIds.get(id);
+	}
+	
+	/**
+	 * Find the aircraft identified but not yet added to the airspace whose ids start with a 
+	 * prefix, ignoring case, e.g. "BNE".
+	 * Time complexity: O(log n + k) expected, where k is the number of aircraft found.
+	 * @param prefix Start of the ids.
+	 * @return Queue of the aircraft found, the latest of each id, in order of id, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> findQueuedAircraftWithPrefix(String prefix) {
+		return queuedIds.withPrefix(prefix);
+	}
+	
+	/**
+	 * Find an aircraft added to the airspace by its id, ignoring case.
+	 * Time complexity: O(log n) expected.
+	 * @param id Id of the aircraft.
+	 * @return The aircraft, or null if it is not in the airspace.
+	 */
+	public Aircraft findPlacedAircraft(String id) {
+		return airSpace.findAircraft(id);
+	}
+	
+	/**
+	 * Find the aircraft added to the airspace whose ids start with a prefix, ignoring case.
+	 * Time complexity: O(log n + k) expected, where k is the number of aircraft found.
+	 * @param prefix Start of the ids.
+	 * @return Queue of the aircraft found, the latest of each id, in order of id, or null if there are none.
+	 */
+	public IterableQueue<Aircraft> findPlacedAircraftWithPrefix(String prefix) {
+		return airSpace.findAircraftWithPrefix(prefix);
+	}
+	
+	/**
+	 * @return Number of aircraft identified but not yet added to the airspace.
+	 */
+	public int getRadarQueueSize() {
+		return radarQueue.size();
+	}
+	
+	/**
+	 * @return The tracker's instrumentation, to take snapshots of or register over JMX.
+	 */
+	public TrackerMetrics getMetrics() {
+		return metrics;
 	}
 	
 	/**
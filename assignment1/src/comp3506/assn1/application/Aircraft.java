@@ -1,6 +1,5 @@
 package comp3506.assn1.application;
 
-
 /**
  * Simple representation of an aircraft in the OneSky simulation.
  * 
@@ -10,19 +9,41 @@ package comp3506.assn1.application;
 public class Aircraft {
 	
 	private String id;		// Aircraft's unique registration identifier.
+	private String foldedId;	// id with its case folded as equalsIgnoreCase does, for comparing and indexing.
 	private int airSpaceXCoord;
 	private int airSpaceYCoord;
 	private int altitude;	// In metres.
 	private int speed;		// In metres per second.
 	private double course;	// In degrees, north is 0 degrees.
+	private double xPosition;	// Precise position in kilometres, within the airSpaceXCoord cell.
+	private double yPosition;	// Precise position in kilometres, within the airSpaceYCoord cell.
+	// Bookkeeping of the containers holding the aircraft. An aircraft is queued by at most one 
+	// tracker and placed in at most one air space at a time, which alone write these fields; 
+	// copy() an aircraft to hand it to another air space.
+	int trackingSlot = -1;		// Position in the air space's list of tracked aircraft, -1 if not tracked.
+	long enqueueTime;			// System.nanoTime() at which the tracker queued the aircraft.
+	Aircraft frozenFrom;		// Live aircraft this is a frozen copy of, placed in a versioned model in its stead; null if live.
 	
 	public Aircraft(String id, int xCoord, int yCoord, int altitude, int speed, double course) {
+		this(id, fold(id), xCoord, yCoord, altitude, speed, course);
+	}
+	
+	/**
+	 * Create an aircraft whose id has already been folded, e.g. once per distinct id in a recording
+	 * rather than once per aircraft.
+	 * 
+	 * @param foldedId fold(id), which is not checked.
+	 */
+	Aircraft(String id, String foldedId, int xCoord, int yCoord, int altitude, int speed, double course) {
 		this.id = id;
+		this.foldedId = foldedId;
 		this.airSpaceXCoord = xCoord;
 		this.airSpaceYCoord = yCoord;
 		this.altitude = altitude;
 		this.speed = speed;
 		this.course = course;
+		this.xPosition = xCoord + 0.5;	// Centre of the cell until the aircraft first moves
+		this.yPosition = yCoord + 0.5;
 	}
 	
 	/**
@@ -32,6 +53,13 @@ public class Aircraft {
 		return id;
 	}
 
+	/**
+	 * @return the aircraft's id with its case folded, so that ids equal ignoring case are equal
+	 */
+	public String getFoldedId() {
+		return foldedId;
+	}
+
 	/**
 	 * @return the aircraft's airSpaceXCoord
 	 */
@@ -53,18 +81,126 @@ public class Aircraft {
 		return altitude;
 	}
 
+	/**
+	 * @return the aircraft's precise x position in kilometres, within its airSpaceXCoord cell
+	 */
+	public double getXPosition() {
+		return xPosition;
+	}
+
+	/**
+	 * @return the aircraft's precise y position in kilometres, within its airSpaceYCoord cell
+	 */
+	public double getYPosition() {
+		return yPosition;
+	}
+
+	/**
+	 * @return the aircraft's speed in metres per second
+	 */
+	public int getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * @return the aircraft's course in degrees, north is 0 degrees
+	 */
+	public double getCourse() {
+		return course;
+	}
+
+	/**
+	 * Fly the aircraft along its course at its speed for a period of time, keeping its altitude.
+	 * North is towards increasing y coordinates and east towards increasing x coordinates.
+	 * 
+	 * @param seconds Time to fly for.
+	 * @return true if the aircraft moved into a different airspace cell, false otherwise.
+	 */
+	boolean move(double seconds) {
+		final double METRES_PER_KILOMETRE = 1000;
+		double distance = speed * seconds / METRES_PER_KILOMETRE;
+		double heading = Math.toRadians(course);
+		xPosition += distance * Math.sin(heading);
+		yPosition += distance * Math.cos(heading);
+		int newXCoord = (int) Math.floor(xPosition);
+		int newYCoord = (int) Math.floor(yPosition);
+		if (newXCoord == airSpaceXCoord && newYCoord == airSpaceYCoord) {
+			return false;
+		}
+		airSpaceXCoord = newXCoord;
+		airSpaceYCoord = newYCoord;
+		return true;
+	}
+
+	/**
+	 * Put the aircraft back at a precise position recorded earlier, e.g. in a checkpoint.
+	 * 
+	 * @param xPosition Precise x position in kilometres, within the aircraft's airSpaceXCoord cell.
+	 * @param yPosition Precise y position in kilometres, within the aircraft's airSpaceYCoord cell.
+	 */
+	void restorePosition(double xPosition, double yPosition) {
+		this.xPosition = xPosition;
+		this.yPosition = yPosition;
+	}
+	
+	/**
+	 * Copy the aircraft's current state, e.g. for a checkpoint written while the aircraft moves on.
+	 * 
+	 * @return A new aircraft with the same id, cell, altitude, speed, course and precise position,
+	 *         which later moves of this aircraft do not change.
+	 */
+	Aircraft copy() {
+		Aircraft copy = new Aircraft(id, foldedId, airSpaceXCoord, airSpaceYCoord, altitude, speed, course);
+		copy.restorePosition(xPosition, yPosition);
+		return copy;
+	}
+	
+	/**
+	 * Copy the aircraft's current state for an air space model whose snapshots must not see the 
+	 * aircraft move on.
+	 * 
+	 * @return A copy of the aircraft, as made by copy(), that refers back to this aircraft.
+	 */
+	Aircraft freeze() {
+		Aircraft frozen = copy();
+		frozen.frozenFrom = this;
+		return frozen;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) {
 			return false;
 		}
 		try {
-			return id.equalsIgnoreCase(((Aircraft)obj).id);
+			return foldedId.equals(((Aircraft)obj).foldedId);
 		} catch (ClassCastException cce) {
 			return false;
 		}
 	}
 	
+	/**
+	 * Consistent with equals, which ignores the case of the id.
+	 */
+	@Override
+	public int hashCode() {
+		return foldedId.hashCode();
+	}
+	
+	/**
+	 * Fold the case of an id character by character, as String.equalsIgnoreCase compares them.
+	 * 
+	 * @param id Id to fold.
+	 * @return The id with every character folded, equal to another folded id exactly when the ids are equal ignoring case.
+	 */
+	static String fold(String id) {
+		char[] folded = new char[id.length()];
+		for (int i = 0; i < folded.length; i++) {
+			folded[i] = Character.toLowerCase(Character.toUpperCase(id.charAt(i)));
+		}
+		return new String(folded);
+	}
+	
 	@Override
 	public String toString() {
 		return "Aircraft: " + id + " at " + altitude + " metres, on course: " + course
@@ -0,0 +1,100 @@
+package comp3506.assn1.application;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Index of aircraft by their case-folded id, which threads can update and query at once.
+ * The ids are kept in order in a ConcurrentSkipListMap, so indexing an aircraft and looking one
+ * up by its exact id take O(log n) expected time, and a prefix lookup visits only the ids that
+ * start with the prefix, which lie next to each other.
+ * 
+ * An id maps to every aircraft indexed under it, newest first, and lookups return the newest.
+ * Aircraft are removed by identity, so removing one update of an aircraft, older or newer, leaves
+ * the others indexed. As aircraft compare equal by id, they are held in entries of their own,
+ * which are compared by identity.
+ * 
+ * @author Howie L.
+ *
+ */
+class AircraftIndex {
+	
+	private final ConcurrentSkipListMap<String, Entry> byId = new ConcurrentSkipListMap<>();
+	
+	/**
+	 * Immutable list of the aircraft indexed under one id, newest first. Lists are replaced
+	 * rather than changed, so readers never see one half updated.
+	 */
+	private static final class Entry {
+		final Aircraft aircraft;
+		final Entry older;
+		
+		Entry(Aircraft aircraft, Entry older) {
+			this.aircraft = aircraft;
+			this.older = older;
+		}
+		
+		/**
+		 * @return This list without the aircraft, which is null if nothing is left.
+		 */
+		Entry without(Aircraft removed) {
+			if (aircraft == removed) {
+				return older;
+			}
+			if (older == null) {
+				return this;
+			}
+			Entry rest = older.without(removed);
+			return rest == older ? this : new Entry(aircraft, rest);
+		}
+	}
+	
+	/**
+	 * Index an aircraft as the newest under its id.
+	 * 
+	 * Time complexity: O(log n) expected, for n indexed ids.
+	 */
+	void put(final Aircraft aircraft) {
+		byId.compute(aircraft.getFoldedId(), (id, entry) -> new Entry(aircraft, entry));
+	}
+	
+	/**
+	 * Stop indexing an aircraft, leaving any other aircraft indexed under its id.
+	 * 
+	 * Time complexity: O(log n + m) expected, for n indexed ids and m aircraft indexed under its id.
+	 */
+	void remove(final Aircraft aircraft) {
+		byId.computeIfPresent(aircraft.getFoldedId(), (id, entry) -> entry.without(aircraft));
+	}
+	
+	/**
+	 * Time complexity: O(log n) expected, for n indexed ids, plus O(l) to fold an id of length l.
+	 * 
+	 * @param id Id to look up, in any case.
+	 * @return The newest aircraft indexed under the id, or null if there is none.
+	 */
+	Aircraft get(String id) {
+		Entry entry = byId.get(Aircraft.fold(id));
+		return entry == null ? null : entry.aircraft;
+	}
+	
+	/**
+	 * Time complexity: O(log n + k) expected, for n indexed ids of which k match.
+	 * 
+	 * @param prefix Start of the ids to look up, in any case.
+	 * @return Queue of the newest aircraft of each id starting with the prefix, in order of id,
+	 *         or null if there are none.
+	 */
+	IterableQueue<Aircraft> withPrefix(String prefix) {
+		String folded = Aircraft.fold(prefix);
+		IterableQueue<Aircraft> found = new RingBufferQueue<Aircraft>();
+		for (Entry entry : byId.subMap(folded, folded + '\uffff').values()) {
+			found.enqueue(entry.aircraft);
+		}
+		return found.size() == 0 ? null : found;
+	}
+	
+}
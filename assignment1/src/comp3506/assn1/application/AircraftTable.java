@@ -0,0 +1,463 @@
+package comp3506.assn1.application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Columnar store of aircraft, holding each attribute of every aircraft in its own primitive
+ * array rather than one object per aircraft. Scans, movement and conflict sweeps run over the
+ * columns they need from start to end, without following a reference per aircraft, so they
+ * read memory sequentially and touch nothing else. Ids are interned: each distinct id is held
+ * once, along with its folded form, and rows refer to it by index.
+ * 
+ * Aircraft are identified by row number. Rows are dense, so removing a row moves the last row
+ * into its place. Aircraft objects are only built at the edges, by getAircraft and findConflicts,
+ * and are copies: later changes to the table are not reflected in them.
+ * 
+ * @author Howie L.
+ *
+ */
+public class AircraftTable {
+	
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+	private static final int METRES_PER_KILOMETRE = 1000;
+	// Offsets of the 13 hash cells after a cell in (x, y, z) order, so each pair of cells is visited once.
+	private static final int[][] FORWARD_NEIGHBOURS = {
+		{0, 0, 1}, {0, 1, -1}, {0, 1, 0}, {0, 1, 1},
+		{1, -1, -1}, {1, -1, 0}, {1, -1, 1}, {1, 0, -1}, {1, 0, 0}, {1, 0, 1}, {1, 1, -1}, {1, 1, 0}, {1, 1, 1}
+	};
+	
+	private int size = 0;
+	private int[] idIndices;
+	private int[] xCoords;
+	private int[] yCoords;
+	private int[] altitudes;		// In metres.
+	private int[] speeds;			// In metres per second.
+	private double[] courses;		// In degrees, north is 0 degrees.
+	private double[] xPositions;	// Precise positions in kilometres.
+	private double[] yPositions;
+	private double[] xVelocities;	// Derived from speed and course, in kilometres per second.
+	private double[] yVelocities;
+	
+	private String[] ids = new String[DEFAULT_INITIAL_CAPACITY];	// Distinct ids, indexed by idIndices
+	private String[] foldedIds = new String[DEFAULT_INITIAL_CAPACITY];	// Indexed like ids
+	private int numIds = 0;
+	private final Map<String, Integer> idTable = new HashMap<>();
+	
+	/**
+	 * Create an empty table.
+	 */
+	public AircraftTable() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+	
+	/**
+	 * Create an empty table.
+	 * 
+	 * @param initialCapacity Number of aircraft the table can hold before its columns have to grow.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public AircraftTable(int initialCapacity) throws IllegalArgumentException {
+		if (initialCapacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		idIndices = new int[initialCapacity];
+		xCoords = new int[initialCapacity];
+		yCoords = new int[initialCapacity];
+		altitudes = new int[initialCapacity];
+		speeds = new int[initialCapacity];
+		courses = new double[initialCapacity];
+		xPositions = new double[initialCapacity];
+		yPositions = new double[initialCapacity];
+		xVelocities = new double[initialCapacity];
+		yVelocities = new double[initialCapacity];
+	}
+	
+	/**
+	 * Copy every aircraft placed in an airspace into a new table, in tracking order.
+	 * 
+	 * Time complexity: O(n), where n is the number of aircraft in the airspace.
+	 * 
+	 * @param airSpace Airspace whose aircraft are copied.
+	 * @return A table holding a row for each aircraft.
+	 */
+	public static AircraftTable of(AirSpace airSpace) {
+		AircraftTable table = new AircraftTable(Math.max(1, airSpace.getNumAircraft()));
+		for (int i = 0; i < airSpace.getNumAircraft(); i++) {
+			table.add(airSpace.getTrackedAircraft(i));
+		}
+		return table;
+	}
+	
+	/**
+	 * Append a row holding a copy of an aircraft.
+	 * 
+	 * Time complexity: O(1) amortised.
+	 * 
+	 * @param aircraft Aircraft to copy.
+	 * @return The row the aircraft was added at.
+	 */
+	public int add(Aircraft aircraft) {
+		if (size == xCoords.length) {
+			grow();
+		}
+		int row = size++;
+		idIndices[row] = intern(aircraft);
+		xCoords[row] = aircraft.getAirSpaceXCoord();
+		yCoords[row] = aircraft.getAirSpaceYCoord();
+		altitudes[row] = aircraft.getAltitude();
+		speeds[row] = aircraft.getSpeed();
+		courses[row] = aircraft.getCourse();
+		xPositions[row] = aircraft.getXPosition();
+		yPositions[row] = aircraft.getYPosition();
+		double heading = Math.toRadians(aircraft.getCourse());
+		double kilometresPerSecond = (double) aircraft.getSpeed() / METRES_PER_KILOMETRE;
+		xVelocities[row] = kilometresPerSecond * Math.sin(heading);
+		yVelocities[row] = kilometresPerSecond * Math.cos(heading);
+		return row;
+	}
+	
+	/**
+	 * Remove a row by moving the last row into its place. The id stays interned.
+	 * 
+	 * Time complexity: O(1)
+	 * 
+	 * @param row Row to remove.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public void remove(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		int last = --size;
+		idIndices[row] = idIndices[last];
+		xCoords[row] = xCoords[last];
+		yCoords[row] = yCoords[last];
+		altitudes[row] = altitudes[last];
+		speeds[row] = speeds[last];
+		courses[row] = courses[last];
+		xPositions[row] = xPositions[last];
+		yPositions[row] = yPositions[last];
+		xVelocities[row] = xVelocities[last];
+		yVelocities[row] = yVelocities[last];
+	}
+	
+	/**
+	 * @return The number of aircraft in the table.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @param row Row of an aircraft.
+	 * @return The aircraft's id.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public String getId(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		return ids[idIndices[row]];
+	}
+	
+	/**
+	 * @param row Row of an aircraft.
+	 * @return The x coordinate of the aircraft's airspace cell.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public int getXCoord(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		return xCoords[row];
+	}
+	
+	/**
+	 * @param row Row of an aircraft.
+	 * @return The y coordinate of the aircraft's airspace cell.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public int getYCoord(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		return yCoords[row];
+	}
+	
+	/**
+	 * @param row Row of an aircraft.
+	 * @return The aircraft's altitude in metres.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public int getAltitude(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		return altitudes[row];
+	}
+	
+	/**
+	 * Build an Aircraft from a row, e.g. to hand to code outside the table.
+	 * 
+	 * Time complexity: O(1)
+	 * 
+	 * @param row Row of an aircraft.
+	 * @return A copy of the aircraft as it is now.
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	public Aircraft getAircraft(int row) throws IndexOutOfBoundsException {
+		checkRow(row);
+		int id = idIndices[row];
+		Aircraft aircraft = new Aircraft(ids[id], foldedIds[id], xCoords[row], yCoords[row], altitudes[row],
+				speeds[row], courses[row]);
+		aircraft.restorePosition(xPositions[row], yPositions[row]);
+		return aircraft;
+	}
+	
+	/**
+	 * Fly every aircraft along its course at its speed for a period of time, as Aircraft.move
+	 * does for one aircraft.
+	 * 
+	 * Time complexity: O(n)
+	 * 
+	 * @param seconds Time to fly for.
+	 * @return The number of aircraft that moved into a different airspace cell.
+	 */
+	public int move(double seconds) {
+		int cellChanges = 0;
+		for (int row = 0; row < size; row++) {
+			double x = xPositions[row] + xVelocities[row] * seconds;
+			double y = yPositions[row] + yVelocities[row] * seconds;
+			xPositions[row] = x;
+			yPositions[row] = y;
+			int xCoord = (int) Math.floor(x);
+			int yCoord = (int) Math.floor(y);
+			if (xCoord != xCoords[row] || yCoord != yCoords[row]) {
+				xCoords[row] = xCoord;
+				yCoords[row] = yCoord;
+				cellChanges++;
+			}
+		}
+		return cellChanges;
+	}
+	
+	/**
+	 * Count the aircraft whose airspace cells lie within a box, whose bounds are inclusive.
+	 * 
+	 * Time complexity: O(n)
+	 * 
+	 * @return The number of aircraft in the box.
+	 */
+	public int countWithin(int minXCoord, int minYCoord, int minAltitude, int maxXCoord, int maxYCoord,
+			int maxAltitude) {
+		int count = 0;
+		for (int row = 0; row < size; row++) {
+			int x = xCoords[row];
+			int y = yCoords[row];
+			int altitude = altitudes[row];
+			if (x >= minXCoord && x <= maxXCoord && y >= minYCoord && y <= maxYCoord
+					&& altitude >= minAltitude && altitude <= maxAltitude) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Count the pairs of aircraft closer to each other than the separation minima, using the
+	 * same distances as ConflictDetector.
+	 * 
+	 * Time complexity: O(n log n + c), where c is the number of pairs in neighbouring hash cells.
+	 * 
+	 * @param horizontalSeparation Smallest horizontal distance allowed between aircraft at similar altitudes, in kilometres.
+	 * @param verticalSeparation Smallest vertical distance allowed between aircraft horizontally too close, in metres.
+	 * @return The number of conflicts.
+	 * @throws IllegalArgumentException If a separation minimum is not positive, or so small that
+	 *                                  the hash cells cannot be numbered.
+	 */
+	public int countConflicts(double horizontalSeparation, int verticalSeparation) throws IllegalArgumentException {
+		return sweep(horizontalSeparation, verticalSeparation, null);
+	}
+	
+	/**
+	 * Find the pairs of aircraft closer to each other than the separation minima, using the same
+	 * distances as ConflictDetector. The first aircraft of a conflict is the one in the lower row.
+	 * 
+	 * Time complexity: O(n log n + c), where c is the number of pairs in neighbouring hash cells.
+	 * 
+	 * @param horizontalSeparation Smallest horizontal distance allowed between aircraft at similar altitudes, in kilometres.
+	 * @param verticalSeparation Smallest vertical distance allowed between aircraft horizontally too close, in metres.
+	 * @return Queue of every conflict, each reported once, which is empty if there are none.
+	 * @throws IllegalArgumentException If a separation minimum is not positive, or so small that
+	 *                                  the hash cells cannot be numbered.
+	 */
+	public IterableQueue<Conflict> findConflicts(double horizontalSeparation, int verticalSeparation)
+			throws IllegalArgumentException {
+		IterableQueue<Conflict> conflicts = new RingBufferQueue<Conflict>();
+		sweep(horizontalSeparation, verticalSeparation, conflicts);
+		return conflicts;
+	}
+	
+	/**
+	 * Hash every row into a cell as wide as the horizontal minimum and as tall as the vertical
+	 * minimum, sort the rows by cell number, and compare the rows of each cell with those of the
+	 * cell itself and its 13 following neighbours.
+	 * 
+	 * @param conflicts Queue the conflicts found are appended to, or null to only count them.
+	 * @return The number of conflicts.
+	 */
+	private int sweep(double horizontalSeparation, int verticalSeparation, IterableQueue<Conflict> conflicts)
+			throws IllegalArgumentException {
+		if (!(horizontalSeparation > 0) || verticalSeparation <= 0) {
+			throw new IllegalArgumentException();
+		}
+		if (size == 0) {
+			return 0;
+		}
+		int[] xCells = new int[size];
+		int[] yCells = new int[size];
+		int[] zCells = new int[size];
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+		for (int row = 0; row < size; row++) {
+			xCells[row] = (int) Math.floor(xPositions[row] / horizontalSeparation);
+			yCells[row] = (int) Math.floor(yPositions[row] / horizontalSeparation);
+			zCells[row] = Math.floorDiv(altitudes[row], verticalSeparation);
+			minX = Math.min(minX, xCells[row]);
+			minY = Math.min(minY, yCells[row]);
+			minZ = Math.min(minZ, zCells[row]);
+			maxX = Math.max(maxX, xCells[row]);
+			maxY = Math.max(maxY, yCells[row]);
+			maxZ = Math.max(maxZ, zCells[row]);
+		}
+		long cellsAlongY = (long) maxY - minY + 1;
+		long cellsAlongZ = (long) maxZ - minZ + 1;
+		if (((long) maxX - minX + 1) * cellsAlongY * cellsAlongZ > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException();
+		}
+		// Sort the rows by cell number, packed above the row number so one primitive sort does both.
+		long[] sorted = new long[size];
+		for (int row = 0; row < size; row++) {
+			long cell = ((xCells[row] - minX) * cellsAlongY + (yCells[row] - minY)) * cellsAlongZ + (zCells[row] - minZ);
+			sorted[row] = cell << Integer.SIZE | row;
+		}
+		Arrays.sort(sorted);
+		int[] cells = new int[size];
+		int[] rows = new int[size];
+		for (int i = 0; i < size; i++) {
+			cells[i] = (int) (sorted[i] >>> Integer.SIZE);
+			rows[i] = (int) sorted[i];
+		}
+		
+		// A neighbour's cell number is the cell's plus a fixed difference, so as the cells are visited in
+		// order, each neighbour's rows are found by a cursor that only moves forwards.
+		int[] differences = new int[FORWARD_NEIGHBOURS.length];
+		int[] cursors = new int[FORWARD_NEIGHBOURS.length];
+		for (int k = 0; k < FORWARD_NEIGHBOURS.length; k++) {
+			int[] offset = FORWARD_NEIGHBOURS[k];
+			differences[k] = (int) ((offset[0] * cellsAlongY + offset[1]) * cellsAlongZ + offset[2]);
+		}
+		double separationSquared = horizontalSeparation * horizontalSeparation;
+		int count = 0;
+		int start = 0;
+		while (start < size) {
+			int end = start + 1;
+			while (end < size && cells[end] == cells[start]) {
+				end++;
+			}
+			for (int i = start; i < end; i++) {
+				for (int j = i + 1; j < end; j++) {
+					count += compare(rows[i], rows[j], verticalSeparation, separationSquared, conflicts);
+				}
+			}
+			int row = rows[start];
+			for (int k = 0; k < FORWARD_NEIGHBOURS.length; k++) {
+				int[] offset = FORWARD_NEIGHBOURS[k];
+				int x = xCells[row] + offset[0];
+				int y = yCells[row] + offset[1];
+				int z = zCells[row] + offset[2];
+				if (x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+					continue;	// The difference would wrap around to an unrelated cell
+				}
+				int neighbour = cells[start] + differences[k];
+				int j = Math.max(cursors[k], end);
+				while (j < size && cells[j] < neighbour) {
+					j++;
+				}
+				cursors[k] = j;
+				for (; j < size && cells[j] == neighbour; j++) {
+					for (int i = start; i < end; i++) {
+						count += compare(rows[i], rows[j], verticalSeparation, separationSquared, conflicts);
+					}
+				}
+			}
+			start = end;
+		}
+		return count;
+	}
+	
+	/**
+	 * @return 1 if the rows are in conflict, 0 otherwise.
+	 */
+	private int compare(int a, int b, int verticalSeparation, double separationSquared,
+			IterableQueue<Conflict> conflicts) {
+		int verticalDistance = Math.abs(altitudes[a] - altitudes[b]);
+		if (verticalDistance >= verticalSeparation) {
+			return 0;
+		}
+		double dx = xPositions[a] - xPositions[b];
+		double dy = yPositions[a] - yPositions[b];
+		if (dx * dx + dy * dy >= separationSquared) {
+			return 0;
+		}
+		if (conflicts != null) {
+			int first = Math.min(a, b);
+			int second = Math.max(a, b);
+			conflicts.enqueue(new Conflict(getAircraft(first), getAircraft(second), Math.hypot(dx, dy), verticalDistance));
+		}
+		return 1;
+	}
+	
+	/**
+	 * @param aircraft Aircraft whose id, and folded id, is interned.
+	 * @return Index of the id in the id column, which is added if it is new.
+	 */
+	private int intern(Aircraft aircraft) {
+		String id = aircraft.getId();
+		Integer index = idTable.get(id);
+		if (index != null) {
+			return index;
+		}
+		if (numIds == ids.length) {
+			ids = Arrays.copyOf(ids, ids.length * 2);
+			foldedIds = Arrays.copyOf(foldedIds, ids.length);
+		}
+		ids[numIds] = id;
+		foldedIds[numIds] = aircraft.getFoldedId();
+		idTable.put(id, numIds);
+		return numIds++;
+	}
+	
+	/**
+	 * Double the capacity of every column.
+	 */
+	private void grow() {
+		int capacity = xCoords.length * 2;
+		idIndices = Arrays.copyOf(idIndices, capacity);
+		xCoords = Arrays.copyOf(xCoords, capacity);
+		yCoords = Arrays.copyOf(yCoords, capacity);
+		altitudes = Arrays.copyOf(altitudes, capacity);
+		speeds = Arrays.copyOf(speeds, capacity);
+		courses = Arrays.copyOf(courses, capacity);
+		xPositions = Arrays.copyOf(xPositions, capacity);
+		yPositions = Arrays.copyOf(yPositions, capacity);
+		xVelocities = Arrays.copyOf(xVelocities, capacity);
+		yVelocities = Arrays.copyOf(yVelocities, capacity);
+	}
+	
+	/**
+	 * @throws IndexOutOfBoundsException If the row does not exist.
+	 */
+	private void checkRow(int row) throws IndexOutOfBoundsException {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+	
+}
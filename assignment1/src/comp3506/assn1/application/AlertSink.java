@@ -0,0 +1,32 @@
+package comp3506.assn1.application;
+
+import java.io.IOException;
+
+import comp3506.assn1.adts.IterableQueue;
+
+
+/**
+ * Consumer of the alerts published by a ConflictAlertPublisher. A sink is only called from the
+ * publisher's dispatcher thread, so it may be slow or block without delaying the tracker.
+ * 
+ * @author Howie L.
+ *
+ */
+public interface AlertSink {
+	
+	/**
+	 * Deliver a batch of alerts, in the order they were published.
+	 * 
+	 * @param alerts Alerts to deliver; the queue is reused once this returns.
+	 * @throws IOException If the alerts cannot be delivered.
+	 */
+	void deliver(IterableQueue<ConflictAlert> alerts) throws IOException;
+	
+	/**
+	 * Release any resources held by the sink, after the last batch has been delivered.
+	 * 
+	 * @throws IOException If the sink cannot be closed.
+	 */
+	void close() throws IOException;
+	
+}
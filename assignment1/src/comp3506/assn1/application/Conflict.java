@@ -0,0 +1,64 @@
+package comp3506.assn1.application;
+
+
+/**
+ * A loss of separation between two aircraft, found by a ConflictDetector.
+ * 
+ * @author Richard T.
+ *
+ */
+public class Conflict {
+	
+	private Aircraft first;
+	private Aircraft second;
+	private double horizontalDistance;	// In kilometres.
+	private int verticalDistance;		// In metres.
+	
+	/**
+	 * @param first Aircraft that was already known when the conflict was found.
+	 * @param second Aircraft whose arrival or movement caused the conflict.
+	 * @param horizontalDistance Horizontal distance between the aircraft in kilometres.
+	 * @param verticalDistance Vertical distance between the aircraft in metres.
+	 */
+	public Conflict(Aircraft first, Aircraft second, double horizontalDistance, int verticalDistance) {
+		this.first = first;
+		this.second = second;
+		this.horizontalDistance = horizontalDistance;
+		this.verticalDistance = verticalDistance;
+	}
+	
+	/**
+	 * @return the aircraft that was already known when the conflict was found
+	 */
+	public Aircraft getFirst() {
+		return first;
+	}
+	
+	/**
+	 * @return the aircraft whose arrival or movement caused the conflict
+	 */
+	public Aircraft getSecond() {
+		return second;
+	}
+	
+	/**
+	 * @return the horizontal distance between the aircraft in kilometres
+	 */
+	public double getHorizontalDistance() {
+		return horizontalDistance;
+	}
+	
+	/**
+	 * @return the vertical distance between the aircraft in metres
+	 */
+	public int getVerticalDistance() {
+		return verticalDistance;
+	}
+	
+	@Override
+	public String toString() {
+		return "Conflict: " + first.getId() + " and " + second.getId() + " are " 
+				+ String.format("%.2f", horizontalDistance) + " km apart, " + verticalDistance + " metres vertically";
+	}
+	
+}
@@ -0,0 +1,74 @@
+package comp3506.assn1.application;
+
+
+/**
+ * Alert raised when an aircraft is placed in an airspace cell that another aircraft already 
+ * occupies. The cell is recorded when the alert is raised, as the aircraft may move on before
+ * the alert is delivered, and the alert describes the aircraft as it was then.
+ * 
+ * @author Howie L.
+ *
+ */
+public class ConflictAlert {
+	
+	private final Aircraft aircraft;
+	private final String id;
+	private final int xCoord;
+	private final int yCoord;
+	private final int altitude;	// In metres.
+	private final long time;		// Milliseconds since the epoch.
+	
+	/**
+	 * @param aircraft Aircraft that entered an occupied cell.
+	 */
+	public ConflictAlert(Aircraft aircraft) {
+		this.aircraft = aircraft;
+		this.id = aircraft.getId();
+		this.xCoord = aircraft.getAirSpaceXCoord();
+		this.yCoord = aircraft.getAirSpaceYCoord();
+		this.altitude = aircraft.getAltitude();
+		this.time = System.currentTimeMillis();
+	}
+	
+	/**
+	 * @return the aircraft that entered an occupied cell
+	 */
+	public Aircraft getAircraft() {
+		return aircraft;
+	}
+	
+	/**
+	 * @return the x coordinate of the occupied cell
+	 */
+	public int getXCoord() {
+		return xCoord;
+	}
+	
+	/**
+	 * @return the y coordinate of the occupied cell
+	 */
+	public int getYCoord() {
+		return yCoord;
+	}
+	
+	/**
+	 * @return the aircraft's altitude in metres when it entered the cell
+	 */
+	public int getAltitude() {
+		return altitude;
+	}
+	
+	/**
+	 * @return the time the alert was raised, in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+	
+	@Override
+	public String toString() {
+		return "Aircraft: " + id + " has entered the occupied cell (" + xCoord + ", " + yCoord + ") at " + altitude 
+				+ " metres in the air space!";
+	}
+	
+}
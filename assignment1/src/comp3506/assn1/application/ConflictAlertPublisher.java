@@ -0,0 +1,201 @@
+package comp3506.assn1.application;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.LockFreeQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Hands conflict alerts from the threads placing aircraft to a set of sinks, without making
+ * those threads wait for the sinks. Publishing appends the alert to a bounded LockFreeQueue;
+ * if the queue is full, the alert is dropped and counted instead. A dispatcher thread drains
+ * the queue in batches and delivers each batch to every sink in turn, so a slow sink delays 
+ * later alerts and eventually causes drops, but never delays placement. While the queue is empty
+ * the dispatcher is parked, and the first alert published after it parks wakes it up.
+ * 
+ * @author Howie L.
+ *
+ */
+public class ConflictAlertPublisher {
+	
+	public static final int DEFAULT_CAPACITY = 65536;
+	private static final int MAX_BATCH_SIZE = 1024;
+	
+	private final int capacity;
+	private final LockFreeQueue<ConflictAlert> buffer;
+	private final AlertSink[] sinks;
+	private final Thread dispatcher;
+	private volatile boolean closed = false;
+	private volatile boolean idle = false;		// Set while the dispatcher is parked or about to park
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private long delivered = 0;		// Written by the dispatcher only
+	private long failures = 0;		// Written by the dispatcher only
+	
+	/**
+	 * Create a publisher buffering up to DEFAULT_CAPACITY alerts, and start its dispatcher.
+	 * 
+	 * @param sinks Sinks every alert is delivered to.
+	 */
+	public ConflictAlertPublisher(AlertSink... sinks) {
+		this(DEFAULT_CAPACITY, sinks);
+	}
+	
+	/**
+	 * Create a publisher and start its dispatcher.
+	 * 
+	 * @param capacity Maximum number of alerts waiting for delivery.
+	 * @param sinks Sinks every alert is delivered to.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public ConflictAlertPublisher(int capacity, AlertSink... sinks) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.capacity = capacity;
+		this.buffer = new LockFreeQueue<ConflictAlert>(capacity);
+		this.sinks = sinks.clone();
+		this.dispatcher = new Thread(this::dispatch, "conflict-alerts");
+		this.dispatcher.setDaemon(true);
+		this.dispatcher.start();
+	}
+	
+	/**
+	 * Queue an alert for delivery. Never blocks; safe to call from many threads at once.
+	 * 
+	 * @param alert Alert to deliver.
+	 * @return true if the alert was queued, false if it was dropped because the buffer was full
+	 *         or the publisher has been closed.
+	 */
+	public boolean publish(ConflictAlert alert) {
+		if (closed || buffer.size() >= capacity) {
+			dropped.incrementAndGet();
+			return false;
+		}
+		try {
+			buffer.enqueue(alert);
+		} catch (IllegalStateException e) {		// Filled up by another thread since the check
+			dropped.incrementAndGet();
+			return false;
+		}
+		published.incrementAndGet();
+		if (idle) {		// Read after the enqueue, so a parking dispatcher either sees the alert or is woken
+			LockSupport.unpark(dispatcher);
+		}
+		return true;
+	}
+	
+	/**
+	 * Queue an alert for each aircraft of a batch that entered an occupied cell.
+	 * 
+	 * @param conflicts Aircraft that entered an occupied cell.
+	 * @return The number of alerts dropped.
+	 */
+	public int publish(IterableQueue<Aircraft> conflicts) {
+		int numDropped = 0;
+		for (Aircraft aircraft : conflicts) {
+			if (!publish(new ConflictAlert(aircraft))) {
+				numDropped++;
+			}
+		}
+		return numDropped;
+	}
+	
+	/**
+	 * @return The number of alerts queued for delivery.
+	 */
+	public long getPublished() {
+		return published.get();
+	}
+	
+	/**
+	 * @return The number of alerts dropped because the buffer was full or the publisher was closed.
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Stop accepting alerts, deliver those already queued, and close the sinks. Alerts published
+	 * while the publisher is closing may be counted as published but not delivered.
+	 * 
+	 * @throws InterruptedException If interrupted while waiting for the alerts to be delivered.
+	 */
+	public void close() throws InterruptedException {
+		closed = true;
+		LockSupport.unpark(dispatcher);
+		dispatcher.join();
+	}
+	
+	/**
+	 * Must only be called after close.
+	 * 
+	 * @return The number of times a sink failed to deliver a batch or to close.
+	 */
+	public long getSinkFailures() {
+		return failures;
+	}
+	
+	/**
+	 * Must only be called after close.
+	 * 
+	 * @return The number of alerts delivered to the sinks.
+	 */
+	public long getDelivered() {
+		return delivered;
+	}
+	
+	/**
+	 * Body of the dispatcher thread: deliver batches until closed and drained, parking until an
+	 * alert is published or the publisher is closed whenever the buffer is empty, then close the
+	 * sinks.
+	 */
+	private void dispatch() {
+		IterableQueue<ConflictAlert> batch = new RingBufferQueue<ConflictAlert>(MAX_BATCH_SIZE, MAX_BATCH_SIZE);
+		while (true) {
+			boolean finishing = closed;		// Read before finding the buffer empty
+			while (batch.size() < MAX_BATCH_SIZE && buffer.size() != 0) {
+				batch.enqueue(buffer.dequeue());
+			}
+			if (batch.size() == 0) {
+				if (finishing) {
+					break;
+				}
+				idle = true;		// Written before the buffer is checked again, the reverse of publish
+				if (buffer.size() == 0 && !closed) {
+					LockSupport.park(this);		// May also return spuriously, in which case the loop parks again
+				}
+				idle = false;
+				continue;
+			}
+			for (AlertSink sink : sinks) {
+				try {
+					sink.deliver(batch);
+				} catch (IOException | RuntimeException e) {
+					failures++;
+				}
+			}
+			delivered += batch.size();
+			while (batch.size() != 0) {
+				batch.dequeue();
+			}
+		}
+		for (AlertSink sink : sinks) {
+			try {
+				sink.close();
+			} catch (IOException | RuntimeException e) {
+				failures++;
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Conflict alerts: " + published.get() + " published, " + dropped.get() + " dropped";
+	}
+	
+}
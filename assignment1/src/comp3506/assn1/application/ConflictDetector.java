@@ -0,0 +1,181 @@
+package comp3506.assn1.application;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Finds aircraft closer to each other than the separation minima, wherever they are in their 
+ * airspace cells. Aircraft are kept in a spatial hash whose cells are as wide as the horizontal 
+ * minimum and as tall as the vertical minimum, so an aircraft can only be in conflict with the 
+ * aircraft in its own hash cell and the 26 neighbouring ones.
+ * 
+ * The detector can sweep a whole airspace at once, or be kept up to date one aircraft at a 
+ * time, reporting the conflicts each new aircraft causes. Aircraft must be removed from it 
+ * before they move, or the airspace swept again after they have moved. Aircraft with the same id 
+ * are updates of one aircraft, so they are never reported as in conflict with each other.
+ * 
+ * @author Richard T.
+ *
+ */
+public class ConflictDetector {
+	
+	public static final double DEFAULT_HORIZONTAL_SEPARATION = 9.26;	// kilometres, i.e. 5 nautical miles
+	public static final int DEFAULT_VERTICAL_SEPARATION = 305;		// metres, i.e. 1000 feet rounded up
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private AirSpace airSpace;
+	private double horizontalSeparation;	// In kilometres.
+	private int verticalSeparation;			// In metres.
+	private int maxXCell;
+	private int maxYCell;
+	private int maxZCell;
+	private Cube<Aircraft> spatialHash;
+	
+	/**
+	 * Create a detector using the default separation minima.
+	 * 
+	 * @param airSpace Air space whose aircraft are checked.
+	 */
+	public ConflictDetector(AirSpace airSpace) {
+		this(airSpace, DEFAULT_HORIZONTAL_SEPARATION, DEFAULT_VERTICAL_SEPARATION);
+	}
+	
+	/**
+	 * @param airSpace Air space whose aircraft are checked.
+	 * @param horizontalSeparation Smallest horizontal distance allowed between aircraft at similar altitudes, in kilometres.
+	 * @param verticalSeparation Smallest vertical distance allowed between aircraft horizontally too close, in metres.
+	 * @throws IllegalArgumentException If a separation minimum is not positive, or so small that the 
+	 *                                  spatial hash cannot cover the airspace.
+	 */
+	public ConflictDetector(AirSpace airSpace, double horizontalSeparation, int verticalSeparation) 
+			throws IllegalArgumentException {
+		if (!(horizontalSeparation > 0) || verticalSeparation <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.airSpace = airSpace;
+		this.horizontalSeparation = horizontalSeparation;
+		this.verticalSeparation = verticalSeparation;
+		// Aircraft positions lie below the far edge of the last airspace cell.
+		this.maxXCell = Math.max(1, (int) Math.floor((airSpace.getLength() + 1) / horizontalSeparation));
+		this.maxYCell = Math.max(1, (int) Math.floor((airSpace.getBreadth() + 1) / horizontalSeparation));
+		this.maxZCell = Math.max(1, (airSpace.getHeight() + 1) * METRES_PER_KILOMETRE / verticalSeparation);
+		this.spatialHash = new HashedCube<>(maxXCell, maxYCell, maxZCell);
+	}
+	
+	/**
+	 * Check every aircraft in the airspace against every other one, replacing the aircraft 
+	 * previously known to the detector with those in the airspace.
+	 * 
+	 * @return Queue of every conflict in the airspace, each reported once, which is empty if there are none.
+	 */
+	public IterableQueue<Conflict> sweep() {
+		spatialHash.clear();
+		IterableQueue<Conflict> conflicts = new RingBufferQueue<Conflict>();
+		for (int i = 0; i < airSpace.getNumAircraft(); i++) {
+			insert(airSpace.getTrackedAircraft(i), conflicts);
+		}
+		return conflicts;
+	}
+	
+	/**
+	 * Check a new aircraft against the aircraft known to the detector, and then add it to them.
+	 * 
+	 * @param aircraft Aircraft to be checked, which must not already be known to the detector.
+	 * @return Queue of the conflicts the aircraft causes, which is empty if there are none.
+	 */
+	public IterableQueue<Conflict> insert(Aircraft aircraft) {
+		IterableQueue<Conflict> conflicts = new RingBufferQueue<Conflict>();
+		insert(aircraft, conflicts);
+		return conflicts;
+	}
+	
+	/**
+	 * Stop checking an aircraft, e.g. because it has left the airspace or is about to move.
+	 * 
+	 * @param aircraft Aircraft known to the detector, which has not moved since it was inserted.
+	 * @return true if the aircraft was known to the detector, false otherwise.
+	 */
+	public boolean remove(Aircraft aircraft) {
+		if (!inside(aircraft)) {
+			return false;
+		}
+		return spatialHash.remove(xCellOf(aircraft), yCellOf(aircraft), zCellOf(aircraft), aircraft);
+	}
+	
+	/**
+	 * Forget every aircraft known to the detector.
+	 */
+	public void clear() {
+		spatialHash.clear();
+	}
+	
+	/**
+	 * Check an aircraft against the aircraft in its own and the neighbouring hash cells, and 
+	 * then add it to its hash cell. Aircraft outside the airspace are ignored.
+	 * 
+	 * @param aircraft Aircraft to be checked.
+	 * @param conflicts Queue the conflicts found are appended to.
+	 */
+	void insert(Aircraft aircraft, IterableQueue<Conflict> conflicts) {
+		if (!inside(aircraft)) {
+			return;
+		}
+		check(aircraft, conflicts);
+		spatialHash.add(xCellOf(aircraft), yCellOf(aircraft), zCellOf(aircraft), aircraft);
+	}
+	
+	/**
+	 * Check an aircraft against the aircraft in its own and the neighbouring hash cells, without 
+	 * adding it. Aircraft outside the airspace are ignored.
+	 * 
+	 * @param aircraft Aircraft to be checked.
+	 * @param conflicts Queue the conflicts found are appended to.
+	 */
+	void check(Aircraft aircraft, IterableQueue<Conflict> conflicts) {
+		if (!inside(aircraft)) {
+			return;
+		}
+		int x = xCellOf(aircraft);
+		int y = yCellOf(aircraft);
+		int z = zCellOf(aircraft);
+		IterableQueue<Aircraft> neighbours = spatialHash.getWithin(Math.max(0, x - 1), Math.max(0, y - 1), 
+				Math.max(0, z - 1), Math.min(maxXCell, x + 1), Math.min(maxYCell, y + 1), Math.min(maxZCell, z + 1));
+		if (neighbours != null) {
+			for (Aircraft other : neighbours) {
+				if (other.equals(aircraft)) {
+					continue;
+				}
+				int verticalDistance = Math.abs(aircraft.getAltitude() - other.getAltitude());
+				double horizontalDistance = Math.hypot(aircraft.getXPosition() - other.getXPosition(), 
+						aircraft.getYPosition() - other.getYPosition());
+				if (verticalDistance < verticalSeparation && horizontalDistance < horizontalSeparation) {
+					conflicts.enqueue(new Conflict(other, aircraft, horizontalDistance, verticalDistance));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the aircraft lies inside the area covered by the spatial hash.
+	 */
+	private boolean inside(Aircraft aircraft) {
+		return aircraft.getXPosition() >= 0 && aircraft.getYPosition() >= 0 && aircraft.getAltitude() >= 0 
+				&& xCellOf(aircraft) <= maxXCell && yCellOf(aircraft) <= maxYCell && zCellOf(aircraft) <= maxZCell;
+	}
+	
+	private int xCellOf(Aircraft aircraft) {
+		return (int) Math.floor(aircraft.getXPosition() / horizontalSeparation);
+	}
+	
+	private int yCellOf(Aircraft aircraft) {
+		return (int) Math.floor(aircraft.getYPosition() / horizontalSeparation);
+	}
+	
+	private int zCellOf(Aircraft aircraft) {
+		return aircraft.getAltitude() / verticalSeparation;
+	}
+	
+}
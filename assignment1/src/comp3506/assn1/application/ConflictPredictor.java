@@ -0,0 +1,239 @@
+package comp3506.assn1.application;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Predicts which aircraft will lose separation within a time horizon if they all keep their 
+ * speed and course. Each aircraft's path over the horizon is swept into a box, grown by half the 
+ * separation minima on every side, and the box is indexed in a spatial hash. Two aircraft can 
+ * only lose separation if their boxes overlap, and overlapping boxes share a hash cell, so only 
+ * aircraft sharing a cell are checked against each other, by solving for the time at which 
+ * their distance first drops below the horizontal minimum.
+ * 
+ * Swept boxes are cut off at the edges of the airspace, so a pair whose paths only come close 
+ * outside the airspace is not reported.
+ * 
+ * @author Richard T.
+ *
+ */
+public class ConflictPredictor {
+	
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private AirSpace airSpace;
+	private double horizon;					// In seconds.
+	private double horizontalSeparation;	// In kilometres.
+	private int verticalSeparation;			// In metres.
+	
+	// Swept box of each aircraft, indexed like the aircraft tracked by the airspace.
+	private double[] minX = new double[0];
+	private double[] maxX = new double[0];
+	private double[] minY = new double[0];
+	private double[] maxY = new double[0];
+	private double cellSize;				// Horizontal size of a hash cell in kilometres.
+	
+	/**
+	 * Create a predictor using the default separation minima of ConflictDetector.
+	 * 
+	 * @param airSpace Air space whose aircraft are checked.
+	 * @param horizon Time in seconds to look ahead.
+	 */
+	public ConflictPredictor(AirSpace airSpace, double horizon) {
+		this(airSpace, horizon, ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, 
+				ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+	}
+	
+	/**
+	 * @param airSpace Air space whose aircraft are checked.
+	 * @param horizon Time in seconds to look ahead.
+	 * @param horizontalSeparation Smallest horizontal distance allowed between aircraft at similar altitudes, in kilometres.
+	 * @param verticalSeparation Smallest vertical distance allowed between aircraft horizontally too close, in metres.
+	 * @throws IllegalArgumentException If the horizon is negative or a separation minimum is not positive.
+	 */
+	public ConflictPredictor(AirSpace airSpace, double horizon, double horizontalSeparation, int verticalSeparation) 
+			throws IllegalArgumentException {
+		if (!(horizon >= 0) || !(horizontalSeparation > 0) || verticalSeparation <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.airSpace = airSpace;
+		this.horizon = horizon;
+		this.horizontalSeparation = horizontalSeparation;
+		this.verticalSeparation = verticalSeparation;
+	}
+	
+	/**
+	 * Find every pair of aircraft in the airspace that will lose separation within the horizon.
+	 * 
+	 * @return Queue of the predicted conflicts, soonest first, which is empty if there are none.
+	 */
+	public IterableQueue<PredictedConflict> predict() {
+		int numAircraft = airSpace.getNumAircraft();
+		sweepPaths(numAircraft);
+		int maxXCell = cellOf(airSpace.getLength() + 1);
+		int maxYCell = cellOf(airSpace.getBreadth() + 1);
+		int maxZCell = (airSpace.getHeight() + 1) * METRES_PER_KILOMETRE / verticalSeparation + 1;
+		Cube<Aircraft> spatialHash = new HashedCube<>(Math.max(1, maxXCell), Math.max(1, maxYCell), maxZCell);
+		PredictedConflict[] conflicts = new PredictedConflict[16];
+		int numConflicts = 0;
+		
+		for (int i = 0; i < numAircraft; i++) {
+			if (maxX[i] < minX[i] || maxY[i] < minY[i]) {
+				continue;	// Path lies entirely outside the airspace
+			}
+			Aircraft aircraft = airSpace.getTrackedAircraft(i);
+			int lowZ = zCellOf(aircraft.getAltitude() - verticalSeparation / 2.0);
+			int highZ = zCellOf(aircraft.getAltitude() + verticalSeparation / 2.0);
+			for (int x = cellOf(minX[i]); x <= cellOf(maxX[i]); x++) {
+				for (int y = cellOf(minY[i]); y <= cellOf(maxY[i]); y++) {
+					for (int z = lowZ; z <= highZ; z++) {
+						IterableQueue<Aircraft> candidates = spatialHash.getAll(x, y, z);
+						if (candidates != null) {
+							for (Aircraft other : candidates) {
+								if (!firstSharedCell(i, airSpace.slotOf(other), x, y, z)) {
+									continue;	// The pair is checked in another cell
+								}
+								PredictedConflict conflict = check(other, aircraft);
+								if (conflict != null) {
+									if (numConflicts == conflicts.length) {
+										conflicts = Arrays.copyOf(conflicts, numConflicts * 2);
+									}
+									conflicts[numConflicts++] = conflict;
+								}
+							}
+						}
+						spatialHash.add(x, y, z, aircraft);
+					}
+				}
+			}
+		}
+		
+		Arrays.sort(conflicts, 0, numConflicts, new Comparator<PredictedConflict>() {
+			@Override
+			public int compare(PredictedConflict a, PredictedConflict b) {
+				return Double.compare(a.getTimeToConflict(), b.getTimeToConflict());
+			}
+		});
+		IterableQueue<PredictedConflict> soonestFirst = new RingBufferQueue<PredictedConflict>();
+		for (int i = 0; i < numConflicts; i++) {
+			soonestFirst.enqueue(conflicts[i]);
+		}
+		return soonestFirst;
+	}
+	
+	/**
+	 * Compute the box swept by each aircraft over the horizon, grown by half the horizontal 
+	 * minimum and cut off at the edges of the airspace, and choose the hash cell size so that a 
+	 * box of average length covers about two cells along its path.
+	 * 
+	 * @param numAircraft Number of aircraft tracked by the airspace.
+	 */
+	private void sweepPaths(int numAircraft) {
+		if (minX.length < numAircraft) {
+			minX = new double[numAircraft];
+			maxX = new double[numAircraft];
+			minY = new double[numAircraft];
+			maxY = new double[numAircraft];
+		}
+		double margin = horizontalSeparation / 2;
+		double totalPathLength = 0;
+		for (int i = 0; i < numAircraft; i++) {
+			Aircraft aircraft = airSpace.getTrackedAircraft(i);
+			double x0 = aircraft.getXPosition();
+			double y0 = aircraft.getYPosition();
+			double x1 = x0 + xVelocityOf(aircraft) * horizon;
+			double y1 = y0 + yVelocityOf(aircraft) * horizon;
+			minX[i] = Math.max(0, Math.min(x0, x1) - margin);
+			maxX[i] = Math.min(airSpace.getLength() + 1, Math.max(x0, x1) + margin);
+			minY[i] = Math.max(0, Math.min(y0, y1) - margin);
+			maxY[i] = Math.min(airSpace.getBreadth() + 1, Math.max(y0, y1) + margin);
+			totalPathLength += Math.hypot(x1 - x0, y1 - y0);
+		}
+		cellSize = horizontalSeparation + (numAircraft == 0 ? 0 : totalPathLength / numAircraft);
+	}
+	
+	/**
+	 * Check whether a hash cell is the one holding the lower corner of the overlap of two swept
+	 * boxes, which both boxes always cover, so that each pair is checked in exactly one cell.
+	 * 
+	 * @param i Index of one aircraft.
+	 * @param j Index of the other aircraft.
+	 * @return true if the pair is to be checked in hash cell (x, y, z).
+	 */
+	private boolean firstSharedCell(int i, int j, int x, int y, int z) {
+		Aircraft first = airSpace.getTrackedAircraft(i);
+		Aircraft second = airSpace.getTrackedAircraft(j);
+		double lowerAltitude = Math.max(first.getAltitude(), second.getAltitude()) - verticalSeparation / 2.0;
+		return cellOf(Math.max(minX[i], minX[j])) == x && cellOf(Math.max(minY[i], minY[j])) == y 
+				&& zCellOf(lowerAltitude) == z;
+	}
+	
+	/**
+	 * Find when two aircraft first come closer than the horizontal minimum within the horizon, by
+	 * solving |d + v*t| = horizontalSeparation for t, where d and v are their relative position
+	 * and velocity.
+	 * 
+	 * @param first Aircraft indexed earlier.
+	 * @param second Aircraft being indexed.
+	 * @return The predicted conflict, or null if the aircraft keep their separation within the horizon.
+	 */
+	private PredictedConflict check(Aircraft first, Aircraft second) {
+		int verticalDistance = Math.abs(first.getAltitude() - second.getAltitude());
+		if (verticalDistance >= verticalSeparation) {
+			return null;	// Courses are level, so vertical separation never changes
+		}
+		double dx = second.getXPosition() - first.getXPosition();
+		double dy = second.getYPosition() - first.getYPosition();
+		double vx = xVelocityOf(second) - xVelocityOf(first);
+		double vy = yVelocityOf(second) - yVelocityOf(first);
+		double a = vx * vx + vy * vy;
+		double b = 2 * (dx * vx + dy * vy);
+		double c = dx * dx + dy * dy - horizontalSeparation * horizontalSeparation;
+		double timeToConflict;
+		if (c < 0) {
+			timeToConflict = 0;		// Already too close
+		} else {
+			double discriminant = b * b - 4 * a * c;
+			if (a == 0 || discriminant <= 0) {
+				return null;
+			}
+			timeToConflict = (-b - Math.sqrt(discriminant)) / (2 * a);
+			if (timeToConflict < 0 || timeToConflict > horizon) {
+				return null;
+			}
+		}
+		double timeOfClosestApproach = a == 0 ? 0 : Math.min(horizon, Math.max(0, -b / (2 * a)));
+		double closestDistance = Math.hypot(dx + vx * timeOfClosestApproach, dy + vy * timeOfClosestApproach);
+		return new PredictedConflict(first, second, timeToConflict, timeOfClosestApproach, closestDistance, 
+				verticalDistance);
+	}
+	
+	/**
+	 * @return The aircraft's eastward velocity in kilometres per second.
+	 */
+	private static double xVelocityOf(Aircraft aircraft) {
+		return aircraft.getSpeed() * Math.sin(Math.toRadians(aircraft.getCourse())) / METRES_PER_KILOMETRE;
+	}
+	
+	/**
+	 * @return The aircraft's northward velocity in kilometres per second.
+	 */
+	private static double yVelocityOf(Aircraft aircraft) {
+		return aircraft.getSpeed() * Math.cos(Math.toRadians(aircraft.getCourse())) / METRES_PER_KILOMETRE;
+	}
+	
+	private int cellOf(double position) {
+		return (int) Math.floor(position / cellSize);
+	}
+	
+	private int zCellOf(double altitude) {
+		return (int) Math.floor(Math.max(0, altitude) / verticalSeparation);
+	}
+	
+}
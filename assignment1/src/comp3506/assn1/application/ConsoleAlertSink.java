@@ -0,0 +1,32 @@
+package comp3506.assn1.application;
+
+import comp3506.assn1.adts.IterableQueue;
+
+
+/**
+ * Outputs alerts to the console, writing each batch with a single call so that the console is
+ * locked once per batch rather than once per alert.
+ * 
+ * @author Howie L.
+ *
+ */
+public class ConsoleAlertSink implements AlertSink {
+	
+	private final StringBuilder text = new StringBuilder();
+	
+	@Override
+	public void deliver(IterableQueue<ConflictAlert> alerts) {
+		text.setLength(0);
+		for (ConflictAlert alert : alerts) {
+			text.append(alert).append(System.lineSeparator());
+		}
+		System.out.print(text);
+		System.out.flush();
+	}
+	
+	@Override
+	public void close() {
+		System.out.flush();
+	}
+	
+}
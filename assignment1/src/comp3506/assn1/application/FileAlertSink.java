@@ -0,0 +1,46 @@
+package comp3506.assn1.application;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import comp3506.assn1.adts.IterableQueue;
+
+
+/**
+ * Appends alerts to a text file, one line per alert, flushing once per batch.
+ * 
+ * @author Howie L.
+ *
+ */
+public class FileAlertSink implements AlertSink {
+	
+	private final BufferedWriter writer;
+	
+	/**
+	 * @param file File to append to, which is created if it does not exist.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	public FileAlertSink(Path file) throws IOException {
+		writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, 
+				StandardOpenOption.APPEND);
+	}
+	
+	@Override
+	public void deliver(IterableQueue<ConflictAlert> alerts) throws IOException {
+		for (ConflictAlert alert : alerts) {
+			writer.write(alert.getTime() + " " + alert);
+			writer.newLine();
+		}
+		writer.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+	
+}
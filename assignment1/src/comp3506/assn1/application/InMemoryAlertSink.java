@@ -0,0 +1,66 @@
+package comp3506.assn1.application;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+
+/**
+ * Keeps the most recent alerts in memory, e.g. for a display or a test to read. Once it holds
+ * its capacity, each new alert replaces the oldest one.
+ * 
+ * @author Howie L.
+ *
+ */
+public class InMemoryAlertSink implements AlertSink {
+	
+	private final int capacity;
+	private final RingBufferQueue<ConflictAlert> recent;	// Guarded by this
+	private long received = 0;							// Guarded by this
+	
+	/**
+	 * @param capacity Maximum number of alerts kept.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public InMemoryAlertSink(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.capacity = capacity;
+		this.recent = new RingBufferQueue<ConflictAlert>(Math.min(capacity, 1024), capacity);
+	}
+	
+	@Override
+	public synchronized void deliver(IterableQueue<ConflictAlert> alerts) {
+		for (ConflictAlert alert : alerts) {
+			if (recent.size() == capacity) {
+				recent.dequeue();
+			}
+			recent.enqueue(alert);
+			received++;
+		}
+	}
+	
+	@Override
+	public void close() {
+	}
+	
+	/**
+	 * @return A copy of the alerts kept, oldest first.
+	 */
+	public synchronized IterableQueue<ConflictAlert> getAlerts() {
+		IterableQueue<ConflictAlert> copy = new RingBufferQueue<ConflictAlert>(Math.max(1, recent.size()), 
+				Math.max(1, recent.size()));
+		for (ConflictAlert alert : recent) {
+			copy.enqueue(alert);
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return The number of alerts delivered to the sink, including those no longer kept.
+	 */
+	public synchronized long getNumReceived() {
+		return received;
+	}
+	
+}
@@ -0,0 +1,95 @@
+package comp3506.assn1.application;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Histogram of latencies in nanoseconds that many threads can record to at once without locking
+ * or allocating. Each power of two is split into 8 buckets, so a percentile read from it is at 
+ * most 12.5% above the true value.
+ * 
+ * @author Howie L.
+ *
+ */
+class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+	
+	/**
+	 * Record one latency.
+	 * 
+	 * @param nanos Latency in nanoseconds; negative values are recorded as zero.
+	 */
+	void record(long nanos) {
+		counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+	}
+	
+	/**
+	 * Copy the current counts, so that several percentiles can be read consistently.
+	 * 
+	 * @return Number of latencies recorded in each bucket.
+	 */
+	long[] copyCounts() {
+		long[] copy = new long[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+	
+	/**
+	 * @param counts Counts copied from a histogram.
+	 * @param fraction Fraction of latencies, from 0 to 1, at or below the percentile.
+	 * @return The upper bound of the bucket holding the percentile in nanoseconds, or 0 if nothing was recorded.
+	 */
+	static long percentile(long[] counts, double fraction) {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] != 0) {
+				return upperBoundOf(i);
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Values below 8 get a bucket each; larger values are bucketed by their highest set bit and 
+	 * the three bits after it.
+	 * 
+	 * @param nanos A non-negative latency.
+	 * @return The bucket of the latency.
+	 */
+	private static int bucketOf(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	/**
+	 * @param bucket A bucket of the histogram.
+	 * @return The largest latency recorded in the bucket.
+	 */
+	private static long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+	}
+	
+}
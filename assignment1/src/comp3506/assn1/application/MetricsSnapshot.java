@@ -0,0 +1,232 @@
+package comp3506.assn1.application;
+
+
+/**
+ * Instrumentation of an AirTrafficTracker at one point in time. Counts and latency percentiles 
+ * cover the whole life of the tracker, whereas rates are averaged over the interval since an 
+ * earlier snapshot chosen by the reader, or since the tracker was created.
+ * 
+ * @author Howie L.
+ *
+ */
+public class MetricsSnapshot {
+	
+	final long takenAt;				// System.nanoTime() when the snapshot was taken.
+	private double intervalSeconds;
+	private long identifiedAircraft;
+	private long placedAircraft;
+	private long latencyP50;		// Enqueue to placement, in nanoseconds.
+	private long latencyP90;
+	private long latencyP99;
+	private long latencyP999;
+	private long latencyMax;
+	private int queueDepth;
+	private int queueHighWaterMark;
+	private long conflicts;
+	private double conflictsPerSecond;
+	private long expiredAircraft;
+	private String[] radarSites;
+	final long[] radarSiteIdentified;		// Aircraft identified by each radar site, indexed like radarSites.
+	private double[] radarSiteIngestRates;	// Aircraft identified per second, indexed like radarSites.
+	private long blockedAircraft;			// Outcomes of a bounded tracker's overflow policy.
+	private long timedOutAircraft;
+	private long droppedNewestAircraft;
+	private long droppedOldestAircraft;
+	private long coalescedAircraft;
+	
+	MetricsSnapshot(long takenAt, double intervalSeconds, long identifiedAircraft, long placedAircraft, 
+			long[] latencyCounts, int queueDepth, int queueHighWaterMark, long conflicts, double conflictsPerSecond, 
+			long expiredAircraft, String[] radarSites, long[] radarSiteIdentified, double[] radarSiteIngestRates, 
+			long blockedAircraft, long timedOutAircraft, long droppedNewestAircraft, long droppedOldestAircraft, 
+			long coalescedAircraft) {
+		this.takenAt = takenAt;
+		this.intervalSeconds = intervalSeconds;
+		this.identifiedAircraft = identifiedAircraft;
+		this.placedAircraft = placedAircraft;
+		this.latencyP50 = LatencyHistogram.percentile(latencyCounts, 0.5);
+		this.latencyP90 = LatencyHistogram.percentile(latencyCounts, 0.9);
+		this.latencyP99 = LatencyHistogram.percentile(latencyCounts, 0.99);
+		this.latencyP999 = LatencyHistogram.percentile(latencyCounts, 0.999);
+		this.latencyMax = LatencyHistogram.percentile(latencyCounts, 1);
+		this.queueDepth = queueDepth;
+		this.queueHighWaterMark = queueHighWaterMark;
+		this.conflicts = conflicts;
+		this.conflictsPerSecond = conflictsPerSecond;
+		this.expiredAircraft = expiredAircraft;
+		this.radarSites = radarSites;
+		this.radarSiteIdentified = radarSiteIdentified;
+		this.radarSiteIngestRates = radarSiteIngestRates;
+		this.blockedAircraft = blockedAircraft;
+		this.timedOutAircraft = timedOutAircraft;
+		this.droppedNewestAircraft = droppedNewestAircraft;
+		this.droppedOldestAircraft = droppedOldestAircraft;
+		this.coalescedAircraft = coalescedAircraft;
+	}
+	
+	/**
+	 * @return the length of the interval rates are averaged over, in seconds
+	 */
+	public double getIntervalSeconds() {
+		return intervalSeconds;
+	}
+	
+	/**
+	 * @return the number of aircraft queued by the radar sites
+	 */
+	public long getIdentifiedAircraft() {
+		return identifiedAircraft;
+	}
+	
+	/**
+	 * @return the number of queued aircraft added to the airspace
+	 */
+	public long getPlacedAircraft() {
+		return placedAircraft;
+	}
+	
+	/**
+	 * @return the median time from queueing to placement, in nanoseconds
+	 */
+	public long getLatencyP50() {
+		return latencyP50;
+	}
+	
+	/**
+	 * @return the 90th percentile of the time from queueing to placement, in nanoseconds
+	 */
+	public long getLatencyP90() {
+		return latencyP90;
+	}
+	
+	/**
+	 * @return the 99th percentile of the time from queueing to placement, in nanoseconds
+	 */
+	public long getLatencyP99() {
+		return latencyP99;
+	}
+	
+	/**
+	 * @return the 99.9th percentile of the time from queueing to placement, in nanoseconds
+	 */
+	public long getLatencyP999() {
+		return latencyP999;
+	}
+	
+	/**
+	 * @return the longest time from queueing to placement, in nanoseconds
+	 */
+	public long getLatencyMax() {
+		return latencyMax;
+	}
+	
+	/**
+	 * @return the number of aircraft in the tracking queue
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+	
+	/**
+	 * @return the largest number of aircraft in the tracking queue since the high-water mark was last reset
+	 */
+	public int getQueueHighWaterMark() {
+		return queueHighWaterMark;
+	}
+	
+	/**
+	 * @return the number of aircraft that entered an occupied cell
+	 */
+	public long getConflicts() {
+		return conflicts;
+	}
+	
+	/**
+	 * @return the number of aircraft per second that entered an occupied cell
+	 */
+	public double getConflictsPerSecond() {
+		return conflictsPerSecond;
+	}
+	
+	/**
+	 * @return the number of aircraft removed from the airspace because their time to live ran out
+	 */
+	public long getExpiredAircraft() {
+		return expiredAircraft;
+	}
+	
+	/**
+	 * @return the id tags of the radar sites feeding the tracker
+	 */
+	public String[] getRadarSites() {
+		return radarSites.clone();
+	}
+	
+	/**
+	 * @return the number of aircraft identified by each radar site, indexed like getRadarSites
+	 */
+	public long[] getRadarSiteIdentifiedAircraft() {
+		return radarSiteIdentified.clone();
+	}
+	
+	/**
+	 * @return the number of aircraft per second identified by each radar site, indexed like getRadarSites
+	 */
+	public double[] getRadarSiteIngestRates() {
+		return radarSiteIngestRates.clone();
+	}
+	
+	/**
+	 * @return the number of aircraft queued after their radar site waited for room under the BLOCK policy
+	 */
+	public long getBlockedAircraft() {
+		return blockedAircraft;
+	}
+	
+	/**
+	 * @return the number of aircraft dropped after their radar site waited for room for too long
+	 */
+	public long getTimedOutAircraft() {
+		return timedOutAircraft;
+	}
+	
+	/**
+	 * @return the number of newly identified aircraft dropped because the queue was full
+	 */
+	public long getDroppedNewestAircraft() {
+		return droppedNewestAircraft;
+	}
+	
+	/**
+	 * @return the number of queued aircraft dropped to make room for newly identified ones
+	 */
+	public long getDroppedOldestAircraft() {
+		return droppedOldestAircraft;
+	}
+	
+	/**
+	 * @return the number of newly identified aircraft that replaced a queued update of the same aircraft
+	 */
+	public long getCoalescedAircraft() {
+		return coalescedAircraft;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Placed %d of %d aircraft, latency p50 %.1f us, p90 %.1f us, p99 %.1f us, "
+				+ "p99.9 %.1f us, max %.1f us%n", placedAircraft, identifiedAircraft, latencyP50 / 1e3, 
+				latencyP90 / 1e3, latencyP99 / 1e3, latencyP999 / 1e3, latencyMax / 1e3));
+		sb.append(String.format("Queue depth %d, high-water mark %d, %d conflicts (%.1f per second), %d expired", 
+				queueDepth, queueHighWaterMark, conflicts, conflictsPerSecond, expiredAircraft));
+		if (blockedAircraft + timedOutAircraft + droppedNewestAircraft + droppedOldestAircraft + coalescedAircraft != 0) {
+			sb.append(String.format("%nOverflow: %d blocked, %d timed out, %d newest dropped, %d oldest dropped, "
+					+ "%d coalesced", blockedAircraft, timedOutAircraft, droppedNewestAircraft, droppedOldestAircraft, 
+					coalescedAircraft));
+		}
+		for (int i = 0; i < radarSites.length; i++) {
+			sb.append(String.format("%n%s: %.0f aircraft per second", radarSites[i], radarSiteIngestRates[i]));
+		}
+		return sb.toString();
+	}
+	
+}
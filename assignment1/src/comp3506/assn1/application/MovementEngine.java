@@ -0,0 +1,159 @@
+package comp3506.assn1.application;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Advances the OneSky simulation clock, flying every aircraft placed in an airspace along its 
+ * course at its speed. The new positions are computed in parallel with fork/join, splitting the 
+ * aircraft into slices, and afterwards only the aircraft that crossed into a different cell are 
+ * re-indexed in the airspace model. Aircraft that fly out of the airspace are removed from it.
+ * If the model holds frozen copies of the aircraft, as a VersionedCube model does for its 
+ * snapshots, every aircraft that moved has its copy replaced, even within its cell.
+ * 
+ * A tick must not run at the same time as anything else changing the airspace, since the model
+ * is re-indexed by the thread calling tick.
+ * 
+ * @author Richard T.
+ *
+ */
+public class MovementEngine {
+	
+	private static final int SLICE_SIZE = 4096;		// Aircraft moved by one task without splitting further
+	
+	private AirSpace airSpace;
+	private ForkJoinPool pool;
+	
+	/**
+	 * @param airSpace Air space whose aircraft are moved, using the common fork/join pool.
+	 */
+	public MovementEngine(AirSpace airSpace) {
+		this(airSpace, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param airSpace Air space whose aircraft are moved.
+	 * @param pool Pool the aircraft are moved on.
+	 */
+	public MovementEngine(AirSpace airSpace, ForkJoinPool pool) {
+		this.airSpace = airSpace;
+		this.pool = pool;
+	}
+	
+	/**
+	 * Advance the simulation clock, moving every aircraft in the airspace.
+	 * 
+	 * @param seconds Length of the tick.
+	 * @return Number of aircraft that moved into a different cell, including those that left the airspace.
+	 */
+	public int tick(double seconds) {
+		Moves moves = pool.invoke(new MoveTask(airSpace, 0, airSpace.getNumAircraft(), seconds));
+		int numMoved = 0;
+		for (Moves slice = moves; slice != null; slice = slice.next) {
+			for (int i = 0; i < slice.numMoved; i++) {
+				Aircraft aircraft = slice.aircraft[i];
+				if (aircraft.getAirSpaceXCoord() != slice.oldXCoords[i] 
+						|| aircraft.getAirSpaceYCoord() != slice.oldYCoords[i]) {
+					numMoved++;
+				}
+				airSpace.moveAircraft(aircraft, slice.oldXCoords[i], slice.oldYCoords[i]);
+			}
+		}
+		return numMoved;
+	}
+	
+	/**
+	 * Aircraft of one slice that moved into a different cell, or moved at all if the model holds 
+	 * copies, with the cells they left, chained to the moves of the following slices.
+	 */
+	private static class Moves {
+		private Aircraft[] aircraft;
+		private int[] oldXCoords;
+		private int[] oldYCoords;
+		private int numMoved = 0;
+		private Moves next;
+		
+		private Moves(int capacity) {
+			aircraft = new Aircraft[capacity];
+			oldXCoords = new int[capacity];
+			oldYCoords = new int[capacity];
+		}
+	}
+	
+	/**
+	 * Moves a range of the aircraft placed in the airspace, splitting it in half until it is 
+	 * small enough to be moved by one task.
+	 */
+	private static class MoveTask extends RecursiveTask<Moves> {
+		private static final long serialVersionUID = 1L;
+		private final AirSpace airSpace;
+		private final boolean recordAll;	// Whether aircraft that stay in their cell are recorded too
+		private final int from;
+		private final int to;
+		private final double seconds;
+		
+		/**
+		 * @param airSpace Air space whose aircraft are moved.
+		 * @param from Index of the first aircraft to move.
+		 * @param to Index after the last aircraft to move.
+		 * @param seconds Length of the tick.
+		 */
+		private MoveTask(AirSpace airSpace, int from, int to, double seconds) {
+			this.airSpace = airSpace;
+			this.recordAll = airSpace.placesCopies();
+			this.from = from;
+			this.to = to;
+			this.seconds = seconds;
+		}
+		
+		/**
+		 * @return The moves of this range, or null if no aircraft needs re-indexing.
+		 */
+		@Override
+		protected Moves compute() {
+			if (to - from <= SLICE_SIZE) {
+				return moveSlice();
+			}
+			int middle = (from + to) >>> 1;
+			MoveTask upper = new MoveTask(airSpace, middle, to, seconds);
+			upper.fork();
+			Moves lower = new MoveTask(airSpace, from, middle, seconds).compute();
+			Moves higher = upper.join();
+			if (lower == null) {
+				return higher;
+			}
+			Moves last = lower;
+			while (last.next != null) {
+				last = last.next;
+			}
+			last.next = higher;
+			return lower;
+		}
+		
+		/**
+		 * Move every aircraft of this range, recording those that changed cell, or every aircraft 
+		 * with a speed if the model holds copies.
+		 * 
+		 * @return The moves of this range, or null if no aircraft needs re-indexing.
+		 */
+		private Moves moveSlice() {
+			Moves moves = null;
+			for (int i = from; i < to; i++) {
+				Aircraft aircraft = airSpace.getTrackedAircraft(i);
+				int oldXCoord = aircraft.getAirSpaceXCoord();
+				int oldYCoord = aircraft.getAirSpaceYCoord();
+				if (aircraft.move(seconds) || (recordAll && aircraft.getSpeed() != 0)) {
+					if (moves == null) {
+						moves = new Moves(to - from);
+					}
+					moves.aircraft[moves.numMoved] = aircraft;
+					moves.oldXCoords[moves.numMoved] = oldXCoord;
+					moves.oldYCoords[moves.numMoved++] = oldYCoord;
+				}
+			}
+			return moves;
+		}
+	}
+
+}
@@ -1,15 +1,35 @@
 package comp3506.assn1.application;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.Scanner;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.management.JMException;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+
 
 /**
  * Very simple simulation of air traffic management in the Australian airspace.
- * Does not attempt to be realistic and all events happen sequentially.
+ * Does not attempt to be realistic. In the automated and interactive modes all events happen
+ * sequentially, whereas the concurrent mode runs every radar site and tracker on its own thread.
  * 
  * @author Richard T.
  *
@@ -19,9 +39,20 @@ public class OneSky {
 	public static final int AUSTRALIA_WIDTH = 5321;
 	public static final int AUSTRALIA_LENGTH = 3428;
 	public static final int FLIGHT_CEILING = 35;
-	private AirSpace australia = new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
-	private AirTrafficTracker tracker = new AirTrafficTracker(australia);
+	private static final String[] RADAR_SITE_TAGS = {"BNE", "SYD", "MEL", "PER", "ADL", "CBR", "DRW", "HBA"};
+	private static final long QUEUE_SAMPLE_INTERVAL = 1;	// milliseconds
+	private static final long MIN_IDLE_WAIT = TimeUnit.MICROSECONDS.toNanos(10);
+	private static final long MAX_IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final double TICK_LENGTH = 1;			// seconds
+	private static final int PLACEMENT_BATCH_SIZE = 65536;
+	private static final double PREDICTION_HORIZON = 120;	// seconds
+	private static final long BLOCK_TIMEOUT = 10;			// milliseconds
+	private static final String RECORDING_SUFFIX = ".radar";
+	private static final String METRICS_NAME = "comp3506.assn1:type=AirTrafficTracker";
+	private AirSpace australia;
+	private AirTrafficTracker tracker;
 	private List<Radar> radarSites = new ArrayList<>();
+	private List<RadarRecorder> recorders = new ArrayList<>();
 	public final int NUM_ITERATIONS;
 	
 	/**
@@ -29,9 +60,70 @@ public class OneSky {
 	 * @param numIterations Number of iterations executed in automated simulation mode.
 	 */
 	public OneSky(int numIterations) {
+		this(numIterations, 2, new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING));
+	}
+	
+	/**
+	 * 
+	 * @param numIterations Number of iterations executed in automated simulation mode, or 
+	 *                      number of aircraft identified by each radar site in concurrent mode.
+	 * @param numRadarSites Number of radar sites feeding the tracker.
+	 * @param australia Model of the Australian airspace.
+	 */
+	public OneSky(int numIterations, int numRadarSites, AirSpace australia) {
+		this(numIterations, numRadarSites, australia, new AirTrafficTracker(australia));
+	}
+	
+	/**
+	 * 
+	 * @param numIterations Number of aircraft identified by each radar site in concurrent mode.
+	 * @param numRadarSites Number of radar sites feeding the tracker.
+	 * @param australia Model of the Australian airspace.
+	 * @param queueCapacity Maximum number of aircraft in the tracking queue.
+	 * @param policy What the tracker does with aircraft identified while the queue is full.
+	 */
+	public OneSky(int numIterations, int numRadarSites, AirSpace australia, int queueCapacity, OverflowPolicy policy) {
+		this(numIterations, numRadarSites, australia, 
+				new AirTrafficTracker(australia, queueCapacity, policy, BLOCK_TIMEOUT, TimeUnit.MILLISECONDS));
+	}
+	
+	private OneSky(int numIterations, int numRadarSites, AirSpace australia, AirTrafficTracker tracker) {
 		NUM_ITERATIONS = numIterations;
-		radarSites.add(new Radar(tracker, "BNE"));
-		radarSites.add(new Radar(tracker, "SYD"));
+		this.australia = australia;
+		this.tracker = tracker;
+		for (int i = 0; i < numRadarSites; i++) {
+			radarSites.add(new Radar(tracker, radarSiteTag(i)));
+		}
+	}
+	
+	/**
+	 * 
+	 * @param numIterations Number of aircraft identified by each radar site in concurrent mode.
+	 * @param numRadarSites Number of radar sites feeding the tracker.
+	 * @param australia Model of the Australian airspace.
+	 * @param recordingDirectory Directory each radar site records the aircraft it identifies to, 
+	 *                           in a file named after its id tag, until closeRecorders is called.
+	 * @throws IOException If a recording cannot be created.
+	 */
+	public OneSky(int numIterations, int numRadarSites, AirSpace australia, Path recordingDirectory) 
+			throws IOException {
+		NUM_ITERATIONS = numIterations;
+		this.australia = australia;
+		this.tracker = new AirTrafficTracker(australia);
+		for (int i = 0; i < numRadarSites; i++) {
+			String tag = radarSiteTag(i);
+			RadarRecorder recorder = new RadarRecorder(recordingDirectory.resolve(tag + RECORDING_SUFFIX));
+			recorders.add(recorder);
+			radarSites.add(new Radar(tracker, tag, recorder));
+		}
+	}
+	
+	/**
+	 * @param i Number of a radar site.
+	 * @return The id tag of the radar site.
+	 */
+	private static String radarSiteTag(int i) {
+		return i < RADAR_SITE_TAGS.length ? RADAR_SITE_TAGS[i] : "R" + i + "-";
 	}
 	
 	/**
@@ -50,6 +142,27 @@ public class OneSky {
 		tracker.processRadarQueue();
 	}
 	
+	/**
+	 * Process up to batchSize aircraft that have been identified but not added to airspace model,
+	 * outputting a warning for each aircraft that entered an occupied cell unless the tracker 
+	 * publishes alerts for them.
+	 * 
+	 * @param batchSize Maximum number of aircraft to process.
+	 * @return true if any aircraft were processed, false if the tracking queue was empty.
+	 */
+	private boolean processAircraft(int batchSize) {
+		if (batchSize == 1) {
+			return tracker.processRadarQueue();
+		}
+		RadarBatch batch = tracker.processRadarQueue(batchSize);
+		if (tracker.getAlertPublisher() == null) {
+			for (Aircraft aircraft : batch.getConflicts()) {
+				System.out.println(aircraft + " has entered an occupied cell in the air space!");
+			}
+		}
+		return batch.getNumPlaced() != 0;
+	}
+	
 	/**
 	 * Simple coin flip.
 	 * @return true or false based on a 50:50 random chance.
@@ -71,6 +184,340 @@ public class OneSky {
 		}		
 	}
 	
+	/**
+	 * Start the concurrent simulation process. Every radar site identifies NUM_ITERATIONS aircraft
+	 * on its own thread (a virtual thread where the Java runtime provides them), while the given
+	 * number of consumer threads process the tracking queue. The consumer threads take turns to
+	 * place aircraft, so more than one does not place them any faster. While the tracking queue is
+	 * empty they park for longer and longer, rather than compete with the radar threads whose ingest
+	 * rate is measured. Once all aircraft have been added to the airspace, the ingest rate, the 
+	 * distribution of the queue depth and the tracker's metrics are reported. The metrics are also exported over JMX while the simulation runs.
+	 * 
+	 * @param numConsumers Number of threads processing the tracking queue.
+	 * @param batchSize Maximum number of aircraft a consumer takes from the queue at once; with 1,
+	 *                  aircraft are processed one at a time and conflicts are output as they occur.
+	 * @throws InterruptedException If interrupted while waiting for the simulation to finish.
+	 */
+	public void concurrent(int numConsumers, int batchSize) throws InterruptedException {
+		List<Runnable> feeds = new ArrayList<>();
+		for (final Radar radar : radarSites) {
+			feeds.add(() -> {
+				for (int i = 0; i < NUM_ITERATIONS; i++) {
+					radar.aircraftIdentified();
+				}
+			});
+		}
+		ingest(feeds, (long) NUM_ITERATIONS * radarSites.size(), numConsumers, batchSize);
+	}
+	
+	/**
+	 * Start the replay simulation process, which is the concurrent simulation process fed by
+	 * recorded radar sites instead of random ones. Replaying the same recordings lets the 
+	 * sustained ingest rate be compared between runs.
+	 * 
+	 * @param recordings Recorded radar sites, each replayed on its own thread until it ends.
+	 * @param numConsumers Number of threads processing the tracking queue.
+	 * @param batchSize Maximum number of aircraft a consumer takes from the queue at once.
+	 * @throws InterruptedException If interrupted while waiting for the simulation to finish.
+	 */
+	public void replay(List<RecordedRadar> recordings, int numConsumers, int batchSize) throws InterruptedException {
+		List<Runnable> feeds = new ArrayList<>();
+		long totalAircraft = 0;
+		for (final RecordedRadar recording : recordings) {
+			totalAircraft += recording.remaining();
+			feeds.add(() -> {
+				try {
+					while (recording.aircraftIdentified()) {
+						// Replay every recorded aircraft.
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		ingest(feeds, totalAircraft, numConsumers, batchSize);
+	}
+	
+	/**
+	 * Run every radar feed on its own thread while consumer threads process the tracking queue, 
+	 * then report the ingest rate, the distribution of the queue depth, the tracker's metrics and
+	 * the number of conflict alerts dropped. Alerts are written to the console by a separate thread.
+	 * 
+	 * @param feeds Radar feeds, each identifying its aircraft on one thread.
+	 * @param totalAircraft Number of aircraft the feeds identify between them.
+	 * @param numConsumers Number of threads processing the tracking queue.
+	 * @param batchSize Maximum number of aircraft a consumer takes from the queue at once.
+	 * @throws InterruptedException If interrupted while waiting for the simulation to finish.
+	 */
+	private void ingest(List<Runnable> feeds, long totalAircraft, int numConsumers, final int batchSize) 
+			throws InterruptedException {
+		final AtomicBoolean radarsFinished = new AtomicBoolean();
+		List<Thread> consumers = new ArrayList<>();
+		QueueDepthSampler sampler = new QueueDepthSampler(tracker);
+		ExecutorService radarExecutor = newRadarExecutor(feeds.size());
+		ConflictAlertPublisher alerts = new ConflictAlertPublisher(new ConsoleAlertSink());
+		tracker.setAlertPublisher(alerts);
+		try {
+			tracker.getMetrics().register(METRICS_NAME);
+		} catch (JMException e) {
+			System.out.println("Tracker metrics are not exported over JMX: " + e);
+		}
+		
+		long start = System.nanoTime();
+		sampler.start();
+		for (int i = 0; i < numConsumers; i++) {
+			Thread consumer = new Thread(() -> {
+				long idleWait = MIN_IDLE_WAIT;
+				while (true) {
+					boolean finished = radarsFinished.get();	// Read before finding the queue empty
+					if (processAircraft(batchSize)) {
+						idleWait = MIN_IDLE_WAIT;
+					} else if (finished) {
+						return;
+					} else {
+						LockSupport.parkNanos(idleWait);		// Back off until the radar sites queue more aircraft
+						idleWait = Math.min(idleWait * 2, MAX_IDLE_WAIT);
+					}
+				}
+			}, "tracker-" + i);
+			consumers.add(consumer);
+			consumer.start();
+		}
+		for (Runnable feed : feeds) {
+			radarExecutor.execute(feed);
+		}
+		radarExecutor.shutdown();
+		radarExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		long ingested = System.nanoTime();
+		radarsFinished.set(true);
+		for (Thread consumer : consumers) {
+			consumer.join();
+		}
+		long placed = System.nanoTime();
+		sampler.interrupt();
+		sampler.join();
+		tracker.setAlertPublisher(null);
+		alerts.close();
+		
+		System.out.println(feeds.size() + " radar sites, " + numConsumers + " tracker threads, " 
+				+ totalAircraft + " aircraft, batches of up to " + batchSize);
+		System.out.printf("Identified: %.0f aircraft per second%n", totalAircraft / ((ingested - start) / 1e9));
+		System.out.printf("Placed: %.0f aircraft per second%n", totalAircraft / ((placed - start) / 1e9));
+		System.out.println("Queue depth: " + sampler.summary());
+		System.out.println(tracker.getMetrics().snapshot());
+		System.out.println(alerts);
+	}
+	
+	/**
+	 * Close the recorders of the radar sites, so that their recordings can be replayed.
+	 * 
+	 * @throws IOException If a recording cannot be written.
+	 */
+	public void closeRecorders() throws IOException {
+		for (RadarRecorder recorder : recorders) {
+			System.out.println("Recorded " + recorder.getNumRecords() + " aircraft");
+			recorder.close();
+		}
+	}
+	
+	/**
+	 * Start the movement simulation process. Every radar site identifies NUM_ITERATIONS aircraft,
+	 * which are all placed in the airspace, and then the simulation clock is advanced one second 
+	 * at a time, flying the aircraft along their courses. The rate of aircraft moved is reported,
+	 * followed by the number of losses of separation left at the end and predicted within the
+	 * following two minutes. The losses of separation are found by sweeping a columnar copy of the
+	 * aircraft, an AircraftTable, which takes one pass over primitive arrays rather than a cube 
+	 * lookup per aircraft.
+	 * 
+	 * @param numTicks Number of times the simulation clock is advanced.
+	 */
+	public void moving(int numTicks) {
+		for (int i = 0; i < NUM_ITERATIONS; i++) {
+			newAircraft();
+		}
+		while (processAircraft(PLACEMENT_BATCH_SIZE)) {
+			// Place every identified aircraft before the clock starts.
+		}
+		MovementEngine engine = new MovementEngine(australia);
+		long totalMoved = 0;
+		long totalCellChanges = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < numTicks; i++) {
+			totalMoved += australia.getNumAircraft();
+			totalCellChanges += engine.tick(TICK_LENGTH);
+		}
+		long finish = System.nanoTime();
+		
+		System.out.println(numTicks + " ticks of " + TICK_LENGTH + " seconds, " 
+				+ australia.getNumAircraft() + " aircraft left in the airspace");
+		System.out.printf("Moved: %.0f aircraft per second%n", totalMoved / ((finish - start) / 1e9));
+		System.out.printf("Re-indexed: %.1f%% of aircraft moved%n", 100.0 * totalCellChanges / Math.max(1, totalMoved));
+		
+		long sweepStart = System.nanoTime();
+		IterableQueue<Conflict> conflicts = AircraftTable.of(australia).findConflicts(
+				ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+		System.out.printf("Separation conflicts: %d, found in %.0f ms%n", conflicts.size(), 
+				(System.nanoTime() - sweepStart) / 1e6);
+		long predictionStart = System.nanoTime();
+		IterableQueue<PredictedConflict> predicted = new ConflictPredictor(australia, PREDICTION_HORIZON).predict();
+		System.out.printf("Conflicts predicted within %.0f seconds: %d, found in %.0f ms%n", PREDICTION_HORIZON, 
+				predicted.size(), (System.nanoTime() - predictionStart) / 1e6);
+	}
+	
+	/**
+	 * Start the sharded simulation process. Every radar site identifies NUM_ITERATIONS aircraft, 
+	 * which are then placed in the tiles of a ShardedAirSpace in batches, and the whole airspace 
+	 * is swept for losses of separation. The rates of both are reported, so that runs with 
+	 * different numbers of threads can be compared.
+	 * 
+	 * @param sharded The airspace this simulation was created with.
+	 */
+	public void sharded(ShardedAirSpace sharded) {
+		for (int i = 0; i < NUM_ITERATIONS; i++) {
+			newAircraft();
+		}
+		long totalAircraft = tracker.getRadarQueueSize();
+		long start = System.nanoTime();
+		while (processAircraft(PLACEMENT_BATCH_SIZE)) {
+			// Place every identified aircraft.
+		}
+		long placed = System.nanoTime();
+		IterableQueue<Conflict> conflicts = sharded.findConflicts();
+		long swept = System.nanoTime();
+		
+		System.out.println(totalAircraft + " aircraft in " + sharded.numTiles() + " tiles of " 
+				+ ShardedAirSpace.DEFAULT_TILE_SIZE + " km");
+		System.out.printf("Placed: %.0f aircraft per second%n", totalAircraft / ((placed - start) / 1e9));
+		System.out.printf("Swept: %.0f aircraft per second, %d separation conflicts%n", 
+				totalAircraft / ((swept - placed) / 1e9), conflicts.size());
+	}
+	
+	/**
+	 * Start the checkpoint simulation process. Every radar site identifies NUM_ITERATIONS aircraft,
+	 * which are placed in the airspace, and a checkpoint of the airspace is written in the 
+	 * background while the radar sites identify and place as many aircraft again. The checkpoint
+	 * is then loaded into a new airspace, as a restarted tracker would, and the times taken to 
+	 * write and load it are reported.
+	 * 
+	 * @param file File to write the checkpoint to.
+	 * @throws IOException If the checkpoint cannot be written or loaded.
+	 * @throws InterruptedException If interrupted while waiting for the checkpoint to be written.
+	 */
+	public void checkpoint(Path file) throws IOException, InterruptedException {
+		for (int i = 0; i < NUM_ITERATIONS; i++) {
+			newAircraft();
+		}
+		while (processAircraft(PLACEMENT_BATCH_SIZE)) {
+			// Place every identified aircraft before the checkpoint.
+		}
+		int numCheckpointed = australia.getNumAircraft();
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		long start = System.nanoTime();
+		Future<Path> written = tracker.checkpoint(file, writer);
+		long started = System.nanoTime();
+		for (int i = 0; i < NUM_ITERATIONS; i++) {
+			newAircraft();
+			processAircraft(PLACEMENT_BATCH_SIZE);
+		}
+		try {
+			written.get();
+		} catch (ExecutionException e) {
+			throw new IOException("Checkpoint failed", e.getCause());
+		} finally {
+			writer.shutdown();
+		}
+		long finish = System.nanoTime();
+		AirSpace restarted = AirSpaceCheckpoint.load(file);
+		long loaded = System.nanoTime();
+		
+		System.out.printf("Checkpointed %d aircraft to %s (%d bytes), placement paused for %.1f ms%n", 
+				numCheckpointed, file, Files.size(file), (started - start) / 1e6);
+		System.out.printf("Written in %.0f ms while %d more aircraft were placed%n", (finish - start) / 1e6, 
+				australia.getNumAircraft() - numCheckpointed);
+		System.out.printf("Loaded %d aircraft in %.0f ms%n", restarted.getNumAircraft(), (loaded - finish) / 1e6);
+	}
+	
+	/**
+	 * Create the executor running the radar sites, with one virtual thread per site if the Java
+	 * runtime supports them (looked up reflectively so that older runtimes still compile and run
+	 * this class), or one platform thread per site otherwise.
+	 * 
+	 * @param numRadarSites Number of radar sites to run.
+	 * @return Executor with a thread available for every radar site.
+	 */
+	private static ExecutorService newRadarExecutor(int numRadarSites) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newFixedThreadPool(numRadarSites);
+		}
+	}
+	
+	/**
+	 * Background thread that periodically records the depth of the tracking queue.
+	 */
+	private static class QueueDepthSampler extends Thread {
+		private final AirTrafficTracker tracker;
+		private int[] samples = new int[1024];
+		private int numSamples = 0;
+		
+		QueueDepthSampler(AirTrafficTracker tracker) {
+			super("queue-depth-sampler");
+			this.tracker = tracker;
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			while (!isInterrupted()) {
+				if (numSamples == samples.length) {
+					samples = Arrays.copyOf(samples, numSamples * 2);
+				}
+				samples[numSamples++] = tracker.getRadarQueueSize();
+				try {
+					Thread.sleep(QUEUE_SAMPLE_INTERVAL);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+		
+		/**
+		 * Must only be called after the sampler has finished.
+		 * 
+		 * @return Percentiles of the sampled queue depths.
+		 */
+		String summary() {
+			if (numSamples == 0) {
+				return "no samples";
+			}
+			int[] sorted = Arrays.copyOf(samples, numSamples);
+			Arrays.sort(sorted);
+			return String.format("%d samples, min %d, p50 %d, p90 %d, p99 %d, max %d", numSamples, sorted[0], 
+					percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), sorted[numSamples - 1]);
+		}
+		
+		private static int percentile(int[] sorted, double fraction) {
+			return sorted[(int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length))];
+		}
+	}
+	
+	/**
+	 * Output every aircraft found by a search.
+	 * 
+	 * @param found Aircraft found, or null if there are none.
+	 * @param where Where the aircraft were found.
+	 */
+	private static void report(IterableQueue<Aircraft> found, String where) {
+		if (found == null) {
+			System.out.println("No aircraft were found " + where + ".");
+			return;
+		}
+		for (Aircraft aircraft : found) {
+			System.out.println(aircraft + " was found " + where + ".");
+		}
+	}
+	
 	/**
 	 * Prompt a user at the console with a yes/no question and return the result.
 	 * 
@@ -100,16 +547,25 @@ public class OneSky {
 				processAircraft();
 			}
 			
-			if (prompt(input, "Do you want to search for an aircraft in the tracking queue (Y/N)?")) {
-				System.out.println("Enter the aircraft id:");
+			if (prompt(input, "Do you want to search for an aircraft (Y/N)?")) {
+				System.out.println("Enter the aircraft id, or the start of the id followed by * (e.g. BNE*):");
 				String id = input.nextLine();
 				
-				Iterator<Aircraft> it = tracker.radarQueueIterator();
-				while (it.hasNext()) {
-					Aircraft aircraft = it.next();
-					System.out.println(aircraft);
-					if (aircraft.getId().equalsIgnoreCase(id)) {
-						System.out.println(aircraft + " was found in the tracking queue waiting to be processed.");
+				if (id.endsWith("*")) {
+					String prefix = id.substring(0, id.length() - 1);
+					report(tracker.findQueuedAircraftWithPrefix(prefix), "in the tracking queue waiting to be processed");
+					report(tracker.findPlacedAircraftWithPrefix(prefix), "in the airspace");
+				} else {
+					Aircraft queued = tracker.findQueuedAircraft(id);
+					Aircraft placed = tracker.findPlacedAircraft(id);
+					if (queued != null) {
+						System.out.println(queued + " was found in the tracking queue waiting to be processed.");
+					}
+					if (placed != null) {
+						System.out.println(placed + " was found in the airspace.");
+					}
+					if (queued == null && placed == null) {
+						System.out.println("No aircraft with id " + id + " was found.");
 					}
 				}
 			}
@@ -120,12 +576,62 @@ public class OneSky {
 	}
 
 	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException, IOException {
 		if (args.length > 0 && args[0].equalsIgnoreCase("auto")) {		// Start automated simulation mode.
 			OneSky simulation = new OneSky(Integer.parseInt(args[1]));
 			simulation.automated();
+		} else if ((args.length == 4 || args.length == 5 || args.length == 7) 
+				&& args[0].equalsIgnoreCase("concurrent")) {				// Start concurrent simulation mode.
+			Cube<Aircraft> map = new HashedCube<>(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
+			AirSpace australia = new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, map);
+			OneSky simulation = args.length == 7 
+					? new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), australia, 
+							Integer.parseInt(args[5]), OverflowPolicy.valueOf(args[6].toUpperCase()))
+					: new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), australia);
+			simulation.concurrent(Integer.parseInt(args[3]), args.length == 5 ? Integer.parseInt(args[4]) : 1);
+		} else if (args.length == 4 && args[0].equalsIgnoreCase("move")) {	// Start movement simulation mode.
+			Cube<Aircraft> map = new HashedCube<>(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
+			OneSky simulation = new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), 
+					new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, map));
+			simulation.moving(Integer.parseInt(args[3]));
+		} else if (args.length == 4 && args[0].equalsIgnoreCase("sharded")) {	// Start sharded simulation mode.
+			ShardedAirSpace australia = new ShardedAirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, 
+					ShardedAirSpace.DEFAULT_TILE_SIZE, new ForkJoinPool(Integer.parseInt(args[3])));
+			OneSky simulation = new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), australia);
+			simulation.sharded(australia);
+		} else if (args.length == 4 && args[0].equalsIgnoreCase("checkpoint")) {	// Start checkpoint simulation mode.
+			Cube<Aircraft> map = new HashedCube<>(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
+			OneSky simulation = new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), 
+					new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, map));
+			simulation.checkpoint(Paths.get(args[3]));
+		} else if (args.length == 4 && args[0].equalsIgnoreCase("record")) {	// Start recording simulation mode.
+			Cube<Aircraft> map = new HashedCube<>(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
+			OneSky simulation = new OneSky(Integer.parseInt(args[1]), Integer.parseInt(args[2]), 
+					new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, map), Paths.get(args[3]));
+			simulation.concurrent(1, PLACEMENT_BATCH_SIZE);
+			simulation.closeRecorders();
+		} else if (args.length >= 4 && args[0].equalsIgnoreCase("replay")) {	// Start replay simulation mode.
+			Cube<Aircraft> map = new HashedCube<>(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING);
+			OneSky simulation = new OneSky(0, 0, new AirSpace(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING, map));
+			List<RecordedRadar> recordings = new ArrayList<>();
+			for (int i = 3; i < args.length; i++) {
+				Path file = Paths.get(args[i]);
+				String tag = file.getFileName().toString();
+				if (tag.endsWith(RECORDING_SUFFIX)) {
+					tag = tag.substring(0, tag.length() - RECORDING_SUFFIX.length());
+				}
+				recordings.add(new RecordedRadar(simulation.tracker, tag, file));
+			}
+			simulation.replay(recordings, Integer.parseInt(args[1]), Integer.parseInt(args[2]));
 		} else if (args.length > 0) {									// Output program usage pattern.
-			System.out.println("Usage: java OneSky auto numberOfIterations or java OneSky");
+			System.out.println("Usage: java OneSky auto numberOfIterations or java OneSky or java OneSky "
+					+ "concurrent aircraftPerRadarSite numberOfRadarSites numberOfTrackers [batchSize [queueCapacity "
+					+ "block|drop_newest|drop_oldest|coalesce]] or "
+					+ "java OneSky move aircraftPerRadarSite numberOfRadarSites numberOfTicks or "
+					+ "java OneSky sharded aircraftPerRadarSite numberOfRadarSites numberOfThreads or "
+					+ "java OneSky checkpoint aircraftPerRadarSite numberOfRadarSites checkpointFile or "
+					+ "java OneSky record aircraftPerRadarSite numberOfRadarSites recordingDirectory or "
+					+ "java OneSky replay numberOfTrackers batchSize recordingFile...");
 		} else {														// Start interactive simulation mode.
 			OneSky simulation = new OneSky(0);
 			simulation.interactive();
@@ -0,0 +1,37 @@
+package comp3506.assn1.application;
+
+
+/**
+ * What a bounded AirTrafficTracker does with an aircraft identified while its tracking queue is
+ * full. Each outcome is counted in the tracker's metrics.
+ * 
+ * @author Howie L.
+ *
+ */
+public enum OverflowPolicy {
+	
+	/**
+	 * The radar site waits for room in the queue, up to the tracker's timeout, after which the
+	 * aircraft is dropped.
+	 */
+	BLOCK,
+	
+	/**
+	 * The newly identified aircraft is dropped.
+	 */
+	DROP_NEWEST,
+	
+	/**
+	 * The aircraft at the head of the queue is dropped to make room for the new one. If the radar
+	 * site is interrupted while every place is about to be filled, the new aircraft is dropped.
+	 */
+	DROP_OLDEST,
+	
+	/**
+	 * An aircraft whose id is already queued replaces the queued update in place, whether or not
+	 * the queue is full, so it never takes a second place in the queue. An aircraft with a new id
+	 * is dropped if the queue is full.
+	 */
+	COALESCE
+	
+}
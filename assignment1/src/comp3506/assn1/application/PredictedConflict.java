@@ -0,0 +1,54 @@
+package comp3506.assn1.application;
+
+
+/**
+ * A loss of separation between two aircraft that will happen if both keep their speed and 
+ * course, found by a ConflictPredictor.
+ * 
+ * @author Richard T.
+ *
+ */
+public class PredictedConflict extends Conflict {
+	
+	private double timeToConflict;			// In seconds from now.
+	private double timeOfClosestApproach;	// In seconds from now, within the prediction horizon.
+	
+	/**
+	 * @param first Aircraft indexed by the predictor before the second one.
+	 * @param second Aircraft whose check found the conflict.
+	 * @param timeToConflict Time in seconds until the aircraft are closer than the separation minima.
+	 * @param timeOfClosestApproach Time in seconds until the aircraft are closest within the prediction horizon.
+	 * @param closestDistance Horizontal distance between the aircraft at their closest, in kilometres.
+	 * @param verticalDistance Vertical distance between the aircraft in metres.
+	 */
+	public PredictedConflict(Aircraft first, Aircraft second, double timeToConflict, double timeOfClosestApproach, 
+			double closestDistance, int verticalDistance) {
+		super(first, second, closestDistance, verticalDistance);
+		this.timeToConflict = timeToConflict;
+		this.timeOfClosestApproach = timeOfClosestApproach;
+	}
+	
+	/**
+	 * @return the time in seconds until the aircraft are closer than the separation minima, 0 if they already are
+	 */
+	public double getTimeToConflict() {
+		return timeToConflict;
+	}
+	
+	/**
+	 * @return the time in seconds until the aircraft are closest within the prediction horizon
+	 */
+	public double getTimeOfClosestApproach() {
+		return timeOfClosestApproach;
+	}
+	
+	/**
+	 * The horizontal distance of a predicted conflict is the distance at the closest approach.
+	 */
+	@Override
+	public String toString() {
+		return super.toString() + " at their closest in " + String.format("%.0f", timeOfClosestApproach) 
+				+ " seconds, losing separation in " + String.format("%.0f", timeToConflict) + " seconds";
+	}
+	
+}
@@ -1,5 +1,7 @@
 package comp3506.assn1.application;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.concurrent.ThreadLocalRandom;
 
 
@@ -12,19 +14,34 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Radar {
 	
 	private AirTrafficTracker tracker;
+	private int radarSite;		// Number the tracker reports this site's ingest rate under.
+	private RadarRecorder recorder;
 	
 	// aircraftIdTag and id are used to generate unique identifiers for each aircraft.
 	private String aircraftIdTag;
 	private int id;
 
 	public Radar(AirTrafficTracker tracker, String aircraftIdTag) {
+		this(tracker, aircraftIdTag, null);
+	}
+	
+	/**
+	 * @param tracker Tracker the generated aircraft are fed to.
+	 * @param aircraftIdTag Prefix of the generated aircraft ids.
+	 * @param recorder Recorder capturing every generated aircraft for RecordedRadar to replay, or null.
+	 */
+	public Radar(AirTrafficTracker tracker, String aircraftIdTag, RadarRecorder recorder) {
 		this.tracker = tracker;
+		this.recorder = recorder;
 		this.aircraftIdTag = aircraftIdTag;
+		this.radarSite = tracker.registerRadarSite(aircraftIdTag);
 		id = 10;
 	}
 	
 	/**
 	 * For the purposes of the OneSky simulation, this generates a new aircraft object to add to the air space.
+	 * Different radar sites may call this on different threads, but each site must only be driven by one thread.
+	 * @throws UncheckedIOException If the aircraft cannot be recorded.
 	 */
 	public void aircraftIdentified() {
 		final int MIN_AIRSPEED = 220;		// metres per second
@@ -33,12 +50,20 @@ public class Radar {
 		final double HEADING_RANGE = 360;	// degrees
 		final int METRES_PER_KILOMETRE = 1000;
 		
-		tracker.newAircraft(new Aircraft(aircraftIdTag+id++, 
+		Aircraft aircraft = new Aircraft(aircraftIdTag+id++, 
 										 ThreadLocalRandom.current().nextInt(0, tracker.getLength()), 
 										 ThreadLocalRandom.current().nextInt(0, tracker.getBreadth()), 
 										 ThreadLocalRandom.current().nextInt(0, tracker.getHeight()*METRES_PER_KILOMETRE), 
 										 ThreadLocalRandom.current().nextInt(MIN_AIRSPEED, MAX_AIRSPEED), 
-										 ThreadLocalRandom.current().nextDouble(NORTH, HEADING_RANGE)));
+										 ThreadLocalRandom.current().nextDouble(NORTH, HEADING_RANGE));
+		if (recorder != null) {
+			try {
+				recorder.record(aircraft);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		tracker.newAircraft(aircraft, radarSite);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package comp3506.assn1.application;
+
+import comp3506.assn1.adts.IterableQueue;
+
+
+/**
+ * Outcome of adding a batch of aircraft from the tracking queue to the airspace.
+ * 
+ * @author Howie L.
+ *
+ */
+public class RadarBatch {
+	
+	private int numPlaced;
+	private IterableQueue<Aircraft> conflicts;
+	
+	/**
+	 * @param numPlaced Number of aircraft added to the airspace.
+	 * @param conflicts Aircraft of the batch that entered an occupied cell.
+	 */
+	public RadarBatch(int numPlaced, IterableQueue<Aircraft> conflicts) {
+		this.numPlaced = numPlaced;
+		this.conflicts = conflicts;
+	}
+	
+	/**
+	 * @return Number of aircraft added to the airspace, zero if the tracking queue was empty.
+	 */
+	public int getNumPlaced() {
+		return numPlaced;
+	}
+	
+	/**
+	 * @return Aircraft of the batch that entered an occupied cell in the air space, in the order 
+	 *         they were identified, which is empty if there were none.
+	 */
+	public IterableQueue<Aircraft> getConflicts() {
+		return conflicts;
+	}
+	
+}
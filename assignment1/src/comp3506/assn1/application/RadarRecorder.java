@@ -0,0 +1,135 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Captures the aircraft identified by a radar site into a recording that RecordedRadar replays.
+ * A recording is a header, then one fixed-width record per identified aircraft, then a table of
+ * the distinct aircraft ids. Records refer to their id by its index in the table, so an aircraft
+ * seen many times has its id stored once, and replaying a record never decodes a string.
+ * 
+ * Like a radar site, a recorder must only be used by one thread.
+ * 
+ * @author Howie L.
+ *
+ */
+public class RadarRecorder implements Closeable {
+	
+	static final int MAGIC = 0x4F534B52;		// "OSKR"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;			// magic, version, record count, id count, id table offset, padding
+	static final int RECORD_SIZE = 5 * Integer.BYTES + Double.BYTES;	// id index, x, y, altitude, speed, course
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+	
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+	private final Map<String, Integer> idIndices = new HashMap<>();
+	private String[] ids = new String[1024];	// Distinct ids in the order they were first recorded
+	private long numRecords = 0;
+	private boolean closed = false;
+	
+	/**
+	 * @param file File to record to, which is replaced if it exists.
+	 * @throws IOException If the file cannot be created.
+	 */
+	public RadarRecorder(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer.position(HEADER_SIZE);		// Zeroed until close writes the counts over it
+	}
+	
+	/**
+	 * Record an aircraft identified by the radar site.
+	 * 
+	 * Time complexity: O(1) expected.
+	 * 
+	 * @param aircraft Aircraft as it was identified.
+	 * @throws IOException If the recording cannot be written.
+	 * @throws IllegalStateException If the recorder has been closed.
+	 */
+	public void record(Aircraft aircraft) throws IOException, IllegalStateException {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		Integer index = idIndices.get(aircraft.getId());
+		if (index == null) {
+			index = idIndices.size();
+			idIndices.put(aircraft.getId(), index);
+			if (index == ids.length) {
+				String[] larger = new String[ids.length * 2];
+				System.arraycopy(ids, 0, larger, 0, ids.length);
+				ids = larger;
+			}
+			ids[index] = aircraft.getId();
+		}
+		if (buffer.remaining() < RECORD_SIZE) {
+			drain();
+		}
+		buffer.putInt(index).putInt(aircraft.getAirSpaceXCoord()).putInt(aircraft.getAirSpaceYCoord())
+			  .putInt(aircraft.getAltitude()).putInt(aircraft.getSpeed()).putDouble(aircraft.getCourse());
+		numRecords++;
+	}
+	
+	/**
+	 * @return The number of aircraft recorded so far.
+	 */
+	public long getNumRecords() {
+		return numRecords;
+	}
+	
+	/**
+	 * Write the id table and header, and close the file. Does nothing if already closed.
+	 * 
+	 * @throws IOException If the recording cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			long idTableOffset = HEADER_SIZE + numRecords * RECORD_SIZE;
+			for (int i = 0; i < idIndices.size(); i++) {
+				byte[] id = ids[i].getBytes(StandardCharsets.UTF_8);
+				if (id.length > Short.MAX_VALUE) {
+					throw new IOException("Aircraft id too long to record: " + ids[i]);
+				}
+				if (buffer.remaining() < Short.BYTES + id.length) {
+					drain();
+				}
+				buffer.putShort((short) id.length).put(id);
+			}
+			drain();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putLong(numRecords).putInt(idIndices.size()).putLong(idTableOffset);
+			header.clear();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Append everything in the buffer to the file and clear it.
+	 */
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+}
@@ -0,0 +1,178 @@
+package comp3506.assn1.application;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Radar site that replays a recording made by RadarRecorder instead of generating random
+ * aircraft, so that the same production-sized traffic can be fed to the tracker run after run.
+ * The records are read in place from a memory-mapped view of the file; the aircraft ids are 
+ * decoded once when the recording is opened, and records only refer to them by index.
+ * Recordings larger than a single mapping are mapped one window of records at a time.
+ * 
+ * Like Radar, each recorded site must only be driven by one thread.
+ * 
+ * @author Howie L.
+ *
+ */
+public class RecordedRadar {
+	
+	static final int DEFAULT_RECORDS_PER_WINDOW = 1 << 24;
+	
+	private final AirTrafficTracker tracker;
+	private final int radarSite;
+	private final FileChannel channel;
+	private final String[] ids;
+	private final String[] foldedIds;		// Indexed like ids, so records never fold an id
+	private final long numRecords;
+	private final int recordsPerWindow;		// Records mapped at a time
+	private long next = 0;					// Index of the next record to replay
+	private MappedByteBuffer window;		// Mapping of the records from windowStart
+	private long windowStart = -1;
+	
+	/**
+	 * Open a recording. The file stays open until every record has been replayed or close is called.
+	 * 
+	 * @param tracker Tracker the recorded aircraft are fed to.
+	 * @param aircraftIdTag Id tag the radar site's ingest rate is reported under.
+	 * @param file Recording made by RadarRecorder.
+	 * @throws IOException If the file cannot be read or is not a valid recording.
+	 */
+	public RecordedRadar(AirTrafficTracker tracker, String aircraftIdTag, Path file) throws IOException {
+		this(tracker, aircraftIdTag, file, DEFAULT_RECORDS_PER_WINDOW);
+	}
+	
+	/**
+	 * @param tracker Tracker the recorded aircraft are fed to.
+	 * @param aircraftIdTag Id tag the radar site's ingest rate is reported under.
+	 * @param file Recording made by RadarRecorder.
+	 * @param recordsPerWindow Number of records mapped at a time, which must be positive.
+	 * @throws IOException If the file cannot be read or is not a valid recording.
+	 * @throws IllegalArgumentException If recordsPerWindow is not positive.
+	 */
+	RecordedRadar(AirTrafficTracker tracker, String aircraftIdTag, Path file, int recordsPerWindow) 
+			throws IOException, IllegalArgumentException {
+		if (recordsPerWindow <= 0 || recordsPerWindow > Integer.MAX_VALUE / RadarRecorder.RECORD_SIZE) {
+			throw new IllegalArgumentException();
+		}
+		this.tracker = tracker;
+		this.recordsPerWindow = recordsPerWindow;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(RadarRecorder.HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+				// Read the whole header.
+			}
+			header.flip();
+			if (header.remaining() < RadarRecorder.HEADER_SIZE || header.getInt() != RadarRecorder.MAGIC 
+					|| header.getInt() != RadarRecorder.VERSION) {
+				throw new IOException("Not a radar recording: " + file);
+			}
+			numRecords = header.getLong();
+			int numIds = header.getInt();
+			long idTableOffset = header.getLong();
+			if (numRecords < 0 || numIds < 0 
+					|| idTableOffset != RadarRecorder.HEADER_SIZE + numRecords * RadarRecorder.RECORD_SIZE
+					|| idTableOffset > channel.size() || channel.size() - idTableOffset > Integer.MAX_VALUE
+					|| numIds > (channel.size() - idTableOffset) / Short.BYTES) {	// Every id has a length
+				throw new IOException("Truncated or corrupt radar recording: " + file);
+			}
+			ids = readIds(channel.map(FileChannel.MapMode.READ_ONLY, idTableOffset, channel.size() - idTableOffset), 
+					numIds, file);
+			foldedIds = new String[numIds];
+			for (int i = 0; i < numIds; i++) {
+				foldedIds[i] = Aircraft.fold(ids[i]);
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.radarSite = tracker.registerRadarSite(aircraftIdTag);
+	}
+	
+	/**
+	 * Feed the next recorded aircraft to the tracker.
+	 * 
+	 * Time complexity: O(1)
+	 * 
+	 * @return true if an aircraft was fed to the tracker, false if the recording has been replayed.
+	 * @throws IOException If the next window of records cannot be mapped.
+	 * @throws IllegalStateException If a record refers to an id that is not in the recording.
+	 */
+	public boolean aircraftIdentified() throws IOException, IllegalStateException {
+		if (next == numRecords) {
+			close();
+			return false;
+		}
+		if (next - windowStart >= recordsPerWindow || windowStart < 0) {
+			windowStart = next;
+			long numMapped = Math.min(recordsPerWindow, numRecords - next);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, 
+					RadarRecorder.HEADER_SIZE + windowStart * RadarRecorder.RECORD_SIZE, 
+					numMapped * RadarRecorder.RECORD_SIZE);
+		}
+		int offset = (int) (next - windowStart) * RadarRecorder.RECORD_SIZE;
+		int idIndex = window.getInt(offset);
+		if (idIndex < 0 || idIndex >= ids.length) {
+			throw new IllegalStateException("Corrupt radar record " + next);
+		}
+		tracker.newAircraft(new Aircraft(ids[idIndex], 
+										 foldedIds[idIndex], 
+										 window.getInt(offset + 4), 
+										 window.getInt(offset + 8), 
+										 window.getInt(offset + 12), 
+										 window.getInt(offset + 16), 
+										 window.getDouble(offset + 20)), 
+							radarSite);
+		next++;
+		return true;
+	}
+	
+	/**
+	 * @return The number of aircraft left to replay.
+	 */
+	public long remaining() {
+		return numRecords - next;
+	}
+	
+	/**
+	 * Stop replaying and close the recording. Does nothing if already closed.
+	 * 
+	 * @throws IOException If the file cannot be closed.
+	 */
+	public void close() throws IOException {
+		next = numRecords;
+		window = null;
+		channel.close();
+	}
+	
+	/**
+	 * @param table Mapping of the id table.
+	 * @param numIds Number of ids in the table.
+	 * @param file Recording, for error messages.
+	 * @return The ids, indexed as records refer to them.
+	 * @throws IOException If the table is truncated.
+	 */
+	private static String[] readIds(ByteBuffer table, int numIds, Path file) throws IOException {
+		String[] ids = new String[numIds];
+		byte[] idBytes = new byte[Short.MAX_VALUE];
+		try {
+			for (int i = 0; i < numIds; i++) {
+				int length = table.getShort();
+				table.get(idBytes, 0, length);
+				ids[i] = new String(idBytes, 0, length, StandardCharsets.UTF_8);
+			}
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Truncated or corrupt radar recording: " + file, e);
+		}
+		return ids;
+	}
+	
+}
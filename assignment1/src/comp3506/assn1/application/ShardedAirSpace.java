@@ -0,0 +1,308 @@
+package comp3506.assn1.application;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+import comp3506.assn1.adts.StripedCube;
+
+
+/**
+ * Airspace model partitioned into square tiles, each owning its own cube, so that batches of 
+ * aircraft and conflict sweeps can be processed one tile per fork/join task. The tiles are the 
+ * regions of a StripedCube, so an aircraft always belongs to the tile holding its cell, and an 
+ * aircraft moving into another cell is handed off to the new tile by the cube itself.
+ * 
+ * Conflict sweeps check each tile's aircraft against each other and against a halo of the 
+ * aircraft in the neighbouring tiles that are within the horizontal minimum of the tile, so 
+ * losses of separation across tile boundaries are found as well.
+ * 
+ * @author Richard T.
+ *
+ */
+public class ShardedAirSpace extends AirSpace {
+	
+	public static final int DEFAULT_TILE_SIZE = 256;	// kilometres
+	private static final int METRES_PER_KILOMETRE = 1000;
+	
+	private StripedCube<Aircraft> airSpaceMap;
+	private ForkJoinPool pool;
+	private int tileSize;		// In kilometres.
+	private int tilesAlongX;
+	private int tilesAlongY;
+	
+	/**
+	 * Create an airspace with tiles of the default size, processed on the common fork/join pool.
+	 * 
+	 * @param length Length of the air space in kilometres.
+	 * @param breadth Breadth of the air space in kilometres.
+	 * @param height Height of the air space in kilometres.
+	 */
+	public ShardedAirSpace(int length, int breadth, int height) {
+		this(length, breadth, height, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * @param length Length of the air space in kilometres.
+	 * @param breadth Breadth of the air space in kilometres.
+	 * @param height Height of the air space in kilometres.
+	 * @param tileSize Length and breadth of a tile in kilometres.
+	 * @param pool Pool the tiles are processed on.
+	 */
+	public ShardedAirSpace(int length, int breadth, int height, int tileSize, ForkJoinPool pool) {
+		this(length, breadth, height, tileSize, pool, new StripedCube<Aircraft>(length, breadth, height, tileSize));
+	}
+	
+	private ShardedAirSpace(int length, int breadth, int height, int tileSize, ForkJoinPool pool, 
+			StripedCube<Aircraft> airSpaceMap) {
+		super(length, breadth, height, airSpaceMap);
+		this.airSpaceMap = airSpaceMap;
+		this.pool = pool;
+		this.tileSize = tileSize;
+		this.tilesAlongX = length / tileSize + 1;
+		this.tilesAlongY = breadth / tileSize + 1;
+	}
+	
+	/**
+	 * Add a batch of new aircraft to the airspace model, one task per tile. Each task places the 
+	 * aircraft of its tile and then checks them, so the result is the same as adding the aircraft
+	 * one at a time in queue order. The whole batch is checked before any aircraft is placed, as
+	 * the tasks place aircraft in no particular order.
+	 * 
+	 * @param batch Aircraft to be added to the model, in the order they were identified.
+	 * @return Queue of the aircraft that entered a cell already occupied by an earlier aircraft, 
+	 *         in batch order, which is empty if there were no such aircraft.
+	 * @throws IllegalStateException If an aircraft is placed in another airspace model; the 
+	 *         aircraft before it have been added.
+	 * @throws IndexOutOfBoundsException If an aircraft is outside the airspace; the aircraft 
+	 *         before it have been added.
+	 */
+	@Override
+	public IterableQueue<Aircraft> addAircraft(IterableQueue<Aircraft> batch) 
+			throws IllegalStateException, IndexOutOfBoundsException {
+		Aircraft[] aircraft = new Aircraft[batch.size()];
+		int numAircraft = 0;
+		RuntimeException rejected = null;	// Thrown once the aircraft before the rejected one are added
+		for (Aircraft a : batch) {
+			try {
+				checkPlaceable(a);
+			} catch (IllegalStateException | IndexOutOfBoundsException e) {
+				rejected = e;
+				break;
+			}
+			aircraft[numAircraft++] = a;
+		}
+		final Tiling tiling = new Tiling(aircraft, numAircraft);
+		final boolean[] occupied = new boolean[numAircraft];
+		forEachTile(new TileAction() {
+			@Override
+			public void run(int tile) {
+				for (int i = tiling.start[tile]; i < tiling.start[tile + 1]; i++) {
+					Aircraft a = tiling.aircraft[i];
+					airSpaceMap.add(a.getAirSpaceXCoord(), a.getAirSpaceYCoord(), a.getAltitude()/METRES_PER_KILOMETRE, a);
+				}
+				for (int i = tiling.start[tile]; i < tiling.start[tile + 1]; i++) {
+					// An aircraft is in conflict unless it is the oldest one in its cell.
+					Aircraft a = tiling.aircraft[i];
+					occupied[tiling.batchPosition[i]] = airSpaceMap.get(a.getAirSpaceXCoord(), a.getAirSpaceYCoord(), 
+							a.getAltitude()/METRES_PER_KILOMETRE) != a;
+				}
+			}
+		});
+		IterableQueue<Aircraft> conflicts = new RingBufferQueue<Aircraft>();
+		for (int i = 0; i < numAircraft; i++) {
+			track(aircraft[i]);
+			if (occupied[i]) {
+				conflicts.enqueue(aircraft[i]);
+			}
+		}
+		if (rejected != null) {
+			throw rejected;
+		}
+		return conflicts;
+	}
+	
+	/**
+	 * Find every pair of aircraft closer than the default separation minima of ConflictDetector.
+	 * 
+	 * @return Queue of every conflict in the airspace, each reported once, which is empty if there are none.
+	 */
+	public IterableQueue<Conflict> findConflicts() {
+		return findConflicts(ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+	}
+	
+	/**
+	 * Find every pair of aircraft closer than the separation minima, one task per tile. Each tile 
+	 * reports the conflicts among its own aircraft, and those between its own aircraft and the 
+	 * aircraft of the neighbouring tiles that come after it, so each pair is reported once.
+	 * 
+	 * @param horizontalSeparation Smallest horizontal distance allowed between aircraft at similar altitudes, in kilometres.
+	 * @param verticalSeparation Smallest vertical distance allowed between aircraft horizontally too close, in metres.
+	 * @return Queue of every conflict in the airspace, each reported once, which is empty if there are none.
+	 * @throws IllegalArgumentException If a separation minimum is not positive, or the horizontal 
+	 *                                  minimum is larger than a tile.
+	 */
+	public IterableQueue<Conflict> findConflicts(final double horizontalSeparation, final int verticalSeparation) 
+			throws IllegalArgumentException {
+		if (!(horizontalSeparation > 0) || horizontalSeparation > tileSize || verticalSeparation <= 0) {
+			throw new IllegalArgumentException();
+		}
+		Aircraft[] aircraft = new Aircraft[getNumAircraft()];
+		for (int i = 0; i < aircraft.length; i++) {
+			aircraft[i] = getTrackedAircraft(i);
+		}
+		final Tiling tiling = new Tiling(aircraft, aircraft.length);
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final IterableQueue<Conflict>[] tileConflicts = (IterableQueue<Conflict>[]) new IterableQueue[numTiles()];
+		forEachTile(new TileAction() {
+			@Override
+			public void run(int tile) {
+				if (tiling.start[tile] == tiling.start[tile + 1]) {
+					return;
+				}
+				ConflictDetector detector = new ConflictDetector(ShardedAirSpace.this, horizontalSeparation, 
+						verticalSeparation);
+				IterableQueue<Conflict> conflicts = new RingBufferQueue<Conflict>();
+				for (int i = tiling.start[tile]; i < tiling.start[tile + 1]; i++) {
+					detector.insert(tiling.aircraft[i], conflicts);
+				}
+				int tileX = tile / tilesAlongY;
+				int tileY = tile % tilesAlongY;
+				// Neighbours after this tile in index order; those before it check this tile's aircraft.
+				checkHalo(detector, tiling, tileX, tileY, tileX, tileY + 1, horizontalSeparation, conflicts);
+				checkHalo(detector, tiling, tileX, tileY, tileX + 1, tileY - 1, horizontalSeparation, conflicts);
+				checkHalo(detector, tiling, tileX, tileY, tileX + 1, tileY, horizontalSeparation, conflicts);
+				checkHalo(detector, tiling, tileX, tileY, tileX + 1, tileY + 1, horizontalSeparation, conflicts);
+				tileConflicts[tile] = conflicts;
+			}
+		});
+		IterableQueue<Conflict> conflicts = new RingBufferQueue<Conflict>();
+		for (IterableQueue<Conflict> found : tileConflicts) {
+			if (found != null) {
+				for (Conflict conflict : found) {
+					conflicts.enqueue(conflict);
+				}
+			}
+		}
+		return conflicts;
+	}
+	
+	/**
+	 * Check the aircraft of a neighbouring tile that are within the horizontal minimum of a tile 
+	 * against the aircraft of that tile.
+	 * 
+	 * @param detector Detector holding the aircraft of the tile.
+	 * @param tiling Aircraft grouped by tile.
+	 * @param tileX Column of the tile.
+	 * @param tileY Row of the tile.
+	 * @param haloX Column of the neighbouring tile.
+	 * @param haloY Row of the neighbouring tile.
+	 * @param horizontalSeparation Horizontal minimum in kilometres.
+	 * @param conflicts Queue the conflicts found are appended to.
+	 */
+	private void checkHalo(ConflictDetector detector, Tiling tiling, int tileX, int tileY, int haloX, int haloY, 
+			double horizontalSeparation, IterableQueue<Conflict> conflicts) {
+		if (haloX >= tilesAlongX || haloY < 0 || haloY >= tilesAlongY) {
+			return;
+		}
+		double minX = (double) tileX * tileSize;
+		double minY = (double) tileY * tileSize;
+		int halo = haloX * tilesAlongY + haloY;
+		for (int i = tiling.start[halo]; i < tiling.start[halo + 1]; i++) {
+			Aircraft a = tiling.aircraft[i];
+			double dx = Math.max(0, Math.max(minX - a.getXPosition(), a.getXPosition() - (minX + tileSize)));
+			double dy = Math.max(0, Math.max(minY - a.getYPosition(), a.getYPosition() - (minY + tileSize)));
+			if (dx * dx + dy * dy < horizontalSeparation * horizontalSeparation) {
+				detector.check(a, conflicts);
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of tiles the airspace is partitioned into.
+	 */
+	public int numTiles() {
+		return tilesAlongX * tilesAlongY;
+	}
+	
+	/**
+	 * @param aircraft An aircraft in the airspace.
+	 * @return The index of the tile holding the aircraft's cell.
+	 */
+	private int tileOf(Aircraft aircraft) {
+		return (aircraft.getAirSpaceXCoord() / tileSize) * tilesAlongY + aircraft.getAirSpaceYCoord() / tileSize;
+	}
+	
+	/**
+	 * Run an action for every tile on the fork/join pool, and wait for all of them to finish.
+	 * 
+	 * @param action Action to be run.
+	 */
+	private void forEachTile(TileAction action) {
+		pool.invoke(new TileRange(action, 0, numTiles()));
+	}
+	
+	/**
+	 * Work done for one tile.
+	 */
+	private interface TileAction {
+		void run(int tile);
+	}
+	
+	/**
+	 * Runs an action for a range of tiles, splitting it in half until one tile is left per task.
+	 */
+	private static class TileRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final TileAction action;
+		private final int from;
+		private final int to;
+		
+		private TileRange(TileAction action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				action.run(from);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new TileRange(action, from, middle), new TileRange(action, middle, to));
+		}
+	}
+	
+	/**
+	 * Aircraft grouped by tile with a counting sort, keeping their order within each tile.
+	 */
+	private class Tiling {
+		private final Aircraft[] aircraft;		// Grouped by tile
+		private final int[] batchPosition;		// Position of each grouped aircraft before grouping
+		private final int[] start;				// Index of the first aircraft of each tile, and the total at the end
+		
+		private Tiling(Aircraft[] ungrouped, int numAircraft) {
+			aircraft = new Aircraft[numAircraft];
+			batchPosition = new int[numAircraft];
+			start = new int[numTiles() + 1];
+			int[] tiles = new int[numAircraft];
+			for (int i = 0; i < numAircraft; i++) {
+				tiles[i] = tileOf(ungrouped[i]);
+				start[tiles[i] + 1]++;
+			}
+			for (int t = 0; t < numTiles(); t++) {
+				start[t + 1] += start[t];
+			}
+			int[] next = start.clone();
+			for (int i = 0; i < numAircraft; i++) {
+				int position = next[tiles[i]]++;
+				aircraft[position] = ungrouped[i];
+				batchPosition[position] = i;
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,208 @@
+package comp3506.assn1.application;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Instrumentation of an AirTrafficTracker: enqueue-to-placement latencies, the tracking queue's 
+ * depth and high-water mark, conflicts, aircraft expired from the airspace, the ingest rate of 
+ * each radar site, and the outcomes of a bounded tracker's overflow policy. Recording is 
+ * lock-free and allocation-free, so it can stay on the radar and consumer threads' hot paths; 
+ * reading is pull-based, through snapshot or over JMX once registered.
+ * 
+ * @author Howie L.
+ *
+ */
+public class TrackerMetrics implements TrackerMetricsMXBean {
+	
+	private static final int MAX_RADAR_SITES = 256;
+	
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final AtomicLong identified = new AtomicLong();
+	private final AtomicLong placed = new AtomicLong();
+	private final AtomicLong conflicts = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+	private final AtomicInteger highWaterMark = new AtomicInteger();
+	private final AtomicLong blocked = new AtomicLong();
+	private final AtomicLong timedOut = new AtomicLong();
+	private final AtomicLong droppedNewest = new AtomicLong();
+	private final AtomicLong droppedOldest = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLongArray siteIdentified = new AtomicLongArray(MAX_RADAR_SITES);
+	private final String[] siteTags = new String[MAX_RADAR_SITES];
+	private int numSites = 0;						// Guarded by this
+	private final AirTrafficTracker tracker;
+	
+	private final long startTime = System.nanoTime();	// Rates are measured from here by default
+	
+	/**
+	 * @param tracker Tracker whose queue depth is reported.
+	 */
+	TrackerMetrics(AirTrafficTracker tracker) {
+		this.tracker = tracker;
+	}
+	
+	/**
+	 * Give a radar site a number to count the aircraft it identifies under.
+	 * 
+	 * @param tag Id tag of the radar site.
+	 * @return Number of the radar site.
+	 * @throws IllegalStateException If too many radar sites have been registered.
+	 */
+	synchronized int registerRadarSite(String tag) throws IllegalStateException {
+		if (numSites == MAX_RADAR_SITES) {
+			throw new IllegalStateException();
+		}
+		siteTags[numSites] = tag;
+		return numSites++;
+	}
+	
+	/**
+	 * Record an aircraft queued by a radar site.
+	 * 
+	 * @param site Number of the radar site, or -1 if unknown.
+	 * @param queueDepth Depth of the tracking queue after queueing.
+	 */
+	void aircraftIdentified(int site, int queueDepth) {
+		identified.incrementAndGet();
+		if (site >= 0) {
+			siteIdentified.incrementAndGet(site);
+		}
+		int mark = highWaterMark.get();
+		while (queueDepth > mark && !highWaterMark.compareAndSet(mark, queueDepth)) {
+			mark = highWaterMark.get();
+		}
+	}
+	
+	/**
+	 * Record an aircraft added to the airspace.
+	 * 
+	 * @param latency Time since it was queued, in nanoseconds.
+	 */
+	void aircraftPlaced(long latency) {
+		placed.incrementAndGet();
+		latencies.record(latency);
+	}
+	
+	/**
+	 * Record aircraft that entered an occupied cell.
+	 * 
+	 * @param numConflicts Number of such aircraft.
+	 */
+	void conflictsFound(int numConflicts) {
+		conflicts.addAndGet(numConflicts);
+	}
+	
+	/**
+	 * Record aircraft removed from the airspace because their time to live ran out.
+	 * 
+	 * @param numExpired Number of such aircraft.
+	 */
+	void aircraftExpired(int numExpired) {
+		expired.addAndGet(numExpired);
+	}
+	
+	/**
+	 * Record an aircraft queued after its radar site waited for room under the BLOCK policy.
+	 */
+	void aircraftBlocked() {
+		blocked.incrementAndGet();
+	}
+	
+	/**
+	 * Record an aircraft dropped after its radar site waited for room for too long.
+	 */
+	void aircraftTimedOut() {
+		timedOut.incrementAndGet();
+	}
+	
+	/**
+	 * Record a newly identified aircraft dropped because the queue was full.
+	 */
+	void aircraftDroppedNewest() {
+		droppedNewest.incrementAndGet();
+	}
+	
+	/**
+	 * Record a queued aircraft dropped to make room for a newly identified one.
+	 */
+	void aircraftDroppedOldest() {
+		droppedOldest.incrementAndGet();
+	}
+	
+	/**
+	 * Record a newly identified aircraft that replaced a queued update of the same aircraft.
+	 */
+	void aircraftCoalesced() {
+		coalesced.incrementAndGet();
+	}
+	
+	/**
+	 * Take a snapshot of the metrics, with rates averaged since the tracker was created.
+	 * 
+	 * @return The current metrics.
+	 */
+	public MetricsSnapshot snapshot() {
+		return snapshot(null);
+	}
+	
+	/**
+	 * Take a snapshot of the metrics, with rates averaged since an earlier snapshot. Taking a 
+	 * snapshot changes nothing, so each reader windows its rates on the snapshots it keeps itself,
+	 * and readers polling at different periods do not skew each other's rates.
+	 * 
+	 * @param since Earlier snapshot of these metrics, or null to average since the tracker was created.
+	 * @return The current metrics.
+	 */
+	public MetricsSnapshot snapshot(MetricsSnapshot since) {
+		long now = System.nanoTime();
+		long from = since == null ? startTime : since.takenAt;
+		double interval = Math.max(1, now - from) / 1e9;
+		long totalConflicts = conflicts.get();
+		String[] sites;
+		synchronized (this) {
+			sites = new String[numSites];
+			System.arraycopy(siteTags, 0, sites, 0, numSites);
+		}
+		long[] siteCounts = new long[sites.length];
+		double[] siteRates = new double[sites.length];
+		for (int i = 0; i < sites.length; i++) {
+			siteCounts[i] = siteIdentified.get(i);
+			// Sites registered after the earlier snapshot have counted from zero since.
+			long previous = since != null && i < since.radarSiteIdentified.length ? since.radarSiteIdentified[i] : 0;
+			siteRates[i] = (siteCounts[i] - previous) / interval;
+		}
+		long previousConflicts = since == null ? 0 : since.getConflicts();
+		return new MetricsSnapshot(now, interval, identified.get(), placed.get(), latencies.copyCounts(), 
+				tracker.getRadarQueueSize(), highWaterMark.get(), totalConflicts, 
+				(totalConflicts - previousConflicts) / interval, expired.get(), sites, siteCounts, siteRates, 
+				blocked.get(), timedOut.get(), droppedNewest.get(), droppedOldest.get(), coalesced.get());
+	}
+	
+	@Override
+	public MetricsSnapshot getSnapshot() {
+		return snapshot();
+	}
+	
+	@Override
+	public void resetHighWaterMark() {
+		highWaterMark.set(tracker.getRadarQueueSize());
+	}
+	
+	/**
+	 * Export the metrics over JMX through the platform MBean server.
+	 * 
+	 * @param name Name to register the metrics under, e.g. "comp3506.assn1:type=AirTrafficTracker".
+	 * @throws JMException If the name is malformed or already registered.
+	 */
+	public void register(String name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+	}
+	
+}
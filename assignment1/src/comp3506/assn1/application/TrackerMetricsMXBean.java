@@ -0,0 +1,26 @@
+package comp3506.assn1.application;
+
+
+/**
+ * Management interface through which the instrumentation of an AirTrafficTracker is exported 
+ * over JMX, e.g. to JConsole or VisualVM.
+ * 
+ * @author Howie L.
+ *
+ */
+public interface TrackerMetricsMXBean {
+	
+	/**
+	 * Take a snapshot of the tracker's instrumentation. Rates are averaged since the tracker was
+	 * created; a console plotting the counts over time gets its own windowed rates from them.
+	 * 
+	 * @return The current metrics.
+	 */
+	MetricsSnapshot getSnapshot();
+	
+	/**
+	 * Restart the queue depth high-water mark from the current depth.
+	 */
+	void resetHighWaterMark();
+	
+}
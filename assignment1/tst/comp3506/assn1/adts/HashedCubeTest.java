@@ -0,0 +1,195 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class HashedCubeTest {
+	@Test(timeout=500)
+	@SuppressWarnings("unused")
+	public void testInvalidConstructor() {
+		try {
+			Cube<Object> objCube = new HashedCube<>(0, 3, 5);
+			fail();
+		} catch (IllegalArgumentException e) {}
+		try {
+			Cube<Object> objCube = new HashedCube<>(Integer.MAX_VALUE, Integer.MAX_VALUE, 5);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testGetKeepsInsertionOrder() {
+		Cube<Object> objCube = new HashedCube<>(5, 5, 5);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		Object obj3 = new Object();
+		objCube.add(1, 2, 3, obj1);
+		objCube.add(1, 2, 3, obj2);
+		objCube.add(3, 2, 1, obj3);
+		assertEquals(obj1, objCube.get(1, 2, 3));
+		assertEquals(obj3, objCube.get(3, 2, 1));
+		assertNull(objCube.get(2, 2, 2));
+		IterableQueue<Object> objQueue = objCube.getAll(1, 2, 3);
+		assertEquals(2, objQueue.size());
+		assertEquals(obj1, objQueue.dequeue());
+		assertEquals(obj2, objQueue.dequeue());
+		assertNull(objCube.getAll(2, 2, 2));
+	}
+
+	@Test(timeout=500)
+	public void testMultipleElementsAt() {
+		Cube<Object> objCube = new HashedCube<>(3, 3, 3);
+		objCube.add(1, 1, 1, new Object());
+		objCube.add(1, 1, 1, new Object());
+		objCube.add(2, 2, 2, new Object());
+		assertTrue(objCube.isMultipleElementsAt(1, 1, 1));
+		assertFalse(objCube.isMultipleElementsAt(2, 2, 2));
+		assertFalse(objCube.isMultipleElementsAt(0, 0, 0));
+	}
+
+	@Test(timeout=500)
+	public void testOutOfBound() {
+		Cube<Object> objCube = new HashedCube<>(1, 1, 1);
+		Object obj = new Object();
+		objCube.add(1, 1, 1, obj);
+		objCube.add(0, 0, 0, obj);
+		try {
+			objCube.add(2, 0, 0, obj);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		try {
+			objCube.get(0, -1, 0);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		try {
+			objCube.removeAll(0, 0, 2);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testRemove() {
+		Cube<Object> objCube = new HashedCube<>(2, 2, 2);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(1, 2, 1, obj1);
+		objCube.add(1, 2, 1, obj2);
+		assertFalse(objCube.remove(1, 1, 1, obj1));
+		assertTrue(objCube.remove(1, 2, 1, obj1));
+		assertEquals(obj2, objCube.get(1, 2, 1));
+		assertTrue(objCube.remove(1, 2, 1, obj2));
+		assertNull(objCube.get(1, 2, 1));
+		assertFalse(objCube.remove(1, 2, 1, obj2));
+	}
+
+	@Test(timeout=2000)
+	public void testManyCellsAndRemoveAll() {
+		Cube<Integer> intCube = new HashedCube<>(5321, 3428, 35);
+		for (int i = 0; i < 100000; i++) {
+			intCube.add(i % 5321, i % 3428, i % 35, i);
+		}
+		for (int i = 0; i < 100000; i++) {
+			assertNotNull(intCube.get(i % 5321, i % 3428, i % 35));
+		}
+		intCube.removeAll(0, 0, 0);
+		assertNull(intCube.get(0, 0, 0));
+		assertEquals(Integer.valueOf(1), intCube.get(1, 1, 1));
+		intCube.clear();
+		assertNull(intCube.get(1, 1, 1));
+	}
+
+	@Test(timeout=500)
+	public void testGetWithin() {
+		Cube<Object> objCube = new HashedCube<>(9, 9, 9);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		Object obj3 = new Object();
+		objCube.add(1, 1, 1, obj1);
+		objCube.add(2, 3, 4, obj2);
+		objCube.add(9, 9, 9, obj3);
+		assertEquals(2, objCube.getWithin(0, 0, 0, 5, 5, 5).size());
+		assertEquals(3, objCube.getWithin(0, 0, 0, 9, 9, 9).size());
+		assertEquals(obj2, objCube.getWithin(2, 3, 4, 2, 3, 4).dequeue());
+		assertNull(objCube.getWithin(3, 3, 3, 8, 8, 8));
+	}
+
+	@Test(timeout=500)
+	public void testNearestAndRadius() {
+		Cube<Object> objCube = new HashedCube<>(99, 99, 9);
+		Object near = new Object();
+		Object middle = new Object();
+		Object far = new Object();
+		objCube.add(90, 90, 9, far);
+		objCube.add(10, 10, 1, near);
+		objCube.add(20, 20, 2, middle);
+		IterableQueue<Object> nearest = objCube.getNearest(0, 0, 0, 2);
+		assertEquals(2, nearest.size());
+		assertEquals(near, nearest.dequeue());
+		assertEquals(middle, nearest.dequeue());
+		assertNull(objCube.getWithinRadius(0, 0, 0, 14.0));
+		assertEquals(near, objCube.getWithinRadius(0, 0, 0, 14.2).dequeue());
+		assertEquals(3, objCube.getWithinRadius(50, 50, 5, 100).size());
+	}
+
+	@Test(timeout=500)
+	public void testRemoveElement() {
+		Cube<Object> objCube = new HashedCube<>(99, 99, 9);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(1, 2, 3, obj1);
+		objCube.add(1, 2, 3, obj2);
+		objCube.add(90, 90, 9, obj1);
+		assertTrue(objCube.remove(obj1));
+		assertFalse(objCube.remove(obj1));
+		assertEquals(obj2, objCube.get(1, 2, 3));
+		assertFalse(objCube.isMultipleElementsAt(1, 2, 3));
+		assertNull(objCube.get(90, 90, 9));
+		assertTrue(objCube.remove(obj2));
+		assertNull(objCube.getNearest(0, 0, 0, 1));
+	}
+
+	@Test(timeout=500)
+	public void testRemoveDuplicates() {
+		Cube<String> strCube = new HashedCube<>(99, 99, 9);
+		strCube.add(1, 2, 3, "a");
+		strCube.add(1, 2, 3, "b");
+		strCube.add(1, 2, 3, new String("a"));
+		strCube.add(4, 5, 6, "a");
+		strCube.add(4, 5, 6, "a");
+		strCube.add(7, 8, 9, "a");
+		assertTrue(strCube.remove(1, 2, 3, "a"));
+		assertEquals(1, strCube.getAll(1, 2, 3).size());
+		assertEquals("b", strCube.get(1, 2, 3));
+		assertTrue(strCube.remove("a"));
+		assertNull(strCube.get(4, 5, 6));
+		assertNull(strCube.get(7, 8, 9));
+		assertFalse(strCube.remove("a"));
+		assertFalse(strCube.remove(1, 2, 3, "a"));
+		strCube.add(7, 8, 9, "a");
+		strCube.removeAll(7, 8, 9);
+		assertFalse(strCube.remove("a"));
+		assertTrue(strCube.remove("b"));
+		assertNull(strCube.getWithin(0, 0, 0, 99, 99, 9));
+	}
+
+	@Test(timeout=500)
+	public void testNearestWithUnboundedK() {
+		Cube<Integer> intCube = new HashedCube<>(99, 99, 9);
+		assertNull(intCube.getNearest(0, 0, 0, Integer.MAX_VALUE));	// Nothing is sized for k
+		for (int i = 0; i < 100; i++) {
+			intCube.add(i % 99, i % 97, i % 9, i);
+		}
+		IterableQueue<Integer> all = intCube.getNearest(0, 0, 0, Integer.MAX_VALUE);
+		assertEquals(100, all.size());
+		assertEquals(Integer.valueOf(0), all.dequeue());
+	}
+
+	@Test(timeout=500)
+	public void testRadiusBeyondCube() {
+		Cube<Object> objCube = new HashedCube<>(99, 99, 9);
+		objCube.add(0, 0, 0, new Object());
+		objCube.add(99, 99, 9, new Object());
+		assertEquals(2, objCube.getWithinRadius(50, 50, 5, Double.MAX_VALUE).size());
+		assertEquals(2, objCube.getWithinRadius(50, 50, 5, Double.POSITIVE_INFINITY).size());
+	}
+}
@@ -0,0 +1,93 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LockFreeQueueTest {
+	@Test(timeout=500)
+	public void testFifoSingleThread() {
+		IterableQueue<Integer> iq = new LockFreeQueue<>();
+		for (int i = 0; i < 1000; i++) {
+			iq.enqueue(i);
+		}
+		assertEquals(1000, iq.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(Integer.valueOf(i), iq.dequeue());
+		}
+		assertEquals(0, iq.size());
+		try {
+			iq.dequeue();
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testMaximumCapacity() {
+		IterableQueue<Object> iq = new LockFreeQueue<>(3);
+		iq.enqueue(new Object());
+		iq.enqueue(new Object());
+		iq.enqueue(new Object());
+		try {
+			iq.enqueue(new Object());
+			fail();
+		} catch (IllegalStateException e) {}
+		assertEquals(3, iq.size());
+	}
+
+	@Test(timeout=500)
+	public void testIterator() {
+		IterableQueue<Object> iq = new LockFreeQueue<>();
+		Iterator<Object> it = iq.iterator();
+		assertFalse(it.hasNext());
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		iq.enqueue(obj1);
+		iq.enqueue(obj2);
+		assertEquals(obj1, it.next());
+		assertEquals(obj2, it.next());
+		assertFalse(it.hasNext());
+		iq.dequeue();
+		iq.dequeue();
+		try {
+			iq.iterator().next();
+			fail();
+		} catch (NoSuchElementException e) {}
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentProducers() throws InterruptedException {
+		final int producers = 4;
+		final int perProducer = 100000;
+		final IterableQueue<int[]> iq = new LockFreeQueue<>();
+		Thread[] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			final int producer = p;
+			threads[p] = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					iq.enqueue(new int[] {producer, i});
+				}
+			});
+			threads[p].start();
+		}
+		int[] expected = new int[producers];	// Each producer's elements must arrive in order
+		int received = 0;
+		while (received < producers * perProducer) {
+			if (iq.size() == 0) {
+				Thread.yield();
+				continue;
+			}
+			int[] element = iq.dequeue();
+			assertEquals(expected[element[0]]++, element[1]);
+			received++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, iq.size());
+		for (int count : expected) {
+			assertEquals(perProducer, count);
+		}
+	}
+}
@@ -113,4 +113,82 @@ public class MyBoundedCubeTest {
 		objCube.clear();
 		assertNull(objCube.get(2, 1, 1));
 	}
+
+	@Test(timeout=500)
+	public void testGetWithin() {
+		Cube<Object> objCube = new BoundedCube<>(3, 3, 3);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(0, 1, 2, obj1);
+		objCube.add(3, 3, 3, obj2);
+		assertEquals(objCube.getWithin(0, 0, 0, 2, 2, 2).dequeue(), obj1);
+		assertEquals(objCube.getWithin(0, 0, 0, 3, 3, 3).size(), 2);
+		assertNull(objCube.getWithin(1, 1, 1, 2, 2, 2));
+		try {
+			objCube.getWithin(2, 2, 2, 1, 1, 1);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testNearestAndRadius() {
+		Cube<Object> objCube = new BoundedCube<>(9, 9, 9);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(9, 9, 9, obj1);
+		objCube.add(1, 1, 1, obj2);
+		assertEquals(objCube.getNearest(0, 0, 0, 1).dequeue(), obj2);
+		assertEquals(objCube.getNearest(0, 0, 0, 3).size(), 2);
+		assertEquals(objCube.getWithinRadius(9, 9, 8, 1).dequeue(), obj1);
+		assertNull(objCube.getWithinRadius(5, 5, 5, 3));
+	}
+
+	@Test(timeout=2000)
+	public void testRingBufferStorage() {
+		Cube<Object> objCube = new BoundedCube<>(2, 2, 2, 16, 30000);
+		for (int i = 0; i < 30000; ++i) {
+			objCube.add(1, 1, 2, new Object());
+		}
+		try {
+			objCube.add(2, 2, 2, new Object());
+			fail();
+		} catch (IllegalStateException e) {}
+		assertEquals(objCube.getAll(1, 1, 2).size(), 30000);
+		objCube.removeAll(1, 1, 2);
+		assertNull(objCube.getAll(1, 1, 2));
+		objCube.add(2, 2, 2, new Object());
+		assertFalse(objCube.isMultipleElementsAt(2, 2, 2));
+	}
+
+	@Test(timeout=2000)
+	public void testRemoveElement() {
+		Cube<Integer> intCube = new BoundedCube<>(9, 9, 9);
+		for (int i = 0; i < 20000; ++i) {
+			intCube.add(i % 10, i % 7, 1, i);
+		}
+		for (int i = 0; i < 19990; ++i) {
+			assertTrue(intCube.remove(Integer.valueOf(i)));
+		}
+		assertFalse(intCube.remove(Integer.valueOf(0)));
+		assertEquals(intCube.getWithin(0, 0, 0, 9, 9, 9).size(), 10);
+		assertEquals(intCube.get(19990 % 10, 19990 % 7, 1), Integer.valueOf(19990));
+		for (int i = 0; i < 10000; ++i) {
+			intCube.add(1, 1, 1, -i);	// Storage is reused once removed tuples are compacted away
+		}
+		assertTrue(intCube.remove(1, 1, 1, -5));
+		assertFalse(intCube.remove(2, 2, 1, -6));
+		assertEquals(intCube.getAll(1, 1, 1).size(), 9999);
+		for (int i = 0; i < 3; ++i) {
+			intCube.add(3, 3, 3, 7);	// The same element placed more than once
+			intCube.add(4, 4, 4, 7);
+		}
+		assertTrue(intCube.remove(3, 3, 3, 7));
+		assertNull(intCube.get(3, 3, 3));
+		assertEquals(intCube.getAll(4, 4, 4).size(), 3);
+		intCube.add(5, 5, 5, 7);
+		assertTrue(intCube.remove(Integer.valueOf(7)));
+		assertNull(intCube.get(4, 4, 4));
+		assertNull(intCube.get(5, 5, 5));
+		assertFalse(intCube.remove(Integer.valueOf(7)));
+	}
 }
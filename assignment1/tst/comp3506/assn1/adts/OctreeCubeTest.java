@@ -0,0 +1,205 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OctreeCubeTest {
+	@Test(timeout=500)
+	@SuppressWarnings("unused")
+	public void testInvalidConstructor() {
+		try {
+			Cube<Object> objCube = new OctreeCube<>(3, 0, 5);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testGetKeepsInsertionOrder() {
+		Cube<Object> objCube = new OctreeCube<>(5, 5, 5);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(5, 5, 5, obj1);
+		objCube.add(5, 5, 5, obj2);
+		assertEquals(obj1, objCube.get(5, 5, 5));
+		assertTrue(objCube.isMultipleElementsAt(5, 5, 5));
+		assertFalse(objCube.isMultipleElementsAt(0, 0, 0));
+		IterableQueue<Object> objQueue = objCube.getAll(5, 5, 5);
+		assertEquals(obj1, objQueue.dequeue());
+		assertEquals(obj2, objQueue.dequeue());
+		assertNull(objCube.getAll(4, 5, 5));
+	}
+
+	@Test(timeout=500)
+	public void testSplitAndRemove() {
+		Cube<Integer> intCube = new OctreeCube<>(63, 63, 3);
+		for (int i = 0; i < 64; i++) {
+			intCube.add(i, 63 - i, i % 4, i);
+		}
+		for (int i = 0; i < 64; i++) {
+			assertEquals(Integer.valueOf(i), intCube.get(i, 63 - i, i % 4));
+		}
+		for (int i = 0; i < 64; i += 2) {
+			assertTrue(intCube.remove(i, 63 - i, i % 4, i));
+		}
+		assertFalse(intCube.remove(0, 63, 0, 0));
+		for (int i = 1; i < 64; i += 2) {
+			intCube.removeAll(i, 63 - i, i % 4);
+		}
+		assertNull(intCube.getWithin(0, 0, 0, 63, 63, 3));
+		intCube.add(1, 1, 1, 1);
+		assertEquals(Integer.valueOf(1), intCube.get(1, 1, 1));
+	}
+
+	@Test(timeout=2000)
+	public void testGetWithinMatchesBoundedCube() {
+		Random random = new Random(3506);
+		Cube<Integer> octree = new OctreeCube<>(200, 100, 35);
+		Cube<Integer> bounded = new BoundedCube<>(200, 100, 35);
+		for (int i = 0; i < 5000; i++) {
+			int x = random.nextInt(201);
+			int y = random.nextInt(101);
+			int z = random.nextInt(36);
+			octree.add(x, y, z, i);
+			bounded.add(x, y, z, i);
+		}
+		for (int i = 0; i < 200; i++) {
+			int x1 = random.nextInt(201);
+			int y1 = random.nextInt(101);
+			int z1 = random.nextInt(36);
+			int x2 = x1 + random.nextInt(201 - x1);
+			int y2 = y1 + random.nextInt(101 - y1);
+			int z2 = z1 + random.nextInt(36 - z1);
+			assertEquals(count(bounded.getWithin(x1, y1, z1, x2, y2, z2)),
+					count(octree.getWithin(x1, y1, z1, x2, y2, z2)));
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testNearestAndRadiusMatchBoundedCube() {
+		Random random = new Random(3506);
+		Cube<Integer> octree = new OctreeCube<>(300, 200, 35);
+		Cube<Integer> bounded = new BoundedCube<>(300, 200, 35);
+		int[][] coords = new int[3000][];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = new int[] {random.nextInt(301), random.nextInt(201), random.nextInt(36)};
+			octree.add(coords[i][0], coords[i][1], coords[i][2], i);
+			bounded.add(coords[i][0], coords[i][1], coords[i][2], i);
+		}
+		for (int i = 0; i < 200; i++) {
+			int x = random.nextInt(301);
+			int y = random.nextInt(201);
+			int z = random.nextInt(36);
+			assertEquals(distances(bounded.getNearest(x, y, z, 10), coords, x, y, z),
+					distances(octree.getNearest(x, y, z, 10), coords, x, y, z));
+			assertEquals(count(bounded.getWithinRadius(x, y, z, 12.5)),
+					count(octree.getWithinRadius(x, y, z, 12.5)));
+		}
+	}
+
+	@Test(timeout=500)
+	public void testNearestOrder() {
+		Cube<Object> objCube = new OctreeCube<>(99, 99, 9);
+		Object near = new Object();
+		Object middle = new Object();
+		Object far = new Object();
+		objCube.add(90, 90, 9, far);
+		objCube.add(10, 10, 1, near);
+		objCube.add(20, 20, 2, middle);
+		IterableQueue<Object> nearest = objCube.getNearest(0, 0, 0, 2);
+		assertEquals(2, nearest.size());
+		assertEquals(near, nearest.dequeue());
+		assertEquals(middle, nearest.dequeue());
+		assertEquals(3, objCube.getNearest(50, 50, 5, 5).size());
+		assertNull(objCube.getWithinRadius(0, 0, 0, 14.0));
+		assertEquals(near, objCube.getWithinRadius(0, 0, 0, 14.2).dequeue());
+		objCube.clear();
+		assertNull(objCube.getNearest(0, 0, 0, 1));
+		try {
+			objCube.getNearest(0, 0, 0, 0);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testInvalidBox() {
+		Cube<Object> objCube = new OctreeCube<>(5, 5, 5);
+		try {
+			objCube.getWithin(0, 0, 0, 6, 5, 5);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		try {
+			objCube.getWithin(3, 0, 0, 2, 5, 5);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	/**
+	 * Distances are compared rather than elements, since elements at the same distance may be
+	 * returned in any order.
+	 */
+	private static String distances(IterableQueue<Integer> queue, int[][] coords, int x, int y, int z) {
+		StringBuilder sb = new StringBuilder();
+		for (Integer i : queue) {
+			long dx = coords[i][0] - x;
+			long dy = coords[i][1] - y;
+			long dz = coords[i][2] - z;
+			sb.append(dx * dx + dy * dy + dz * dz).append(',');
+		}
+		return sb.toString();
+	}
+
+	private static long count(IterableQueue<Integer> queue) {
+		if (queue == null) {
+			return 0;
+		}
+		long sum = 0;
+		for (Integer i : queue) {
+			sum += i + 1;	// Checksum of the elements found, not just their number
+		}
+		return sum;
+	}
+
+	@Test(timeout=500)
+	public void testRemoveElement() {
+		Cube<Object> objCube = new OctreeCube<>(99, 99, 9);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(1, 2, 3, obj1);
+		objCube.add(1, 2, 3, obj2);
+		objCube.add(90, 90, 9, obj1);
+		assertTrue(objCube.remove(obj1));
+		assertFalse(objCube.remove(obj1));
+		assertEquals(obj2, objCube.get(1, 2, 3));
+		assertFalse(objCube.isMultipleElementsAt(1, 2, 3));
+		assertNull(objCube.get(90, 90, 9));
+		assertTrue(objCube.remove(obj2));
+		assertNull(objCube.getNearest(0, 0, 0, 1));
+	}
+
+	@Test(timeout=500)
+	public void testRemoveDuplicates() {
+		Cube<String> strCube = new OctreeCube<>(99, 99, 9);
+		strCube.add(1, 2, 3, "a");
+		strCube.add(1, 2, 3, "b");
+		strCube.add(1, 2, 3, new String("a"));
+		strCube.add(4, 5, 6, "a");
+		strCube.add(4, 5, 6, "a");
+		strCube.add(7, 8, 9, "a");
+		assertTrue(strCube.remove(1, 2, 3, "a"));
+		assertEquals(1, strCube.getAll(1, 2, 3).size());
+		assertEquals("b", strCube.get(1, 2, 3));
+		assertTrue(strCube.remove("a"));
+		assertNull(strCube.get(4, 5, 6));
+		assertNull(strCube.get(7, 8, 9));
+		assertFalse(strCube.remove("a"));
+		assertFalse(strCube.remove(1, 2, 3, "a"));
+		strCube.add(7, 8, 9, "a");
+		strCube.removeAll(7, 8, 9);
+		assertFalse(strCube.remove("a"));
+		assertTrue(strCube.remove("b"));
+		assertNull(strCube.getWithin(0, 0, 0, 99, 99, 9));
+	}
+}
@@ -0,0 +1,101 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class RingBufferQueueTest {
+	@Test(timeout=500)
+	@SuppressWarnings("unused")
+	public void testInvalidConstructor() {
+		try {
+			IterableQueue<Object> iq = new RingBufferQueue<>(0, 10);
+			fail();
+		} catch (IllegalArgumentException e) {}
+		try {
+			IterableQueue<Object> iq = new RingBufferQueue<>(20, 10);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=2000)
+	public void testGrowthKeepsOrder() {
+		IterableQueue<Integer> iq = new RingBufferQueue<>(2, 100000);
+		for (int i = 0; i < 100000; i++) {
+			iq.enqueue(i);
+			if (i % 3 == 0) {
+				assertEquals(Integer.valueOf(i / 3), iq.dequeue());	// Keep the head moving while growing
+			}
+		}
+		int expected = 33334;
+		for (Integer i : iq) {
+			assertEquals(Integer.valueOf(expected++), i);
+		}
+		assertEquals(100000, expected);
+		assertEquals(100000 - 33334, iq.size());
+	}
+
+	@Test(timeout=500)
+	public void testMaximumCapacity() {
+		IterableQueue<Object> iq = new RingBufferQueue<>(4, 5);
+		for (int i = 0; i < 5; i++) {
+			iq.enqueue(new Object());
+		}
+		try {
+			iq.enqueue(new Object());
+			fail();
+		} catch (IllegalStateException e) {}
+		iq.dequeue();
+		iq.enqueue(new Object());
+		assertEquals(5, iq.size());
+	}
+
+	@Test(timeout=500)
+	public void testIteratorBasic() {
+		IterableQueue<Object> iq = new RingBufferQueue<>();
+		Iterator<Object> it = iq.iterator();
+		assertFalse(it.hasNext());
+		Object obj = new Object();
+		iq.enqueue(obj);
+		assertTrue(it.hasNext());
+		assertEquals(obj, it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test(timeout=500)
+	public void testIteratorSkipsDequeued() {
+		IterableQueue<Object> iq = new RingBufferQueue<>(2, 10);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		Object obj3 = new Object();
+		Object obj4 = new Object();
+		iq.enqueue(obj1);
+		iq.enqueue(obj2);
+		Iterator<Object> it = iq.iterator();
+		assertEquals(obj1, it.next());
+		iq.enqueue(obj3);	// Grows the array underneath the iterator
+		iq.dequeue();
+		iq.dequeue();
+		iq.enqueue(obj4);
+		assertEquals(obj3, it.next());
+		assertEquals(obj4, it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test(timeout=500)
+	public void testExceptions() {
+		IterableQueue<Object> iq = new RingBufferQueue<>();
+		try {
+			iq.dequeue();
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+		iq.enqueue(new Object());
+		Iterator<Object> it = iq.iterator();
+		iq.dequeue();
+		try {
+			it.next();
+			fail();
+		} catch (NoSuchElementException e) {}
+	}
+}
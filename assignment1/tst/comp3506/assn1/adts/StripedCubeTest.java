@@ -0,0 +1,256 @@
+package comp3506.assn1.adts;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StripedCubeTest {
+	@Test(timeout=500)
+	@SuppressWarnings("unused")
+	public void testInvalidConstructor() {
+		try {
+			Cube<Object> objCube = new StripedCube<>(0, 3, 5);
+			fail();
+		} catch (IllegalArgumentException e) {}
+		try {
+			Cube<Object> objCube = new StripedCube<>(3, 3, 5, 0);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+
+	@Test(timeout=500)
+	public void testSingleThreaded() {
+		Cube<Object> objCube = new StripedCube<>(99, 99, 9, 8);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		Object obj3 = new Object();
+		objCube.add(1, 2, 3, obj1);
+		objCube.add(1, 2, 3, obj2);
+		objCube.add(90, 90, 9, obj3);
+		assertEquals(obj1, objCube.get(1, 2, 3));
+		assertTrue(objCube.isMultipleElementsAt(1, 2, 3));
+		assertFalse(objCube.isMultipleElementsAt(90, 90, 9));
+		assertNull(objCube.get(50, 50, 5));
+		assertEquals(2, objCube.getAll(1, 2, 3).size());
+		assertEquals(3, objCube.getWithin(0, 0, 0, 99, 99, 9).size());
+		assertNull(objCube.getWithin(2, 2, 2, 89, 89, 9));
+		IterableQueue<Object> nearest = objCube.getNearest(99, 99, 9, 1);
+		assertEquals(obj3, nearest.dequeue());
+		assertEquals(3, objCube.getNearest(50, 50, 5, 5).size());
+		assertEquals(obj3, objCube.getWithinRadius(95, 95, 9, 8).dequeue());
+		assertTrue(objCube.remove(1, 2, 3, obj1));
+		assertFalse(objCube.remove(1, 2, 3, obj1));
+		objCube.removeAll(1, 2, 3);
+		assertNull(objCube.get(1, 2, 3));
+		objCube.clear();
+		assertNull(objCube.getNearest(0, 0, 0, 1));
+		try {
+			objCube.add(100, 0, 0, obj1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {}
+	}
+
+	@Test(timeout=2000)
+	public void testQueriesMatchBoundedCube() {
+		Random random = new Random(3506);
+		Cube<Integer> striped = new StripedCube<>(200, 200, 20, 16);
+		Cube<Integer> bounded = new BoundedCube<>(200, 200, 20);
+		int[][] coords = new int[2000][];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = new int[] {random.nextInt(201), random.nextInt(201), random.nextInt(21)};
+			striped.add(coords[i][0], coords[i][1], coords[i][2], i);
+			bounded.add(coords[i][0], coords[i][1], coords[i][2], i);
+		}
+		for (int i = 0; i < 100; i++) {
+			int x = random.nextInt(201);
+			int y = random.nextInt(201);
+			int z = random.nextInt(21);
+			assertEquals(distances(bounded.getNearest(x, y, z, 10), coords, x, y, z),
+					distances(striped.getNearest(x, y, z, 10), coords, x, y, z));
+			assertEquals(count(bounded.getWithinRadius(x, y, z, 30)),
+					count(striped.getWithinRadius(x, y, z, 30)));
+			assertEquals(count(bounded.getWithin(0, y / 2, 0, x, y, z)),
+					count(striped.getWithin(0, y / 2, 0, x, y, z)));
+		}
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentAddKeepsPerThreadOrder() throws InterruptedException {
+		final Cube<Integer> intCube = new StripedCube<>(999, 999, 9);
+		final int threads = 8;
+		final int perThread = 5000;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					intCube.add(5, 5, 5, id * perThread + i);
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		IterableQueue<Integer> all = intCube.getAll(5, 5, 5);
+		assertEquals(threads * perThread, all.size());
+		int[] last = new int[threads];
+		for (int t = 0; t < threads; t++) {
+			last[t] = -1;
+		}
+		for (Integer value : all) {
+			int t = value / perThread;
+			assertTrue(value % perThread > last[t]);
+			last[t] = value % perThread;
+		}
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentAddRemoveWithReaders() throws InterruptedException {
+		final Cube<Integer> intCube = new StripedCube<>(999, 999, 9, 4);
+		final int writers = 4;
+		final int readers = 4;
+		final int perThread = 20000;
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] writerThreads = new Thread[writers];
+		for (int t = 0; t < writers; t++) {
+			final int id = t;
+			writerThreads[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					Integer value = id * perThread + i;
+					intCube.add(i % 16, i % 16, 1, value);
+					if (!intCube.remove(i % 16, i % 16, 1, value)) {
+						failures.incrementAndGet();
+					}
+				}
+			});
+		}
+		Thread[] readerThreads = new Thread[readers];
+		for (int t = 0; t < readers; t++) {
+			readerThreads[t] = new Thread(() -> {
+				while (writing.get()) {
+					IterableQueue<Integer> all = intCube.getWithin(0, 0, 0, 15, 15, 1);
+					if (all != null && all.size() > writers) {
+						failures.incrementAndGet();		// Each writer holds at most one element at a time
+					}
+					intCube.getNearest(8, 8, 1, 2);
+				}
+			});
+			readerThreads[t].start();
+		}
+		for (Thread writer : writerThreads) {
+			writer.start();
+		}
+		for (Thread writer : writerThreads) {
+			writer.join();
+		}
+		writing.set(false);
+		for (Thread reader : readerThreads) {
+			reader.join();
+		}
+		assertEquals(0, failures.get());
+		assertNull(intCube.getWithin(0, 0, 0, 999, 999, 9));
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentAddAcrossRegions() throws InterruptedException {
+		final Cube<Integer> intCube = new StripedCube<>(511, 511, 9, 32);
+		final int threads = 8;
+		final int perThread = 10000;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					intCube.add((i * 7 + id) % 512, (i * 13) % 512, i % 10, id * perThread + i);
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertEquals(threads * perThread, intCube.getWithin(0, 0, 0, 511, 511, 9).size());
+	}
+
+	/**
+	 * Distances are compared rather than elements, since elements at the same distance may be
+	 * returned in any order.
+	 */
+	private static String distances(IterableQueue<Integer> queue, int[][] coords, int x, int y, int z) {
+		StringBuilder sb = new StringBuilder();
+		for (Integer i : queue) {
+			long dx = coords[i][0] - x;
+			long dy = coords[i][1] - y;
+			long dz = coords[i][2] - z;
+			sb.append(dx * dx + dy * dy + dz * dz).append(',');
+		}
+		return sb.toString();
+	}
+
+	private static long count(IterableQueue<Integer> queue) {
+		if (queue == null) {
+			return 0;
+		}
+		long sum = 0;
+		for (Integer i : queue) {
+			sum += i + 1;	// Checksum of the elements found, not just their number
+		}
+		return sum;
+	}
+
+	@Test(timeout=500)
+	public void testRemoveElement() {
+		Cube<Object> objCube = new StripedCube<>(99, 99, 9);
+		Object obj1 = new Object();
+		Object obj2 = new Object();
+		objCube.add(1, 2, 3, obj1);
+		objCube.add(1, 2, 3, obj2);
+		objCube.add(90, 90, 9, obj1);
+		assertTrue(objCube.remove(obj1));
+		assertFalse(objCube.remove(obj1));
+		assertEquals(obj2, objCube.get(1, 2, 3));
+		assertFalse(objCube.isMultipleElementsAt(1, 2, 3));
+		assertNull(objCube.get(90, 90, 9));
+		assertTrue(objCube.remove(obj2));
+		assertNull(objCube.getNearest(0, 0, 0, 1));
+	}
+
+	@Test(timeout=500)
+	public void testRemoveDuplicates() {
+		Cube<String> strCube = new StripedCube<>(99, 99, 9);
+		strCube.add(1, 2, 3, "a");
+		strCube.add(1, 2, 3, "b");
+		strCube.add(1, 2, 3, new String("a"));
+		strCube.add(4, 5, 6, "a");
+		strCube.add(4, 5, 6, "a");
+		strCube.add(7, 8, 9, "a");
+		assertTrue(strCube.remove(1, 2, 3, "a"));
+		assertEquals(1, strCube.getAll(1, 2, 3).size());
+		assertEquals("b", strCube.get(1, 2, 3));
+		assertTrue(strCube.remove("a"));
+		assertNull(strCube.get(4, 5, 6));
+		assertNull(strCube.get(7, 8, 9));
+		assertFalse(strCube.remove("a"));
+		assertFalse(strCube.remove(1, 2, 3, "a"));
+		strCube.add(7, 8, 9, "a");
+		strCube.removeAll(7, 8, 9);
+		assertFalse(strCube.remove("a"));
+		assertTrue(strCube.remove("b"));
+		assertNull(strCube.getWithin(0, 0, 0, 99, 99, 9));
+	}
+
+	@Test(timeout=500)
+	public void testRadiusBeyondCube() {
+		Cube<Object> objCube = new StripedCube<>(99, 99, 9);
+		objCube.add(0, 0, 0, new Object());
+		objCube.add(99, 99, 9, new Object());
+		assertEquals(2, objCube.getWithinRadius(50, 50, 5, Double.MAX_VALUE).size());
+		assertEquals(2, objCube.getWithinRadius(50, 50, 5, Double.POSITIVE_INFINITY).size());
+	}
+}
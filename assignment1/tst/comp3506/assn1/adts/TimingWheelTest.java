@@ -0,0 +1,95 @@
+package comp3506.assn1.adts;
+
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class TimingWheelTest {
+	@Test(timeout=500)
+	public void testExpiresAtDeadline() {
+		TimingWheel<String> wheel = new TimingWheel<>(0);
+		wheel.schedule("a", 5);
+		wheel.schedule("b", 70);
+		assertEquals(2, wheel.size());
+		assertNull(wheel.advance(4));
+		IterableQueue<String> expired = wheel.advance(5);
+		assertEquals(1, expired.size());
+		assertEquals("a", expired.dequeue());
+		assertNull(wheel.advance(69));
+		assertEquals("b", wheel.advance(70).dequeue());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test(timeout=500)
+	public void testPastDeadlineExpiresAtNextTick() {
+		TimingWheel<String> wheel = new TimingWheel<>(100);
+		wheel.schedule("a", 3);
+		assertNull(wheel.advance(100));
+		assertEquals("a", wheel.advance(101).dequeue());
+	}
+
+	@Test(timeout=500)
+	public void testRescheduleAndCancel() {
+		TimingWheel<String> wheel = new TimingWheel<>(0);
+		TimingWheel.Timer<String> a = wheel.schedule("a", 10);
+		TimingWheel.Timer<String> b = wheel.schedule("b", 10);
+		wheel.reschedule(a, 5000);
+		assertTrue(wheel.cancel(b));
+		assertFalse(wheel.cancel(b));
+		assertFalse(b.isScheduled());
+		assertNull(wheel.advance(4999));
+		assertEquals(1, wheel.size());
+		assertEquals("a", wheel.advance(5000).dequeue());
+		assertFalse(a.isScheduled());
+		wheel.reschedule(a, 6000);
+		assertEquals(1, wheel.size());
+		assertEquals("a", wheel.advance(7000).dequeue());
+	}
+
+	@Test(timeout=500)
+	public void testDeadlineBeyondSpan() {
+		TimingWheel<String> wheel = new TimingWheel<>(0);
+		long deadline = (1L << 30) + 12345;
+		wheel.schedule("far", deadline);
+		assertNull(wheel.advance(deadline - 1));
+		assertEquals("far", wheel.advance(deadline).dequeue());
+	}
+
+	@Test(timeout=5000)
+	public void testRandomDeadlinesExpireExactly() {
+		Random random = new Random(3506);
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		for (int i = 0; i < 20000; i++) {
+			long deadline = 1 + random.nextInt(1 << 20);
+			wheel.schedule(deadline, deadline);
+		}
+		long now = 0;
+		int expiredCount = 0;
+		while (wheel.size() > 0) {
+			now += 1 + random.nextInt(300);
+			IterableQueue<Long> expired = wheel.advance(now);
+			if (expired != null) {
+				for (Long deadline : expired) {
+					assertTrue(deadline <= now);
+					assertTrue(deadline > now - 301);
+					expiredCount++;
+				}
+			}
+		}
+		assertEquals(20000, expiredCount);
+	}
+
+	@Test(timeout=500)
+	public void testAdvanceSingleTicks() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(-7);
+		for (int i = 1; i <= 5000; i++) {
+			wheel.schedule(i, i - 7);
+		}
+		for (int tick = -6; tick <= 4993; tick++) {
+			IterableQueue<Integer> expired = wheel.advance(tick);
+			assertEquals(1, expired.size());
+			assertEquals(Integer.valueOf(tick + 7), expired.dequeue());
+		}
+		assertEquals(0, wheel.size());
+	}
+}
@@ -0,0 +1,124 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import comp3506.assn1.adts.HashedCube;
+
+public class AirSpaceCheckpointTest {
+	private static Aircraft aircraftAt(String id, double x, double y, int altitude, int speed, double course) {
+		Aircraft aircraft = new Aircraft(id, (int) Math.floor(x), (int) Math.floor(y), altitude, speed, course);
+		aircraft.restorePosition(x, y);
+		return aircraft;
+	}
+
+	private static Path checkpointOf(Aircraft... aircraft) throws IOException {
+		AirSpace airSpace = new AirSpace(100, 80, 20, new HashedCube<Aircraft>(100, 80, 20));
+		for (Aircraft a : aircraft) {
+			airSpace.addAircraft(a);
+		}
+		Path file = Files.createTempFile("airspace", ".ckpt");
+		AirSpaceCheckpoint.write(airSpace, file);
+		return file;
+	}
+
+	@Test(timeout=2000)
+	public void testRoundTrip() throws IOException {
+		Aircraft[] written = {
+			aircraftAt("QF1", 10.25, 20.75, 1000, 250, 90),
+			aircraftAt("qf1", 10.5, 20.5, 1000, 240, 45.5),		// Same id in another case, same cell
+			aircraftAt("\u00C5lesund-7", 99.99, 0.01, 19999, 0, 359.9)
+		};
+		Path file = checkpointOf(written);
+		try {
+			AirSpace loaded = AirSpaceCheckpoint.load(file);
+			assertEquals(100, loaded.getLength());
+			assertEquals(80, loaded.getBreadth());
+			assertEquals(20, loaded.getHeight());
+			assertEquals(written.length, loaded.getNumAircraft());
+			for (int i = 0; i < written.length; i++) {
+				Aircraft a = loaded.getTrackedAircraft(i);
+				assertEquals(written[i].getId(), a.getId());
+				assertEquals(written[i].getAirSpaceXCoord(), a.getAirSpaceXCoord());
+				assertEquals(written[i].getAirSpaceYCoord(), a.getAirSpaceYCoord());
+				assertEquals(written[i].getAltitude(), a.getAltitude());
+				assertEquals(written[i].getSpeed(), a.getSpeed());
+				assertEquals(written[i].getCourse(), a.getCourse(), 0);
+				assertEquals(written[i].getXPosition(), a.getXPosition(), 0);
+				assertEquals(written[i].getYPosition(), a.getYPosition(), 0);
+			}
+			assertEquals("\u00C5lesund-7", loaded.findAircraft("\u00E5lesund-7").getId());
+			assertEquals("qf1", loaded.findAircraft("QF1").getId());	// The later of the two
+			assertEquals(2, loaded.getNumAircraftAtFlightLevel(1000));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testEmptyAirSpace() throws IOException {
+		Path file = checkpointOf();
+		try {
+			assertEquals(0, AirSpaceCheckpoint.load(file).getNumAircraft());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testTruncatedCheckpoint() throws IOException {
+		Path file = checkpointOf(aircraftAt("QF1", 10.5, 20.5, 1000, 250, 90), aircraftAt("QF2", 30.5, 40.5, 2000, 250, 90));
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.setLength(raf.length() - 2);
+			}
+			assertNotLoaded(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testCorruptAircraftCountIsBoundedByFileSize() throws IOException {
+		Path file = checkpointOf(aircraftAt("QF1", 10.5, 20.5, 1000, 250, 90));
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.seek(5 * Integer.BYTES);
+				raf.writeInt(Integer.MAX_VALUE);	// Would size the batch at 2^31 - 1 aircraft
+			}
+			assertNotLoaded(file);
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.seek(5 * Integer.BYTES);
+				raf.writeInt(-1);
+			}
+			assertNotLoaded(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testNotACheckpoint() throws IOException {
+		Path file = Files.createTempFile("airspace", ".ckpt");
+		try {
+			assertNotLoaded(file);
+			Files.write(file, new byte[64]);
+			assertNotLoaded(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertNotLoaded(Path file) {
+		try {
+			AirSpaceCheckpoint.load(file);
+			fail();
+		} catch (IOException expected) {
+		}
+	}
+}
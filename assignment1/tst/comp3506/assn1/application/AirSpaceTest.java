@@ -0,0 +1,167 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+public class AirSpaceTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	@Test(timeout=500)
+	public void testExpiryFollowsSwappedSlots() throws InterruptedException {
+		AirSpace airSpace = newAirSpace();
+		Aircraft first = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		Aircraft second = new Aircraft("QF2", 2, 2, 1000, 200, 0);
+		Aircraft third = new Aircraft("QF3", 3, 3, 1000, 200, 0);
+		airSpace.addAircraft(first);
+		airSpace.addAircraft(second);
+		airSpace.addAircraft(third);
+		airSpace.setTimeToLive(50, TimeUnit.MILLISECONDS);
+		assertTrue(airSpace.removeAircraft(first));		// Moves the third aircraft into the first slot
+		Thread.sleep(100);
+		airSpace.addAircraft(second);	// Placed again, so it lives on
+		assertEquals(1, airSpace.expireAircraft());
+		assertEquals(1, airSpace.getNumAircraft());
+		assertSame(second, airSpace.findAircraft("QF2"));
+		assertNull(airSpace.findAircraft("QF3"));
+		assertEquals(0, airSpace.expireAircraft());
+		assertEquals(1, airSpace.getNumExpired());
+	}
+
+	@Test(timeout=500)
+	public void testFindAircraftKeepsOtherPlacementsOfAnId() {
+		AirSpace airSpace = newAirSpace();
+		Aircraft older = new Aircraft("QF1", 10, 10, 1000, 200, 0);
+		Aircraft newer = new Aircraft("qf1", 99, 10, 1000, 300, 90);
+		airSpace.addAircraft(older);
+		airSpace.addAircraft(newer);
+		assertSame(newer, airSpace.findAircraft("Qf1"));
+		newer.move(10);		// 3 km east, out of the airspace
+		assertFalse(airSpace.moveAircraft(newer, 99, 10));
+		assertSame(older, airSpace.findAircraft("QF1"));
+		assertEquals(1, airSpace.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testFindAircraftWithPrefix() {
+		AirSpace airSpace = newAirSpace();
+		Aircraft qf2 = new Aircraft("QF2", 1, 1, 1000, 200, 0);
+		Aircraft qf10 = new Aircraft("qf10", 2, 2, 1000, 200, 0);
+		Aircraft qf1 = new Aircraft("QF1", 3, 3, 1000, 200, 0);
+		Aircraft latestQf1 = new Aircraft("Qf1", 4, 4, 1000, 200, 0);
+		airSpace.addAircraft(qf2);
+		airSpace.addAircraft(qf10);
+		airSpace.addAircraft(qf1);
+		airSpace.addAircraft(latestQf1);
+		airSpace.addAircraft(new Aircraft("QA1", 5, 5, 1000, 200, 0));
+		IterableQueue<Aircraft> found = airSpace.findAircraftWithPrefix("qF");
+		assertEquals(3, found.size());
+		assertSame(latestQf1, found.dequeue());
+		assertSame(qf10, found.dequeue());
+		assertSame(qf2, found.dequeue());
+		assertEquals(4, airSpace.findAircraftWithPrefix("").size());	// One per id
+		assertNull(airSpace.findAircraftWithPrefix("QX"));
+	}
+
+	@Test(timeout=500)
+	public void testRemoveAircraftUntracksEveryPlacementOfItsId() {
+		AirSpace airSpace = newAirSpace();
+		Aircraft older = new Aircraft("QF1", 10, 10, 1000, 200, 0);
+		Aircraft newer = new Aircraft("qf1", 20, 20, 2000, 200, 0);
+		Aircraft other = new Aircraft("QF2", 10, 10, 1000, 200, 0);
+		airSpace.addAircraft(older);
+		airSpace.addAircraft(newer);
+		airSpace.addAircraft(other);
+		assertTrue(airSpace.removeAircraft(older));		// The cube drops the newer update too
+		assertEquals(1, airSpace.getNumAircraft());
+		assertSame(other, airSpace.getTrackedAircraft(0));
+		assertNull(airSpace.findAircraft("QF1"));
+		assertNull(airSpace.getNearestAircraft(other, 5));
+		assertFalse(airSpace.removeAircraft(newer));
+		assertEquals(1, airSpace.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testMovingAnUpdateOutKeepsCellOrder() {
+		HashedCube<Aircraft> cube = new HashedCube<Aircraft>(100, 100, 20);
+		AirSpace airSpace = new AirSpace(100, 100, 20, cube);
+		Aircraft older = new Aircraft("QF1", 10, 10, 1000, 300, 90);
+		Aircraft newer = new Aircraft("qf1", 10, 10, 1000, 200, 0);
+		Aircraft other = new Aircraft("QF2", 10, 10, 1000, 200, 0);
+		airSpace.addAircraft(older);
+		airSpace.addAircraft(newer);
+		airSpace.addAircraft(other);
+		older.move(10);		// 3 km east
+		assertTrue(airSpace.moveAircraft(older, 10, 10));
+		IterableQueue<Aircraft> cell = cube.getAll(10, 10, 1);
+		assertEquals(2, cell.size());
+		assertSame(newer, cell.dequeue());		// Still the oldest left in the cell
+		assertSame(other, cell.dequeue());
+		assertSame(older, cube.get(13, 10, 1));
+		assertEquals(3, airSpace.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testAircraftPlacedInAnotherAirSpace() {
+		Aircraft aircraft = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		newAirSpace().addAircraft(aircraft);
+		AirSpace other = newAirSpace();
+		try {
+			other.addAircraft(aircraft);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		assertEquals(0, other.getNumAircraft());
+		assertNull(other.getNearestAircraft(new Aircraft("QF2", 1, 1, 1000, 200, 0), 1));
+		other.addAircraft(aircraft.copy());
+		assertEquals(1, other.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testAircraftOutsideAirSpaceIsNotTracked() {
+		AirSpace airSpace = newAirSpace();
+		airSpace.setTimeToLive(1, TimeUnit.MINUTES);
+		try {
+			airSpace.addAircraft(new Aircraft("QF1", 1, 1, 25000, 200, 0));
+			fail();
+		} catch (IndexOutOfBoundsException expected) {
+		}
+		assertEquals(0, airSpace.getNumAircraft());
+		assertNull(airSpace.findAircraft("QF1"));
+		IterableQueue<Aircraft> batch = new RingBufferQueue<Aircraft>();
+		Aircraft inside = new Aircraft("QF2", 2, 2, 1000, 200, 0);
+		batch.enqueue(inside);
+		batch.enqueue(new Aircraft("QF3", 101, 2, 1000, 200, 0));
+		batch.enqueue(new Aircraft("QF4", 3, 3, 1000, 200, 0));
+		try {
+			airSpace.addAircraft(batch);
+			fail();
+		} catch (IndexOutOfBoundsException expected) {
+		}
+		assertEquals(1, airSpace.getNumAircraft());		// Only the aircraft before the rejected one
+		assertSame(inside, airSpace.findAircraft("QF2"));
+		assertNull(airSpace.findAircraft("QF4"));
+		assertTrue(airSpace.removeAircraft(inside));
+		assertEquals(0, airSpace.getNumAircraftInBand(0, 20000));
+	}
+
+	@Test(timeout=500)
+	public void testNearestAircraftWithLargestK() {
+		AirSpace airSpace = newAirSpace();
+		Aircraft aircraft = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		assertNull(airSpace.getNearestAircraft(aircraft, Integer.MAX_VALUE));
+		airSpace.addAircraft(aircraft);
+		airSpace.addAircraft(new Aircraft("QF2", 5, 5, 1000, 200, 0));
+		airSpace.addAircraft(new Aircraft("QF3", 50, 50, 1000, 200, 0));
+		IterableQueue<Aircraft> nearest = airSpace.getNearestAircraft(aircraft, Integer.MAX_VALUE);
+		assertEquals(2, nearest.size());
+		assertEquals("QF2", nearest.dequeue().getId());
+	}
+}
@@ -0,0 +1,247 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+
+public class AirTrafficTrackerTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	@Test(timeout=500)
+	public void testBatchDrainPlacesUpToMaxAircraft() {
+		AirSpace airSpace = newAirSpace();
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		Aircraft first = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		Aircraft second = new Aircraft("QF2", 1, 1, 1000, 200, 0);
+		tracker.newAircraft(first);
+		tracker.newAircraft(second);
+		tracker.newAircraft(new Aircraft("QF3", 2, 2, 2000, 200, 0));
+		tracker.newAircraft(new Aircraft("QF4", 3, 3, 3000, 200, 0));
+		tracker.newAircraft(new Aircraft("QF5", 4, 4, 4000, 200, 0));
+		RadarBatch batch = tracker.processRadarQueue(3);
+		assertEquals(3, batch.getNumPlaced());
+		assertEquals(1, batch.getConflicts().size());
+		assertSame(second, batch.getConflicts().dequeue());
+		assertEquals(2, tracker.getRadarQueueSize());
+		assertEquals(3, airSpace.getNumAircraft());
+		assertSame(first, tracker.findPlacedAircraft("qf1"));
+		assertNull(tracker.findQueuedAircraft("QF1"));
+		assertNotNull(tracker.findQueuedAircraft("QF4"));
+		batch = tracker.processRadarQueue(10);
+		assertEquals(2, batch.getNumPlaced());
+		assertEquals(0, batch.getConflicts().size());
+		assertEquals(0, tracker.getRadarQueueSize());
+		assertEquals(5, airSpace.getNumAircraft());
+		batch = tracker.processRadarQueue(10);
+		assertEquals(0, batch.getNumPlaced());
+		assertEquals(0, batch.getConflicts().size());
+	}
+
+	@Test(timeout=500)
+	public void testBatchDrainMatchesOneAtATime() {
+		AirSpace batched = newAirSpace();
+		AirSpace single = newAirSpace();
+		AirTrafficTracker batchTracker = new AirTrafficTracker(batched);
+		AirTrafficTracker singleTracker = new AirTrafficTracker(single);
+		int conflicts = 0;
+		for (int i = 0; i < 50; i++) {
+			batchTracker.newAircraft(new Aircraft("VH" + i, i % 4, i % 3, 1000, 200, 0));
+			singleTracker.newAircraft(new Aircraft("VH" + i, i % 4, i % 3, 1000, 200, 0));
+		}
+		IterableQueue<Aircraft> batchConflicts = batchTracker.processRadarQueue(50).getConflicts();
+		while (singleTracker.getRadarQueueSize() != 0) {
+			IterableQueue<Aircraft> one = singleTracker.processRadarQueue(1).getConflicts();
+			if (one.size() != 0) {
+				assertEquals(one.dequeue(), batchConflicts.dequeue());
+				conflicts++;
+			}
+		}
+		assertEquals(0, batchConflicts.size());
+		assertEquals(38, conflicts);
+		assertEquals(single.getNumAircraft(), batched.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testBatchDrainPublishesAlerts() throws InterruptedException {
+		AirTrafficTracker tracker = new AirTrafficTracker(newAirSpace());
+		InMemoryAlertSink sink = new InMemoryAlertSink(16);
+		ConflictAlertPublisher publisher = new ConflictAlertPublisher(sink);
+		tracker.setAlertPublisher(publisher);
+		tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0));
+		tracker.newAircraft(new Aircraft("QF2", 1, 1, 1000, 200, 0));
+		tracker.newAircraft(new Aircraft("QF3", 1, 1, 1000, 200, 0));
+		assertEquals(2, tracker.processRadarQueue(8).getConflicts().size());
+		publisher.close();
+		assertEquals(2, sink.getNumReceived());
+		assertEquals(2, tracker.getMetrics().snapshot().getConflicts());
+	}
+
+	@Test(timeout=500)
+	public void testBlockTimesOutWhenFull() {
+		AirTrafficTracker tracker = new AirTrafficTracker(newAirSpace(), 1, OverflowPolicy.BLOCK, 10, TimeUnit.MILLISECONDS);
+		assertTrue(tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0)));
+		long start = System.nanoTime();
+		assertFalse(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10));
+		assertEquals(1, tracker.getRadarQueueSize());
+		assertNull(tracker.findQueuedAircraft("QF2"));
+		MetricsSnapshot metrics = tracker.getMetrics().snapshot();
+		assertEquals(1, metrics.getTimedOutAircraft());
+		assertEquals(0, metrics.getBlockedAircraft());
+	}
+
+	@Test(timeout=2000)
+	public void testBlockWaitsForRoom() throws InterruptedException {
+		final AirTrafficTracker tracker = new AirTrafficTracker(newAirSpace(), 1, OverflowPolicy.BLOCK, 10, TimeUnit.SECONDS);
+		assertTrue(tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0)));
+		Thread consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					return;
+				}
+				tracker.processRadarQueue(1);
+			}
+		});
+		consumer.start();
+		assertTrue(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		consumer.join();
+		assertNotNull(tracker.findPlacedAircraft("QF1"));
+		assertNotNull(tracker.findQueuedAircraft("QF2"));
+		MetricsSnapshot metrics = tracker.getMetrics().snapshot();
+		assertEquals(1, metrics.getBlockedAircraft());
+		assertEquals(0, metrics.getTimedOutAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testDropNewestWhenFull() {
+		AirSpace airSpace = newAirSpace();
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 2, OverflowPolicy.DROP_NEWEST, 0, TimeUnit.SECONDS);
+		assertTrue(tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0)));
+		assertTrue(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		assertFalse(tracker.newAircraft(new Aircraft("QF3", 3, 3, 1000, 200, 0)));
+		assertNull(tracker.findQueuedAircraft("QF3"));
+		assertEquals(2, tracker.processRadarQueue(8).getNumPlaced());
+		assertNull(airSpace.findAircraft("QF3"));
+		assertTrue(tracker.newAircraft(new Aircraft("QF3", 3, 3, 1000, 200, 0)));	// Room again
+		assertEquals(1, tracker.getMetrics().snapshot().getDroppedNewestAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testDropOldestWhenFull() {
+		AirSpace airSpace = newAirSpace();
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 2, OverflowPolicy.DROP_OLDEST, 0, TimeUnit.SECONDS);
+		assertTrue(tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0)));
+		assertTrue(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		assertTrue(tracker.newAircraft(new Aircraft("QF3", 3, 3, 1000, 200, 0)));
+		assertEquals(2, tracker.getRadarQueueSize());
+		assertNull(tracker.findQueuedAircraft("QF1"));
+		assertEquals(2, tracker.processRadarQueue(8).getNumPlaced());
+		assertNull(airSpace.findAircraft("QF1"));
+		assertNotNull(airSpace.findAircraft("QF2"));
+		assertNotNull(airSpace.findAircraft("QF3"));
+		assertEquals(1, tracker.getMetrics().snapshot().getDroppedOldestAircraft());
+	}
+
+	@Test(timeout=2000)
+	public void testDropOldestDoesNotWaitForPlacement() throws InterruptedException {
+		final CountDownLatch placing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		AirSpace airSpace = new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20)) {
+			@Override
+			public IterableQueue<Aircraft> addAircraft(IterableQueue<Aircraft> batch) {
+				placing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.addAircraft(batch);
+			}
+		};
+		final AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 1, OverflowPolicy.DROP_OLDEST, 0, TimeUnit.SECONDS);
+		tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0));
+		Thread consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				tracker.processRadarQueue(8);
+			}
+		});
+		consumer.start();
+		placing.await();	// The consumer now places its batch of QF1
+		assertTrue(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		assertTrue(tracker.newAircraft(new Aircraft("QF3", 3, 3, 1000, 200, 0)));	// Drops QF2 meanwhile
+		assertEquals(1, tracker.getMetrics().snapshot().getDroppedOldestAircraft());
+		release.countDown();
+		consumer.join();
+		assertNotNull(tracker.findPlacedAircraft("QF1"));
+		assertNull(tracker.findQueuedAircraft("QF2"));
+		assertNotNull(tracker.findQueuedAircraft("QF3"));
+	}
+
+	@Test(timeout=500)
+	public void testCoalesceKeepsLatestUpdate() {
+		AirSpace airSpace = newAirSpace();
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace, 2, OverflowPolicy.COALESCE, 0, TimeUnit.SECONDS);
+		assertTrue(tracker.newAircraft(new Aircraft("QF1", 1, 1, 1000, 200, 0)));
+		assertTrue(tracker.newAircraft(new Aircraft("QF2", 2, 2, 1000, 200, 0)));
+		Aircraft latest = new Aircraft("qf1", 5, 5, 3000, 250, 90);
+		assertTrue(tracker.newAircraft(latest));	// Replaces the first update, although the queue is full
+		assertFalse(tracker.newAircraft(new Aircraft("QF3", 3, 3, 1000, 200, 0)));
+		assertEquals(2, tracker.getRadarQueueSize());
+		assertSame(latest, tracker.findQueuedAircraft("QF1"));
+		assertEquals(2, tracker.processRadarQueue(8).getNumPlaced());
+		assertEquals(0, tracker.getRadarQueueSize());
+		assertNull(tracker.findQueuedAircraft("QF1"));	// Superseded updates are not left indexed
+		assertNull(tracker.findQueuedAircraftWithPrefix("QF"));
+		assertSame(latest, airSpace.findAircraft("QF1"));
+		assertEquals(2, airSpace.getNumAircraft());
+		assertEquals(1, airSpace.getNumAircraftAtFlightLevel(3000));
+		MetricsSnapshot metrics = tracker.getMetrics().snapshot();
+		assertEquals(1, metrics.getCoalescedAircraft());
+		assertEquals(1, metrics.getDroppedNewestAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testDroppedUpdateLeavesQueuedUpdateFound() {
+		AirTrafficTracker tracker = new AirTrafficTracker(newAirSpace(), 1, OverflowPolicy.DROP_NEWEST, 0, TimeUnit.SECONDS);
+		Aircraft queued = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		assertTrue(tracker.newAircraft(queued));
+		assertFalse(tracker.newAircraft(new Aircraft("QF1", 2, 2, 1000, 200, 0)));
+		assertSame(queued, tracker.findQueuedAircraft("QF1"));
+		assertSame(queued, tracker.findQueuedAircraftWithPrefix("qf").dequeue());
+		tracker.processRadarQueue(1);
+		assertNull(tracker.findQueuedAircraft("QF1"));
+		assertSame(queued, tracker.findPlacedAircraft("QF1"));
+	}
+
+	@Test(timeout=500)
+	public void testQueuedUpdatesFoundNewestFirst() {
+		AirTrafficTracker tracker = new AirTrafficTracker(newAirSpace());
+		Aircraft older = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		Aircraft newer = new Aircraft("qf1", 2, 2, 1000, 200, 0);
+		tracker.newAircraft(older);
+		tracker.newAircraft(newer);
+		assertSame(newer, tracker.findQueuedAircraft("QF1"));
+		tracker.processRadarQueue(1);		// Places the older update
+		assertSame(newer, tracker.findQueuedAircraft("QF1"));
+		assertSame(older, tracker.findPlacedAircraft("QF1"));
+		tracker.processRadarQueue(1);
+		assertNull(tracker.findQueuedAircraft("QF1"));
+		assertSame(newer, tracker.findPlacedAircraft("QF1"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchDrainRejectsNonPositiveMaximum() {
+		new AirTrafficTracker(newAirSpace()).processRadarQueue(0);
+	}
+}
@@ -0,0 +1,144 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+
+public class AircraftTableTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	private static Aircraft aircraftAt(String id, double x, double y, int altitude, int speed, double course) {
+		Aircraft aircraft = new Aircraft(id, (int) Math.floor(x), (int) Math.floor(y), altitude, speed, course);
+		aircraft.restorePosition(x, y);
+		return aircraft;
+	}
+
+	private static AirSpace randomAirSpace(Random random, int numAircraft, double extent) {
+		AirSpace airSpace = newAirSpace();
+		for (int i = 0; i < numAircraft; i++) {
+			airSpace.addAircraft(aircraftAt("A" + i, random.nextDouble() * extent, random.nextDouble() * extent, 
+					random.nextInt(20000), random.nextInt(300), random.nextDouble() * 360));
+		}
+		return airSpace;
+	}
+
+	private static Set<String> pairsOf(IterableQueue<Conflict> conflicts) {
+		Set<String> pairs = new HashSet<String>();
+		for (Conflict conflict : conflicts) {
+			String first = conflict.getFirst().getId();
+			String second = conflict.getSecond().getId();
+			assertTrue(pairs.add(first.compareTo(second) < 0 ? first + "|" + second : second + "|" + first));
+		}
+		return pairs;
+	}
+
+	private static void assertSameConflicts(AirSpace airSpace, AircraftTable table, double horizontalSeparation, 
+			int verticalSeparation) {
+		Set<String> expected = pairsOf(new ConflictDetector(airSpace, horizontalSeparation, verticalSeparation).sweep());
+		assertEquals(expected, pairsOf(table.findConflicts(horizontalSeparation, verticalSeparation)));
+		assertEquals(expected.size(), table.countConflicts(horizontalSeparation, verticalSeparation));
+	}
+
+	@Test(timeout=2000)
+	public void testSweepMatchesConflictDetectorOnRandomData() {
+		Random random = new Random(3506);
+		for (int trial = 0; trial < 20; trial++) {
+			// Some trials crowd the aircraft into a corner, so that every neighbouring cell is occupied.
+			AirSpace airSpace = randomAirSpace(random, 50 + random.nextInt(300), trial % 2 == 0 ? 100 : 20);
+			AircraftTable table = AircraftTable.of(airSpace);
+			assertSameConflicts(airSpace, table, ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, 
+					ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+			assertSameConflicts(airSpace, table, 1 + random.nextDouble() * 5, 100 + random.nextInt(1000));
+		}
+	}
+
+	@Test(timeout=500)
+	public void testEveryForwardNeighbourIsVisited() {
+		// One aircraft in each of the 8 hash cells around the point (1 km, 1 km, 300 m), all within the minima
+		// of each other, so every pair is in a different pair of cells and must be found exactly once.
+		AirSpace airSpace = newAirSpace();
+		int n = 0;
+		for (double x : new double[] {0.99, 1.01}) {
+			for (double y : new double[] {0.99, 1.01}) {
+				for (int altitude : new int[] {299, 300}) {
+					airSpace.addAircraft(aircraftAt("A" + n++, x, y, altitude, 0, 0));
+				}
+			}
+		}
+		AircraftTable table = AircraftTable.of(airSpace);
+		assertEquals(8 * 7 / 2, table.countConflicts(1, 300));
+		assertSameConflicts(airSpace, table, 1, 300);
+	}
+
+	@Test(timeout=500)
+	public void testRemoveMovesLastRowIntoPlace() {
+		AircraftTable table = new AircraftTable(2);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, table.add(aircraftAt("QF" + i, 10.5 + i, 20.5, 1000 * i, 200 + i, 10 * i)));
+		}
+		table.remove(1);
+		assertEquals(4, table.size());
+		assertEquals("QF4", table.getId(1));
+		Aircraft moved = table.getAircraft(1);
+		assertEquals(14, moved.getAirSpaceXCoord());
+		assertEquals(4000, moved.getAltitude());
+		assertEquals(204, moved.getSpeed());
+		assertEquals(40, moved.getCourse(), 0);
+		assertEquals(14.5, moved.getXPosition(), 0);
+		table.remove(3);		// The last row, which moves onto itself
+		assertEquals(3, table.size());
+		assertEquals("QF0", table.getId(0));
+		assertEquals("QF4", table.getId(1));
+		assertEquals("QF2", table.getId(2));
+		try {
+			table.getId(3);
+			fail();
+		} catch (IndexOutOfBoundsException expected) {
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testSweepAfterRemovalsMatchesConflictDetector() {
+		Random random = new Random(3506);
+		AirSpace airSpace = randomAirSpace(random, 300, 40);
+		AircraftTable table = AircraftTable.of(airSpace);
+		for (int i = 0; i < 150; i++) {
+			int row = random.nextInt(table.size());
+			assertTrue(airSpace.removeAircraft(airSpace.findAircraft(table.getId(row))));
+			table.remove(row);
+		}
+		assertEquals(airSpace.getNumAircraft(), table.size());
+		assertSameConflicts(airSpace, table, ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION, 
+				ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+	}
+
+	@Test(timeout=500)
+	public void testMoveMatchesAircraft() {
+		Random random = new Random(3506);
+		AirSpace airSpace = randomAirSpace(random, 100, 100);
+		AircraftTable table = AircraftTable.of(airSpace);
+		int cellChanges = 0;
+		for (int i = 0; i < airSpace.getNumAircraft(); i++) {
+			if (airSpace.getTrackedAircraft(i).move(30)) {
+				cellChanges++;
+			}
+		}
+		assertEquals(cellChanges, table.move(30));
+		for (int row = 0; row < table.size(); row++) {
+			Aircraft expected = airSpace.getTrackedAircraft(row);
+			Aircraft moved = table.getAircraft(row);
+			assertEquals(expected.getAirSpaceXCoord(), moved.getAirSpaceXCoord());
+			assertEquals(expected.getAirSpaceYCoord(), moved.getAirSpaceYCoord());
+			assertEquals(expected.getXPosition(), moved.getXPosition(), 1e-9);
+			assertEquals(expected.getYPosition(), moved.getYPosition(), 1e-9);
+		}
+	}
+}
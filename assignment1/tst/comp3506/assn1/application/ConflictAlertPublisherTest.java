@@ -0,0 +1,163 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+public class ConflictAlertPublisherTest {
+	private static ConflictAlert alertFor(String id) {
+		return new ConflictAlert(new Aircraft(id, 1, 1, 1000, 200, 0));
+	}
+
+	/**
+	 * Sink whose first delivery waits until it is released, to hold up the dispatcher.
+	 */
+	private static class StalledSink extends InMemoryAlertSink {
+		final CountDownLatch delivering = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile boolean closed = false;
+
+		StalledSink() {
+			super(16);
+		}
+
+		@Override
+		public void deliver(IterableQueue<ConflictAlert> alerts) {
+			delivering.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.deliver(alerts);
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	/**
+	 * Sink that fails every delivery and its close.
+	 */
+	private static class FailingSink implements AlertSink {
+		volatile int deliveries = 0;
+
+		@Override
+		public void deliver(IterableQueue<ConflictAlert> alerts) throws IOException {
+			deliveries++;
+			throw new IOException("Alert service unavailable");
+		}
+
+		@Override
+		public void close() {
+			throw new IllegalStateException();
+		}
+	}
+
+	@Test(timeout=500)
+	public void testDeliversToSinkInOrder() throws InterruptedException {
+		InMemoryAlertSink sink = new InMemoryAlertSink(16);
+		ConflictAlertPublisher publisher = new ConflictAlertPublisher(16, sink);
+		assertTrue(publisher.publish(alertFor("QF1")));
+		assertTrue(publisher.publish(alertFor("QF2")));
+		assertTrue(publisher.publish(alertFor("QF3")));
+		publisher.close();
+		IterableQueue<ConflictAlert> alerts = sink.getAlerts();
+		assertEquals(3, alerts.size());
+		assertEquals("QF1", alerts.dequeue().getAircraft().getId());
+		assertEquals("QF2", alerts.dequeue().getAircraft().getId());
+		assertEquals("QF3", alerts.dequeue().getAircraft().getId());
+		assertEquals(3, publisher.getPublished());
+		assertEquals(3, publisher.getDelivered());
+		assertEquals(0, publisher.getDropped());
+		assertEquals(0, publisher.getSinkFailures());
+	}
+
+	@Test(timeout=500)
+	public void testDropsWhenFull() throws InterruptedException {
+		StalledSink sink = new StalledSink();
+		ConflictAlertPublisher publisher = new ConflictAlertPublisher(2, sink);
+		assertTrue(publisher.publish(alertFor("QF1")));
+		sink.delivering.await();		// The dispatcher holds QF1, and the buffer is empty again
+		assertTrue(publisher.publish(alertFor("QF2")));
+		assertTrue(publisher.publish(alertFor("QF3")));
+		assertFalse(publisher.publish(alertFor("QF4")));
+		assertEquals(1, publisher.getDropped());
+		sink.release.countDown();
+		publisher.close();
+		assertEquals(3, publisher.getPublished());
+		assertEquals(3, publisher.getDelivered());
+		assertEquals(3, sink.getNumReceived());
+	}
+
+	@Test(timeout=500)
+	public void testCloseDrainsQueuedAlerts() throws InterruptedException {
+		final StalledSink sink = new StalledSink();
+		ConflictAlertPublisher publisher = new ConflictAlertPublisher(16, sink);
+		publisher.publish(alertFor("QF1"));
+		sink.delivering.await();
+		for (int i = 2; i <= 10; i++) {
+			publisher.publish(alertFor("QF" + i));
+		}
+		Thread releaser = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					return;
+				}
+				sink.release.countDown();
+			}
+		});
+		releaser.start();
+		publisher.close();		// Waits for the stalled delivery and the 9 alerts queued behind it
+		assertEquals(10, publisher.getDelivered());
+		assertEquals(10, sink.getNumReceived());
+		assertTrue(sink.closed);
+		assertFalse(publisher.publish(alertFor("QF11")));
+		assertEquals(1, publisher.getDropped());
+		releaser.join();
+	}
+
+	@Test(timeout=500)
+	public void testFailingSinkDoesNotStopOthers() throws InterruptedException {
+		FailingSink failing = new FailingSink();
+		InMemoryAlertSink sink = new InMemoryAlertSink(16);
+		ConflictAlertPublisher publisher = new ConflictAlertPublisher(16, failing, sink);
+		IterableQueue<Aircraft> conflicts = new RingBufferQueue<Aircraft>();
+		conflicts.enqueue(new Aircraft("QF1", 1, 1, 1000, 200, 0));
+		conflicts.enqueue(new Aircraft("QF2", 1, 1, 1000, 200, 0));
+		assertEquals(0, publisher.publish(conflicts));
+		publisher.publish(alertFor("QF3"));
+		publisher.close();
+		assertEquals(3, sink.getNumReceived());
+		assertEquals(3, publisher.getDelivered());
+		assertTrue(failing.deliveries > 0);
+		assertEquals(failing.deliveries + 1, publisher.getSinkFailures());	// Every batch, then close
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsNonPositiveCapacity() {
+		new ConflictAlertPublisher(0);
+	}
+
+	@Test(timeout=500)
+	public void testAlertDescribesTheCellItWasRaisedIn() {
+		Aircraft aircraft = new Aircraft("QF1", 1, 1, 1000, 200, 0);
+		ConflictAlert alert = new ConflictAlert(aircraft);
+		String raised = alert.toString();
+		assertTrue(aircraft.move(60));
+		assertEquals(raised, alert.toString());
+		assertEquals(1, alert.getYCoord());
+		assertTrue(raised.contains("QF1"));
+		assertTrue(raised.contains("(1, 1)"));
+	}
+}
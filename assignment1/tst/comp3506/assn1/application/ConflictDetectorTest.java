@@ -0,0 +1,111 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+
+public class ConflictDetectorTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	private static Aircraft aircraftAt(String id, double x, double y, int altitude) {
+		Aircraft aircraft = new Aircraft(id, (int) Math.floor(x), (int) Math.floor(y), altitude, 200, 0);
+		aircraft.restorePosition(x, y);
+		return aircraft;
+	}
+
+	@Test(timeout=500)
+	public void testSweepFindsPairAcrossHashCellBoundary() {
+		AirSpace airSpace = newAirSpace();
+		// 10 metres apart, either side of the first hash cell boundary at 9.26 km
+		Aircraft west = aircraftAt("QF1", 9.255, 5.5, 1000);
+		Aircraft east = aircraftAt("QF2", 9.265, 5.5, 1000);
+		airSpace.addAircraft(west);
+		airSpace.addAircraft(east);
+		airSpace.addAircraft(aircraftAt("QF3", 9.255, 5.5, 1305));	// Exactly the vertical minimum above
+		airSpace.addAircraft(aircraftAt("QF4", 50.5, 50.5, 1000));
+		IterableQueue<Conflict> conflicts = new ConflictDetector(airSpace).sweep();
+		assertEquals(1, conflicts.size());
+		Conflict conflict = conflicts.dequeue();
+		assertSame(west, conflict.getFirst());
+		assertSame(east, conflict.getSecond());
+		assertEquals(0.01, conflict.getHorizontalDistance(), 1e-9);
+		assertEquals(0, conflict.getVerticalDistance());
+	}
+
+	@Test(timeout=500)
+	public void testIncrementalInsertAndRemove() {
+		ConflictDetector detector = new ConflictDetector(newAirSpace());
+		Aircraft west = aircraftAt("QF1", 9.255, 5.5, 1000);
+		Aircraft east = aircraftAt("QF2", 9.265, 5.5, 1200);
+		assertEquals(0, detector.insert(west).size());
+		IterableQueue<Conflict> conflicts = detector.insert(east);
+		assertEquals(1, conflicts.size());
+		Conflict conflict = conflicts.dequeue();
+		assertSame(west, conflict.getFirst());
+		assertSame(east, conflict.getSecond());
+		assertEquals(200, conflict.getVerticalDistance());
+		assertTrue(detector.remove(east));
+		assertFalse(detector.remove(east));
+		assertEquals(1, detector.insert(east).size());
+		assertTrue(detector.remove(west));
+		conflicts = detector.insert(aircraftAt("QF3", 9.3, 5.5, 1000));
+		assertEquals(1, conflicts.size());
+		assertSame(east, conflicts.dequeue().getFirst());
+		detector.clear();
+		assertEquals(0, detector.insert(west).size());
+	}
+
+	@Test(timeout=2000)
+	public void testSweepMatchesEveryPairOnRandomData() {
+		Random random = new Random(3506);
+		AirSpace airSpace = newAirSpace();
+		Aircraft[] aircraft = new Aircraft[300];
+		for (int i = 0; i < aircraft.length; i++) {
+			aircraft[i] = aircraftAt("A" + i, random.nextDouble() * 100, random.nextDouble() * 100, random.nextInt(20000));
+			airSpace.addAircraft(aircraft[i]);
+		}
+		int expected = 0;
+		for (int i = 0; i < aircraft.length; i++) {
+			for (int j = i + 1; j < aircraft.length; j++) {
+				if (Math.abs(aircraft[i].getAltitude() - aircraft[j].getAltitude()) < ConflictDetector.DEFAULT_VERTICAL_SEPARATION
+						&& Math.hypot(aircraft[i].getXPosition() - aircraft[j].getXPosition(), 
+								aircraft[i].getYPosition() - aircraft[j].getYPosition()) < ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION) {
+					expected++;
+				}
+			}
+		}
+		IterableQueue<Conflict> conflicts = new ConflictDetector(airSpace).sweep();
+		assertTrue(expected > 0);
+		assertEquals(expected, conflicts.size());
+		for (Conflict conflict : conflicts) {
+			assertNotSame(conflict.getFirst(), conflict.getSecond());
+			assertTrue(conflict.getHorizontalDistance() < ConflictDetector.DEFAULT_HORIZONTAL_SEPARATION);
+			assertTrue(conflict.getVerticalDistance() < ConflictDetector.DEFAULT_VERTICAL_SEPARATION);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsNonPositiveSeparation() {
+		new ConflictDetector(newAirSpace(), 0, 300);
+	}
+
+	@Test(timeout=500)
+	public void testUpdatesOfOneAircraftDoNotConflict() {
+		ConflictDetector detector = new ConflictDetector(newAirSpace());
+		Aircraft earlier = aircraftAt("QF1", 9.255, 5.5, 1000);
+		Aircraft later = aircraftAt("qf1", 9.265, 5.5, 1000);
+		assertEquals(0, detector.insert(earlier).size());
+		assertEquals(0, detector.insert(later).size());
+		IterableQueue<Conflict> conflicts = detector.insert(aircraftAt("QF2", 9.26, 5.5, 1000));
+		assertEquals(2, conflicts.size());
+		for (Conflict conflict : conflicts) {
+			assertEquals("QF2", conflict.getSecond().getId());
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+
+public class ConflictPredictorTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	private static Aircraft aircraftAt(String id, double x, double y, int altitude, int speed, double course) {
+		Aircraft aircraft = new Aircraft(id, (int) Math.floor(x), (int) Math.floor(y), altitude, speed, course);
+		aircraft.restorePosition(x, y);
+		return aircraft;
+	}
+
+	@Test(timeout=500)
+	public void testHeadOnClosuresSoonestFirst() {
+		AirSpace airSpace = newAirSpace();
+		// 40 km apart closing at 0.5 km/s, so 9.26 km apart after 61.48 s and passing after 80 s
+		Aircraft east = aircraftAt("QF1", 20.5, 50.5, 5000, 250, 90);
+		Aircraft west = aircraftAt("QF2", 60.5, 50.5, 5000, 250, 270);
+		// 20 km apart closing at 0.5 km/s, so 9.26 km apart after 21.48 s
+		Aircraft north = aircraftAt("QF3", 80.5, 10.5, 10000, 250, 0);
+		Aircraft south = aircraftAt("QF4", 80.5, 30.5, 10000, 250, 180);
+		airSpace.addAircraft(east);
+		airSpace.addAircraft(west);
+		airSpace.addAircraft(north);
+		airSpace.addAircraft(south);
+		IterableQueue<PredictedConflict> conflicts = new ConflictPredictor(airSpace, 120).predict();
+		assertEquals(2, conflicts.size());
+		PredictedConflict first = conflicts.dequeue();
+		assertSame(north, first.getFirst());
+		assertSame(south, first.getSecond());
+		assertEquals(21.48, first.getTimeToConflict(), 1e-6);
+		assertEquals(40, first.getTimeOfClosestApproach(), 1e-6);
+		assertEquals(0, first.getHorizontalDistance(), 1e-6);
+		PredictedConflict second = conflicts.dequeue();
+		assertSame(east, second.getFirst());
+		assertSame(west, second.getSecond());
+		assertEquals(61.48, second.getTimeToConflict(), 1e-6);
+		assertEquals(80, second.getTimeOfClosestApproach(), 1e-6);
+	}
+
+	@Test(timeout=500)
+	public void testPairAlreadyInConflict() {
+		AirSpace airSpace = newAirSpace();
+		Aircraft leader = aircraftAt("QF1", 50.5, 55.5, 5000, 200, 0);
+		Aircraft follower = aircraftAt("QF2", 50.5, 50.5, 5100, 200, 0);
+		airSpace.addAircraft(leader);
+		airSpace.addAircraft(follower);
+		IterableQueue<PredictedConflict> conflicts = new ConflictPredictor(airSpace, 60).predict();
+		assertEquals(1, conflicts.size());
+		PredictedConflict conflict = conflicts.dequeue();
+		assertEquals(0, conflict.getTimeToConflict(), 0);
+		assertEquals(5, conflict.getHorizontalDistance(), 1e-9);
+		assertEquals(100, conflict.getVerticalDistance());
+	}
+
+	@Test(timeout=500)
+	public void testNoConflictForDivergingOrSeparatedPairs() {
+		AirSpace airSpace = newAirSpace();
+		// Diverging from 10 km apart
+		airSpace.addAircraft(aircraftAt("QF1", 40.5, 20.5, 5000, 250, 270));
+		airSpace.addAircraft(aircraftAt("QF2", 50.5, 20.5, 5000, 250, 90));
+		// Head-on, but at the vertical minimum apart
+		airSpace.addAircraft(aircraftAt("QF3", 20.5, 50.5, 5000, 250, 90));
+		airSpace.addAircraft(aircraftAt("QF4", 60.5, 50.5, 5305, 250, 270));
+		// Head-on, but only closer than the minimum after the horizon
+		airSpace.addAircraft(aircraftAt("QF5", 10.5, 90.5, 10000, 250, 90));
+		airSpace.addAircraft(aircraftAt("QF6", 90.5, 90.5, 10000, 250, 270));
+		assertEquals(0, new ConflictPredictor(airSpace, 120).predict().size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsNegativeHorizon() {
+		new ConflictPredictor(newAirSpace(), -1);
+	}
+}
@@ -0,0 +1,43 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test(timeout=500)
+	public void testPercentilesWithinBucketError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long nanos = 1; nanos <= 1000; nanos++) {
+			histogram.record(nanos * 1000);
+		}
+		long[] counts = histogram.copyCounts();
+		assertPercentile(500000, LatencyHistogram.percentile(counts, 0.5));
+		assertPercentile(900000, LatencyHistogram.percentile(counts, 0.9));
+		assertPercentile(990000, LatencyHistogram.percentile(counts, 0.99));
+		assertPercentile(999000, LatencyHistogram.percentile(counts, 0.999));
+		assertPercentile(1000000, LatencyHistogram.percentile(counts, 1));
+	}
+
+	private static void assertPercentile(long expected, long actual) {
+		assertTrue(actual + " below " + expected, actual >= expected);
+		assertTrue(actual + " too far above " + expected, actual <= expected + expected / 8);
+	}
+
+	@Test(timeout=500)
+	public void testSmallLatenciesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(3);
+		histogram.record(7);
+		long[] counts = histogram.copyCounts();
+		assertEquals(0, LatencyHistogram.percentile(counts, 0.3));
+		assertEquals(3, LatencyHistogram.percentile(counts, 0.5));
+		assertEquals(7, LatencyHistogram.percentile(counts, 1));
+	}
+
+	@Test(timeout=500)
+	public void testEmptyHistogram() {
+		assertEquals(0, LatencyHistogram.percentile(new LatencyHistogram().copyCounts(), 0.99));
+	}
+}
@@ -0,0 +1,111 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import comp3506.assn1.adts.Cube;
+import comp3506.assn1.adts.HashedCube;
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.VersionedCube;
+
+public class MovementEngineTest {
+	@Test(timeout=500)
+	public void testTickReindexesAircraftThatChangeCell() {
+		Cube<Aircraft> map = new HashedCube<>(100, 100, 20);
+		AirSpace airSpace = new AirSpace(100, 100, 20, map);
+		Aircraft east = new Aircraft("QF1", 10, 10, 3000, 3600, 90);
+		Aircraft slow = new Aircraft("QF2", 20, 20, 3000, 100, 0);
+		airSpace.addAircraft(east);
+		airSpace.addAircraft(slow);
+		MovementEngine engine = new MovementEngine(airSpace);
+		assertEquals(1, engine.tick(1));
+		assertEquals(14, east.getAirSpaceXCoord());
+		assertEquals(10, east.getAirSpaceYCoord());
+		assertEquals(14.1, east.getXPosition(), 1e-9);
+		assertNull(map.get(10, 10, 3));
+		assertSame(east, map.get(14, 10, 3));
+		assertEquals(20.6, slow.getYPosition(), 1e-9);
+		assertSame(slow, map.get(20, 20, 3));
+		assertEquals(2, airSpace.getNumAircraft());
+	}
+
+	@Test(timeout=500)
+	public void testAircraftLeavingAirspaceAreRemoved() {
+		Cube<Aircraft> map = new HashedCube<>(100, 100, 20);
+		AirSpace airSpace = new AirSpace(100, 100, 20, map);
+		Aircraft leaving = new Aircraft("QF1", 99, 50, 1000, 3600, 90);
+		Aircraft south = new Aircraft("QF2", 50, 0, 1000, 1000, 180);
+		Aircraft staying = new Aircraft("QF3", 50, 50, 1000, 0, 0);
+		airSpace.addAircraft(leaving);
+		airSpace.addAircraft(south);
+		airSpace.addAircraft(staying);
+		assertEquals(2, new MovementEngine(airSpace).tick(1));
+		assertEquals(1, airSpace.getNumAircraft());
+		assertSame(staying, airSpace.getTrackedAircraft(0));
+		assertNull(airSpace.findAircraft("QF1"));
+		assertNull(airSpace.findAircraft("QF2"));
+		assertNull(map.get(99, 50, 1));
+		assertNull(map.get(50, 0, 1));
+		assertFalse(map.remove(leaving));
+	}
+
+	@Test(timeout=5000)
+	public void testTickSplitsLargeAirspacesAcrossTasks() {
+		Cube<Aircraft> map = new HashedCube<>(100, 100, 20);
+		AirSpace airSpace = new AirSpace(100, 100, 20, map);
+		int numAircraft = 10000;
+		Aircraft[] aircraft = new Aircraft[numAircraft];
+		for (int i = 0; i < numAircraft; i++) {
+			aircraft[i] = new Aircraft("VH" + i, i % 50, i % 97, 1000 * (i % 20), 1000, 90);
+			airSpace.addAircraft(aircraft[i]);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(numAircraft, new MovementEngine(airSpace, pool).tick(1));
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(numAircraft, airSpace.getNumAircraft());
+		for (int i = 0; i < numAircraft; i++) {
+			assertEquals(i % 50 + 1, aircraft[i].getAirSpaceXCoord());
+			assertTrue(map.getAll(i % 50 + 1, i % 97, i % 20).size() > 0);
+		}
+		assertNull(map.getWithin(0, 0, 0, 0, 99, 19));
+	}
+
+	@Test(timeout=500)
+	public void testSnapshotsKeepPositionsAsAircraftMove() {
+		AirSpace airSpace = new AirSpace(100, 100, 20, new VersionedCube<Aircraft>(100, 100, 20));
+		Aircraft east = new Aircraft("QF1", 10, 10, 3000, 3600, 90);
+		Aircraft slow = new Aircraft("QF2", 20, 20, 3000, 100, 0);
+		Aircraft sharing = new Aircraft("QF3", 20, 20, 3000, 0, 0);
+		airSpace.addAircraft(east);
+		airSpace.addAircraft(slow);
+		airSpace.addAircraft(sharing);
+		AirSpaceSnapshot before = airSpace.snapshot();
+		assertEquals(1, new MovementEngine(airSpace).tick(1));
+		Aircraft frozenEast = before.getAircraftAt(10, 10, 3000).dequeue();
+		assertNotSame(east, frozenEast);
+		assertEquals(east, frozenEast);
+		assertEquals(10, frozenEast.getAirSpaceXCoord());
+		assertEquals(10.5, frozenEast.getXPosition(), 1e-9);
+		assertEquals(20.5, before.getAircraftAt(20, 20, 3000).dequeue().getYPosition(), 1e-9);
+		AirSpaceSnapshot after = airSpace.snapshot();
+		assertNull(after.getAircraftAt(10, 10, 3000));
+		assertEquals(14.1, after.getAircraftAt(14, 10, 3000).dequeue().getXPosition(), 1e-9);
+		IterableQueue<Aircraft> cell = after.getAircraftAt(20, 20, 3000);
+		assertEquals(2, cell.size());
+		assertEquals(20.6, cell.dequeue().getYPosition(), 1e-9);	// Replaced where it was in the cell
+		assertEquals(sharing, cell.dequeue());
+		assertSame(sharing, airSpace.getNearestAircraft(slow, 1).dequeue());	// Queries return the live aircraft
+		assertSame(east, airSpace.getAircraftInBand(10, 10, 14, 10, 3000, 3000).dequeue());
+		IterableQueue<Aircraft> near = after.getAircraftWithin(slow, 0.5);	// Without the copy of slow
+		assertEquals(1, near.size());
+		assertEquals(sharing, near.dequeue());
+		assertTrue(airSpace.removeAircraft(slow));
+		assertEquals(3, before.getNumAircraft());
+		assertEquals(2, airSpace.snapshot().getNumAircraft());
+	}
+}
@@ -0,0 +1,153 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import comp3506.assn1.adts.HashedCube;
+
+public class RecordedRadarTest {
+	private static AirSpace newAirSpace() {
+		return new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20));
+	}
+
+	private static Aircraft[] recordedAircraft(int numAircraft) {
+		Aircraft[] aircraft = new Aircraft[numAircraft];
+		for (int i = 0; i < numAircraft; i++) {
+			// Ids repeat, so the id table is shared between records
+			aircraft[i] = new Aircraft("QF" + (i % 4), i % 100, (i * 7) % 100, (i % 20) * 1000, 200 + i, i * 1.5);
+		}
+		return aircraft;
+	}
+
+	private static Path record(Aircraft[] aircraft) throws IOException {
+		Path file = Files.createTempFile("radar", ".rec");
+		try (RadarRecorder recorder = new RadarRecorder(file)) {
+			for (Aircraft a : aircraft) {
+				recorder.record(a);
+			}
+			assertEquals(aircraft.length, recorder.getNumRecords());
+		}
+		return file;
+	}
+
+	private static void assertReplayed(Aircraft[] recorded, int recordsPerWindow) throws IOException {
+		Path file = record(recorded);
+		try {
+			AirSpace airSpace = newAirSpace();
+			AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+			RecordedRadar radar = new RecordedRadar(tracker, "R1", file, recordsPerWindow);
+			assertEquals(recorded.length, radar.remaining());
+			int replayed = 0;
+			while (radar.aircraftIdentified()) {
+				replayed++;
+			}
+			assertEquals(recorded.length, replayed);
+			assertEquals(0, radar.remaining());
+			assertFalse(radar.aircraftIdentified());
+			assertEquals(recorded.length, tracker.getMetrics().snapshot().getRadarSiteIdentifiedAircraft()[0]);
+			assertEquals(recorded.length, tracker.processRadarQueue(recorded.length).getNumPlaced());
+			for (int i = 0; i < recorded.length; i++) {
+				Aircraft expected = recorded[i];
+				Aircraft a = airSpace.getTrackedAircraft(i);
+				assertEquals(expected.getId(), a.getId());
+				assertEquals(expected.getAirSpaceXCoord(), a.getAirSpaceXCoord());
+				assertEquals(expected.getAirSpaceYCoord(), a.getAirSpaceYCoord());
+				assertEquals(expected.getAltitude(), a.getAltitude());
+				assertEquals(expected.getSpeed(), a.getSpeed());
+				assertEquals(expected.getCourse(), a.getCourse(), 0);
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testRecordAndReplay() throws IOException {
+		assertReplayed(recordedAircraft(50), RecordedRadar.DEFAULT_RECORDS_PER_WINDOW);
+	}
+
+	@Test(timeout=2000)
+	public void testReplayAcrossWindows() throws IOException {
+		assertReplayed(recordedAircraft(10), 3);	// Windows of 3, 3, 3 and 1 records
+		assertReplayed(recordedAircraft(9), 3);
+		assertReplayed(recordedAircraft(1), 1);
+	}
+
+	@Test(timeout=2000)
+	public void testEmptyRecording() throws IOException {
+		Path file = record(new Aircraft[0]);
+		try {
+			RecordedRadar radar = new RecordedRadar(new AirTrafficTracker(newAirSpace()), "R1", file);
+			assertEquals(0, radar.remaining());
+			assertFalse(radar.aircraftIdentified());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testRecordAfterClose() throws IOException {
+		Path file = Files.createTempFile("radar", ".rec");
+		try {
+			RadarRecorder recorder = new RadarRecorder(file);
+			recorder.close();
+			recorder.close();
+			try {
+				recorder.record(new Aircraft("QF1", 1, 1, 1000, 200, 0));
+				fail();
+			} catch (IllegalStateException expected) {
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testHeaderValidation() throws IOException {
+		// Header: magic, version, record count (long), id count, id table offset (long), padding
+		assertNotOpened(0, 0x12345678);				// Magic
+		assertNotOpened(4, RadarRecorder.VERSION + 1);
+		assertNotOpened(12, 0x01000000);				// Record count no longer matches the id table offset
+		assertNotOpened(16, Integer.MAX_VALUE);		// More ids than the table can hold
+		assertNotOpened(16, -1);
+		Path file = record(recordedAircraft(5));
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.setLength(raf.length() - 1);	// Cuts the last id short
+			}
+			assertNotOpened(file);
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.setLength(RadarRecorder.HEADER_SIZE - 1);
+			}
+			assertNotOpened(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertNotOpened(long offset, int value) throws IOException {
+		Path file = record(recordedAircraft(5));
+		try {
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.seek(offset);
+				raf.writeInt(value);
+			}
+			assertNotOpened(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertNotOpened(Path file) {
+		try {
+			new RecordedRadar(new AirTrafficTracker(newAirSpace()), "R1", file);
+			fail();
+		} catch (IOException expected) {
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import comp3506.assn1.adts.IterableQueue;
+import comp3506.assn1.adts.RingBufferQueue;
+
+public class ShardedAirSpaceTest {
+	private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	private static ShardedAirSpace newAirSpace() {
+		return new ShardedAirSpace(100, 100, 20, 10, POOL);
+	}
+
+	private static Aircraft aircraftAt(String id, double x, double y, int altitude) {
+		Aircraft aircraft = new Aircraft(id, (int) Math.floor(x), (int) Math.floor(y), altitude, 200, 0);
+		aircraft.restorePosition(x, y);
+		return aircraft;
+	}
+
+	private static Aircraft[] randomAircraft(int numAircraft, long seed) {
+		Random random = new Random(seed);
+		Aircraft[] aircraft = new Aircraft[numAircraft];
+		for (int i = 0; i < numAircraft; i++) {
+			aircraft[i] = aircraftAt("A" + i, random.nextDouble() * 100, random.nextDouble() * 100, random.nextInt(20000));
+		}
+		return aircraft;
+	}
+
+	private static Set<String> pairsOf(IterableQueue<Conflict> conflicts) {
+		Set<String> pairs = new HashSet<String>();
+		for (Conflict conflict : conflicts) {
+			String first = conflict.getFirst().getId();
+			String second = conflict.getSecond().getId();
+			assertTrue(pairs.add(first.compareTo(second) < 0 ? first + "|" + second : second + "|" + first));
+		}
+		return pairs;
+	}
+
+	@Test(timeout=2000)
+	public void testBatchAddMatchesAirSpace() {
+		Random random = new Random(3506);
+		IterableQueue<Aircraft> shardedBatch = new RingBufferQueue<Aircraft>();
+		IterableQueue<Aircraft> plainBatch = new RingBufferQueue<Aircraft>();
+		for (int i = 0; i < 500; i++) {
+			// Few enough cells that many aircraft share one
+			Aircraft aircraft = new Aircraft("A" + i, random.nextInt(20) * 5, random.nextInt(20) * 5, 
+					random.nextInt(3) * 1000, 200, 0);
+			shardedBatch.enqueue(aircraft);
+			plainBatch.enqueue(aircraft.copy());
+		}
+		ShardedAirSpace sharded = newAirSpace();
+		AirSpace plain = new AirSpace(100, 100, 20);
+		IterableQueue<Aircraft> shardedConflicts = sharded.addAircraft(shardedBatch);
+		IterableQueue<Aircraft> plainConflicts = plain.addAircraft(plainBatch);
+		assertTrue(plainConflicts.size() > 0);
+		assertEquals(plainConflicts.size(), shardedConflicts.size());
+		for (Aircraft aircraft : plainConflicts) {
+			assertEquals(aircraft.getId(), shardedConflicts.dequeue().getId());
+		}
+		assertEquals(plain.getNumAircraft(), sharded.getNumAircraft());
+		Aircraft probe = new Aircraft("probe", 50, 50, 1000, 200, 0);
+		assertEquals(plain.getAircraftWithin(probe, 20).size(), sharded.getAircraftWithin(probe, 20).size());
+	}
+
+	@Test(timeout=500)
+	public void testConflictsAcrossTileBoundaries() {
+		ShardedAirSpace airSpace = newAirSpace();
+		airSpace.addAircraft(aircraftAt("QF1", 9.9, 55.5, 1000));	// Either side of the x = 10 km edge
+		airSpace.addAircraft(aircraftAt("QF2", 10.1, 55.5, 1000));
+		airSpace.addAircraft(aircraftAt("QF3", 39.5, 39.5, 5000));	// Diagonally across the corner at (40, 40)
+		airSpace.addAircraft(aircraftAt("QF4", 40.5, 40.5, 5000));
+		airSpace.addAircraft(aircraftAt("QF5", 79.5, 20.5, 9000));	// Across the corner at (80, 20) the other way
+		airSpace.addAircraft(aircraftAt("QF6", 80.5, 19.5, 9000));
+		airSpace.addAircraft(aircraftAt("QF7", 70.5, 70.5, 9000));	// 9.5 km from the closest, so separated
+		airSpace.addAircraft(aircraftAt("QF8", 80.0, 70.5, 9000));
+		Set<String> pairs = pairsOf(airSpace.findConflicts());
+		assertEquals(3, pairs.size());
+		assertTrue(pairs.contains("QF1|QF2"));
+		assertTrue(pairs.contains("QF3|QF4"));
+		assertTrue(pairs.contains("QF5|QF6"));
+	}
+
+	@Test(timeout=2000)
+	public void testFindConflictsMatchesSweep() {
+		ShardedAirSpace airSpace = newAirSpace();
+		for (Aircraft aircraft : randomAircraft(400, 3506)) {
+			airSpace.addAircraft(aircraft);
+		}
+		Set<String> expected = pairsOf(new ConflictDetector(airSpace).sweep());
+		assertTrue(expected.size() > 0);
+		assertEquals(expected, pairsOf(airSpace.findConflicts()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsMinimumWiderThanTile() {
+		newAirSpace().findConflicts(11, 300);
+	}
+
+	@Test(timeout=2000)
+	public void testRejectedBatchPlacesOnlyTheAircraftBeforeIt() {
+		Aircraft owned = aircraftAt("QF9", 50, 50, 1000);
+		newAirSpace().addAircraft(owned);
+		ShardedAirSpace airSpace = newAirSpace();
+		IterableQueue<Aircraft> batch = new RingBufferQueue<Aircraft>();
+		Aircraft first = aircraftAt("QF1", 1.5, 1.5, 1000);
+		Aircraft second = aircraftAt("QF2", 95.5, 95.5, 1000);
+		batch.enqueue(first);
+		batch.enqueue(second);
+		batch.enqueue(owned);
+		batch.enqueue(aircraftAt("QF3", 2.5, 2.5, 1000));
+		try {
+			airSpace.addAircraft(batch);
+			fail();
+		} catch (IllegalStateException expected) {
+		}
+		assertEquals(2, airSpace.getNumAircraft());
+		assertSame(first, airSpace.findAircraft("QF1"));
+		assertSame(second, airSpace.findAircraft("QF2"));
+		assertNull(airSpace.findAircraft("QF3"));
+		assertEquals(2, airSpace.getNumAircraftInBand(0, 20000));
+		assertNull(airSpace.getAircraftWithin(owned, 0));
+	}
+}
@@ -0,0 +1,47 @@
+package comp3506.assn1.application;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import comp3506.assn1.adts.HashedCube;
+
+public class TrackerMetricsTest {
+	private static TrackerMetrics newMetrics() {
+		return new AirTrafficTracker(new AirSpace(100, 100, 20, new HashedCube<Aircraft>(100, 100, 20))).getMetrics();
+	}
+
+	@Test(timeout=500)
+	public void testSnapshotsDoNotDisturbEachOther() throws InterruptedException {
+		TrackerMetrics metrics = newMetrics();
+		int site = metrics.registerRadarSite("R1");
+		metrics.conflictsFound(4);
+		metrics.aircraftIdentified(site, 1);
+		MetricsSnapshot earlier = metrics.snapshot();
+		Thread.sleep(20);
+		metrics.conflictsFound(6);
+		metrics.aircraftIdentified(site, 1);
+		metrics.aircraftIdentified(site, 1);
+		MetricsSnapshot overJmx = metrics.getSnapshot();
+		assertEquals(metrics.getSnapshot().getConflicts(), overJmx.getConflicts());
+		MetricsSnapshot windowed = metrics.snapshot(earlier);
+		// The JMX reads in between have not moved the window.
+		assertEquals(10, windowed.getConflicts());
+		assertEquals(6, windowed.getConflictsPerSecond() * windowed.getIntervalSeconds(), 1e-6);
+		assertEquals(2, windowed.getRadarSiteIngestRates()[0] * windowed.getIntervalSeconds(), 1e-6);
+		assertEquals(3, windowed.getRadarSiteIdentifiedAircraft()[0]);
+		MetricsSnapshot sinceStart = metrics.snapshot();
+		assertTrue(sinceStart.getIntervalSeconds() > windowed.getIntervalSeconds());
+		assertEquals(10, sinceStart.getConflictsPerSecond() * sinceStart.getIntervalSeconds(), 1e-6);
+	}
+
+	@Test(timeout=500)
+	public void testSitesRegisteredAfterEarlierSnapshot() {
+		TrackerMetrics metrics = newMetrics();
+		MetricsSnapshot earlier = metrics.snapshot();
+		int site = metrics.registerRadarSite("R1");
+		metrics.aircraftIdentified(site, 1);
+		MetricsSnapshot windowed = metrics.snapshot(earlier);
+		assertArrayEquals(new String[] {"R1"}, windowed.getRadarSites());
+		assertEquals(1, windowed.getRadarSiteIngestRates()[0] * windowed.getIntervalSeconds(), 1e-6);
+	}
+}